@@ -10,6 +10,7 @@ plugins {
   application
   id("org.beryx.runtime") version "1.13.1"
   id("org.javacc.javacc") version "4.0.1"
+  id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -89,8 +90,38 @@ application {
 }
 
 tasks.named<Test>("test") {
-  // Use JUnit Platform for unit tests.
-  useJUnitPlatform()
+  // Use JUnit Platform for unit tests. The scale tests take a while, so they have their own task.
+  useJUnitPlatform {
+    excludeTags("scale")
+  }
+}
+
+val scaleTest by tasks.registering(Test::class) {
+  description = "Checks time and memory budgets on a large generated project."
+  group = "verification"
+  testClassesDirs = sourceSets.test.get().output.classesDirs
+  classpath = sourceSets.test.get().runtimeClasspath
+  useJUnitPlatform {
+    includeTags("scale")
+  }
+  maxHeapSize = "1g"
+}
+
+////////////////
+// Benchmarks //
+////////////////
+
+// The benchmarks are in src/jmh/java; run them with ./gradlew jmh
+jmh {
+  jmhVersion = libs.versions.jmh
+  // the project benchmarks use the synthetic agent from the tests
+  includeTests = true
+  fork = 1
+  warmupIterations = 3
+  iterations = 5
+  // machine-readable, so that runs can be compared over time
+  resultFormat = "JSON"
+  resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
 }
 
 //////////////////////////////
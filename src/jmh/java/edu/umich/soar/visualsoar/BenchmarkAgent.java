@@ -0,0 +1,64 @@
+package edu.umich.soar.visualsoar;
+
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.graph.SoarVertex;
+
+import java.nio.file.Path;
+
+/**
+ * A made-up agent for the benchmarks to work on: a rule file of any number of productions and a
+ * datamap that they match, except that every tenth production tests an attribute the datamap does
+ * not have, so the checker's error path is exercised too. The same size always gives the same
+ * agent.
+ */
+public final class BenchmarkAgent {
+  private static final String NAME = "bench";
+
+  /** How many sensors the input-link has */
+  private static final int SENSORS = 20;
+
+  private BenchmarkAgent() {}
+
+  /** @return the text of a rule file with the given number of productions */
+  public static String rules(int productions) {
+    StringBuilder sb = new StringBuilder(productions * 320);
+    for (int i = 0; i < productions; i++) {
+      int sensor = i % SENSORS;
+      String attribute = i % 10 == 9 ? "missing-" + i : "value";
+      sb.append("# proposes op-").append(i).append('\n')
+          .append("sp {").append(NAME).append("*propose*op-").append(i).append('\n')
+          .append("   (state <s> ^type state\n")
+          .append("              ^name ").append(NAME).append('\n')
+          .append("              ^io.input-link <il>)\n")
+          .append("   (<il> ^sensor-").append(sensor).append(" <x>)\n")
+          .append("   (<x> ^").append(attribute).append(" { <v> > ").append(i % 7).append(" })\n")
+          .append("-->\n")
+          .append("   (<s> ^operator <o> + =)\n")
+          .append("   (<o> ^name op-").append(i).append("\n")
+          .append("        ^value <v>\n")
+          .append("        ^label |sensor ").append(sensor).append("|)}\n\n");
+    }
+    return sb.toString();
+  }
+
+  /** @return a datamap that the productions from {@link #rules(int)} match */
+  public static SoarWorkingMemoryModel dataMap(int productions, Path dmPath) {
+    SoarWorkingMemoryModel swmm = new SoarWorkingMemoryModel(true, NAME, dmPath);
+    SoarIdentifierVertex topState = swmm.getTopstate();
+    SoarVertex inputLink = swmm.getProperty("INPUTLINK");
+    for (int sensor = 0; sensor < SENSORS; sensor++) {
+      SoarIdentifierVertex x = swmm.createNewSoarId();
+      swmm.addTriple(inputLink, "sensor-" + sensor, x);
+      swmm.addTriple(x, "value", swmm.createNewInteger());
+    }
+    for (int i = 0; i < productions; i++) {
+      SoarIdentifierVertex operator = swmm.createNewSoarId();
+      swmm.addTriple(topState, "operator", operator);
+      swmm.addTriple(operator, "name", swmm.createNewEnumeration("op-" + i));
+      swmm.addTriple(operator, "value", swmm.createNewInteger());
+      swmm.addTriple(operator, "label", swmm.createNewString());
+    }
+    return swmm;
+  }
+}
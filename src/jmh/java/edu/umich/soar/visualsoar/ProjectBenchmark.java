@@ -0,0 +1,83 @@
+package edu.umich.soar.visualsoar;
+
+import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * How long opening, checking, saving and searching a whole project take, on a {@link
+ * SyntheticAgent} with three levels of operators. A width of 4 gives about 1000 productions, and a
+ * width of 8 about 7000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectBenchmark {
+  @Param({"4", "8"})
+  public int width;
+
+  private Path directory;
+  private SyntheticAgent agent;
+  private ProjectModel project;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("benchmark");
+    agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options()
+                .depth(3)
+                .width(width)
+                .productionsPerFile(10)
+                .datamapVertices(20_000)
+                .fanOut(8)
+                .errorPercent(2),
+            directory);
+    project = ProjectModel.openExistingProject(agent.getProjectFile());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public ProjectModel open() throws IOException {
+    return ProjectModel.openExistingProject(agent.getProjectFile());
+  }
+
+  @Benchmark
+  public List<FeedbackListEntry> checkAllProductions() throws IOException {
+    return CheckAllProductionsAction.checkAllProductions(project);
+  }
+
+  @Benchmark
+  public void save() throws IOException {
+    project.writeProject(directory.resolve("copy.vsa.json").toFile());
+  }
+
+  @Benchmark
+  public List<FeedbackListEntry> findInProject() {
+    return project.fileIndex().find("^attr-3", true);
+  }
+}
@@ -0,0 +1,63 @@
+package edu.umich.soar.visualsoar.datamap;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import edu.umich.soar.visualsoar.parser.ParseException;
+import edu.umich.soar.visualsoar.parser.SoarParser;
+import edu.umich.soar.visualsoar.parser.SoarProduction;
+import edu.umich.soar.visualsoar.parser.TriplesExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long checking one production against the datamap takes. The datamap grows with the number
+ * of productions, so the sizes show how the check scales with it. One production in ten has an
+ * error.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataMapCheckerBenchmark {
+  @Param({"100", "1000"})
+  public int productions;
+
+  private SoarWorkingMemoryModel dataMap;
+  private final List<SoarProduction> parsed = new ArrayList<>();
+  private final List<TriplesExtractor> extractors = new ArrayList<>();
+  private int next = 0;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setUp() throws ParseException {
+    dataMap = BenchmarkAgent.dataMap(productions, Paths.get("bench.dm"));
+    parsed.addAll(
+        new SoarParser(new StringReader(BenchmarkAgent.rules(productions))).VisualSoarFile());
+    for (SoarProduction sp : parsed) {
+      extractors.add(new TriplesExtractor(sp));
+    }
+  }
+
+  /** Checks the next production, as the checker in the editor does */
+  @Benchmark
+  public DefaultCheckerErrorHandler check() {
+    int i = next;
+    next = (next + 1) % parsed.size();
+    SoarProduction sp = parsed.get(i);
+    DefaultCheckerErrorHandler errors =
+        new DefaultCheckerErrorHandler(null, sp.getName(), sp.getStartLine());
+    // don't mark the datamap, so that every iteration does the same work
+    DataMapChecker.check(dataMap, dataMap.getTopstate(), extractors.get(i), errors, false);
+    return errors;
+  }
+}
@@ -0,0 +1,55 @@
+package edu.umich.soar.visualsoar.datamap;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import edu.umich.soar.visualsoar.files.projectjson.Datamap;
+import edu.umich.soar.visualsoar.files.projectjson.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** How long saving the datamap to a project file and loading it back take. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DatamapJsonBenchmark {
+  /** The datamap has about four vertices per production */
+  @Param({"1000", "10000"})
+  public int productions;
+
+  private Path file;
+  private SoarWorkingMemoryModel dataMap;
+  private Datamap json;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("benchmark", ".json");
+    dataMap = BenchmarkAgent.dataMap(productions, file);
+    json = dataMap.toJson();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public void toJsonAndWrite() throws IOException {
+    Json.writeJsonToFile(file, dataMap.toJson());
+  }
+
+  @Benchmark
+  public SoarWorkingMemoryModel loadFromJson() {
+    return SoarWorkingMemoryReader.loadFromJson(json, file);
+  }
+}
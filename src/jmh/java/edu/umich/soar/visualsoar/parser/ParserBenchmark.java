@@ -0,0 +1,54 @@
+package edu.umich.soar.visualsoar.parser;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How fast a whole rule file is parsed, and how fast the triples are then pulled out of its
+ * productions, which is what every datamap check and completion starts with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParserBenchmark {
+  @Param({"100", "1000"})
+  public int productions;
+
+  private String rules;
+  private List<SoarProduction> parsed;
+
+  @Setup
+  public void setUp() throws ParseException {
+    rules = BenchmarkAgent.rules(productions);
+    parsed = parse();
+  }
+
+  @Benchmark
+  public List<SoarProduction> visualSoarFile() throws ParseException {
+    return parse();
+  }
+
+  @Benchmark
+  public void triplesExtractor(Blackhole blackhole) {
+    for (SoarProduction sp : parsed) {
+      blackhole.consume(new TriplesExtractor(sp));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<SoarProduction> parse() throws ParseException {
+    return new SoarParser(new StringReader(rules)).VisualSoarFile();
+  }
+}
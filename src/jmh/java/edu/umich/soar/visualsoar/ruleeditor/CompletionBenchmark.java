@@ -0,0 +1,74 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import edu.umich.soar.visualsoar.components.AutocompleteContext;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.swing.text.BadLocationException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long completions take while typing an attribute at the end of a large rule file. The times
+ * are sampled, so that the results include the percentiles that typing is judged by. Finding the
+ * production before the caret is the part done on the event dispatch thread; a keystroke is the
+ * whole request as the user types, mostly answered from the caches; and an uncached completion
+ * matches the production against the datamap again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompletionBenchmark {
+  private static final String TYPED = "superstate";
+
+  /** 16,000 productions make a file of about 5 MB */
+  @Param({"1000", "16000"})
+  public int productions;
+
+  private SoarDocument document;
+  private SoarWorkingMemoryModel dataMap;
+  private CompletionService service;
+  private String[] keystrokes;
+  private int next = 0;
+
+  @Setup
+  public void setUp() throws BadLocationException {
+    document = new SoarDocument();
+    document.insertString(
+        0, BenchmarkAgent.rules(productions) + "sp {bench*typing\n   (state <s> ^", null);
+    dataMap = BenchmarkAgent.dataMap(100, Paths.get("bench.dm"));
+    service = new CompletionService();
+
+    String production = SoarAutocomplete.productionBeforeCaret(document, document.getLength());
+    keystrokes = new String[TYPED.length() + 1];
+    for (int i = 0; i < keystrokes.length; i++) {
+      keystrokes[i] = production + TYPED.substring(0, i);
+    }
+  }
+
+  @Benchmark
+  public String productionBeforeCaret() throws BadLocationException {
+    return SoarAutocomplete.productionBeforeCaret(document, document.getLength());
+  }
+
+  /** Completes the next of the prefixes of the attribute, starting over once it is typed */
+  @Benchmark
+  public AutocompleteContext keystroke() {
+    String production = keystrokes[next];
+    next = (next + 1) % keystrokes.length;
+    return service.complete(production, dataMap, dataMap.getTopstate());
+  }
+
+  @Benchmark
+  public AutocompleteContext uncached() {
+    return new CompletionService().complete(keystrokes[0], dataMap, dataMap.getTopstate());
+  }
+}
@@ -0,0 +1,43 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.swing.text.BadLocationException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long coloring the syntax of a whole rule file takes, as happens when a file is opened or the
+ * colors are changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecolorBenchmark {
+  @Param({"100", "1000"})
+  public int productions;
+
+  private SoarDocument document;
+  private String rules;
+
+  @Setup
+  public void setUp() throws BadLocationException {
+    rules = BenchmarkAgent.rules(productions);
+    document = new SoarDocument();
+    document.insertString(0, rules, null);
+  }
+
+  @Benchmark
+  public SoarDocument recolor() {
+    document.colorSyntaxNow(new StringReader(rules));
+    return document;
+  }
+}
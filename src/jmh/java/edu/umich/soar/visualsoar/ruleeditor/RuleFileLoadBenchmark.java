@@ -0,0 +1,50 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.BenchmarkAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How long opening a rule file in an editor takes, from reading the file to coloring its syntax.
+ * The file is indented with tabs, which are expanded as it is read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RuleFileLoadBenchmark {
+  /** 16,000 productions make a file of about 5 MB */
+  @Param({"1000", "16000"})
+  public int productions;
+
+  private Path file;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("benchmark", ".soar");
+    Files.writeString(file, BenchmarkAgent.rules(productions).replace("   ", "\t"));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public EditorPane read() throws IOException {
+    EditorPane editorPane = new EditorPane();
+    editorPane.read(file);
+    return editorPane;
+  }
+}
@@ -0,0 +1,46 @@
+package edu.umich.soar.visualsoar;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The order of siblings in the operator hierarchy: the pinned nodes first, then alphabetically
+ * (ignoring case) within the groups [Files], [Operators], [Impasses]. The operator window orders
+ * its nodes this way, and the command-line checks order the project layout the same way without
+ * loading the user interface.
+ */
+public final class ChildOrder {
+  /** The groups of siblings, in order */
+  public enum Group {
+    FILES,
+    OPERATORS,
+    IMPASSES
+  }
+
+  /** Names of the nodes that are always listed first, in this order, under their parent. */
+  private static final List<String> PINNED_CHILD_NAMES =
+      Arrays.asList("_firstload", "all", "elaborations");
+
+  private ChildOrder() {}
+
+  /**
+   * @param name the name of a node, as shown in the operator window
+   * @param group the group a node belongs to if it is not pinned
+   * @return a comparator that puts nodes in sibling order
+   */
+  public static <T> Comparator<T> comparing(Function<T, String> name, Function<T, Group> group) {
+    return Comparator.<T>comparingInt(node -> rank(name.apply(node), group.apply(node)))
+        .thenComparing(name, String.CASE_INSENSITIVE_ORDER)
+        .thenComparing(name);
+  }
+
+  private static int rank(String name, Group group) {
+    int pinned = PINNED_CHILD_NAMES.indexOf(name);
+    if (pinned >= 0) {
+      return pinned;
+    }
+    return PINNED_CHILD_NAMES.size() + group.ordinal();
+  }
+}
@@ -0,0 +1,18 @@
+package edu.umich.soar.visualsoar;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Follows the progress of opening a project, in the IDE or from the command line. It does not
+ * depend on the user interface, so the command-line checks can use it without loading it.
+ */
+public interface OpenMonitor {
+  OpenMonitor NONE = phase -> {};
+
+  /**
+   * Called as each phase of opening the project begins.
+   *
+   * @throws CancellationException to stop opening the project
+   */
+  void beginPhase(String phase);
+}
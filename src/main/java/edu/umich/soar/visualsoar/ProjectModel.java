@@ -1,7 +1,9 @@
 package edu.umich.soar.visualsoar;
 
+import edu.umich.soar.visualsoar.datamap.ProjectJsonReader;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryReader;
+import edu.umich.soar.visualsoar.files.ProjectSnapshot;
 import edu.umich.soar.visualsoar.files.projectjson.Datamap;
 import edu.umich.soar.visualsoar.files.projectjson.Json;
 import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
@@ -13,6 +15,9 @@ import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
 import edu.umich.soar.visualsoar.operatorwindow.*;
 import edu.umich.soar.visualsoar.parser.SoarProduction;
+import edu.umich.soar.visualsoar.profiling.ProjectOpenPhases;
+import edu.umich.soar.visualsoar.profiling.ProjectSaveEvent;
+import edu.umich.soar.visualsoar.util.IdGenerator;
 import edu.umich.soar.visualsoar.util.ReaderUtils;
 
 import javax.swing.*;
@@ -23,8 +28,9 @@ import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-
-import static edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryReader.loadFromJson;
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 /**
  * A VisualSoar project has a datamap and an operator hierarchy (project layout). This class
@@ -34,15 +40,25 @@ import static edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryReader.loadFrom
  * Note: Some of the logic still resides in {@link OperatorWindow}, and should be moved here.
  */
 public class ProjectModel {
+  private static final Logger LOGGER = Logger.getLogger(ProjectModel.class.getName());
+
   int nextId = 1;
 
   // TODO: make final
   public SoarWorkingMemoryModel swmm;
   public DefaultTreeModel operatorHierarchy;
+  // makes the serialization IDs of new operator nodes
+  private final Supplier<String> ids;
 
   public ProjectModel(DefaultTreeModel operatorHierarchy, SoarWorkingMemoryModel swmm) {
+    this(operatorHierarchy, swmm, IdGenerator::getId);
+  }
+
+  private ProjectModel(
+      DefaultTreeModel operatorHierarchy, SoarWorkingMemoryModel swmm, Supplier<String> ids) {
     this.operatorHierarchy = operatorHierarchy;
     this.swmm = swmm;
+    this.ids = ids;
   }
 
   /**
@@ -51,20 +67,54 @@ public class ProjectModel {
    * @param projectPath path to the project .vsa.json file
    */
   public static ProjectModel newProject(String projectName, Path projectPath) {
-    SoarWorkingMemoryModel swmm = new SoarWorkingMemoryModel(true, projectName, projectPath);
+    return newProject(projectName, projectPath, IdGenerator::getId);
+  }
+
+  /**
+   * Initializes a brand-new project whose operator nodes and datamap vertices, including any added
+   * to it later, get their serialization IDs from the given supplier rather than {@link
+   * IdGenerator}. With a counter, the project is written the same way every time.
+   */
+  static ProjectModel newProject(String projectName, Path projectPath, Supplier<String> ids) {
+    SoarWorkingMemoryModel swmm = new SoarWorkingMemoryModel(true, projectName, projectPath, ids);
     ProjectModel pm =
-        new ProjectModel(new DefaultTreeModel(new DefaultMutableTreeNode("Dummy")), swmm);
+        new ProjectModel(new DefaultTreeModel(new DefaultMutableTreeNode("Dummy")), swmm, ids);
     pm.operatorHierarchy = pm.createDefaultProjectLayout(projectName, projectPath);
     return pm;
   }
 
   public static ProjectModel openExistingProject(Path projectFile)
       throws IOException {
+    return openExistingProject(projectFile, false);
+  }
+
+  /**
+   * Opens a project. For .vsa.json projects, a valid {@link ProjectSnapshot} is used in place of
+   * the JSON file when one exists.
+   *
+   * @param refreshSnapshot if the JSON file had to be parsed, write a fresh snapshot for next time
+   */
+  public static ProjectModel openExistingProject(Path projectFile, boolean refreshSnapshot)
+      throws IOException {
+    return openExistingProject(projectFile, refreshSnapshot, OpenMonitor.NONE);
+  }
+
+  /**
+   * Opens a project, reporting each phase of the work to the given monitor. Nothing here touches
+   * the UI, so this may be called from a background thread.
+   *
+   * @param monitor may throw {@link CancellationException} from {@link OpenMonitor#beginPhase} to
+   *     abandon the project
+   */
+  public static ProjectModel openExistingProject(
+      Path projectFile, boolean refreshSnapshot, OpenMonitor monitor) throws IOException {
     ProjectModel pm =
         new ProjectModel(
             new DefaultTreeModel(new DefaultMutableTreeNode("Dummy")),
             new SoarWorkingMemoryModel(false, null, null));
-    pm.openHierarchy(projectFile.toFile());
+    try (ProjectOpenPhases phases = new ProjectOpenPhases(projectFile, monitor)) {
+      pm.openHierarchy(projectFile.toFile(), refreshSnapshot, phases);
+    }
     return pm;
   }
 
@@ -76,10 +126,50 @@ public class ProjectModel {
    * @see SoarWorkingMemoryModel#toJson()
    */
   public void writeProject(File inProjFile) throws IOException {
+    writeProject(inProjFile, false);
+  }
+
+  /**
+   * Saves the current project to disk
+   *
+   * @param inProjFile name of the file to be saved - .vsa file
+   * @param writeSnapshot also write a {@link ProjectSnapshot} matching the new file
+   */
+  public void writeProject(File inProjFile, boolean writeSnapshot) throws IOException {
+    ProjectSaveEvent event = new ProjectSaveEvent();
+    event.begin();
+    Project project = toJson();
+    LayoutNode layoutNodeJson = project.layout;
+    Path projectPath = Paths.get(inProjFile.getAbsolutePath());
+    Json.writeJsonToFile(projectPath, project);
+    if (writeSnapshot) {
+      ProjectSnapshot.writeQuietly(projectPath, swmm, layoutNodeJson);
+    }
+    if (event.shouldCommit()) {
+      event.project = projectPath.toString();
+      event.size = inProjFile.length();
+      event.snapshot = writeSnapshot;
+      event.commit();
+    }
+  }
+
+  /**
+   * @return the project as {@link #writeProject} writes it. The result shares no mutable state
+   *     with the model, so it may be serialized on another thread.
+   */
+  public Project toJson() {
     Datamap dmJson = swmm.toJson();
     LayoutNode layoutNodeJson = TreeSerializer.toJson(operatorHierarchy);
-    Project project = new Project(dmJson, layoutNodeJson);
-    Json.writeJsonToFile(Paths.get(inProjFile.getAbsolutePath()), project);
+    return new Project(dmJson, layoutNodeJson);
+  }
+
+  /**
+   * @return the source files of the whole project, without building any deferred parts of the
+   *     operator hierarchy
+   * @see FileIndex
+   */
+  public FileIndex fileIndex() {
+    return FileIndex.of((OperatorNode) operatorHierarchy.getRoot());
   }
 
   /**
@@ -238,19 +328,23 @@ public class ProjectModel {
    */
   public OperatorRootNode createOperatorRootNode(
       String inName, String inFullPathStart, String inFolderName) {
-    return OperatorRootNode.rootNodeForNewProject(inName, getNextId(), inFullPathStart, inFolderName);
+    return OperatorRootNode.rootNodeForNewProject(
+        inName, getNextId(), ids.get(), inFullPathStart, inFolderName);
   }
 
   /**
    * Opens up an existing operator hierarchy
    *
    * @param in_file the file that describes the operator hierarchy
+   * @param refreshSnapshot see {@link #openExistingProject(Path, boolean)}
    * @see #openVersionFour(FileReader, String)
    */
-  private void openHierarchy(File in_file) throws IOException, NumberFormatException {
+  private void openHierarchy(File in_file, boolean refreshSnapshot, OpenMonitor monitor)
+      throws IOException, NumberFormatException {
     if (in_file.getName().endsWith(".json")) {
-      openProjectJson(in_file.toPath());
+      openProjectJson(in_file.toPath(), refreshSnapshot, monitor);
     } else {
+      monitor.beginPhase("Reading project");
       FileReader fr = new FileReader(in_file);
       String buffer = ReaderUtils.getWord(fr);
       if (buffer.compareToIgnoreCase("VERSION") == 0) {
@@ -308,9 +402,7 @@ public class ProjectModel {
     }
     r.close();
     if (!success) {
-      MainFrame.getMainFrame()
-          .getFeedbackManager()
-          .setStatusBarError("Unable to parse " + dataMapFile.getName());
+      reportUnreadableDatamap(dataMapFile);
     }
     restoreStateIds();
   }
@@ -352,9 +444,7 @@ public class ProjectModel {
     }
     r.close();
     if (!success) {
-      MainFrame.getMainFrame()
-          .getFeedbackManager()
-          .setStatusBarError("Unable to parse " + dataMapFile.getName());
+      reportUnreadableDatamap(dataMapFile);
     }
     restoreStateIds();
   }
@@ -394,9 +484,7 @@ public class ProjectModel {
     }
     r.close();
     if (!success) {
-      MainFrame.getMainFrame()
-          .getFeedbackManager()
-          .setStatusBarError("Unable to parse " + dataMapFile.getName());
+      reportUnreadableDatamap(dataMapFile);
     }
     restoreStateIds();
   }
@@ -436,9 +524,7 @@ public class ProjectModel {
     }
     r.close();
     if (!success) {
-      MainFrame.getMainFrame()
-          .getFeedbackManager()
-          .setStatusBarError("Unable to parse " + dataMapFile.getName());
+      reportUnreadableDatamap(dataMapFile);
     }
 
     restoreStateIds();
@@ -450,31 +536,44 @@ public class ProjectModel {
     private int count = 0;
     private final Map<String, Integer> serializationIdToId = new HashMap<>();
 
-    int getId(String serializationId) {
+    synchronized int getId(String serializationId) {
       return serializationIdToId.computeIfAbsent(serializationId, sid -> count++);
     }
   }
 
-  private void openProjectJson(Path jsonPath) throws IOException {
-    Project projectJson = Project.loadJsonFile(jsonPath);
-    this.swmm = loadFromJson(projectJson.datamap, jsonPath);
-
-    Map<Integer, OperatorNode> idToNode = new HashMap<>();
-    List<OperatorNode> linkNodes = new ArrayList<>();
-    VSTreeNode root =
-        loadOperatorHierarchy(
-            projectJson.layout, null, idToNode, linkNodes, new IdProvider(), this.swmm);
-    for (OperatorNode node : linkNodes) {
-      LinkNode linkNodeToRestore = (LinkNode) node;
-      linkNodeToRestore.restore(idToNode);
+  private void openProjectJson(Path jsonPath, boolean refreshSnapshot, OpenMonitor monitor)
+      throws IOException {
+    // the datamap is built while the file is parsed
+    monitor.beginPhase("Reading project and datamap");
+    ProjectJsonReader.LoadedProject projectJson = ProjectSnapshot.read(jsonPath);
+    if (projectJson == null) {
+      projectJson = ProjectJsonReader.read(jsonPath);
+      if (refreshSnapshot) {
+        ProjectSnapshot.writeQuietly(jsonPath, projectJson.swmm, projectJson.layout);
+      }
     }
+    this.swmm = projectJson.swmm;
+
+    monitor.beginPhase("Building operator hierarchy");
+    // link nodes need their targets to exist, so projects that still use them are built eagerly
+    boolean deferChildren = !checkLayout(projectJson.layout, this.swmm);
+    VSTreeNode root = new LayoutLoader(this.swmm, deferChildren).load(projectJson.layout);
 
     operatorHierarchy = new DefaultTreeModel(root);
+    operatorHierarchy.nodeStructureChanged(root);
 
     OperatorRootNode orNode = (OperatorRootNode) root;
     orNode.setFullPath(jsonPath.getParent().toString());
+  }
 
-    restoreStateIds();
+  /** Shows that a project's datamap could not be read, in the status bar if there is one */
+  private static void reportUnreadableDatamap(File dataMapFile) {
+    MainFrame mainFrame = MainFrame.getMainFrame();
+    if (mainFrame != null) {
+      mainFrame.getFeedbackManager().setStatusBarError("Unable to parse " + dataMapFile.getName());
+    } else {
+      LOGGER.warning("Unable to parse " + dataMapFile);
+    }
   }
 
   /**
@@ -495,28 +594,171 @@ public class ProjectModel {
     }
   }
 
-  private VSTreeNode loadOperatorHierarchy(
-      LayoutNode jsonNode,
-      OperatorNode parent,
-      Map<Integer, OperatorNode> idToNode,
-      List<OperatorNode> linkNodes,
-      IdProvider idProvider,
-      SoarWorkingMemoryModel swmm) {
-    OperatorNode node = createNodeFromJson(jsonNode, idProvider, swmm);
-    idToNode.put(node.getId(), node);
-    if (node instanceof LinkNode) {
-      linkNodes.add(node);
+  /**
+   * Checks the datamap references of the whole layout up front, so that a broken project still
+   * fails to open even when most of its nodes are only built later.
+   *
+   * @return whether the layout contains any link nodes
+   */
+  private static boolean checkLayout(LayoutNode layout, SoarWorkingMemoryModel swmm) {
+    boolean hasLinks = false;
+    Deque<LayoutNode> stack = new ArrayDeque<>();
+    stack.push(layout);
+    while (!stack.isEmpty()) {
+      LayoutNode node = stack.pop();
+      String dmId = null;
+      switch (node.type) {
+        case LINK:
+          hasLinks = true;
+          break;
+        case HIGH_LEVEL_OPERATOR:
+          dmId = ((LayoutNode.HighLevelOperator) node).dmId;
+          break;
+        case HIGH_LEVEL_FILE_OPERATOR:
+          dmId = ((LayoutNode.HighLevelFileOperator) node).dmId;
+          break;
+        case HIGH_LEVEL_IMPASSE_OPERATOR:
+          dmId = ((LayoutNode.HighLevelImpasseOperator) node).dmId;
+          break;
+        default:
+          break;
+      }
+      if (dmId != null
+          && !(getVertexForDmId(swmm, node.id, dmId) instanceof SoarIdentifierVertex)) {
+        throw new IllegalStateException(
+            "Operator node '" + node.id + "' has dmId='" + dmId + "', which is not a Soar ID");
+      }
+      node.children.forEach(stack::push);
     }
+    return hasLinks;
+  }
 
-    if (parent != null) {
-      addChild(parent, node);
+  /**
+   * Turns the project layout into operator nodes. Each child list is sorted once and attached
+   * directly to its parent, so no tree model events are fired while the hierarchy is built.
+   *
+   * <p>When deferring, only the root and its children are built up front. The children of every
+   * other node are built the first time they are accessed, which is usually when the node is
+   * expanded in the operator window.
+   */
+  private class LayoutLoader {
+    private final SoarWorkingMemoryModel swmm;
+    private final boolean deferChildren;
+    private final IdProvider idProvider = new IdProvider();
+    private final Map<Integer, OperatorNode> idToNode = new HashMap<>();
+    private final List<LinkNode> linkNodes = new ArrayList<>();
+
+    LayoutLoader(SoarWorkingMemoryModel swmm, boolean deferChildren) {
+      this.swmm = swmm;
+      this.deferChildren = deferChildren;
+    }
+
+    OperatorNode load(LayoutNode layout) {
+      OperatorNode root = createNode(layout);
+      List<String> conflicts = new ArrayList<>();
+      attachChildren(root, layout.children, conflicts);
+      reportNodeConflicts(conflicts);
+      for (LinkNode linkNode : linkNodes) {
+        linkNode.restore(idToNode);
+      }
+      return root;
+    }
+
+    private OperatorNode createNode(LayoutNode layout) {
+      OperatorNode node = createNodeFromJson(layout, idProvider, swmm);
+      if (node instanceof SoarOperatorNode && ((SoarOperatorNode) node).isHighLevel()) {
+        ((SoarOperatorNode) node).restoreId(swmm);
+      }
+      if (!deferChildren) {
+        idToNode.put(node.getId(), node);
+        if (node instanceof LinkNode) {
+          linkNodes.add((LinkNode) node);
+        }
+      }
+      return node;
+    }
+
+    private void attachChildren(
+        OperatorNode parent, List<LayoutNode> layout, List<String> conflicts) {
+      List<OperatorNode> children = new ArrayList<>(layout.size());
+      Set<String> names = new HashSet<>();
+      for (LayoutNode child : layout) {
+        OperatorNode childNode = createNode(child);
+        if (!child.children.isEmpty()) {
+          if (deferChildren) {
+            childNode.deferChildren(new DeferredChildren(child.children));
+          } else {
+            attachChildren(childNode, child.children, conflicts);
+          }
+        }
+        // like addChild, the first node with a given name wins
+        if (names.add(childNode.toString())) {
+          children.add(childNode);
+        } else {
+          conflicts.add(childNode.toString());
+        }
+      }
+      children.sort(CHILD_ORDER);
+      for (OperatorNode child : children) {
+        parent.add(child);
+      }
     }
-    if (!jsonNode.children.isEmpty()) {
-      for (LayoutNode child : jsonNode.children) {
-        loadOperatorHierarchy(child, node, idToNode, linkNodes, idProvider, swmm);
+
+    private class DeferredChildren implements OperatorNode.ChildLoader {
+      private final List<LayoutNode> layout;
+
+      DeferredChildren(List<LayoutNode> layout) {
+        this.layout = layout;
+      }
+
+      @Override
+      public List<LayoutNode> getLayout() {
+        return layout;
       }
+
+      @Override
+      public void load(OperatorNode parent) {
+        List<String> conflicts = new ArrayList<>();
+        attachChildren(parent, layout, conflicts);
+        reportNodeConflicts(conflicts);
+      }
+    }
+  }
+
+  private static void reportNodeConflicts(List<String> conflicts) {
+    if (!conflicts.isEmpty()) {
+      Runnable report =
+          () ->
+              JOptionPane.showMessageDialog(
+                  MainFrame.getMainFrame(),
+                  "Node conflict for " + String.join(", ", conflicts),
+                  "Node Conflict",
+                  JOptionPane.ERROR_MESSAGE);
+      // projects may be opened in the background
+      if (SwingUtilities.isEventDispatchThread()) {
+        report.run();
+      } else {
+        SwingUtilities.invokeLater(report);
+      }
+    }
+  }
+
+  /**
+   * Sibling order in the operator hierarchy.
+   *
+   * @see ChildOrder
+   */
+  public static final Comparator<OperatorNode> CHILD_ORDER =
+      ChildOrder.comparing(OperatorNode::toString, ProjectModel::childGroup);
+
+  private static ChildOrder.Group childGroup(OperatorNode node) {
+    if (node instanceof OperatorOperatorNode) {
+      return ChildOrder.Group.OPERATORS;
+    }
+    if (node instanceof ImpasseOperatorNode) {
+      return ChildOrder.Group.IMPASSES;
     }
-    return node;
+    return ChildOrder.Group.FILES;
   }
 
   /*
@@ -526,19 +768,18 @@ public class ProjectModel {
    *
    * @param parent operator of operator to be inserted
    * @param child operator to be inserted into tree
+   * @see #CHILD_ORDER
    * @see DefaultTreeModel#insertNodeInto(MutableTreeNode, MutableTreeNode, int)
    */
   public void addChild(OperatorNode parent, OperatorNode child) {
-    // Put in alphabetical order in order of [Files], [Operators], [Impasses]
-    boolean found = false;
+    String childName = child.toString();
+    int index = parent.getChildCount();
 
-    for (int i = 0; i < parent.getChildCount() && !found; ++i) {
-      String childName = child.toString();
-      String sl = childName.toLowerCase();
-      String childString = (parent.getChildAt(i)).toString();
+    for (int i = 0; i < parent.getChildCount(); ++i) {
+      OperatorNode sibling = (OperatorNode) parent.getChildAt(i);
 
       // Check for duplicate
-      if (childName.compareTo(parent.getChildAt(i).toString()) == 0) {
+      if (childName.equals(sibling.toString())) {
         JOptionPane.showMessageDialog(
             MainFrame.getMainFrame(),
             "Node conflict for " + childName,
@@ -547,37 +788,11 @@ public class ProjectModel {
         return;
       }
 
-      if (!(childString.equals("_firstload")
-          || childString.equals("all")
-          || childString.equals("elaborations"))) {
-        // Adding an Impasse Node
-        if (child instanceof ImpasseOperatorNode) {
-          if ((sl.compareTo(childString.toLowerCase()) <= 0)) {
-            found = true;
-            operatorHierarchy.insertNodeInto(child, parent, i);
-          }
-        }
-        // Adding a SoarOperatorNode
-        else if (child instanceof OperatorOperatorNode) {
-          if (parent.getChildAt(i) instanceof OperatorOperatorNode
-              && sl.compareTo(childString.toLowerCase()) <= 0) {
-            found = true;
-            operatorHierarchy.insertNodeInto(child, parent, i);
-          }
-        }
-        // Adding a File
-        else {
-          if ((parent.getChildAt(i) instanceof OperatorOperatorNode)
-              || (sl.compareTo(childString.toLowerCase()) <= 0)) {
-            found = true;
-            operatorHierarchy.insertNodeInto(child, parent, i);
-          }
-        }
+      if (index == parent.getChildCount() && CHILD_ORDER.compare(child, sibling) < 0) {
+        index = i;
       }
     } // go through all the children until find the proper spot for the new child
-    if (!found) {
-      operatorHierarchy.insertNodeInto(child, parent, parent.getChildCount());
-    }
+    operatorHierarchy.insertNodeInto(child, parent, index);
   } // end of addChild()
 
   private OperatorNode createNodeFromJson(
@@ -1448,7 +1663,7 @@ public class ProjectModel {
    * @see FolderNode
    */
   public FolderNode createFolderNode(String inName, String inFolderName) {
-    return new FolderNode(inName, getNextId(), inFolderName);
+    return new FolderNode(inName, getNextId(), ids.get(), inFolderName);
   }
 
   /**
@@ -1459,7 +1674,7 @@ public class ProjectModel {
    * @see FileNode
    */
   public FileNode createFileNode(String inName, String inFile) {
-    return new FileNode(inName, getNextId(), inFile);
+    return new FileNode(inName, getNextId(), ids.get(), inFile);
   }
 
   /**
@@ -1470,7 +1685,7 @@ public class ProjectModel {
    * @see ImpasseOperatorNode
    */
   public ImpasseOperatorNode createImpasseOperatorNode(String inName, String inFileName) {
-    return new ImpasseOperatorNode(inName, getNextId(), inFileName);
+    return new ImpasseOperatorNode(inName, getNextId(), ids.get(), inFileName);
   }
 
   /**
@@ -1485,7 +1700,7 @@ public class ProjectModel {
   public ImpasseOperatorNode createHighLevelImpasseOperatorNode(
       String inName, String inFileName, String inFolderName, int inDataMapIdNumber) {
     return new ImpasseOperatorNode(
-        inName, getNextId(), inFileName, inFolderName, inDataMapIdNumber);
+        inName, getNextId(), ids.get(), inFileName, inFolderName, inDataMapIdNumber);
   }
 
   /**
@@ -1496,7 +1711,7 @@ public class ProjectModel {
    * @see FileOperatorNode
    */
   public FileOperatorNode createFileOperatorNode(String inName, String inFileName) {
-    return new FileOperatorNode(inName, getNextId(), inFileName);
+    return new FileOperatorNode(inName, getNextId(), ids.get(), inFileName);
   }
 
   /**
@@ -1511,7 +1726,8 @@ public class ProjectModel {
    */
   public FileOperatorNode createHighLevelFileOperatorNode(
       String inName, String inFileName, String inFolderName, SoarIdentifierVertex inDataMapId) {
-    return new FileOperatorNode(inName, getNextId(), inFileName, inFolderName, inDataMapId);
+    return new FileOperatorNode(
+        inName, getNextId(), ids.get(), inFileName, inFolderName, inDataMapId);
   }
 
   /**
@@ -1525,7 +1741,8 @@ public class ProjectModel {
    */
   public FileOperatorNode createHighLevelFileOperatorNode(
       String inName, String inFileName, String inFolderName, int inDataMapIdNumber) {
-    return new FileOperatorNode(inName, getNextId(), inFileName, inFolderName, inDataMapIdNumber);
+    return new FileOperatorNode(
+        inName, getNextId(), ids.get(), inFileName, inFolderName, inDataMapIdNumber);
   }
 
   /**
@@ -1536,7 +1753,7 @@ public class ProjectModel {
    * @see OperatorOperatorNode
    */
   public OperatorOperatorNode createSoarOperatorNode(String inName, String inFileName) {
-    return new OperatorOperatorNode(inName, getNextId(), inFileName);
+    return new OperatorOperatorNode(inName, getNextId(), ids.get(), inFileName);
   }
 
   /**
@@ -1551,7 +1768,7 @@ public class ProjectModel {
   public OperatorOperatorNode createSoarOperatorNode(
       String inName, String inFileName, String inFolderName, int inDataMapIdNumber) {
     return new OperatorOperatorNode(
-        inName, getNextId(), inFileName, inFolderName, inDataMapIdNumber);
+        inName, getNextId(), ids.get(), inFileName, inFolderName, inDataMapIdNumber);
   }
 
   /**
@@ -1572,7 +1789,7 @@ public class ProjectModel {
    * @see LinkNode
    */
   public LinkNode createLinkNode(String inName, String inFileName, int inHighLevelId) {
-    return new LinkNode(inName, getNextId(), inFileName, inHighLevelId);
+    return new LinkNode(inName, getNextId(), ids.get(), inFileName, inHighLevelId);
   }
 
   /**
@@ -1,15 +1,41 @@
 package edu.umich.soar.visualsoar;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import edu.umich.soar.visualsoar.headless.CheckStats;
+import edu.umich.soar.visualsoar.headless.DiagnosticSocket;
+import edu.umich.soar.visualsoar.headless.HeadlessProject;
+import edu.umich.soar.visualsoar.headless.ProjectWatcher;
+import edu.umich.soar.visualsoar.headless.SourceFile;
+import edu.umich.soar.visualsoar.lsp.LanguageServer;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
 import edu.umich.soar.visualsoar.misc.Prefs;
+import edu.umich.soar.visualsoar.profiling.EdtWatchdog;
+import edu.umich.soar.visualsoar.profiling.FlightRecording;
+import edu.umich.soar.visualsoar.profiling.StallLog;
+import edu.umich.soar.visualsoar.profiling.TimedEventQueue;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.apache.commons.cli.*;
 
 /**
@@ -25,11 +51,19 @@ public class VisualSoar {
 
   private static final HelpFormatter HELP_FORMATTER = new HelpFormatter();
   private static final String CHECK_OPT = "check";
+  private static final String FILES_OPT = "files";
   private static final String CHECK_PRODS_AGAINST_DM = "productionsAgainstDatamap";
+  private static final String NO_DATAMAP_ISSUES = "✅ No datamap issues found!";
   private static final List<String> CHECK_TYPES = List.of(CHECK_PRODS_AGAINST_DM);
   private static final String HELP_OPT = "help";
+  private static final String JFR_OPT = "jfr";
   private static final String JSON_OPT = "json";
+  private static final String LSP_OPT = "lsp";
+  private static final String MANIFEST_OPT = "manifest";
   private static final String PROJECT_OPT = "project";
+  private static final String SERVE_OPT = "serve";
+  private static final String STATS_OPT = "stats";
+  private static final String WATCH_OPT = "watch";
 
   private static final Options CMD_OPTIONS;
 
@@ -50,20 +84,84 @@ public class VisualSoar {
         "Output diagnostics as JSON lines if set; otherwise human-readable text. The JSON structure follows the LSP specification for diagnostics.");
 
 
+    Option jfrOption =
+        Option.builder()
+            .longOpt(JFR_OPT)
+            .hasArg()
+            .argName("file")
+            .desc(
+                "Record a Java Flight Recorder file of VisualSoar's long-running operations, such as opening, checking and saving the project, to the given file when VisualSoar exits.")
+            .build();
+
     Option projectOption =
         new Option(
             PROJECT_OPT.substring(0, 1),
             PROJECT_OPT,
             true,
-            "Path to the project .vsa or .vsa.json file to to run a specified action against.");
+            "Path to the project .vsa or .vsa.json file to to run a specified action against. May be repeated to check several projects at once.");
+
+    Option manifestOption =
+        Option.builder()
+            .longOpt(MANIFEST_OPT)
+            .hasArg()
+            .argName("file")
+            .desc(
+                "A text file listing the paths of projects to check, one per line, relative to the file's folder. Blank lines and lines starting with # are ignored.")
+            .build();
+
+    Option filesOption =
+        Option.builder()
+            .longOpt(FILES_OPT)
+            .hasArg()
+            .argName("list")
+            .desc(
+                "With --check, check only these rule files of a .vsa.json project, against its whole datamap. Separate the paths with commas, or give - to read them from standard input, one per line. Other files are skipped; if the project file is listed, every rule file is checked.")
+            .build();
+
+    Option statsOption =
+        Option.builder()
+            .longOpt(STATS_OPT)
+            .desc(
+                "With --check of a .vsa.json project, write a JSON line of statistics to standard error at the end: the time taken by each phase, the files, productions and diagnostics checked, cache hits, and the slowest files.")
+            .build();
+
+    Option watchOption =
+        Option.builder()
+            .longOpt(WATCH_OPT)
+            .desc(
+                "With --check, keep running and check each file of a .vsa.json project again when it changes, or every file when the datamap changes. Changed diagnostics are written as JSON lines, one LSP PublishDiagnosticsParams object per file.")
+            .build();
+
+    Option serveOption =
+        Option.builder()
+            .longOpt(SERVE_OPT)
+            .hasArg()
+            .argName("port")
+            .desc(
+                "Same as --watch, but the JSON lines are sent to every connection to the given port on the local machine instead of standard output.")
+            .build();
+
+    Option lspOption =
+        Option.builder()
+            .longOpt(LSP_OPT)
+            .desc(
+                "Run a Language Server Protocol server over standard input and output for the .vsa.json project given with --project, or else the first one in the editor's workspace folder.")
+            .build();
 
     Option helpOption =
         new Option(HELP_OPT.substring(0, 1), HELP_OPT, false, "Print this help text and exit.");
 
     CMD_OPTIONS = new Options();
     CMD_OPTIONS.addOption(checkOption);
+    CMD_OPTIONS.addOption(filesOption);
+    CMD_OPTIONS.addOption(statsOption);
+    CMD_OPTIONS.addOption(jfrOption);
     CMD_OPTIONS.addOption(jsonOption);
     CMD_OPTIONS.addOption(projectOption);
+    CMD_OPTIONS.addOption(manifestOption);
+    CMD_OPTIONS.addOption(watchOption);
+    CMD_OPTIONS.addOption(serveOption);
+    CMD_OPTIONS.addOption(lspOption);
     CMD_OPTIONS.addOption(helpOption);
   }
 
@@ -85,26 +183,295 @@ public class VisualSoar {
   private static void reportFeedback(
       List<FeedbackListEntry> feedback, String successMessage, boolean jsonFormat) {
     if (feedback.isEmpty()) {
-      if (jsonFormat) {
+      printSuccess(successMessage, jsonFormat);
+      return;
+    }
+    for (FeedbackListEntry entry : feedback) {
+      printFeedback(entry, jsonFormat);
+    }
+    systemExit(1);
+  }
+
+  private static void printSuccess(String successMessage, boolean jsonFormat) {
+    if (jsonFormat) {
+      System.out.println(
+          "{\"message\": \""
+              + successMessage
+              + "\", \"severity\": 3, "
+              + "\"source\": \"VisualSoar\"}");
+    } else {
+      System.out.println(successMessage);
+    }
+  }
+
+  private static void printFeedback(FeedbackListEntry entry, boolean jsonFormat) {
+    if (jsonFormat) {
+      System.out.println(entry.toJsonLine());
+    } else {
+      String emoji = entry.isError() ? "❌ " : "ℹ️ ";
+      System.out.println(emoji + entry);
+    }
+  }
+
+  /**
+   * Checks the files one at a time, reporting each file's feedback as soon as it is checked, in the
+   * same form as {@link #reportFeedback}. If stats are kept, they are written to standard error at
+   * the end.
+   */
+  private static void checkAndReport(
+      HeadlessProject project, List<SourceFile> files, CheckStats stats, boolean jsonFormat)
+      throws IOException {
+    if (stats != null) {
+      stats.beginPhase("Checking productions");
+    }
+    boolean anyFeedback = false;
+    for (SourceFile file : files) {
+      long start = System.nanoTime();
+      List<FeedbackListEntry> feedback = project.check(file);
+      if (stats != null) {
+        stats.fileChecked(
+            file,
+            System.nanoTime() - start,
+            project.getCheckedProductions(file).size(),
+            feedback.size());
+      }
+      for (FeedbackListEntry entry : feedback) {
+        printFeedback(entry, jsonFormat);
+      }
+      anyFeedback |= !feedback.isEmpty();
+    }
+    if (stats != null) {
+      System.err.println(stats.toJsonLine(project));
+    }
+    if (anyFeedback) {
+      systemExit(1);
+    } else {
+      printSuccess(NO_DATAMAP_ISSUES, jsonFormat);
+    }
+  }
+
+  /**
+   * Picks out the project's rule files from a list of paths, such as the files changed in a
+   * commit. Paths that are not rule files of the project are skipped, but if the project file
+   * itself is listed, its datamap may have changed, so every file is checked.
+   *
+   * @param list paths separated by commas, or "-" to read them from standard input, one per line
+   */
+  private static List<SourceFile> selectFiles(HeadlessProject project, String list)
+      throws IOException {
+    List<String> paths =
+        list.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in)).lines().collect(Collectors.toList())
+            : Arrays.asList(list.split(","));
+    Set<SourceFile> files = new LinkedHashSet<>();
+    for (String pathName : paths) {
+      pathName = pathName.trim();
+      if (pathName.isEmpty()) {
+        continue;
+      }
+      Path path = Paths.get(pathName).toAbsolutePath().normalize();
+      if (path.equals(project.getProjectFile().normalize())) {
+        return project.getSourceFiles();
+      }
+      SourceFile file = project.getSourceFile(path);
+      if (file != null) {
+        files.add(file);
+      } else if (pathName.endsWith(".soar")) {
+        System.err.println("Skipping " + pathName + ", which is not a rule file of the project");
+      }
+    }
+    // in the order the whole project would be checked
+    List<SourceFile> selected = new ArrayList<>(project.getSourceFiles());
+    selected.retainAll(files);
+    return selected;
+  }
+
+  /**
+   * @return the projects listed in the manifest, one per line, with relative paths resolved
+   *     against the manifest's folder
+   */
+  private static List<Path> readManifest(Path manifest) throws IOException {
+    List<Path> projects = new ArrayList<>();
+    for (String line : Files.readAllLines(manifest)) {
+      line = line.trim();
+      if (!line.isEmpty() && !line.startsWith("#")) {
+        projects.add(manifest.toAbsolutePath().getParent().resolve(line));
+      }
+    }
+    return projects;
+  }
+
+  /** What checking one project of several found */
+  private static final class ProjectCheck {
+    final Path path;
+    List<FeedbackListEntry> feedback;
+    String error;
+
+    ProjectCheck(Path projectPath) {
+      path = projectPath;
+    }
+  }
+
+  /** @return the project's file name without its extension */
+  private static String projectName(Path projectPath) {
+    return projectPath.getFileName().toString().replaceFirst("\\.vsa(\\.json)?$", "");
+  }
+
+  /**
+   * Checks several projects at once, each on its own thread, and reports them in the order given,
+   * each line tagged with its project's name. Exits with 1 if any project has problems or could
+   * not be checked.
+   */
+  private static void checkProjects(List<Path> projectPaths, boolean jsonFormat) {
+    // a project listed twice is checked once
+    Set<Path> distinct = new LinkedHashSet<>();
+    for (Path projectPath : projectPaths) {
+      distinct.add(projectPath.toAbsolutePath().normalize());
+    }
+    if (distinct.isEmpty()) {
+      // e.g. a manifest with only comments
+      System.err.println("No projects to check");
+      systemExit(1);
+      return;
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(distinct.size(), Runtime.getRuntime().availableProcessors()));
+    List<Path> projects = new ArrayList<>(distinct);
+    // projects are tagged with their names, or with their full paths where names are shared
+    Map<String, Integer> nameCounts = new HashMap<>();
+    for (Path projectPath : projects) {
+      nameCounts.merge(projectName(projectPath), 1, Integer::sum);
+    }
+    List<Future<ProjectCheck>> checks = new ArrayList<>();
+    for (Path projectPath : projects) {
+      checks.add(executor.submit(() -> checkProject(projectPath)));
+    }
+    executor.shutdown();
+
+    int withIssues = 0;
+    int failed = 0;
+    for (int i = 0; i < checks.size(); i++) {
+      ProjectCheck check;
+      try {
+        check = checks.get(i).get();
+      } catch (ExecutionException e) {
+        check = new ProjectCheck(projects.get(i));
+        check.error = "Could not check " + projects.get(i) + ": " + e.getCause();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      List<FeedbackListEntry> feedback = check.feedback;
+      if (check.error != null) {
+        failed++;
+        feedback = List.of(new FeedbackListEntry(check.error, true));
+      } else if (!feedback.isEmpty()) {
+        withIssues++;
+      }
+      String name = projectName(check.path);
+      if (nameCounts.get(name) > 1) {
+        name = check.path.toString();
+      }
+      String tag = "[" + name + "] ";
+      String jsonTag =
+          "{\"project\": \""
+              + String.valueOf(JsonStringEncoder.getInstance().quoteAsString(name))
+              + "\", ";
+      if (feedback.isEmpty()) {
         System.out.println(
-            "{\"message\": \""
-                + successMessage
-                + "\", \"severity\": 3, "
-                + "\"source\": \"VisualSoar\"}");
+            jsonFormat
+                ? jsonTag + "\"message\": \"" + NO_DATAMAP_ISSUES + "\", \"severity\": 3, "
+                    + "\"source\": \"VisualSoar\"}"
+                : tag + NO_DATAMAP_ISSUES);
+      }
+      for (FeedbackListEntry entry : feedback) {
+        if (jsonFormat) {
+          // the entry's own object, with the project's name added first
+          System.out.println(jsonTag + entry.toJsonLine().substring(1));
+        } else {
+          String emoji = entry.isError() ? "❌ " : "ℹ️ ";
+          System.out.println(tag + emoji + entry);
+        }
+      }
+    }
+    System.err.println(
+        "Checked "
+            + distinct.size()
+            + " projects: "
+            + withIssues
+            + " with datamap issues, "
+            + failed
+            + " could not be checked");
+    if (withIssues > 0 || failed > 0) {
+      systemExit(1);
+    }
+  }
+
+  private static ProjectCheck checkProject(Path projectPath) {
+    ProjectCheck check = new ProjectCheck(projectPath);
+    try {
+      if (projectPath.toString().endsWith(".json")) {
+        check.feedback = HeadlessProject.open(projectPath).checkAll();
       } else {
-        System.out.println(successMessage);
+        // opening an older project touches shared state, so only one is opened at a time
+        synchronized (ProjectCheck.class) {
+          check.feedback =
+              CheckAllProductionsAction.checkAllProductions(
+                  ProjectModel.openExistingProject(projectPath));
+        }
       }
-      return;
+    } catch (Throwable e) {
+      // including errors such as TokenMgrError from the parser, which must not stop the other
+      // projects from being reported
+      check.error = "Could not check " + projectPath + ": " + e;
     }
-    for (FeedbackListEntry entry : feedback) {
-      if (jsonFormat) {
-        System.out.println(entry.toJsonLine());
+    return check;
+  }
+
+  /**
+   * Keeps the project checked until VisualSoar is stopped, writing the changes to standard output
+   * or, if a port is given, to its connections
+   */
+  private static void watch(HeadlessProject project, String port) {
+    try (ProjectWatcher watcher = new ProjectWatcher(project)) {
+      if (port == null) {
+        watcher.addListener(
+            line -> {
+              System.out.println(line);
+              return true;
+            });
+        watcher.run();
       } else {
-        String emoji = entry.isError() ? "❌ " : "ℹ️ ";
-        System.out.println(emoji + entry);
+        try (DiagnosticSocket socket = new DiagnosticSocket(watcher, Integer.parseInt(port))) {
+          System.err.println("Sending diagnostics to connections on port " + socket.getPort());
+          watcher.run();
+        }
       }
+    } catch (NumberFormatException e) {
+      exitWithError("Invalid --" + SERVE_OPT + " port: " + port);
+    } catch (IOException e) {
+      exitWithError("I/O error while watching the project: " + e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    systemExit(1);
+  }
+
+  /** Reports each time the UI stops responding in the stall log and the feedback list */
+  private static void startEdtWatchdog(TimedEventQueue eventQueue, MainFrame mainFrame) {
+    StallLog stallLog =
+        new StallLog(
+            StallLog.defaultLogFolder(),
+            entry -> {
+              FeedbackManager feedbackManager = mainFrame.getFeedbackManager();
+              // add to the list rather than replacing the results of a check
+              try (FeedbackManager.AtomicContext ignored = feedbackManager.beginAtomicContext()) {
+                feedbackManager.showFeedback(entry);
+              }
+            });
+    EdtWatchdog watchdog =
+        new EdtWatchdog(eventQueue, Prefs.edtStallThresholdMs.getInt(), stallLog).start();
+    Prefs.edtStallThresholdMs.addChangeListener(value -> watchdog.setThresholdMs((int) value));
   }
 
   /**
@@ -122,17 +489,90 @@ public class VisualSoar {
       return;
     }
 
+    if (cmd.hasOption(JFR_OPT)) {
+      String jfrFile = cmd.getOptionValue(JFR_OPT);
+      try {
+        FlightRecording.start(Paths.get(jfrFile));
+      } catch (IOException | IllegalStateException | SecurityException e) {
+        exitWithError("Could not start recording to " + jfrFile + ": " + e);
+      }
+    }
+
     boolean jsonOutput = cmd.hasOption(JSON_OPT);
 
+    if (cmd.hasOption(LSP_OPT)) {
+      String projectParameter = cmd.getOptionValue(PROJECT_OPT);
+      // standard output carries the protocol, so anything else printed goes to standard error
+      PrintStream protocolOut = System.out;
+      System.setOut(System.err);
+      try {
+        systemExit(
+            new LanguageServer(
+                    System.in,
+                    protocolOut,
+                    projectParameter == null ? null : Paths.get(projectParameter).toAbsolutePath())
+                .run());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return;
+    }
+
+    String[] projectParameters = cmd.getOptionValues(PROJECT_OPT);
+    if (cmd.hasOption(CHECK_OPT)
+        && (cmd.hasOption(MANIFEST_OPT)
+            || (projectParameters != null && projectParameters.length > 1))) {
+      List<Path> projectPaths = new ArrayList<>();
+      if (projectParameters != null) {
+        for (String projectParameter : projectParameters) {
+          projectPaths.add(Paths.get(projectParameter));
+        }
+      }
+      if (cmd.hasOption(MANIFEST_OPT)) {
+        try {
+          projectPaths.addAll(readManifest(Paths.get(cmd.getOptionValue(MANIFEST_OPT))));
+        } catch (IOException e) {
+          exitWithError("Could not read the project manifest: " + e);
+          return;
+        }
+      }
+      String checkName = cmd.getOptionValue(CHECK_OPT);
+      if (!checkName.equals(CHECK_PRODS_AGAINST_DM)) {
+        exitWithError("Unknown --" + CHECK_OPT + " argument: " + checkName);
+      } else if (cmd.hasOption(WATCH_OPT) || cmd.hasOption(SERVE_OPT)) {
+        exitWithError("Only one project can be watched at a time.");
+      } else if (cmd.hasOption(FILES_OPT) || cmd.hasOption(STATS_OPT)) {
+        exitWithError("--" + FILES_OPT + " and --" + STATS_OPT + " apply to one project at a time.");
+      } else {
+        checkProjects(projectPaths, jsonOutput);
+      }
+      return;
+    }
+
     if (cmd.hasOption(CHECK_OPT)) {
-      ProjectModel pm = null;
+      // .vsa.json projects are checked without loading the UI, which would only slow the check
+      // down; older projects are opened the way the operator window opens them
+      HeadlessProject project = null;
+      ProjectModel legacyProject = null;
+      CheckStats stats = cmd.hasOption(STATS_OPT) ? new CheckStats() : null;
       String projectParameter = cmd.getOptionValue(PROJECT_OPT);
       if (projectParameter == null) {
         exitWithError("Please specify the project .vsa or .vsa.json path with --" + PROJECT_OPT + ".");
       }
       try {
         Path projectPath = Paths.get(projectParameter);
-        pm = ProjectModel.openExistingProject(projectPath);
+        if (projectParameter.endsWith(".json")) {
+          project =
+              stats != null
+                  ? HeadlessProject.open(projectPath, stats)
+                  : HeadlessProject.open(projectPath);
+        } else if (cmd.hasOption(FILES_OPT) || stats != null) {
+          exitWithError(
+              "--" + FILES_OPT + " and --" + STATS_OPT + " need a .vsa.json project; open and save the project in VisualSoar to convert it.");
+          return;
+        } else {
+          legacyProject = ProjectModel.openExistingProject(projectPath);
+        }
       } catch (IOException e) {
         exitWithError("Could not open project file for checking: " + e);
       }
@@ -140,9 +580,27 @@ public class VisualSoar {
       switch (checkName) {
         case CHECK_PRODS_AGAINST_DM:
           {
+            if (cmd.hasOption(WATCH_OPT) || cmd.hasOption(SERVE_OPT)) {
+              if (project == null) {
+                exitWithError("Only .vsa.json projects can be watched; open and save the project in VisualSoar to convert it.");
+              }
+              watch(project, cmd.getOptionValue(SERVE_OPT));
+              break;
+            }
             try {
-              List<FeedbackListEntry> feedback = CheckAllProductionsAction.checkAllProductions(pm);
-              reportFeedback(feedback, "✅ No datamap issues found!", jsonOutput);
+              if (project != null) {
+                // each file's problems are reported as soon as it has been checked
+                List<SourceFile> files =
+                    cmd.hasOption(FILES_OPT)
+                        ? selectFiles(project, cmd.getOptionValue(FILES_OPT))
+                        : project.getSourceFiles();
+                checkAndReport(project, files, stats, jsonOutput);
+              } else {
+                reportFeedback(
+                    CheckAllProductionsAction.checkAllProductions(legacyProject),
+                    NO_DATAMAP_ISSUES,
+                    jsonOutput);
+              }
             } catch (IOException e) {
               exitWithError("I/O error while checking productions against the datamap: " + e);
             }
@@ -156,15 +614,16 @@ public class VisualSoar {
       return;
     }
 
+    TimedEventQueue eventQueue = TimedEventQueue.install();
     MainFrame mainFrame = new MainFrame("VisualSoar");
 		MainFrame.setMainFrame(mainFrame);
 		mainFrame.setVisible(true);
+    startEdtWatchdog(eventQueue, mainFrame);
 
 		//If user specified a command line argument, try to open it as a project
-		if(args.length >= 1){
-      try (FeedbackManager.AtomicContext ignored = mainFrame.getFeedbackManager().beginAtomicContext()) {
-        mainFrame.openProject(new File(args[0]), false);
-      }
+		String[] projectArgs = cmd.getArgs();
+		if(projectArgs.length >= 1){
+      mainFrame.openProjectInBackground(new File(projectArgs[0]), false);
     }
 
 		//If nothing was specified on the command line, try
@@ -174,9 +633,7 @@ public class VisualSoar {
 			int numRecent = recentProjs.size();
 			if (numRecent > 0) {
 				Prefs.RecentProjInfo mostRecent = recentProjs.get(numRecent - 1);
-        try (FeedbackManager.AtomicContext ignored = mainFrame.getFeedbackManager().beginAtomicContext()) {
-          mainFrame.openProject(mostRecent.file, mostRecent.isReadOnly);
-        }
+        mainFrame.openProjectInBackground(mostRecent.file, mostRecent.isReadOnly);
 			}
 		}
 	}
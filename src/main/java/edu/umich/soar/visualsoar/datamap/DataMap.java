@@ -6,6 +6,7 @@ import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
 import edu.umich.soar.visualsoar.misc.CustomInternalFrame;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.misc.Prefs;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
 import edu.umich.soar.visualsoar.util.KeyStrokeUtil;
 
 import javax.swing.*;
@@ -197,6 +198,12 @@ public class DataMap extends CustomInternalFrame implements MenuListener {
             //briefly set modified so that app knows project has changed and auto-save will begin operation
             super.setModified(true);
             super.setModified(false);
+
+            //not every datamap edit is reported by the working memory model
+            OperatorWindow operatorWindow = OperatorWindow.getOperatorWindow();
+            if (operatorWindow != null) {
+                operatorWindow.getDatamap().markChanged();
+            }
         }
     }
 
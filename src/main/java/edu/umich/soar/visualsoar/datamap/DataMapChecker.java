@@ -28,11 +28,26 @@ public class DataMapChecker {
                              SoarIdentifierVertex startVertex,
                              TriplesExtractor triplesExtractor,
                              CheckerErrorHandler ceh) {
+        check(dataMap, startVertex, triplesExtractor, ceh, true);
+    }
+
+    /**
+     * Checks the triples against the datamap.
+     *
+     * @param markEdges whether to mark the matched datamap entries as tested or created; checks
+     *                  of text that is still being edited should leave them alone
+     */
+    public static void check(SoarWorkingMemoryModel dataMap,
+                             SoarIdentifierVertex startVertex,
+                             TriplesExtractor triplesExtractor,
+                             CheckerErrorHandler ceh,
+                             boolean markEdges) {
         Map<String, Set<DataMapMatcher.Match>> varMap = DataMapMatcher.matches(
                 dataMap,
                 startVertex,
                 triplesExtractor,
-                ceh);
+                ceh,
+                markEdges);
         if (varMap != null) {
             Set<String> keySet = varMap.keySet();
             for (String varKey : keySet) {
@@ -89,6 +89,23 @@ public class DataMapMatcher {
       SoarIdentifierVertex startVertex,
       TriplesExtractor triplesExtractor,
       MatcherErrorHandler meh) {
+    return matches(dataMap, startVertex, triplesExtractor, meh, true);
+  }
+
+  /**
+   * Like {@link #matches(SoarWorkingMemoryModel, SoarIdentifierVertex, TriplesExtractor,
+   * MatcherErrorHandler)}, but optionally leaves the datamap untouched. Normally every matched
+   * entry is marked as tested or created, which is what the searches for untested and uncreated
+   * entries rely on.
+   *
+   * @param markEdges whether to mark the matched datamap entries
+   */
+  public static Map<String, Set<Match>> matches(
+      SoarWorkingMemoryModel dataMap,
+      SoarIdentifierVertex startVertex,
+      TriplesExtractor triplesExtractor,
+      MatcherErrorHandler meh,
+      boolean markEdges) {
         Map<String, Set<Match>> varMap = new HashMap<>();
         Iterator<Pair> pairIter = triplesExtractor.variables();
         while (pairIter.hasNext()) {
@@ -118,7 +135,7 @@ public class DataMapMatcher {
                     || TripleUtils.isInteger(currentTriple.getValue().getString()))) {
                 continue;
             }
-            if (!addConstraint(dataMap, currentTriple, varMap)) {
+            if (!addConstraint(dataMap, currentTriple, varMap, markEdges)) {
                 meh.badConstraint(currentTriple);
             }
         }
@@ -156,7 +173,7 @@ public class DataMapMatcher {
             }
 
             // Error in DataMap, generate new structure to fix this error
-            if (!addConstraint(dataMap, currentTriple, varMap)) {
+            if (!addConstraint(dataMap, currentTriple, varMap, true)) {
 
                 // Ignore case if attribute is a 'variable' (<' '>)
                 if (TripleUtils.isVariable(currentTriple.getAttribute().getString())) {
@@ -424,7 +441,8 @@ public class DataMapMatcher {
 
     private static boolean addConstraint(SoarWorkingMemoryModel dataMap,
                                          Triple triple,
-                                         Map<String, Set<Match>> matches) {
+                                         Map<String, Set<Match>> matches,
+                                         boolean markEdges) {
         Set<Match> varSet = matches.get(triple.getVariable().getString());
         boolean matched = false;
         // for every possible start
@@ -440,10 +458,12 @@ public class DataMapMatcher {
                 NamedEdge currentEdge = edges.nextElement();
                 if (currentEdge.satisfies(triple)) {
                     // Used for the Datamap Searches for untested/uncreated elements
-                    if (triple.isCondition()) {
-                        currentEdge.tested();
-                    } else {
-                        currentEdge.created();
+                    if (markEdges) {
+                        if (triple.isCondition()) {
+                            currentEdge.tested();
+                        } else {
+                            currentEdge.created();
+                        }
                     }
 
                     if (!matched) {
@@ -0,0 +1,508 @@
+package edu.umich.soar.visualsoar.datamap;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.umich.soar.visualsoar.files.projectjson.DMVertex;
+import edu.umich.soar.visualsoar.files.projectjson.Json;
+import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
+import edu.umich.soar.visualsoar.files.projectjson.Project;
+import edu.umich.soar.visualsoar.graph.*;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a {@code .vsa.json} project file in a single streaming pass.
+ *
+ * <p>Unlike {@link Project#loadJsonFile(Path)} followed by {@link
+ * SoarWorkingMemoryReader#loadFromJson}, this never materializes the {@link DMVertex} list: each
+ * vertex is turned into its final {@link SoarVertex} (with its internal id) as soon as its JSON
+ * object has been read. Out-edges are only recorded as strings at that point, because their
+ * {@code toId} may refer to a vertex later in the file; they are resolved and linked in a final
+ * pass, which runs in parallel since every tail vertex's adjacency list is independent.
+ *
+ * <p>The layout is small compared to the datamap, so it is still bound with the regular {@link
+ * Json} mapper.
+ */
+public class ProjectJsonReader {
+
+  /** The result of reading a project file. */
+  public static class LoadedProject {
+    public final SoarWorkingMemoryModel swmm;
+
+    /** the operator hierarchy, or null if the reader was asked to skip it */
+    public final LayoutNode layout;
+
+    public LoadedProject(SoarWorkingMemoryModel swmm, LayoutNode layout) {
+      this.swmm = swmm;
+      this.layout = layout;
+    }
+  }
+
+  /** The out-edges of one tail vertex, waiting for their heads to be known */
+  private static class PendingEdges {
+    private final SoarVertex tail;
+    private final List<PendingEdge> edges;
+
+    private PendingEdges(SoarVertex tail, List<PendingEdge> edges) {
+      this.tail = tail;
+      this.edges = edges;
+    }
+  }
+
+  private static class PendingEdge {
+    private String name;
+    private String toId;
+    private String comment;
+    private boolean generated;
+  }
+
+  /**
+   * The fields of the vertex object currently being read. Vertex properties are written in
+   * alphabetical order, so "type" usually arrives last and nothing can be built until the object
+   * is closed.
+   */
+  private static class VertexFields {
+    private String id;
+    private DMVertex.VertexType type;
+    private List<PendingEdge> outEdges;
+    private Vector<String> choices;
+    private Number min;
+    private Number max;
+    private String foreignDMPath;
+    private VertexFields importedVertex;
+  }
+
+  private final JsonParser parser;
+  private final Path jsonPath;
+  private final boolean readLayout;
+
+  // index is the internal vertex id; slot 0 is reserved for the root
+  private final List<SoarVertex> vertices = new ArrayList<>();
+  private final Map<String, SoarVertex> idToVertex = new HashMap<>();
+  private final List<PendingEdges> pendingEdges = new ArrayList<>();
+  private String rootId;
+  private SoarVertex root;
+
+  private ProjectJsonReader(JsonParser parser, Path jsonPath, boolean readLayout) {
+    this.parser = parser;
+    this.jsonPath = jsonPath;
+    this.readLayout = readLayout;
+    vertices.add(null);
+  }
+
+  /** Reads both the datamap and the layout of the given project file */
+  public static LoadedProject read(Path jsonPath) throws IOException {
+    return read(jsonPath, true);
+  }
+
+  /** Reads only the datamap of the given project file, skipping over the layout */
+  public static SoarWorkingMemoryModel readDatamap(Path jsonPath) throws IOException {
+    return read(jsonPath, false).swmm;
+  }
+
+  private static LoadedProject read(Path jsonPath, boolean readLayout) throws IOException {
+    // byte input lets Jackson use its faster UTF-8 parser instead of decoding through a Reader
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(jsonPath));
+        JsonParser parser = Json.createParser(in)) {
+      return new ProjectJsonReader(parser, jsonPath, readLayout).readProject();
+    }
+  }
+
+  private LoadedProject readProject() throws IOException {
+    expect(parser.nextToken(), JsonToken.START_OBJECT);
+    String version = null;
+    SoarWorkingMemoryModel swmm = null;
+    LayoutNode layout = null;
+    boolean sawLayout = false;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "version":
+          version = value == JsonToken.VALUE_NULL ? null : parser.getText();
+          break;
+        case "datamap":
+          expect(value, JsonToken.START_OBJECT);
+          swmm = readDatamapObject();
+          break;
+        case "layout":
+          sawLayout = value != JsonToken.VALUE_NULL;
+          if (readLayout && sawLayout) {
+            layout = Json.readValue(parser, LayoutNode.class);
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        default:
+          throw error("Unrecognized project field '" + field + "'");
+      }
+    }
+
+    if (version == null) {
+      throw error("Project 'version' cannot be null or missing.");
+    }
+    if (!version.equals(Project.SUPPORTED_VERSION)) {
+      throw error(
+          "Only version " + Project.SUPPORTED_VERSION + " is currently supported for this project format");
+    }
+    if (swmm == null) {
+      throw error("Project 'datamap' cannot be null or missing.");
+    }
+    if (!sawLayout) {
+      throw error("Project 'layout' cannot be null or missing.");
+    }
+    return new LoadedProject(swmm, layout);
+  }
+
+  private SoarWorkingMemoryModel readDatamapObject() throws IOException {
+    boolean sawVertices = false;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      switch (field) {
+        case "rootId":
+          if (value != JsonToken.VALUE_NULL) {
+            rootId = parser.getText();
+            // the root may already have been read if rootId comes after the vertices
+            SoarVertex existing = idToVertex.get(rootId);
+            if (existing != null) {
+              makeRoot(existing);
+            }
+          }
+          break;
+        case "vertices":
+          expect(value, JsonToken.START_ARRAY);
+          sawVertices = true;
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            expect(parser.currentToken(), JsonToken.START_OBJECT);
+            addVertex(readVertexFields());
+          }
+          break;
+        default:
+          throw error("Unrecognized datamap field '" + field + "'");
+      }
+    }
+
+    if (!sawVertices) {
+      throw error("Datamap 'vertices' cannot be null or missing.");
+    }
+    if (root == null) {
+      throw error("rootId is " + rootId + " but no vertex with that ID can be found");
+    }
+    if (!(root instanceof SoarIdentifierVertex)) {
+      throw error(
+          "Root vertex must be of type " + DMVertex.VertexType.SOAR_ID + ", but found " + typeOf(root));
+    }
+
+    SoarWorkingMemoryModel swmm = new SoarWorkingMemoryModel(false, null, jsonPath);
+    swmm.setTopstate((SoarIdentifierVertex) root);
+    for (int i = 1; i < vertices.size(); i++) {
+      swmm.addVertex(vertices.get(i));
+    }
+    // the model keeps its own id index from here on
+    vertices.clear();
+    idToVertex.clear();
+
+    linkEdges(swmm);
+    return swmm;
+  }
+
+  /** Converts a fully-read vertex object and assigns its internal id */
+  private void addVertex(VertexFields fields) throws IOException {
+    if (idToVertex.containsKey(fields.id)) {
+      throw error(
+          "The vertex ID " + fields.id + " was used more than once. Vertex IDs must be unique.");
+    }
+    boolean isRoot = fields.id.equals(rootId);
+    int internalId = isRoot ? 0 : vertices.size();
+    SoarVertex vertex;
+    try {
+      vertex = buildVertex(fields, internalId);
+    } catch (IllegalArgumentException e) {
+      // e.g. a range whose min is greater than its max
+      throw error("Vertex " + fields.id + ": " + e.getMessage());
+    }
+    idToVertex.put(fields.id, vertex);
+    if (isRoot) {
+      vertices.set(0, vertex);
+      root = vertex;
+    } else {
+      vertices.add(vertex);
+    }
+
+    if (fields.type == DMVertex.VertexType.SOAR_ID) {
+      addPendingEdges(vertex, fields.outEdges);
+    } else if (fields.type == DMVertex.VertexType.FOREIGN
+        && fields.importedVertex.type == DMVertex.VertexType.SOAR_ID) {
+      // the foreign vertex stands in for the imported one as the tail of its edges
+      addPendingEdges(vertex, fields.importedVertex.outEdges);
+    }
+  }
+
+  /**
+   * Moves a vertex that was numbered before the rootId was known into slot 0. The last vertex
+   * takes over its old slot so that ids stay contiguous.
+   */
+  private void makeRoot(SoarVertex vertex) {
+    int oldId = vertex.getValue();
+    vertex.setValue(0);
+    vertices.set(0, vertex);
+    SoarVertex last = vertices.remove(vertices.size() - 1);
+    if (last != vertex) {
+      last.setValue(oldId);
+      vertices.set(oldId, last);
+    }
+    root = vertex;
+  }
+
+  private void addPendingEdges(SoarVertex tail, List<PendingEdge> edges) {
+    if (edges != null && !edges.isEmpty()) {
+      pendingEdges.add(new PendingEdges(tail, edges));
+    }
+  }
+
+  /**
+   * Resolves every recorded edge against the now complete set of vertices. Resolution and sorting
+   * happen in parallel per tail vertex; the sorted batches are then handed to the model in order.
+   */
+  private void linkEdges(SoarWorkingMemoryModel swmm) throws IOException {
+    List<List<NamedEdge>> resolved;
+    try {
+      resolved =
+          pendingEdges.parallelStream()
+              .map(pending -> resolveEdges(swmm, pending))
+              .collect(Collectors.toList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    for (int i = 0; i < resolved.size(); i++) {
+      swmm.addTriples(pendingEdges.get(i).tail, resolved.get(i));
+    }
+    pendingEdges.clear();
+  }
+
+  private static List<NamedEdge> resolveEdges(SoarWorkingMemoryModel swmm, PendingEdges pending) {
+    List<NamedEdge> edges = new ArrayList<>(pending.edges.size());
+    for (PendingEdge edge : pending.edges) {
+      SoarVertex head = swmm.getVertexForSerializationId(edge.toId);
+      if (head == null) {
+        throw new UncheckedIOException(
+            new IOException(
+                "toId value \""
+                    + edge.toId
+                    + "\" in edge from vertex \""
+                    + pending.tail.getSerializationId()
+                    + "\" does not specify any known vertex."));
+      }
+      edges.add(
+          SoarWorkingMemoryModel.createEdge(
+              pending.tail,
+              edge.name,
+              head,
+              edge.generated,
+              edge.comment != null ? edge.comment : ""));
+    }
+    edges.sort(null);
+    return edges;
+  }
+
+  /** Reads the fields of the vertex object the parser is positioned on */
+  private VertexFields readVertexFields() throws IOException {
+    VertexFields fields = new VertexFields();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (value == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "id":
+          fields.id = parser.getText();
+          break;
+        case "type":
+          try {
+            fields.type = DMVertex.VertexType.valueOf(parser.getText());
+          } catch (IllegalArgumentException e) {
+            throw error("Unknown vertex type '" + parser.getText() + "'");
+          }
+          break;
+        case "outEdges":
+          expect(value, JsonToken.START_ARRAY);
+          fields.outEdges = new ArrayList<>();
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            fields.outEdges.add(readEdge());
+          }
+          break;
+        case "choices":
+          expect(value, JsonToken.START_ARRAY);
+          fields.choices = new Vector<>();
+          while (parser.nextToken() != JsonToken.END_ARRAY) {
+            fields.choices.add(parser.getText());
+          }
+          break;
+        case "min":
+          fields.min = readNumber(value);
+          break;
+        case "max":
+          fields.max = readNumber(value);
+          break;
+        case "foreignDMPath":
+          fields.foreignDMPath = parser.getText();
+          break;
+        case "importedVertex":
+          expect(value, JsonToken.START_OBJECT);
+          fields.importedVertex = readVertexFields();
+          break;
+        default:
+          throw error("Unrecognized vertex field '" + field + "'");
+      }
+    }
+
+    if (fields.id == null) {
+      throw error("Vertex is missing its 'id' field");
+    }
+    if (fields.type == null) {
+      throw error("Vertex " + fields.id + " is missing its 'type' field");
+    }
+    return fields;
+  }
+
+  private PendingEdge readEdge() throws IOException {
+    expect(parser.currentToken(), JsonToken.START_OBJECT);
+    PendingEdge edge = new PendingEdge();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if (value == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "name":
+          edge.name = parser.getText();
+          break;
+        case "toId":
+          edge.toId = parser.getText();
+          break;
+        case "comment":
+          edge.comment = parser.getText();
+          break;
+        case "generated":
+          edge.generated = parser.getValueAsBoolean();
+          break;
+        default:
+          throw error("Unrecognized edge field '" + field + "'");
+      }
+    }
+    if (edge.name == null) {
+      throw error("Edge is missing its 'name' field");
+    }
+    if (edge.toId == null) {
+      throw error("Edge named '" + edge.name + "' is missing its toId field");
+    }
+    return edge;
+  }
+
+  private Number readNumber(JsonToken value) throws IOException {
+    if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+      throw error("Expected a number but found " + value);
+    }
+    return parser.getNumberValue();
+  }
+
+  /**
+   * Builds the final vertex object.
+   *
+   * @param internalId the vertex's id in the SoarWorkingMemoryModel
+   */
+  private SoarVertex buildVertex(VertexFields fields, int internalId) throws IOException {
+    switch (fields.type) {
+      case SOAR_ID:
+        return new SoarIdentifierVertex(internalId, fields.id);
+      case ENUMERATION:
+        if (fields.choices == null) {
+          throw error(
+              "Vertex "
+                  + fields.id
+                  + " is of type "
+                  + fields.type
+                  + " and therefore must have an enumChoices defined");
+        }
+        Collections.sort(fields.choices);
+        return new EnumerationVertex(internalId, fields.id, fields.choices);
+      case INTEGER:
+        return new IntegerRangeVertex(
+            internalId,
+            fields.id,
+            toInt(fields.min, Integer.MIN_VALUE),
+            toInt(fields.max, Integer.MAX_VALUE));
+      case FLOAT:
+        return new FloatRangeVertex(
+            internalId,
+            fields.id,
+            fields.min == null ? Double.NEGATIVE_INFINITY : fields.min.doubleValue(),
+            fields.max == null ? Double.POSITIVE_INFINITY : fields.max.doubleValue());
+      case STRING:
+        return new StringVertex(internalId, fields.id);
+      case FOREIGN:
+        if (fields.foreignDMPath == null) {
+          throw error(
+              "Vertex "
+                  + fields.id
+                  + " is of type "
+                  + fields.type
+                  + " and therefore must have a foreignDMPath defined");
+        }
+        if (fields.importedVertex == null) {
+          throw error(
+              "Vertex "
+                  + fields.id
+                  + " is of type "
+                  + fields.type
+                  + " and therefore must have a importedVertex defined");
+        }
+        // imported vertices are not directly added to SoarWorkingMemoryModel; use a negative value
+        // to trigger obvious errors in case we ever do that
+        SoarVertex imported = buildVertex(fields.importedVertex, -1337);
+        return new ForeignVertex(
+            internalId, fields.id, fields.foreignDMPath.replace('\\', '/'), imported);
+      default:
+        throw error("Unknown node type " + fields.type);
+    }
+  }
+
+  private int toInt(Number n, int defaultValue) throws IOException {
+    if (n == null) {
+      return defaultValue;
+    }
+    if (!(n instanceof Integer)) {
+      throw error("Expected an integer but found " + n);
+    }
+    return n.intValue();
+  }
+
+  private static String typeOf(SoarVertex vertex) {
+    if (vertex instanceof ForeignVertex) return DMVertex.VertexType.FOREIGN.name();
+    if (vertex instanceof EnumerationVertex) return DMVertex.VertexType.ENUMERATION.name();
+    if (vertex instanceof IntegerRangeVertex) return DMVertex.VertexType.INTEGER.name();
+    if (vertex instanceof FloatRangeVertex) return DMVertex.VertexType.FLOAT.name();
+    return DMVertex.VertexType.STRING.name();
+  }
+
+  private void expect(JsonToken actual, JsonToken expected) throws IOException {
+    if (actual != expected) {
+      throw error("Expected " + expected + " but found " + actual);
+    }
+  }
+
+  private JsonParseException error(String message) {
+    return new JsonParseException(parser, message);
+  }
+}
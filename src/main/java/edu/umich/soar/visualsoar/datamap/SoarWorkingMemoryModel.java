@@ -10,13 +10,16 @@ import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
 import edu.umich.soar.visualsoar.parser.SoarProduction;
 import edu.umich.soar.visualsoar.parser.Triple;
 import edu.umich.soar.visualsoar.parser.TriplesExtractor;
+import edu.umich.soar.visualsoar.profiling.ProductionCheckEvent;
 import edu.umich.soar.visualsoar.util.EnumerationIteratorWrapper;
+import edu.umich.soar.visualsoar.util.IdGenerator;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * This is a model of Soar's Working Memory represented by a directed graph structure
@@ -35,6 +38,10 @@ public class SoarWorkingMemoryModel {
   private final Vector<WorkingMemoryListener> listeners = new Vector<>();
   private final TreeMap<String, SoarVertex> properties = new TreeMap<>();
   private final Path dmPath;
+  // makes the serialization IDs of new vertices
+  private final Supplier<String> ids;
+  // counts changes to the model, so that work derived from it can tell when it is out of date
+  private volatile long revision = 0;
 
   /////////////////////////////////////////////////////////
   // Constructors
@@ -50,6 +57,18 @@ public class SoarWorkingMemoryModel {
    * @see #addProperty(String, SoarVertex)
    */
   public SoarWorkingMemoryModel(boolean isNew, String name, Path dmPath) {
+    this(isNew, name, dmPath, IdGenerator::getId);
+  }
+
+  /**
+   * Creates a default model of working memory whose new vertices get their serialization IDs from
+   * the given supplier rather than {@link IdGenerator}, such as a counter for output that is the
+   * same every time.
+   *
+   * @see #SoarWorkingMemoryModel(boolean, String, Path)
+   */
+  public SoarWorkingMemoryModel(boolean isNew, String name, Path dmPath, Supplier<String> ids) {
+    this.ids = ids;
     if (isNew) {
       addProperty("TOPSTATE", createNewSoarId());
       addProperty("IO", createNewSoarId());
@@ -100,6 +119,22 @@ public class SoarWorkingMemoryModel {
     return serializationId2Vertex.get(serializationId);
   }
 
+  /**
+   * @return a number that changes whenever working memory does; only meaningful when compared with
+   *     an earlier result of this method
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  /**
+   * Records a change that is not reported to the listeners, such as editing an enumeration or a
+   * comment.
+   */
+  public void markChanged() {
+    revision++;
+  }
+
   /** Adds a listener to working memory, to receive working memory events */
   public void addWorkingMemoryListener(WorkingMemoryListener l) {
     listeners.add(l);
@@ -130,15 +165,39 @@ public class SoarWorkingMemoryModel {
     if (!v0.allowsEmanatingEdges()) {
       throw new IllegalArgumentException("The First SoarVertex does not allow emanating edges");
     }
+    NamedEdge ne = createEdge(v0, attribute, v1, generated == 1, comment);
+    rep.addEdge(ne);
+    notifyListenersOfAdd(ne);
+  }
+
+  /**
+   * Adds a batch of triples that all emanate from v0. The edges are expected to have been built
+   * with {@link #createEdge}; this is used by readers that resolve many edges at once.
+   */
+  public void addTriples(SoarVertex v0, List<NamedEdge> edges) {
+    if (!v0.allowsEmanatingEdges()) {
+      throw new IllegalArgumentException("The First SoarVertex does not allow emanating edges");
+    }
+    rep.addEdges(v0, edges);
+    for (NamedEdge ne : edges) {
+      notifyListenersOfAdd(ne);
+    }
+  }
+
+  /**
+   * Builds (but does not add) the edge for a triple, applying the same comment and generated
+   * handling as {@link #addTriple(SoarVertex, String, SoarVertex, int, String)}.
+   */
+  public static NamedEdge createEdge(
+      SoarVertex v0, String attribute, SoarVertex v1, boolean generated, String comment) {
     NamedEdge ne = new NamedEdge(v0, v1, attribute);
     if (comment.length() > 1) {
       ne.setComment(comment);
     }
-    if (generated == 1) {
+    if (generated) {
       ne.setAsGenerated();
     }
-    rep.addEdge(ne);
-    notifyListenersOfAdd(ne);
+    return ne;
   }
 
   /**
@@ -234,7 +293,7 @@ public class SoarWorkingMemoryModel {
    */
   public EnumerationVertex createNewEnumeration(Vector<String> vec) {
     int id = getNextVertexId();
-    EnumerationVertex e = new EnumerationVertex(id, vec);
+    EnumerationVertex e = new EnumerationVertex(id, ids.get(), vec);
     addVertex(e);
     return e;
   }
@@ -248,7 +307,9 @@ public class SoarWorkingMemoryModel {
    */
   public EnumerationVertex createNewEnumeration(String s) {
     int id = getNextVertexId();
-    EnumerationVertex e = new EnumerationVertex(id, s);
+    Vector<String> vec = new Vector<>();
+    vec.add(s);
+    EnumerationVertex e = new EnumerationVertex(id, ids.get(), vec);
     addVertex(e);
     return e;
   }
@@ -260,7 +321,7 @@ public class SoarWorkingMemoryModel {
    */
   public IntegerRangeVertex createNewInteger() {
     int id = getNextVertexId();
-    IntegerRangeVertex i = new IntegerRangeVertex(id, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    IntegerRangeVertex i = new IntegerRangeVertex(id, ids.get(), Integer.MIN_VALUE, Integer.MAX_VALUE);
     addVertex(i);
     return i;
   }
@@ -274,7 +335,7 @@ public class SoarWorkingMemoryModel {
    */
   public IntegerRangeVertex createNewIntegerRange(int low, int high) {
     int id = getNextVertexId();
-    IntegerRangeVertex i = new IntegerRangeVertex(id, low, high);
+    IntegerRangeVertex i = new IntegerRangeVertex(id, ids.get(), low, high);
     addVertex(i);
     return i;
   }
@@ -286,7 +347,7 @@ public class SoarWorkingMemoryModel {
    */
   public StringVertex createNewString() {
     int id = getNextVertexId();
-    StringVertex s = new StringVertex(id);
+    StringVertex s = new StringVertex(id, ids.get());
     addVertex(s);
     return s;
   }
@@ -298,7 +359,7 @@ public class SoarWorkingMemoryModel {
    */
   public FloatRangeVertex createNewFloat() {
     int id = getNextVertexId();
-    FloatRangeVertex f = new FloatRangeVertex(id, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
+    FloatRangeVertex f = new FloatRangeVertex(id, ids.get(), Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY);
     addVertex(f);
     return f;
   }
@@ -312,7 +373,7 @@ public class SoarWorkingMemoryModel {
    */
   public FloatRangeVertex createNewFloatRange(float low, float high) {
     int id = getNextVertexId();
-    FloatRangeVertex f = new FloatRangeVertex(id, low, high);
+    FloatRangeVertex f = new FloatRangeVertex(id, ids.get(), low, high);
     addVertex(f);
     return f;
   }
@@ -324,7 +385,7 @@ public class SoarWorkingMemoryModel {
    */
   public SoarIdentifierVertex createNewSoarId() {
     int id = getNextVertexId();
-    SoarIdentifierVertex s = new SoarIdentifierVertex(id);
+    SoarIdentifierVertex s = new SoarIdentifierVertex(id, ids.get());
     addVertex(s);
     return s;
   }
@@ -436,6 +497,7 @@ public class SoarWorkingMemoryModel {
    * @param ne the edge that was added
    */
   protected void notifyListenersOfAdd(NamedEdge ne) {
+    revision++;
     for (WorkingMemoryListener wml : listeners) {
       wml.WMEAdded(new WorkingMemoryEvent(ne));
     }
@@ -447,6 +509,7 @@ public class SoarWorkingMemoryModel {
    * @param ne the edge that has been removed
    */
   protected void notifyListenersOfRemove(NamedEdge ne) {
+    revision++;
     for (WorkingMemoryListener wml : this.listeners) {
       wml.WMERemoved(new WorkingMemoryEvent(ne));
     }
@@ -587,7 +650,8 @@ public class SoarWorkingMemoryModel {
   }
 
   /**
-   * Function finds the set of variables within a productions that matches a given string
+   * Function finds the set of variables within a productions that matches a given string. The
+   * matched datamap entries are not marked as tested or created.
    *
    * @param sv the SoarIdentifierVertex currently checking
    * @param sp the SoarProduction to check for matching variables
@@ -597,7 +661,8 @@ public class SoarWorkingMemoryModel {
   public List<DataMapMatcher.Match> matches(SoarIdentifierVertex sv, SoarProduction sp, String variable) {
     TriplesExtractor triplesExtractor = new TriplesExtractor(sp);
     Map<String, Set<DataMapMatcher.Match>> matchesMap =
-        DataMapMatcher.matches(this, sv, triplesExtractor, new DoNothingMatcherErrorHandler());
+        DataMapMatcher.matches(
+            this, sv, triplesExtractor, new DoNothingMatcherErrorHandler(), false);
     List<DataMapMatcher.Match> matches = new LinkedList<>();
     if (matchesMap != null) {
       Set<DataMapMatcher.Match> matchesSet = matchesMap.get(variable);
@@ -619,11 +684,21 @@ public class SoarWorkingMemoryModel {
    */
   public List<FeedbackListEntry> checkProduction(
       OperatorNode current, SoarIdentifierVertex sv, SoarProduction sp) {
+    ProductionCheckEvent event = new ProductionCheckEvent();
+    event.begin();
     TriplesExtractor triplesExtractor = new TriplesExtractor(sp);
     DefaultCheckerErrorHandler dceh =
         new DefaultCheckerErrorHandler(current, sp.getName(), sp.getStartLine());
     DataMapChecker.check(this, sv, triplesExtractor, dceh);
-    return dceh.getErrors();
+    List<FeedbackListEntry> errors = dceh.getErrors();
+    if (event.shouldCommit()) {
+      event.production = sp.getName();
+      event.file = current.getFileName();
+      event.triples = triplesExtractor.getTripleCount();
+      event.errors = errors.size();
+      event.commit();
+    }
+    return errors;
   }
 
   /////////////////////////////////
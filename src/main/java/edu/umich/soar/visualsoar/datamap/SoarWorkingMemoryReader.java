@@ -3,7 +3,6 @@ package edu.umich.soar.visualsoar.datamap;
 import edu.umich.soar.visualsoar.ProjectModel;
 import edu.umich.soar.visualsoar.files.projectjson.DMVertex;
 import edu.umich.soar.visualsoar.files.projectjson.Datamap;
-import edu.umich.soar.visualsoar.files.projectjson.Project;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.graph.*;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
@@ -13,6 +12,7 @@ import org.jetbrains.annotations.NotNull;
 import java.io.*;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.logging.Logger;
 
 /**
  * This class contains utilities for reading datamap data from files
@@ -21,6 +21,7 @@ import java.util.*;
  * @author Andrew Nuxoll
  */
 public class SoarWorkingMemoryReader {
+    private static final Logger LOGGER = Logger.getLogger(SoarWorkingMemoryReader.class.getName());
 
     /**
      * This should not be used by clients; it is package-private for testing purposes.
@@ -138,7 +139,7 @@ public class SoarWorkingMemoryReader {
    * @return a SoarVertex object or null on failure
    */
   static SoarVertex readVertexSafe(
-      @NotNull String line, int expectedId, @NotNull Vector<FeedbackListEntry> errors) {
+      @NotNull String line, int expectedId, @NotNull List<FeedbackListEntry> errors) {
     SoarVertex vertexToAdd = null;
     Reader lineReader = new StringReader(line);
 
@@ -309,7 +310,29 @@ public class SoarWorkingMemoryReader {
   public static boolean readSafe(SoarWorkingMemoryModel swmm, Reader fr, Reader cr) {
     // Any errors found will be stored here and reported at the end
     Vector<FeedbackListEntry> errors = new Vector<>();
+    boolean success = readSafe(swmm, fr, cr, errors);
 
+    // if any issues were found, report them to the user
+    if (errors.size() > 0) {
+      MainFrame mainFrame = MainFrame.getMainFrame();
+      if (mainFrame != null) {
+        mainFrame.getFeedbackManager().showFeedback(errors);
+      } else {
+        errors.forEach(error -> LOGGER.warning(error.toString()));
+      }
+    }
+    return success;
+  }
+
+  /**
+   * Like {@link #readSafe(SoarWorkingMemoryModel, Reader, Reader)}, but leaves reporting any
+   * issues to the caller, so that no UI is needed
+   *
+   * @param errors any issues found are <em>added</em> to this list
+   * @return true if no errors were found
+   */
+  public static boolean readSafe(
+      SoarWorkingMemoryModel swmm, Reader fr, Reader cr, List<FeedbackListEntry> errors) {
     try {
       int MAX_SANE = 999999; // no sane datamap would have more vertices than this
 
@@ -341,7 +364,6 @@ public class SoarWorkingMemoryReader {
                 "Error: Root type must be Soar id.  Expected \"SOAR_ID 0\" but found \""
                     + lineTwo
                     + "\""));
-        MainFrame.getMainFrame().getFeedbackManager().showFeedback(errors);
         return false;
       }
       int rootNodeId = -1;
@@ -356,7 +378,6 @@ public class SoarWorkingMemoryReader {
                 "Datamap root must have a valid Soar id.  Expected \"SOAR_ID 0\" but found \""
                     + lineTwo
                     + "\""));
-        MainFrame.getMainFrame().getFeedbackManager().showFeedback(errors);
         return false;
       }
       SoarIdentifierVertex topState = new SoarIdentifierVertex(rootNodeId);
@@ -370,7 +391,6 @@ public class SoarWorkingMemoryReader {
           errors.add(
               new FeedbackListEntry(
                   "Error:  The .dm file appears to be truncated in the vertex list.  Aborting."));
-          MainFrame.getMainFrame().getFeedbackManager().showFeedback(errors);
           return false;
         }
 
@@ -555,10 +575,6 @@ public class SoarWorkingMemoryReader {
               "Could not load datamap due to Exception: " + e.getMessage(), true));
     }
 
-    // if any issues were found, report them to the user
-    if (errors.size() > 0) {
-      MainFrame.getMainFrame().getFeedbackManager().showFeedback(errors);
-    }
     // return true if no errors were found
     return errors.stream().filter(FeedbackListEntry::isError).findAny().isEmpty();
   } // readSafe
@@ -571,8 +587,7 @@ public class SoarWorkingMemoryReader {
     public static SoarWorkingMemoryModel loadSWMM(File dataMapFile) {
         if(dataMapFile.getName().endsWith(".json")) {
           try {
-            Project projectJson = Project.loadJsonFile(dataMapFile.toPath());
-            return loadFromJson(projectJson.datamap, dataMapFile.toPath());
+            return ProjectJsonReader.readDatamap(dataMapFile.toPath());
           }catch(IOException e) {
             MainFrame.getMainFrame().getFeedbackManager().setStatusBarError("Error opening " + dataMapFile.getName() + ": " + e.getMessage());
           }
@@ -41,6 +41,10 @@ public class PreferencesDialog extends JDialog {
       new JCheckBox("Auto-Indenting", Prefs.autoIndentingEnabled.getBoolean());
   private final JCheckBox autoSoarCompleteCheckBox =
       new JCheckBox("Auto-Soar Complete", Prefs.autoSoarCompleteEnabled.getBoolean());
+  private final JCheckBox liveDatamapChecksCheckBox =
+      new JCheckBox(
+          "Check productions against the datamap while typing",
+          Prefs.liveDatamapChecksEnabled.getBoolean());
 
   /** used to let the user change the font size of the editor font */
   private final NumberTextField editorFontField = new NumberTextField();
@@ -78,7 +82,8 @@ public class PreferencesDialog extends JDialog {
             BorderFactory.createTitledBorder("Auto Formatting"),
             BorderFactory.createEmptyBorder(10, 10, 10, 10)));
     checkBoxPanel.add(autoIndentingCheckBox, BorderLayout.NORTH);
-    checkBoxPanel.add(autoSoarCompleteCheckBox, BorderLayout.SOUTH);
+    checkBoxPanel.add(autoSoarCompleteCheckBox, BorderLayout.CENTER);
+    checkBoxPanel.add(liveDatamapChecksCheckBox, BorderLayout.SOUTH);
 
     // Font Size Section (added by :AMN: on 25 Sep 2022)
     editorFontPanel.setBorder(
@@ -140,8 +145,10 @@ public class PreferencesDialog extends JDialog {
             Prefs.horizTile.setBoolean(tilePanel.getHorizontalTile());
             Prefs.autoIndentingEnabled.setBoolean(autoIndentingCheckBox.isSelected());
             Prefs.autoIndentingEnabled.setBoolean(autoSoarCompleteCheckBox.isSelected());
+            Prefs.liveDatamapChecksEnabled.setBoolean(liveDatamapChecksCheckBox.isSelected());
             Prefs.saveOnDmCheckPass.setBoolean(saveActionsPanel.getSaveOnDmCheckPass());
             Prefs.checkDmOnSave.setBoolean(saveActionsPanel.getCheckDmOnSave());
+            Prefs.projectSnapshotEnabled.setBoolean(saveActionsPanel.getProjectSnapshot());
             Prefs.enableCurrentSelectionOccurrenceHighlighting.setBoolean(
                 selectionOccurrenceHighlightingPanel.enabled());
 
@@ -15,15 +15,19 @@ class SaveActionsPanel extends JPanel {
   private final JCheckBox saveOnDmCheckPass =
       new JCheckBox("Save project when datamap check passes");
   private final JCheckBox checkDmOnSave = new JCheckBox("Check project against datamap when saved");
+  private final JCheckBox projectSnapshot =
+      new JCheckBox("Keep a binary snapshot of the project for faster opening");
 
   public SaveActionsPanel() {
-    setLayout(new GridLayout(2, 1, 0, 5));
+    setLayout(new GridLayout(3, 1, 0, 5));
 
     saveOnDmCheckPass.setSelected(Prefs.saveOnDmCheckPass.getBoolean());
     checkDmOnSave.setSelected(Prefs.checkDmOnSave.getBoolean());
+    projectSnapshot.setSelected(Prefs.projectSnapshotEnabled.getBoolean());
 
     add(saveOnDmCheckPass);
     add(checkDmOnSave);
+    add(projectSnapshot);
 
     setBorder(new CompoundBorder(
       BorderFactory.createTitledBorder("Save Actions"),
@@ -36,5 +40,8 @@ class SaveActionsPanel extends JPanel {
   public boolean getCheckDmOnSave() {
     return checkDmOnSave.isSelected();
   }
+  public boolean getProjectSnapshot() {
+    return projectSnapshot.isSelected();
+  }
 }
 
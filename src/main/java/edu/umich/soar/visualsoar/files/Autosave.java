@@ -0,0 +1,169 @@
+package edu.umich.soar.visualsoar.files;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Periodically backs up open rule editors and the project to {@code <file>~}. A single background
+ * thread serves every source. Each cycle asks the sources, on the event dispatch thread, for a
+ * snapshot of whatever changed since the last cycle; only that step touches the UI. The snapshots
+ * are then turned into bytes and written on the background thread, and files whose content is
+ * already on disk are left alone. A snapshot may also read the live model on the background thread,
+ * as long as it can tell afterwards whether the model changed while it was read.
+ */
+public class Autosave {
+  private static final Logger LOGGER = Logger.getLogger(Autosave.class.getName());
+
+  private static final long INTERVAL_MINUTES = 3;
+
+  /** Something that can be backed up, such as a rule editor. */
+  public interface Source {
+    /** @return false once this source no longer needs backing up; it is then forgotten */
+    boolean isActive();
+
+    /**
+     * Called on the event dispatch thread. Sources should do as little as possible here and leave
+     * the expensive work to {@link Snapshot.Content#get()}.
+     *
+     * @return the content to back up, or null if nothing has changed since the last snapshot
+     */
+    @Nullable
+    Snapshot snapshot();
+  }
+
+  /** The content a source had when it was asked for a snapshot. */
+  public static final class Snapshot {
+    /** Produces the bytes to write; called on the autosave thread. */
+    @FunctionalInterface
+    public interface Content {
+      byte[] get() throws IOException;
+    }
+
+    private final Path path;
+    private final Content content;
+    @Nullable private final BooleanSupplier stillCurrent;
+
+    public Snapshot(Path path, Content content) {
+      this(path, content, null);
+    }
+
+    /**
+     * For content that is read from the live model on the autosave thread. Once the content has
+     * been produced, {@code stillCurrent} is called on the event dispatch thread; if the model
+     * changed in the meantime it returns false, and the content, which may be inconsistent, is not
+     * written.
+     */
+    public Snapshot(Path path, Content content, @Nullable BooleanSupplier stillCurrent) {
+      this.path = path;
+      this.content = content;
+      this.stillCurrent = stillCurrent;
+    }
+  }
+
+  private static final List<Source> sources = new CopyOnWriteArrayList<>();
+  private static ScheduledExecutorService scheduler;
+
+  /** Starts backing up the given source every few minutes for as long as it is active. */
+  public static synchronized void register(Source source) {
+    sources.add(source);
+    if (scheduler == null) {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              r -> {
+                Thread t = new Thread(r, "Autosave");
+                t.setDaemon(true);
+                return t;
+              });
+      scheduler.scheduleWithFixedDelay(
+          Autosave::backUpAll, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+  }
+
+  public static void unregister(Source source) {
+    sources.remove(source);
+  }
+
+  /**
+   * Backs up every source that has changed. Must not be called on the event dispatch thread.
+   *
+   * @return the number of files written
+   */
+  static int backUpAll() {
+    List<Snapshot> snapshots = new ArrayList<>();
+    try {
+      SwingUtilities.invokeAndWait(
+          () -> {
+            for (Source source : sources) {
+              if (!source.isActive()) {
+                sources.remove(source);
+                continue;
+              }
+              Snapshot snapshot = source.snapshot();
+              if (snapshot != null) {
+                snapshots.add(snapshot);
+              }
+            }
+          });
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    } catch (InvocationTargetException e) {
+      LOGGER.log(Level.WARNING, "Unable to collect autosave snapshots", e.getCause());
+    }
+
+    int written = 0;
+    for (Snapshot snapshot : snapshots) {
+      try {
+        byte[] bytes;
+        try {
+          bytes = snapshot.content.get();
+        } catch (RuntimeException e) {
+          // reading a model while it changes can fail; that is only an error if it did not change
+          if (!isStillCurrent(snapshot)) {
+            continue;
+          }
+          throw e;
+        }
+        if (!isStillCurrent(snapshot)) {
+          LOGGER.fine(() -> "Not backing up " + snapshot.path + ", which changed while read");
+          continue;
+        }
+        if (GeneratedFiles.writeIfChanged(snapshot.path, bytes)) {
+          written++;
+        }
+      } catch (IOException | RuntimeException e) {
+        // a failed backup should not get in the user's way; the next change is backed up again
+        LOGGER.log(Level.WARNING, "Unable to back up " + snapshot.path, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return written;
+  }
+
+  private static boolean isStillCurrent(Snapshot snapshot) throws InterruptedException {
+    if (snapshot.stillCurrent == null) {
+      return true;
+    }
+    boolean[] current = {false};
+    try {
+      SwingUtilities.invokeAndWait(() -> current[0] = snapshot.stillCurrent.getAsBoolean());
+    } catch (InvocationTargetException e) {
+      LOGGER.log(Level.WARNING, "Unable to check autosave snapshot", e.getCause());
+    }
+    return current[0];
+  }
+}
@@ -4,11 +4,14 @@ import static edu.umich.soar.visualsoar.files.Util.saveToFile;
 
 import edu.umich.soar.visualsoar.datamap.DataMap;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
+import edu.umich.soar.visualsoar.operatorwindow.FileIndex;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorRootNode;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
 import edu.umich.soar.visualsoar.operatorwindow.SoarOperatorNode;
+import edu.umich.soar.visualsoar.ruleeditor.DeferredRuleEditor;
 import edu.umich.soar.visualsoar.ruleeditor.RuleEditor;
+import java.beans.PropertyVetoException;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -44,50 +47,40 @@ public class Cfg {
       return;
     }
 
-    // Process each line
+    // Look up each file in an index of the project rather than searching the tree for each line
+    FileIndex index = operatorWindow.getProjectModel().fileIndex();
     for (String line : cfgLines) {
       String[] tokens = line.split(" ");
       if (tokens.length != 2) continue; // invalid line
 
-      // Calculate the canonical path of the filename for equality comparison
-      String target;
-      try {
-        target = projectRoot.resolve(Paths.get(tokens[1])).toRealPath().toString();
-      } catch (IOException ioe) {
-        continue; // fail quietly; should never happen
+      Path target = projectRoot.resolve(Paths.get(tokens[1]));
+      if (!Files.exists(target)) {
+        continue; // fail quietly; the file was removed since the last session
       }
 
-      // Find the associated node and open a window for it
-      Enumeration<TreeNode> bfe = operatorWindow.getProjectModel().breadthFirstEnumeration();
-      boolean applied = false;
-      while (bfe.hasMoreElements()) {
-        OperatorNode node = (OperatorNode) bfe.nextElement();
-        if (node.getFileName() == null) continue; // skip the fluff
-
-        // calculate the canonical path so equality comparison will work as intended
-        String nodeFN;
-        try {
-          nodeFN = projectRoot.resolve(node.getFileName()).toRealPath().toString();
-//          TODO next: relativize to cfgFile
-//          nodeFN = (new File(node.getFileName())).getCanonicalPath();
-        } catch (IOException ioe) {
-          continue; // fail quietly; should never happen
-        }
-
-        if (nodeFN.equals(target)) {
-          if (tokens[0].equals("RULEEDITOR")) {
-            node.openRules(mainFrame);
-            applied = true;
-          } else if (tokens[0].equals("DATAMAP")) {
-            node.openDataMap(operatorWindow.getDatamap(), mainFrame);
-            applied = true;
-          } else {
-            LOGGER.warning("Unknown directive in cfg file: " + tokens[0]);
-          }
-        }
-      }
-      if (!applied) {
+      FileIndex.Entry entry = index.findByPath(target);
+      OperatorNode node = (entry == null) ? null : entry.getNode();
+      if (node == null) {
         LOGGER.warning("Unable to apply line from cfg file: " + line);
+      } else if (tokens[0].equals("RULEEDITOR")) {
+        // editors are only loaded once they are activated
+        node.openRulesDeferred(mainFrame);
+      } else if (tokens[0].equals("DATAMAP")) {
+        node.openDataMap(operatorWindow.getDatamap(), mainFrame);
+      } else {
+        LOGGER.warning("Unknown directive in cfg file: " + tokens[0]);
+      }
+    }
+
+    // Activate the front window, which loads it if it is a restored editor; the others load
+    // when the user first activates them
+    JDesktopPane desktop = mainFrame.getDesktopPane();
+    JInternalFrame[] frames = desktop.getAllFrames();
+    if ((frames.length > 0) && (desktop.getSelectedFrame() == null)) {
+      try {
+        frames[0].setSelected(true);
+      } catch (PropertyVetoException e) {
+        // the user can pick a window themselves
       }
     }
   }
@@ -121,6 +114,10 @@ public class Cfg {
         RuleEditor re = (RuleEditor) jInternalFrame;
         String line = "RULEEDITOR " + getPathForWriting(projectRoot, re.getFile());
         cfgLines.add(line);
+      } else if (jInternalFrame instanceof DeferredRuleEditor) {
+        DeferredRuleEditor dre = (DeferredRuleEditor) jInternalFrame;
+        String line = "RULEEDITOR " + getPathForWriting(projectRoot, dre.getFile());
+        cfgLines.add(line);
       } else if (jInternalFrame instanceof DataMap) {
         DataMap dm = (DataMap) jInternalFrame;
         int dmId = dm.getId();
@@ -0,0 +1,220 @@
+package edu.umich.soar.visualsoar.files;
+
+import edu.umich.soar.visualsoar.profiling.AgentExportEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Writes files that VisualSoar generates from the project (such as the {@code *_source.soar} files
+ * written by agent export) only when their content has actually changed. Unchanged files keep
+ * their modification times, and exporting a large agent to a network drive only touches the files
+ * that differ.
+ *
+ * <p>Files are compared by SHA-256 hash. The hash of each file written or checked is remembered
+ * along with its size and modification time, until the project is closed, so a file that nobody
+ * else has touched since is not read again.
+ *
+ * <p>Sets of files are written one at a time on a single background thread, in the order they
+ * were requested, whether or not the caller waits for them.
+ */
+public class GeneratedFiles {
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  private static final Logger LOGGER = Logger.getLogger(GeneratedFiles.class.getName());
+
+  private static final Map<Path, Stamp> knownHashes = new ConcurrentHashMap<>();
+
+  // a single thread, so that generated files are written in the order they were requested
+  private static final ExecutorService writer =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "Generated file writer");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private static class Stamp {
+    final long size;
+    final FileTime modified;
+    final byte[] hash;
+
+    Stamp(BasicFileAttributes attributes, byte[] hash) {
+      this.size = attributes.size();
+      this.modified = attributes.lastModifiedTime();
+      this.hash = hash;
+    }
+
+    boolean matches(BasicFileAttributes attributes) {
+      return size == attributes.size() && modified.equals(attributes.lastModifiedTime());
+    }
+  }
+
+  /**
+   * Writes the content to the file unless the file already contains exactly that. The content is
+   * encoded with the platform default charset, as the generated files always have been.
+   *
+   * @return true if the file was written, false if it was already up to date
+   */
+  public static boolean writeIfChanged(Path path, String content) throws IOException {
+    return writeIfChanged(path, content.getBytes(Charset.defaultCharset()));
+  }
+
+  /**
+   * Writes the bytes to the file unless the file already contains exactly those bytes.
+   *
+   * @return true if the file was written, false if it was already up to date
+   */
+  public static boolean writeIfChanged(Path path, byte[] bytes) throws IOException {
+    byte[] hash = hash(bytes);
+    if (Arrays.equals(hash, currentHash(path, bytes.length))) {
+      return false;
+    }
+    Util.saveToFile(path, out -> out.write(bytes));
+    knownHashes.put(path, new Stamp(Files.readAttributes(path, BasicFileAttributes.class), hash));
+    return true;
+  }
+
+  /**
+   * Writes each of the given files whose content has changed, after any writes already queued by
+   * {@link #writeChangedLater}, and waits for it to finish. This is for the command line and
+   * tests; the event dispatch thread should queue its writes with {@link #writeChangedLater}
+   * instead of waiting for the disk.
+   *
+   * @param files content keyed by file path
+   * @return the number of files that were written
+   */
+  public static int writeChanged(Map<String, String> files) throws IOException {
+    try {
+      return writeChangedLater(files).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Queues the given files to be written on a background thread. Every write of generated files
+   * goes through the same queue, so an older export can never overwrite a file with content that
+   * has since been regenerated.
+   *
+   * @param files content keyed by file path
+   * @return the number of files that were written, or an {@link UncheckedIOException} if writing
+   *     failed
+   */
+  public static CompletableFuture<Integer> writeChangedLater(Map<String, String> files) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return write(files);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        },
+        writer);
+  }
+
+  /** Blocks until every write queued so far has finished. */
+  public static void awaitPendingWrites() {
+    try {
+      writer.submit(() -> {}).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOGGER.warning("Waiting for generated files to be written failed: " + e.getCause());
+    }
+  }
+
+  /**
+   * Forgets the hashes of the files written or checked so far, once the writes already queued
+   * have finished. Called when a project is closed, so that the remembered hashes only ever cover
+   * the files of the open project.
+   */
+  public static void forgetHashes() {
+    writer.execute(knownHashes::clear);
+  }
+
+  /**
+   * @return the IOException behind a failed {@link #writeChangedLater}, or the deepest cause if
+   *     there is none
+   */
+  public static Throwable rootCause(Throwable error) {
+    while (!(error instanceof IOException) && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error;
+  }
+
+  private static int write(Map<String, String> files) throws IOException {
+    AgentExportEvent event = new AgentExportEvent();
+    event.begin();
+    int written = 0;
+    long size = 0;
+    for (Map.Entry<String, String> file : files.entrySet()) {
+      byte[] bytes = file.getValue().getBytes(Charset.defaultCharset());
+      if (writeIfChanged(Paths.get(file.getKey()), bytes)) {
+        written++;
+      }
+      size += bytes.length;
+    }
+    if (event.shouldCommit()) {
+      event.files = files.size();
+      event.written = written;
+      event.size = size;
+      event.commit();
+    }
+    return written;
+  }
+
+  /**
+   * @return the hash of the file's current content, or null if the file does not exist or cannot
+   *     possibly hold content of the expected size
+   */
+  private static byte[] currentHash(Path path, long expectedSize) throws IOException {
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (NoSuchFileException e) {
+      knownHashes.remove(path);
+      return null;
+    }
+    if (!attributes.isRegularFile() || attributes.size() != expectedSize) {
+      return null;
+    }
+    Stamp stamp = knownHashes.get(path);
+    if (stamp != null && stamp.matches(attributes)) {
+      return stamp.hash;
+    }
+    byte[] hash = hash(Files.readAllBytes(path));
+    knownHashes.put(path, new Stamp(attributes, hash));
+    return hash;
+  }
+
+  private static byte[] hash(byte[] bytes) {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM).digest(bytes);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
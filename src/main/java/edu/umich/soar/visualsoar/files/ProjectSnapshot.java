@@ -0,0 +1,426 @@
+package edu.umich.soar.visualsoar.files;
+
+import edu.umich.soar.visualsoar.datamap.ProjectJsonReader;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
+import edu.umich.soar.visualsoar.graph.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * An optional binary copy of a project's datamap and layout, stored next to the {@code .vsa.json}
+ * file so that the project can be opened without parsing JSON.
+ *
+ * <p>The {@code .vsa.json} file is always the source of truth. Each snapshot records the SHA-256
+ * hash of the JSON file it was made from, and is ignored unless the JSON file still has that
+ * hash. A snapshot that is missing, stale, from another format version or otherwise unreadable
+ * simply makes {@link #read(Path)} return null, and the caller falls back to JSON.
+ *
+ * <p>Format: magic number, format version, JSON hash, then the vertices in internal id order (type
+ * tag plus type-specific fields), each SOAR_ID/FOREIGN vertex's out-edges (already sorted, with
+ * heads as internal ids), and finally the layout tree in pre-order. Strings are written once and
+ * referred to by index afterward, since attribute names repeat heavily.
+ */
+public class ProjectSnapshot {
+  private static final Logger LOGGER = Logger.getLogger(ProjectSnapshot.class.getName());
+
+  private static final int MAGIC = 0x56534e50; // "VSNP"
+  /** Bump this whenever the encoding below changes; older snapshots are then ignored */
+  static final int FORMAT_VERSION = 1;
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+
+  // vertex type tags
+  private static final byte SOAR_ID = 0;
+  private static final byte ENUMERATION = 1;
+  private static final byte INTEGER = 2;
+  private static final byte FLOAT = 3;
+  private static final byte STRING = 4;
+  private static final byte FOREIGN = 5;
+
+  /** @return where the snapshot for the given project file is kept */
+  public static Path snapshotPath(Path jsonPath) {
+    return jsonPath.resolveSibling(jsonPath.getFileName() + ".snapshot");
+  }
+
+  /**
+   * Writes a snapshot of the given model for the project file at jsonPath. The JSON file must
+   * already contain exactly this model, since the snapshot is stamped with its current hash.
+   */
+  public static void write(Path jsonPath, SoarWorkingMemoryModel swmm, LayoutNode layout)
+      throws IOException {
+    byte[] hash = hashFile(jsonPath);
+    Util.saveToFile(
+        snapshotPath(jsonPath),
+        out -> {
+          DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+          data.writeInt(MAGIC);
+          data.writeInt(FORMAT_VERSION);
+          data.write(hash);
+          new Encoder(data).writeProject(swmm, layout);
+          data.flush();
+        });
+  }
+
+  /**
+   * Same as {@link #write}, but only logs a warning on failure. The snapshot is only an
+   * accelerator, so failing to write one should never interrupt the user.
+   */
+  public static void writeQuietly(Path jsonPath, SoarWorkingMemoryModel swmm, LayoutNode layout) {
+    try {
+      write(jsonPath, swmm, layout);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warning("Could not write project snapshot for " + jsonPath + ": " + e);
+    }
+  }
+
+  /**
+   * @return the project stored in the snapshot for jsonPath, or null if there is no valid,
+   *     up-to-date snapshot
+   */
+  public static ProjectJsonReader.LoadedProject read(Path jsonPath) {
+    Path snapshotPath = snapshotPath(jsonPath);
+    if (!Files.isRegularFile(snapshotPath)) {
+      return null;
+    }
+    try (DataInputStream data =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+      if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+        LOGGER.info("Ignoring snapshot with unknown format: " + snapshotPath);
+        return null;
+      }
+      byte[] storedHash = new byte[hashLength()];
+      data.readFully(storedHash);
+      if (!Arrays.equals(storedHash, hashFile(jsonPath))) {
+        LOGGER.info("Ignoring stale snapshot: " + snapshotPath);
+        return null;
+      }
+      return new Decoder(data).readProject(jsonPath);
+    } catch (IOException | RuntimeException e) {
+      LOGGER.warning("Ignoring unreadable snapshot " + snapshotPath + ": " + e);
+      return null;
+    }
+  }
+
+  private static byte[] hashFile(Path path) throws IOException {
+    MessageDigest digest = newDigest();
+    try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+      byte[] buffer = new byte[64 * 1024];
+      //noinspection StatementWithEmptyBody
+      while (in.read(buffer) != -1) {}
+    }
+    return digest.digest();
+  }
+
+  private static int hashLength() {
+    return newDigest().getDigestLength();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Encoder {
+    private final DataOutputStream out;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    private Encoder(DataOutputStream out) {
+      this.out = out;
+    }
+
+    private void writeProject(SoarWorkingMemoryModel swmm, LayoutNode layout) throws IOException {
+      int count = swmm.numberOfVertices();
+      if (count == 0 || swmm.getTopstate() == null || swmm.getTopstate().getValue() != 0) {
+        throw new IOException("Datamap has no top state at id 0");
+      }
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        SoarVertex vertex = swmm.getVertexForId(i);
+        if (vertex == null || vertex.getValue() != i) {
+          throw new IOException("Datamap vertex ids are not contiguous at " + i);
+        }
+        writeVertex(vertex);
+      }
+      for (int i = 0; i < count; i++) {
+        SoarVertex vertex = swmm.getVertexForId(i);
+        if (!vertex.allowsEmanatingEdges()) {
+          continue;
+        }
+        List<NamedEdge> edges = Collections.list(swmm.emanatingEdges(vertex));
+        out.writeInt(edges.size());
+        for (NamedEdge edge : edges) {
+          writeString(edge.getName());
+          out.writeInt(edge.V1().getValue());
+          writeString(edge.getComment());
+          out.writeBoolean(edge.isGenerated());
+        }
+      }
+      writeLayout(layout);
+    }
+
+    private void writeVertex(SoarVertex vertex) throws IOException {
+      if (vertex instanceof ForeignVertex) {
+        ForeignVertex foreign = (ForeignVertex) vertex;
+        out.writeByte(FOREIGN);
+        writeString(vertex.getSerializationId());
+        writeString(foreign.getForeignDMName());
+        writeVertex(foreign.getForeignSoarVertex());
+      } else if (vertex instanceof SoarIdentifierVertex) {
+        out.writeByte(SOAR_ID);
+        writeString(vertex.getSerializationId());
+      } else if (vertex instanceof EnumerationVertex) {
+        out.writeByte(ENUMERATION);
+        writeString(vertex.getSerializationId());
+        List<String> choices = new ArrayList<>();
+        ((EnumerationVertex) vertex).getEnumeration().forEachRemaining(choices::add);
+        out.writeInt(choices.size());
+        for (String choice : choices) {
+          writeString(choice);
+        }
+      } else if (vertex instanceof IntegerRangeVertex) {
+        out.writeByte(INTEGER);
+        writeString(vertex.getSerializationId());
+        out.writeInt(((IntegerRangeVertex) vertex).getLow());
+        out.writeInt(((IntegerRangeVertex) vertex).getHigh());
+      } else if (vertex instanceof FloatRangeVertex) {
+        out.writeByte(FLOAT);
+        writeString(vertex.getSerializationId());
+        out.writeDouble(((FloatRangeVertex) vertex).getLow());
+        out.writeDouble(((FloatRangeVertex) vertex).getHigh());
+      } else if (vertex instanceof StringVertex) {
+        out.writeByte(STRING);
+        writeString(vertex.getSerializationId());
+      } else {
+        throw new IOException("Unknown vertex type " + vertex.getClass().getName());
+      }
+    }
+
+    private void writeLayout(LayoutNode node) throws IOException {
+      out.writeByte(node.type.ordinal());
+      writeString(node.id);
+      String name = null, file = null, folder = null, dmId = null, linkedNodeId = null;
+      switch (node.type) {
+        case FILE:
+          name = ((LayoutNode.File) node).name;
+          file = ((LayoutNode.File) node).file;
+          break;
+        case FILE_OPERATOR:
+          name = ((LayoutNode.FileOperator) node).name;
+          file = ((LayoutNode.FileOperator) node).file;
+          break;
+        case FOLDER:
+          name = ((LayoutNode.Folder) node).name;
+          folder = ((LayoutNode.Folder) node).folder;
+          break;
+        case HIGH_LEVEL_FILE_OPERATOR:
+          name = ((LayoutNode.HighLevelFileOperator) node).name;
+          file = ((LayoutNode.HighLevelFileOperator) node).file;
+          folder = ((LayoutNode.HighLevelFileOperator) node).folder;
+          dmId = ((LayoutNode.HighLevelFileOperator) node).dmId;
+          break;
+        case HIGH_LEVEL_IMPASSE_OPERATOR:
+          name = ((LayoutNode.HighLevelImpasseOperator) node).name;
+          file = ((LayoutNode.HighLevelImpasseOperator) node).file;
+          folder = ((LayoutNode.HighLevelImpasseOperator) node).folder;
+          dmId = ((LayoutNode.HighLevelImpasseOperator) node).dmId;
+          break;
+        case HIGH_LEVEL_OPERATOR:
+          name = ((LayoutNode.HighLevelOperator) node).name;
+          file = ((LayoutNode.HighLevelOperator) node).file;
+          folder = ((LayoutNode.HighLevelOperator) node).folder;
+          dmId = ((LayoutNode.HighLevelOperator) node).dmId;
+          break;
+        case IMPASSE_OPERATOR:
+          name = ((LayoutNode.ImpasseOperator) node).name;
+          file = ((LayoutNode.ImpasseOperator) node).file;
+          break;
+        case LINK:
+          name = ((LayoutNode.Link) node).name;
+          file = ((LayoutNode.Link) node).file;
+          linkedNodeId = ((LayoutNode.Link) node).linkedNodeId;
+          break;
+        case OPERATOR:
+          name = ((LayoutNode.Operator) node).name;
+          file = ((LayoutNode.Operator) node).file;
+          break;
+        case OPERATOR_ROOT:
+          name = ((LayoutNode.OperatorRoot) node).name;
+          folder = ((LayoutNode.OperatorRoot) node).folder;
+          break;
+      }
+      writeString(name);
+      writeString(file);
+      writeString(folder);
+      writeString(dmId);
+      writeString(linkedNodeId);
+      out.writeInt(node.children.size());
+      for (LayoutNode child : node.children) {
+        writeLayout(child);
+      }
+    }
+
+    /** -1 for null; a new index is followed by the string itself */
+    private void writeString(String s) throws IOException {
+      if (s == null) {
+        out.writeInt(-1);
+        return;
+      }
+      Integer id = stringIds.get(s);
+      if (id != null) {
+        out.writeInt(id);
+        return;
+      }
+      id = stringIds.size();
+      stringIds.put(s, id);
+      out.writeInt(id);
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static class Decoder {
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<>();
+
+    private Decoder(DataInputStream in) {
+      this.in = in;
+    }
+
+    private ProjectJsonReader.LoadedProject readProject(Path jsonPath) throws IOException {
+      SoarWorkingMemoryModel swmm = new SoarWorkingMemoryModel(false, null, jsonPath);
+      int count = in.readInt();
+      SoarVertex root = readVertex(0);
+      if (!(root instanceof SoarIdentifierVertex)) {
+        throw new IOException("Snapshot root is not a SOAR_ID vertex");
+      }
+      swmm.setTopstate((SoarIdentifierVertex) root);
+      for (int i = 1; i < count; i++) {
+        swmm.addVertex(readVertex(i));
+      }
+      for (int i = 0; i < count; i++) {
+        SoarVertex tail = swmm.getVertexForId(i);
+        if (!tail.allowsEmanatingEdges()) {
+          continue;
+        }
+        int edgeCount = in.readInt();
+        if (edgeCount == 0) {
+          continue;
+        }
+        List<NamedEdge> edges = new ArrayList<>(edgeCount);
+        for (int j = 0; j < edgeCount; j++) {
+          String name = readString();
+          SoarVertex head = swmm.getVertexForId(in.readInt());
+          String comment = readString();
+          boolean generated = in.readBoolean();
+          // same comment handling as a JSON load, so both paths produce identical models
+          edges.add(
+              SoarWorkingMemoryModel.createEdge(
+                  tail, name, head, generated, comment != null ? comment : ""));
+        }
+        swmm.addTriples(tail, edges);
+      }
+      LayoutNode layout = readLayout();
+      return new ProjectJsonReader.LoadedProject(swmm, layout);
+    }
+
+    private SoarVertex readVertex(int id) throws IOException {
+      byte type = in.readByte();
+      String serializationId = readString();
+      switch (type) {
+        case SOAR_ID:
+          return new SoarIdentifierVertex(id, serializationId);
+        case ENUMERATION:
+          int choiceCount = in.readInt();
+          Vector<String> choices = new Vector<>(choiceCount);
+          for (int i = 0; i < choiceCount; i++) {
+            choices.add(readString());
+          }
+          return new EnumerationVertex(id, serializationId, choices);
+        case INTEGER:
+          return new IntegerRangeVertex(id, serializationId, in.readInt(), in.readInt());
+        case FLOAT:
+          return new FloatRangeVertex(id, serializationId, in.readDouble(), in.readDouble());
+        case STRING:
+          return new StringVertex(id, serializationId);
+        case FOREIGN:
+          String foreignDM = readString();
+          // imported vertices are never added to the model; see SoarWorkingMemoryReader
+          SoarVertex imported = readVertex(-1337);
+          return new ForeignVertex(id, serializationId, foreignDM, imported);
+        default:
+          throw new IOException("Unknown vertex type tag " + type);
+      }
+    }
+
+    private LayoutNode readLayout() throws IOException {
+      LayoutNode.NodeType type = LayoutNode.NodeType.values()[in.readByte()];
+      String id = readString();
+      String name = readString();
+      String file = readString();
+      String folder = readString();
+      String dmId = readString();
+      String linkedNodeId = readString();
+      int childCount = in.readInt();
+      List<LayoutNode> children = new ArrayList<>(childCount);
+      for (int i = 0; i < childCount; i++) {
+        children.add(readLayout());
+      }
+      switch (type) {
+        case FILE:
+          return new LayoutNode.File(children, name, id, file);
+        case FILE_OPERATOR:
+          return new LayoutNode.FileOperator(children, name, id, file);
+        case FOLDER:
+          return new LayoutNode.Folder(children, name, id, folder);
+        case HIGH_LEVEL_FILE_OPERATOR:
+          return new LayoutNode.HighLevelFileOperator(children, name, id, file, folder, dmId);
+        case HIGH_LEVEL_IMPASSE_OPERATOR:
+          return new LayoutNode.HighLevelImpasseOperator(children, name, id, file, folder, dmId);
+        case HIGH_LEVEL_OPERATOR:
+          return new LayoutNode.HighLevelOperator(children, name, id, file, folder, dmId);
+        case IMPASSE_OPERATOR:
+          return new LayoutNode.ImpasseOperator(children, name, id, file);
+        case LINK:
+          return new LayoutNode.Link(children, name, id, file, linkedNodeId);
+        case OPERATOR:
+          return new LayoutNode.Operator(children, name, id, file);
+        case OPERATOR_ROOT:
+          return new LayoutNode.OperatorRoot(children, name, id, folder);
+        default:
+          throw new IOException("Unknown layout node type " + type);
+      }
+    }
+
+    private String readString() throws IOException {
+      int id = in.readInt();
+      if (id == -1) {
+        return null;
+      }
+      if (id < strings.size()) {
+        return strings.get(id);
+      }
+      if (id != strings.size()) {
+        throw new IOException("Corrupt string table in snapshot");
+      }
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      String s = new String(bytes, StandardCharsets.UTF_8);
+      strings.add(s);
+      return s;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package edu.umich.soar.visualsoar.files.projectjson;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.json.JsonWriteFeature;
 import com.fasterxml.jackson.core.util.DefaultIndenter;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
@@ -94,6 +95,23 @@ public class Json {
     return JSON_OBJECT_MAPPER.readValue(src, clazz);
   }
 
+  /**
+   * Creates a streaming parser with the same (lenient) read features used by {@link
+   * #loadFromJson(Reader, Class)}, for callers that walk large files token by token instead of
+   * binding the whole document at once.
+   */
+  public static JsonParser createParser(InputStream src) throws IOException {
+    return JSON_OBJECT_MAPPER.createParser(src);
+  }
+
+  /**
+   * Binds the value starting at the parser's current token. Afterward the parser is positioned on
+   * the last token of that value.
+   */
+  public static <T> T readValue(JsonParser parser, Class<T> clazz) throws IOException {
+    return JSON_OBJECT_MAPPER.readValue(parser, clazz);
+  }
+
   private static class JsonWriter<T> implements Util.Writer {
     private final T toWrite;
 
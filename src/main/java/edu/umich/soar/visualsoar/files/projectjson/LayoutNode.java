@@ -79,6 +79,93 @@ public class LayoutNode {
     return Objects.hash(type, children, id);
   }
 
+  /** @return the name of the layout node's operator, file or folder */
+  public static String nameOf(LayoutNode node) {
+    switch (node.type) {
+      case FILE:
+        return ((File) node).name;
+      case FILE_OPERATOR:
+        return ((FileOperator) node).name;
+      case FOLDER:
+        return ((Folder) node).name;
+      case HIGH_LEVEL_FILE_OPERATOR:
+        return ((HighLevelFileOperator) node).name;
+      case HIGH_LEVEL_IMPASSE_OPERATOR:
+        return ((HighLevelImpasseOperator) node).name;
+      case HIGH_LEVEL_OPERATOR:
+        return ((HighLevelOperator) node).name;
+      case IMPASSE_OPERATOR:
+        return ((ImpasseOperator) node).name;
+      case LINK:
+        return ((Link) node).name;
+      case OPERATOR:
+        return ((Operator) node).name;
+      case OPERATOR_ROOT:
+        return ((OperatorRoot) node).name;
+      default:
+        throw new IllegalArgumentException("Unknown layout node type: " + node.type);
+    }
+  }
+
+  /** @return the layout node's file, relative to its parent's folder, or null if it has none */
+  public static String fileOf(LayoutNode node) {
+    switch (node.type) {
+      case FILE:
+        return ((File) node).file;
+      case FILE_OPERATOR:
+        return ((FileOperator) node).file;
+      case HIGH_LEVEL_FILE_OPERATOR:
+        return ((HighLevelFileOperator) node).file;
+      case HIGH_LEVEL_IMPASSE_OPERATOR:
+        return ((HighLevelImpasseOperator) node).file;
+      case HIGH_LEVEL_OPERATOR:
+        return ((HighLevelOperator) node).file;
+      case IMPASSE_OPERATOR:
+        return ((ImpasseOperator) node).file;
+      case LINK:
+        return ((Link) node).file;
+      case OPERATOR:
+        return ((Operator) node).file;
+      default:
+        return null;
+    }
+  }
+
+  /** @return the folder that holds the layout node's children, or null if it has none */
+  public static String folderOf(LayoutNode node) {
+    switch (node.type) {
+      case FOLDER:
+        return ((Folder) node).folder;
+      case HIGH_LEVEL_FILE_OPERATOR:
+        return ((HighLevelFileOperator) node).folder;
+      case HIGH_LEVEL_IMPASSE_OPERATOR:
+        return ((HighLevelImpasseOperator) node).folder;
+      case HIGH_LEVEL_OPERATOR:
+        return ((HighLevelOperator) node).folder;
+      case OPERATOR_ROOT:
+        return ((OperatorRoot) node).folder;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * @return the id of the datamap vertex of the state that a high-level operator's layout node
+   *     has, or null if it isn't a high-level operator
+   */
+  public static String dmIdOf(LayoutNode node) {
+    switch (node.type) {
+      case HIGH_LEVEL_FILE_OPERATOR:
+        return ((HighLevelFileOperator) node).dmId;
+      case HIGH_LEVEL_IMPASSE_OPERATOR:
+        return ((HighLevelImpasseOperator) node).dmId;
+      case HIGH_LEVEL_OPERATOR:
+        return ((HighLevelOperator) node).dmId;
+      default:
+        return null;
+    }
+  }
+
   // We specify property ordering through because children can be quite large and
   // hinders reading if it comes at the beginning (as it would with the alphabetical default)
   @JsonPropertyOrder({"file", "id", "name", "type", "children"})
@@ -3,6 +3,7 @@ package edu.umich.soar.visualsoar.graph;
 import edu.umich.soar.visualsoar.util.PrePostVisitor;
 
 import java.util.Enumeration;
+import java.util.List;
 
 /**
  * This class is a graph class that provides an interface for different kinds of graphs
@@ -64,6 +65,16 @@ public abstract class Graph {
 
     public abstract void addEdge(NamedEdge e);
 
+    /**
+     * Adds a batch of edges that all emanate from the given vertex.
+     * Subclasses may override this to avoid the per-edge cost of {@link #addEdge(NamedEdge)}.
+     */
+    public void addEdges(SoarVertex v0, List<NamedEdge> edges) {
+        for (NamedEdge edge : edges) {
+            addEdge(edge);
+        }
+    }
+
     public abstract void removeEdge(NamedEdge e);
 
     /**
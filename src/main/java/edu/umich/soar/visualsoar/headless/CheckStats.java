@@ -0,0 +1,111 @@
+package edu.umich.soar.visualsoar.headless;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umich.soar.visualsoar.OpenMonitor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Times the phases of a command-line check and counts what it did, to be reported as one JSON
+ * line. Pass it to {@link HeadlessProject#open(java.nio.file.Path, OpenMonitor)} to
+ * time opening the project, then begin a phase of its own for the check.
+ */
+public class CheckStats implements OpenMonitor {
+  private static final int SLOWEST_FILES = 5;
+
+  private final long start = System.nanoTime();
+  private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+  private String phase;
+  private long phaseStart;
+
+  private int files = 0;
+  private int productions = 0;
+  private int diagnostics = 0;
+
+  /** The slowest files so far, with the fastest of them at the head */
+  private final PriorityQueue<FileTime> slowest =
+      new PriorityQueue<>(Comparator.comparingLong(fileTime -> fileTime.nanos));
+
+  private static final class FileTime {
+    final SourceFile file;
+    final long nanos;
+
+    FileTime(SourceFile file, long nanos) {
+      this.file = file;
+      this.nanos = nanos;
+    }
+  }
+
+  /** Ends the current phase, if any, and begins the next */
+  @Override
+  public void beginPhase(String phase) {
+    endPhase();
+    this.phase = phase;
+    phaseStart = System.nanoTime();
+  }
+
+  public void endPhase() {
+    if (phase != null) {
+      phaseNanos.merge(phase, System.nanoTime() - phaseStart, Long::sum);
+      phase = null;
+    }
+  }
+
+  /** Counts a file that has been checked */
+  public void fileChecked(SourceFile file, long nanos, int productions, int diagnostics) {
+    files++;
+    this.productions += productions;
+    this.diagnostics += diagnostics;
+    slowest.add(new FileTime(file, nanos));
+    if (slowest.size() > SLOWEST_FILES) {
+      slowest.poll();
+    }
+  }
+
+  /**
+   * @return the statistics as a JSON object in one line, under a {@code "stats"} key so that it
+   *     cannot be mistaken for a diagnostic
+   */
+  public String toJsonLine(HeadlessProject project) {
+    endPhase();
+    ObjectMapper mapper = new ObjectMapper();
+    ObjectNode line = mapper.createObjectNode();
+    ObjectNode stats = line.putObject("stats");
+    stats.put("totalMs", millis(System.nanoTime() - start));
+    ObjectNode phases = stats.putObject("phasesMs");
+    phaseNanos.forEach((name, nanos) -> phases.put(name, millis(nanos)));
+    stats.put("files", files);
+    stats.put("productions", productions);
+    stats.put("diagnostics", diagnostics);
+    ObjectNode caches = stats.putObject("cacheHits");
+    caches.put("snapshot", project.isReadFromSnapshot() ? 1 : 0);
+    caches.put("parsedFiles", project.getParseCacheHits());
+
+    List<FileTime> slowestFirst = new ArrayList<>(slowest);
+    slowestFirst.sort(Comparator.comparingLong((FileTime fileTime) -> fileTime.nanos).reversed());
+    for (FileTime fileTime : slowestFirst) {
+      stats
+          .withArray("slowestFiles")
+          .addObject()
+          .put("file", fileTime.file.getPath().toString())
+          .put("ms", millis(fileTime.nanos));
+    }
+    try {
+      return mapper.writeValueAsString(line);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** @return the duration in milliseconds, to a tenth of a millisecond */
+  private static double millis(long nanos) {
+    return Math.round(nanos / 100_000.0) / 10.0;
+  }
+}
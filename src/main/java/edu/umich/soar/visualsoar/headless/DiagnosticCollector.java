@@ -0,0 +1,87 @@
+package edu.umich.soar.visualsoar.headless;
+
+import edu.umich.soar.visualsoar.datamap.CheckerErrorHandler;
+import edu.umich.soar.visualsoar.datamap.DefaultCheckerErrorHandler;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.parser.Triple;
+
+import java.util.List;
+
+/**
+ * Turns what the datamap checker finds in one production into {@link FileDiagnostic}s, worded as
+ * {@link DefaultCheckerErrorHandler} words them.
+ */
+class DiagnosticCollector implements CheckerErrorHandler {
+  private final SourceFile file;
+  private final String productionName;
+  private final int startLine;
+  private final List<FeedbackListEntry> diagnostics;
+
+  DiagnosticCollector(
+      SourceFile file, String productionName, int startLine, List<FeedbackListEntry> diagnostics) {
+    this.file = file;
+    this.productionName = productionName;
+    this.startLine = startLine;
+    this.diagnostics = diagnostics;
+  }
+
+  private void add(int line, String message) {
+    diagnostics.add(new FileDiagnostic(file, productionName, line, message, true));
+  }
+
+  @Override
+  public void badConstraint(Triple triple) {
+    add(triple.getLine(), "could not match constraint " + triple + " in production");
+  }
+
+  @Override
+  public void generatedIdentifier(Triple triple, String element) {
+    add(
+        triple.getLine(),
+        "Added Identifier '" + element + "' to the datamap to match constraint " + triple);
+  }
+
+  @Override
+  public void generatedFloat(Triple triple, String element) {
+    add(
+        triple.getLine(),
+        "Added Float '" + element + "' to the datamap to match constraint " + triple);
+  }
+
+  @Override
+  public void generatedInteger(Triple triple, String element) {
+    add(
+        triple.getLine(),
+        "Added Integer '" + element + "' to the datamap to match constraint " + triple);
+  }
+
+  @Override
+  public void generatedEnumeration(Triple triple, String element) {
+    add(
+        triple.getLine(),
+        "Added Enumeration '" + element + "' to the datamap to match constraint " + triple);
+  }
+
+  @Override
+  public void generatedAddToEnumeration(Triple triple, String attribute, String value) {
+    add(
+        triple.getLine(),
+        "Added value '" + value + "' to the enumeration '" + attribute
+            + "' to match constraint " + triple);
+  }
+
+  @Override
+  public void noStateVariable() {
+    add(startLine, "no state variable in production");
+  }
+
+  @Override
+  public void tooManyStateVariables() {
+    add(startLine, "too many state variables in production");
+  }
+
+  @Override
+  public void variableNotMatched(String variable) {
+    add(startLine, "variable " + variable + " could not be matched in production");
+  }
+}
@@ -0,0 +1,133 @@
+package edu.umich.soar.visualsoar.headless;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams a {@link ProjectWatcher}'s lines to every program that connects to a port on the local
+ * machine. Each connection first receives the diagnostics currently known, then every change.
+ * Nothing is read from the connections; a client that disconnects is simply dropped.
+ *
+ * <p>Each connection has its own queue of lines and its own thread writing them, so that a client
+ * that reads slowly never holds up the watcher or the other clients. A client that falls more
+ * than {@value #MAX_QUEUED_LINES} lines behind is dropped.
+ */
+public class DiagnosticSocket implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(DiagnosticSocket.class.getName());
+
+  /** Far more than the lines for every file of a large agent, which a new connection is sent */
+  static final int MAX_QUEUED_LINES = 10_000;
+
+  private final ServerSocket serverSocket;
+  private final ProjectWatcher watcher;
+
+  /** Listens on the given port of the loopback address; 0 picks a free port */
+  public DiagnosticSocket(ProjectWatcher watcher, int port) throws IOException {
+    this.watcher = watcher;
+    this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    Thread thread = new Thread(this::acceptClients, "Diagnostic socket " + getPort());
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  private void acceptClients() {
+    while (!serverSocket.isClosed()) {
+      try {
+        Connection connection = new Connection(serverSocket.accept(), MAX_QUEUED_LINES);
+        watcher.addListener(connection::send);
+      } catch (SocketException e) {
+        // the server socket was closed
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not accept a connection on port " + getPort(), e);
+      }
+    }
+  }
+
+  /** One client, with the lines not yet written to it */
+  static class Connection {
+    private final Socket socket;
+    private final PrintWriter out;
+    private final BlockingQueue<String> queue;
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    Connection(Socket socket, int maxQueuedLines) throws IOException {
+      this.socket = socket;
+      this.out =
+          new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+      this.queue = new LinkedBlockingQueue<>(maxQueuedLines);
+      this.writer = new Thread(this::writeLines, "Diagnostic socket " + socket.getPort());
+      writer.setDaemon(true);
+      writer.start();
+    }
+
+    /**
+     * Queues a line to be written without waiting for the client.
+     *
+     * @return false once the connection has been dropped
+     */
+    boolean send(String line) {
+      if (closed) {
+        return false;
+      }
+      if (!queue.offer(line)) {
+        LOGGER.warning(
+            "Dropping the connection from port "
+                + socket.getPort()
+                + ", which has stopped reading diagnostics");
+        close();
+        return false;
+      }
+      return true;
+    }
+
+    private void writeLines() {
+      try {
+        while (!closed) {
+          out.println(queue.take());
+          if (out.checkError()) {
+            break;
+          }
+        }
+      } catch (InterruptedException e) {
+        // dropped while waiting for a line
+      } finally {
+        close();
+      }
+    }
+
+    void close() {
+      closed = true;
+      closeQuietly(socket);
+      writer.interrupt();
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      LOGGER.log(Level.FINE, "Could not close " + socket, e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+}
@@ -0,0 +1,46 @@
+package edu.umich.soar.visualsoar.headless;
+
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+
+/**
+ * A message about a line of a {@link SourceFile}. It reads the same as the feedback the operator
+ * window gives for the same problem, but does not refer to any operator node.
+ */
+public class FileDiagnostic extends FeedbackListEntry {
+  private final SourceFile file;
+  private final String productionName;
+  private final int line;
+
+  /** @param productionName the production the message is about, or null if there is none */
+  public FileDiagnostic(
+      SourceFile file, String productionName, int line, String message, boolean isError) {
+    super(message, isError);
+    this.file = file;
+    this.productionName = productionName;
+    this.line = line;
+  }
+
+  public SourceFile getFile() {
+    return file;
+  }
+
+  /** @return the production the message is about, or null if there is none */
+  public String getProductionName() {
+    return productionName;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  @Override
+  public String toString() {
+    String location = file.getUniqueName() + "(" + line + "): " + getMessage();
+    return productionName == null ? location : productionName + ": " + location;
+  }
+
+  @Override
+  public String toJsonLine() {
+    return toJsonLine(file.getPath().toString(), line, getMessage(), isError());
+  }
+}
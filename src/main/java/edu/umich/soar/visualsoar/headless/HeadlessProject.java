@@ -0,0 +1,399 @@
+package edu.umich.soar.visualsoar.headless;
+
+import edu.umich.soar.visualsoar.ChildOrder;
+import edu.umich.soar.visualsoar.OpenMonitor;
+import edu.umich.soar.visualsoar.ProjectModel;
+import edu.umich.soar.visualsoar.datamap.DataMapChecker;
+import edu.umich.soar.visualsoar.datamap.ProjectJsonReader;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.files.ProjectSnapshot;
+import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.graph.SoarVertex;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.parser.ParseException;
+import edu.umich.soar.visualsoar.parser.SoarParser;
+import edu.umich.soar.visualsoar.parser.SoarProduction;
+import edu.umich.soar.visualsoar.parser.SuppParseChecks;
+import edu.umich.soar.visualsoar.parser.TokenMgrError;
+import edu.umich.soar.visualsoar.parser.TriplesExtractor;
+import edu.umich.soar.visualsoar.profiling.FileParseEvent;
+import edu.umich.soar.visualsoar.profiling.ProductionCheckEvent;
+import edu.umich.soar.visualsoar.profiling.ProjectOpenPhases;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A project opened only to be checked. It is read straight from the project's layout and datamap,
+ * without building an operator hierarchy, so nothing here loads Swing, the main frame or the
+ * preferences, and a check from the command line starts quickly. Checks leave both the project
+ * and its rule files as they are.
+ *
+ * <p>The productions parsed from each file are kept until the file's text changes, so checking a
+ * file again, or every file after the datamap changes, only repeats the datamap check.
+ *
+ * <p>Only {@code .vsa.json} projects can be opened this way; older projects need {@link
+ * ProjectModel#openExistingProject(Path)}.
+ */
+public final class HeadlessProject {
+  private static final Logger LOGGER = Logger.getLogger(HeadlessProject.class.getName());
+
+  private final Path projectFile;
+  private final SoarWorkingMemoryModel swmm;
+  private final List<SourceFile> sourceFiles;
+  private final Map<Path, SourceFile> filesByPath = new HashMap<>();
+  private final boolean readFromSnapshot;
+  private final Map<Path, ParsedText> parsed;
+  private final AtomicInteger parseCacheHits = new AtomicInteger();
+
+  private HeadlessProject(
+      Path projectFile,
+      SoarWorkingMemoryModel swmm,
+      List<SourceFile> files,
+      boolean readFromSnapshot,
+      Map<Path, ParsedText> parsed) {
+    this.projectFile = projectFile;
+    this.swmm = swmm;
+    this.sourceFiles = Collections.unmodifiableList(files);
+    for (SourceFile file : files) {
+      filesByPath.put(file.getPath().normalize(), file);
+    }
+    this.readFromSnapshot = readFromSnapshot;
+    this.parsed = parsed;
+  }
+
+  /**
+   * Opens a {@code .vsa.json} project. A valid {@link ProjectSnapshot} is used in place of the
+   * JSON file when one exists, but none is written.
+   */
+  public static HeadlessProject open(Path projectFile) throws IOException {
+    return open(projectFile, OpenMonitor.NONE);
+  }
+
+  /** Same as {@link #open(Path)}, telling the monitor as each phase of opening begins */
+  public static HeadlessProject open(Path projectFile, OpenMonitor monitor)
+      throws IOException {
+    return open(projectFile, monitor, new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Opens the project file again, for instance after its datamap or layout has been edited. The
+   * productions already parsed from files that are still part of the project are kept.
+   */
+  public HeadlessProject reopen() throws IOException {
+    HeadlessProject reopened = open(projectFile, OpenMonitor.NONE, new ConcurrentHashMap<>(parsed));
+    Set<Path> paths = new HashSet<>();
+    for (SourceFile file : reopened.sourceFiles) {
+      paths.add(file.getPath());
+    }
+    reopened.parsed.keySet().retainAll(paths);
+    return reopened;
+  }
+
+  private static HeadlessProject open(
+      Path projectFile, OpenMonitor monitor, Map<Path, ParsedText> parsed)
+      throws IOException {
+    if (!projectFile.getFileName().toString().endsWith(".json")) {
+      throw new IOException(
+          projectFile + " is not a .vsa.json project; open and save it in VisualSoar to convert it");
+    }
+    projectFile = projectFile.toAbsolutePath();
+    try (ProjectOpenPhases phases = new ProjectOpenPhases(projectFile, monitor)) {
+      phases.beginPhase("Reading snapshot");
+      ProjectJsonReader.LoadedProject loaded = ProjectSnapshot.read(projectFile);
+      boolean readFromSnapshot = loaded != null;
+      if (loaded == null) {
+        phases.beginPhase("Reading project and datamap");
+        loaded = ProjectJsonReader.read(projectFile);
+      }
+
+      phases.beginPhase("Listing source files");
+      List<SourceFile> files = listSourceFiles(loaded.layout, projectFile.getParent(), loaded.swmm);
+      return new HeadlessProject(projectFile, loaded.swmm, files, readFromSnapshot, parsed);
+    }
+  }
+
+  public Path getProjectFile() {
+    return projectFile;
+  }
+
+  public SoarWorkingMemoryModel getDatamap() {
+    return swmm;
+  }
+
+  /**
+   * @return every rule file of the project, in the order the operator window lists them
+   *     breadth-first
+   */
+  public List<SourceFile> getSourceFiles() {
+    return sourceFiles;
+  }
+
+  /** @return the rule file at the given path, or null if it is not part of the project */
+  public SourceFile getSourceFile(Path path) {
+    return filesByPath.get(path.toAbsolutePath().normalize());
+  }
+
+  /** @return whether the datamap and layout were read from a {@link ProjectSnapshot} */
+  public boolean isReadFromSnapshot() {
+    return readFromSnapshot;
+  }
+
+  /** @return how many checks found the file's text already parsed */
+  public int getParseCacheHits() {
+    return parseCacheHits.get();
+  }
+
+  /**
+   * @return the productions found when the file was last checked, or an empty list if it has not
+   *     been checked or could not be parsed
+   */
+  public List<SoarProduction> getCheckedProductions(SourceFile file) {
+    ParsedText parsedText = parsed.get(file.getPath());
+    return parsedText == null
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(parsedText.productions);
+  }
+
+  /**
+   * Checks the productions of every rule file against the datamap, in the same order and with the
+   * same messages as {@link
+   * edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction#checkAllProductions}.
+   */
+  public List<FeedbackListEntry> checkAll() throws IOException {
+    List<FeedbackListEntry> diagnostics = new ArrayList<>();
+    for (SourceFile file : sourceFiles) {
+      diagnostics.addAll(check(file));
+    }
+    return diagnostics;
+  }
+
+  /** Checks the productions of one rule file, as it is on disk, against the datamap. */
+  public List<FeedbackListEntry> check(SourceFile file) throws IOException {
+    if (!file.hasProductions()) {
+      return Collections.emptyList();
+    }
+    byte[] bytes = Files.readAllBytes(file.getPath());
+    return check(file, new String(bytes, Charset.defaultCharset()), bytes.length);
+  }
+
+  /** Checks productions against the datamap as though they were the text of the given file. */
+  public List<FeedbackListEntry> check(SourceFile file, String text) {
+    if (!file.hasProductions()) {
+      return Collections.emptyList();
+    }
+    return check(file, text, text.length());
+  }
+
+  private List<FeedbackListEntry> check(SourceFile file, String text, long size) {
+    List<FeedbackListEntry> diagnostics = new ArrayList<>();
+    ParsedText parsedText = parsed.get(file.getPath());
+    try {
+      if (parsedText == null || !parsedText.text.equals(text)) {
+        parsedText = new ParsedText(text, parse(file, text, size));
+        parsed.put(file.getPath(), parsedText);
+      } else {
+        parseCacheHits.incrementAndGet();
+      }
+    } catch (ParseException pe) {
+      parsed.remove(file.getPath());
+      diagnostics.add(
+          new FeedbackListEntry("Unable to check productions due to parse error", true));
+      diagnostics.add(parseError(file, pe));
+      return diagnostics;
+    } catch (TokenMgrError tme) {
+      parsed.remove(file.getPath());
+      // as when the operator window checks the file, the productions are skipped
+      LOGGER.log(Level.WARNING, "Could not read the tokens of " + file.getPath(), tme);
+      return diagnostics;
+    }
+
+    for (int i = 0; i < parsedText.productions.size(); i++) {
+      SoarProduction production = parsedText.productions.get(i);
+      TriplesExtractor triples = parsedText.triples.get(i);
+      ProductionCheckEvent event = new ProductionCheckEvent();
+      event.begin();
+      int before = diagnostics.size();
+      // nothing shows which datamap entries were tested, so leave them unmarked
+      DataMapChecker.check(
+          swmm,
+          file.getState(),
+          triples,
+          new DiagnosticCollector(
+              file, production.getName(), production.getStartLine(), diagnostics),
+          false);
+      if (event.shouldCommit()) {
+        event.production = production.getName();
+        event.file = file.getPath().toString();
+        event.triples = triples.getTripleCount();
+        event.errors = diagnostics.size() - before;
+        event.commit();
+      }
+    }
+    return diagnostics;
+  }
+
+  /** The productions of a file's text, with the triples the datamap checker reads from them */
+  private static final class ParsedText {
+    final String text;
+    final List<SoarProduction> productions;
+    final List<TriplesExtractor> triples;
+
+    ParsedText(String text, List<SoarProduction> productions) {
+      this.text = text;
+      this.productions = productions;
+      this.triples = new ArrayList<>(productions.size());
+      for (SoarProduction production : productions) {
+        triples.add(new TriplesExtractor(production));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Vector<SoarProduction> parse(SourceFile file, String text, long size)
+      throws ParseException {
+    FileParseEvent event = new FileParseEvent();
+    event.begin();
+    // close unmatched braces the way the operator window does, but without rewriting the file
+    Vector<Integer> bracePositions = SuppParseChecks.findMissingBracePositions(text);
+    if (!bracePositions.isEmpty()) {
+      text = SuppParseChecks.insertBraces(text, bracePositions);
+    }
+    Vector<SoarProduction> productions = new SoarParser(new StringReader(text)).VisualSoarFile();
+    if (event.shouldCommit()) {
+      event.file = file.getPath().toString();
+      event.size = size;
+      event.productions = productions.size();
+      event.commit();
+    }
+    return productions;
+  }
+
+  /** Words a parse error as {@code OperatorNode.parseParseException} does */
+  private static FeedbackListEntry parseError(SourceFile file, ParseException pe) {
+    String message = pe.toString().replace("edu.umich.soar.visualsoar.", "");
+    String lineNumber = message.substring(message.lastIndexOf("line ") + 5);
+    int line = Integer.parseInt(lineNumber.substring(0, lineNumber.indexOf(',')));
+    return new FileDiagnostic(file, null, line, message, true);
+  }
+
+  /** A layout node waiting to be listed, with what its files need from its ancestors */
+  private static final class Pending {
+    final LayoutNode layout;
+    final String uniqueName;
+    final Path folder;
+    final SoarIdentifierVertex parentState;
+
+    Pending(LayoutNode layout, String uniqueName, Path folder, SoarIdentifierVertex parentState) {
+      this.layout = layout;
+      this.uniqueName = uniqueName;
+      this.folder = folder;
+      this.parentState = parentState;
+    }
+  }
+
+  /**
+   * Lists the rule files breadth-first, with each node's children in {@link ChildOrder}, as in
+   * the operator window. Productions are checked in the state of the high-level operator
+   * that directly holds their file, or else in the top state.
+   */
+  private static List<SourceFile> listSourceFiles(
+      LayoutNode root, Path projectFolder, SoarWorkingMemoryModel swmm) throws IOException {
+    List<SourceFile> files = new ArrayList<>();
+    SoarIdentifierVertex topState = swmm.getTopstate();
+    Deque<Pending> queue = new ArrayDeque<>();
+    queue.add(new Pending(root, null, projectFolder, topState));
+    while (!queue.isEmpty()) {
+      Pending pending = queue.poll();
+      LayoutNode layout = pending.layout;
+      String file = LayoutNode.fileOf(layout);
+      if (file != null) {
+        files.add(
+            new SourceFile(
+                LayoutNode.nameOf(layout),
+                pending.uniqueName,
+                pending.folder.resolve(file),
+                pending.parentState));
+      }
+
+      String folder = LayoutNode.folderOf(layout);
+      Path childFolder = folder == null ? pending.folder : pending.folder.resolve(folder);
+      SoarIdentifierVertex childState = stateOf(layout, swmm);
+      if (childState == null) {
+        childState = topState;
+      }
+      for (LayoutNode child : sortedChildren(layout)) {
+        String name = LayoutNode.nameOf(child);
+        String uniqueName =
+            pending.uniqueName == null ? name : pending.uniqueName + File.separator + name;
+        queue.add(new Pending(child, uniqueName, childFolder, childState));
+      }
+    }
+    return files;
+  }
+
+  private static SoarIdentifierVertex stateOf(LayoutNode layout, SoarWorkingMemoryModel swmm)
+      throws IOException {
+    String dmId = LayoutNode.dmIdOf(layout);
+    if (dmId == null) {
+      return null;
+    }
+    SoarVertex vertex = swmm.getVertexForSerializationId(dmId);
+    if (!(vertex instanceof SoarIdentifierVertex)) {
+      throw new IOException(
+          "Operator node '" + layout.id + "' has dmId='" + dmId + "', which is not a Soar ID");
+    }
+    return (SoarIdentifierVertex) vertex;
+  }
+
+  private static final Comparator<LayoutNode> CHILD_ORDER =
+      ChildOrder.comparing(LayoutNode::nameOf, HeadlessProject::childGroup);
+
+  private static ChildOrder.Group childGroup(LayoutNode node) {
+    switch (node.type) {
+      case OPERATOR:
+      case HIGH_LEVEL_OPERATOR:
+        return ChildOrder.Group.OPERATORS;
+      case IMPASSE_OPERATOR:
+      case HIGH_LEVEL_IMPASSE_OPERATOR:
+        return ChildOrder.Group.IMPASSES;
+      default:
+        return ChildOrder.Group.FILES;
+    }
+  }
+
+  /** @return the node's children in order; as in the operator window, the first of a name wins */
+  private static List<LayoutNode> sortedChildren(LayoutNode layout) {
+    List<LayoutNode> children = new ArrayList<>(layout.children.size());
+    Set<String> names = new HashSet<>();
+    for (LayoutNode child : layout.children) {
+      if (names.add(LayoutNode.nameOf(child))) {
+        children.add(child);
+      } else {
+        LOGGER.warning("Node conflict for " + LayoutNode.nameOf(child));
+      }
+    }
+    children.sort(CHILD_ORDER);
+    return children;
+  }
+}
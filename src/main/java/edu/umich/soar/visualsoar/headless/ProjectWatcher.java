@@ -0,0 +1,277 @@
+package edu.umich.soar.visualsoar.headless;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a {@link HeadlessProject} checked while its files are edited. After checking every file
+ * once, it waits for changes to the project's folders and checks only the rule files that changed;
+ * when the project file itself changes, the datamap and layout are read again and every file is
+ * checked against them, reusing the productions already parsed.
+ *
+ * <p>Results are sent to listeners as JSON lines, one per file whose diagnostics changed, in the
+ * shape of the LSP <a
+ * href="https://microsoft.github.io/language-server-protocol/specifications/lsp/3.17/specification/#publishDiagnosticsParams">PublishDiagnosticsParams</a>:
+ * {@code {"uri": "file://...", "diagnostics": [...]}}, where each diagnostic is {@link
+ * FeedbackListEntry#toJsonLine()}. Each line replaces everything sent before for that file, so a
+ * file whose problems are fixed is sent with an empty list.
+ */
+public class ProjectWatcher implements Closeable {
+  private static final Logger LOGGER = Logger.getLogger(ProjectWatcher.class.getName());
+
+  /** Editors often save a file in several steps, so changes are gathered until this long passes */
+  private static final long QUIET_MS = 50;
+
+  private final WatchService watchService;
+  private final Set<Path> watchedFolders = new HashSet<>();
+  private final List<Predicate<String>> listeners = new CopyOnWriteArrayList<>();
+  /** The diagnostics last sent for each file that has any, in the order they were found */
+  private final Map<Path, String> published = new LinkedHashMap<>();
+
+  private HeadlessProject project;
+  private Map<Path, SourceFile> filesByPath;
+  /** The hash of the project file as last read, since saving a project rewrites it unchanged */
+  private byte[] projectHash;
+
+  public ProjectWatcher(HeadlessProject project) throws IOException {
+    this.project = project;
+    this.filesByPath = filesByPath(project);
+    this.watchService = project.getProjectFile().getFileSystem().newWatchService();
+  }
+
+  /**
+   * Adds a listener for the lines sent from now on, after first giving it the diagnostics
+   * currently known for every file that has any. Listeners that return false are removed.
+   */
+  public synchronized void addListener(Predicate<String> listener) {
+    for (String line : published.values()) {
+      if (!listener.test(line)) {
+        return;
+      }
+    }
+    listeners.add(listener);
+  }
+
+  /**
+   * Checks every file, then checks files again as they change until the watcher is closed or the
+   * thread is interrupted.
+   */
+  public void run() throws IOException, InterruptedException {
+    projectHash = hashProjectFile();
+    watchFolders();
+    checkAll();
+    try {
+      while (true) {
+        Set<Path> changed = new HashSet<>();
+        boolean overflow = gatherChanges(watchService.take(), changed);
+        WatchKey key;
+        while ((key = watchService.poll(QUIET_MS, TimeUnit.MILLISECONDS)) != null) {
+          overflow |= gatherChanges(key, changed);
+        }
+        if (overflow || (changed.contains(project.getProjectFile()) && projectFileChanged())) {
+          reopen();
+        } else {
+          checkChanged(changed);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // closed while waiting for changes
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+
+  /** @return whether events were lost, in which case every file should be checked again */
+  private boolean gatherChanges(WatchKey key, Set<Path> changed) throws IOException {
+    Path folder = (Path) key.watchable();
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflow = true;
+        continue;
+      }
+      Path path = folder.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        // a folder of the project may be created after the project file that lists it is saved
+        for (Path file : filesByPath.keySet()) {
+          if (file.startsWith(path)) {
+            changed.add(file);
+          }
+        }
+        watchFolders();
+      } else {
+        changed.add(path);
+      }
+    }
+    if (!key.reset()) {
+      watchedFolders.remove(folder);
+    }
+    return overflow;
+  }
+
+  private void watchFolders() throws IOException {
+    Set<Path> folders = new HashSet<>();
+    folders.add(project.getProjectFile().getParent());
+    for (Path file : filesByPath.keySet()) {
+      folders.add(file.getParent());
+    }
+    for (Path folder : folders) {
+      if (!watchedFolders.contains(folder) && Files.isDirectory(folder)) {
+        folder.register(
+            watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        watchedFolders.add(folder);
+      }
+    }
+  }
+
+  private void checkAll() {
+    long start = System.currentTimeMillis();
+    for (SourceFile file : project.getSourceFiles()) {
+      check(file);
+    }
+    LOGGER.info(
+        "Checked "
+            + project.getSourceFiles().size()
+            + " files in "
+            + (System.currentTimeMillis() - start)
+            + " ms");
+  }
+
+  private void checkChanged(Collection<Path> changed) {
+    for (Path path : changed) {
+      SourceFile file = filesByPath.get(path);
+      if (file != null) {
+        check(file);
+      }
+    }
+  }
+
+  private boolean projectFileChanged() {
+    byte[] hash = hashProjectFile();
+    if (hash != null && Arrays.equals(hash, projectHash)) {
+      return false;
+    }
+    projectHash = hash;
+    return true;
+  }
+
+  /** @return the SHA-256 hash of the project file, or null if it cannot be read */
+  private byte[] hashProjectFile() {
+    try {
+      return MessageDigest.getInstance("SHA-256")
+          .digest(Files.readAllBytes(project.getProjectFile()));
+    } catch (IOException | NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  private void reopen() throws IOException {
+    Path projectFile = project.getProjectFile();
+    try {
+      project = project.reopen();
+    } catch (IOException | RuntimeException e) {
+      // keep checking against the last datamap that could be read
+      LOGGER.log(Level.WARNING, "Could not read " + projectFile, e);
+      publish(
+          projectFile,
+          Collections.singletonList(
+              new FeedbackListEntry("Could not read the project: " + e.getMessage(), true)));
+      return;
+    }
+    publish(projectFile, Collections.emptyList());
+
+    Map<Path, SourceFile> removed = filesByPath;
+    filesByPath = filesByPath(project);
+    removed.keySet().removeAll(filesByPath.keySet());
+    for (Path path : removed.keySet()) {
+      publish(path, Collections.emptyList());
+    }
+    watchFolders();
+    checkAll();
+  }
+
+  private void check(SourceFile file) {
+    List<FeedbackListEntry> diagnostics;
+    try {
+      diagnostics = project.check(file);
+    } catch (IOException e) {
+      diagnostics =
+          Collections.singletonList(
+              new FileDiagnostic(file, null, 0, "Could not read the file: " + e, true));
+    }
+    publish(file.getPath(), diagnostics);
+  }
+
+  /** Sends the file's diagnostics to the listeners, unless they are the same as last time */
+  private synchronized void publish(Path path, List<FeedbackListEntry> diagnostics) {
+    if (diagnostics.isEmpty() && !published.containsKey(path)) {
+      return;
+    }
+    String line = toJsonLine(path, diagnostics);
+    if (line.equals(published.get(path))) {
+      return;
+    }
+    if (diagnostics.isEmpty()) {
+      published.remove(path);
+    } else {
+      published.put(path, line);
+    }
+    listeners.removeIf(listener -> !listener.test(line));
+  }
+
+  /** @return an LSP PublishDiagnosticsParams JSON object formatted in one line */
+  static String toJsonLine(Path path, List<FeedbackListEntry> diagnostics) {
+    String escapedPath =
+        String.valueOf(JsonStringEncoder.getInstance().quoteAsString(path.toString()));
+    List<String> lines = new ArrayList<>(diagnostics.size());
+    for (FeedbackListEntry diagnostic : diagnostics) {
+      lines.add(diagnostic.toJsonLine());
+    }
+    return "{\"uri\": \"file://"
+        + escapedPath
+        + "\", \"diagnostics\": ["
+        + String.join(", ", lines)
+        + "]}";
+  }
+
+  private static Map<Path, SourceFile> filesByPath(HeadlessProject project) {
+    Map<Path, SourceFile> files = new HashMap<>();
+    for (SourceFile file : project.getSourceFiles()) {
+      files.put(file.getPath(), file);
+    }
+    return files;
+  }
+}
@@ -0,0 +1,56 @@
+package edu.umich.soar.visualsoar.headless;
+
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+
+import java.nio.file.Path;
+
+/** A rule file of a {@link HeadlessProject}, along with the state its productions are checked in */
+public final class SourceFile {
+  private final String name;
+  private final String uniqueName;
+  private final Path path;
+  private final SoarIdentifierVertex state;
+
+  SourceFile(String name, String uniqueName, Path path, SoarIdentifierVertex state) {
+    this.name = name;
+    this.uniqueName = uniqueName;
+    this.path = path;
+    this.state = state;
+  }
+
+  /** @return the name of the file's node in the operator hierarchy */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the names of the nodes from the top of the operator hierarchy down to this file's,
+   *     separated like a path, as the operator window names the node in its messages
+   */
+  public String getUniqueName() {
+    return uniqueName;
+  }
+
+  /** @return the absolute path of the file */
+  public Path getPath() {
+    return path;
+  }
+
+  /** @return the state the productions in this file match against */
+  public SoarIdentifierVertex getState() {
+    return state;
+  }
+
+  /**
+   * @return whether the file holds productions. Files whose names start with an underscore, such
+   *     as {@code _firstload}, hold other commands and are not checked.
+   */
+  public boolean hasProductions() {
+    return !name.startsWith("_");
+  }
+
+  @Override
+  public String toString() {
+    return uniqueName;
+  }
+}
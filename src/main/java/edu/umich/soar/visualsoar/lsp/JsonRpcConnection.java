@@ -0,0 +1,82 @@
+package edu.umich.soar.visualsoar.lsp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes JSON-RPC messages framed with a {@code Content-Length} header, as the Language
+ * Server Protocol sends them over standard input and output.
+ */
+class JsonRpcConnection {
+  static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final InputStream in;
+  private final OutputStream out;
+
+  JsonRpcConnection(InputStream in, OutputStream out) {
+    this.in = in;
+    this.out = out;
+  }
+
+  /** @return the next message, or null once the input has ended */
+  JsonNode read() throws IOException {
+    int contentLength = -1;
+    String header = readHeaderLine();
+    if (header == null) {
+      return null;
+    }
+    while (!header.isEmpty()) {
+      int colon = header.indexOf(':');
+      if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+        contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+      }
+      header = readHeaderLine();
+      if (header == null) {
+        throw new EOFException("Input ended within the headers of a message");
+      }
+    }
+    if (contentLength < 0) {
+      throw new IOException("Message without a Content-Length header");
+    }
+    byte[] content = in.readNBytes(contentLength);
+    if (content.length < contentLength) {
+      return null;
+    }
+    return MAPPER.readTree(content);
+  }
+
+  /**
+   * @return the header line without its line ending, empty at the end of the headers, or null if
+   *     the input ends first
+   */
+  private String readHeaderLine() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != '\n') {
+      if (b == -1) {
+        return null;
+      }
+      if (b != '\r') {
+        line.write(b);
+      }
+    }
+    return line.toString(StandardCharsets.US_ASCII);
+  }
+
+  synchronized void write(ObjectNode message) throws IOException {
+    message.put("jsonrpc", "2.0");
+    byte[] content = MAPPER.writeValueAsBytes(message);
+    out.write(
+        ("Content-Length: " + content.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    out.write(content);
+    out.flush();
+  }
+}
@@ -0,0 +1,594 @@
+package edu.umich.soar.visualsoar.lsp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umich.soar.visualsoar.components.AutocompleteContext;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.headless.FileDiagnostic;
+import edu.umich.soar.visualsoar.headless.HeadlessProject;
+import edu.umich.soar.visualsoar.headless.SourceFile;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.parser.SoarProduction;
+import edu.umich.soar.visualsoar.ruleeditor.CompletionService;
+import edu.umich.soar.visualsoar.ruleeditor.ProductionIndex;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A <a href="https://microsoft.github.io/language-server-protocol/">Language Server Protocol</a>
+ * server for the rule files of a {@code .vsa.json} project, so that other editors can show the
+ * datamap checks, complete attributes and values from the datamap, and go to productions.
+ *
+ * <p>Messages are handled one at a time on the thread that calls {@link #run()}. Documents are
+ * synchronized incrementally, and each changed document is checked again once no more messages are
+ * waiting, so a burst of keystrokes costs one check. Files are checked a few at a time, open
+ * documents first, and the server goes back to its messages as soon as one arrives, so checking
+ * every file of a large project never holds up a completion. Only the changed document is parsed; the
+ * productions of every other file stay parsed in the {@link HeadlessProject}, and completions
+ * share {@link CompletionService}'s caches. When the project file changes on disk, the datamap is
+ * read again and every file is checked against it.
+ */
+public class LanguageServer {
+  private static final Logger LOGGER = Logger.getLogger(LanguageServer.class.getName());
+
+  // JSON-RPC and LSP error codes
+  private static final int METHOD_NOT_FOUND = -32601;
+  private static final int INTERNAL_ERROR = -32603;
+  private static final int SERVER_NOT_INITIALIZED = -32002;
+
+  private static final int INCREMENTAL_SYNC = 2;
+  private static final int SEVERITY_ERROR = 1;
+  private static final int SEVERITY_INFORMATION = 3;
+  private static final int MESSAGE_TYPE_ERROR = 1;
+
+  /** The most files checked before looking for messages again */
+  private static final int CHECK_SLICE = 8;
+
+  private final JsonRpcConnection connection;
+  private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+  private final CompletionService completionService = new CompletionService();
+
+  private Path projectFile;
+  private HeadlessProject project;
+  private Map<Path, SourceFile> filesByPath = new HashMap<>();
+  private final Map<Path, OpenDocument> documents = new HashMap<>();
+  /** Files to check once no more messages are waiting */
+  private final Set<Path> unchecked = new LinkedHashSet<>();
+  /** Files whose last published diagnostics were not empty */
+  private final Set<Path> published = new HashSet<>();
+
+  private boolean running = true;
+  private boolean shutdown = false;
+
+  /** A document open in the editor, under the URI the editor uses for it */
+  private static final class OpenDocument {
+    final String uri;
+    final TextDocument text;
+
+    OpenDocument(String uri, TextDocument text) {
+      this.uri = uri;
+      this.text = text;
+    }
+  }
+
+  /**
+   * @param projectFile the project to serve, or null to look for a {@code .vsa.json} file in the
+   *     workspace folder the editor gives when it initializes the server
+   */
+  public LanguageServer(InputStream in, OutputStream out, @Nullable Path projectFile) {
+    this.connection = new JsonRpcConnection(in, out);
+    this.projectFile = projectFile;
+  }
+
+  /**
+   * Serves the editor until it sends {@code exit} or closes the input.
+   *
+   * @return the exit code the protocol asks for: 0 if the editor shut the server down first
+   */
+  public int run() throws InterruptedException {
+    Thread reader = new Thread(this::readMessages, "Language server input");
+    reader.setDaemon(true);
+    reader.start();
+    while (running) {
+      Runnable task = unchecked.isEmpty() ? tasks.take() : tasks.poll();
+      if (task != null) {
+        task.run();
+      } else {
+        checkSlice();
+      }
+    }
+    return shutdown ? 0 : 1;
+  }
+
+  private void readMessages() {
+    try {
+      JsonNode message;
+      while ((message = connection.read()) != null) {
+        JsonNode received = message;
+        tasks.add(() -> handle(received));
+      }
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Could not read from the editor", e);
+    }
+    tasks.add(() -> running = false);
+  }
+
+  private void handle(JsonNode message) {
+    String method = message.path("method").asText();
+    JsonNode id = message.get("id");
+    JsonNode params = message.path("params");
+    try {
+      if (id == null) {
+        handleNotification(method, params);
+      } else if (!message.has("method")) {
+        // a response to a request of ours; none need answers
+      } else if (method.equals("initialize")) {
+        respond(id, initialize(params));
+      } else if (method.equals("shutdown")) {
+        shutdown = true;
+        respond(id, null);
+      } else if (project == null) {
+        respondWithError(id, SERVER_NOT_INITIALIZED, "No project is open");
+      } else if (method.equals("textDocument/completion")) {
+        respond(id, completion(params));
+      } else if (method.equals("textDocument/definition")) {
+        respond(id, definition(params));
+      } else {
+        respondWithError(id, METHOD_NOT_FOUND, "Unsupported method " + method);
+      }
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not handle " + method, e);
+      if (id != null) {
+        try {
+          respondWithError(id, INTERNAL_ERROR, e.toString());
+        } catch (IOException ignored) {
+          // the editor has gone; the input will end too
+        }
+      }
+    }
+  }
+
+  private void handleNotification(String method, JsonNode params) throws IOException {
+    switch (method) {
+      case "initialized":
+        if (project != null) {
+          unchecked.addAll(filesByPath.keySet());
+          watchProjectFile();
+        }
+        break;
+      case "exit":
+        running = false;
+        break;
+      case "textDocument/didOpen":
+        {
+          JsonNode document = params.path("textDocument");
+          String uri = document.path("uri").asText();
+          Path path = toPath(uri);
+          documents.put(
+              path,
+              new OpenDocument(
+                  uri,
+                  new TextDocument(
+                      document.path("text").asText(), document.path("version").asInt())));
+          unchecked.add(path);
+          break;
+        }
+      case "textDocument/didChange":
+        {
+          Path path = toPath(params.path("textDocument").path("uri").asText());
+          OpenDocument document = documents.get(path);
+          if (document != null) {
+            applyChanges(document.text, params);
+            unchecked.add(path);
+          }
+          break;
+        }
+      case "textDocument/didClose":
+        {
+          Path path = toPath(params.path("textDocument").path("uri").asText());
+          documents.remove(path);
+          // the file may have been closed without saving
+          unchecked.add(path);
+          break;
+        }
+      default:
+        // didSave and the rest need nothing; the text is already known
+        break;
+    }
+  }
+
+  private ObjectNode initialize(JsonNode params) throws IOException {
+    if (projectFile == null) {
+      projectFile = findProjectFile(params);
+    }
+    if (projectFile == null) {
+      showError("No .vsa.json project was found in the workspace folder");
+    } else {
+      try {
+        setProject(HeadlessProject.open(projectFile));
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not open " + projectFile, e);
+        showError("Could not open " + projectFile + ": " + e.getMessage());
+      }
+    }
+
+    ObjectNode result = JsonRpcConnection.MAPPER.createObjectNode();
+    ObjectNode capabilities = result.putObject("capabilities");
+    ObjectNode sync = capabilities.putObject("textDocumentSync");
+    sync.put("openClose", true);
+    sync.put("change", INCREMENTAL_SYNC);
+    capabilities.putObject("completionProvider").putArray("triggerCharacters").add("^").add(".");
+    capabilities.put("definitionProvider", true);
+    result.putObject("serverInfo").put("name", "VisualSoar");
+    return result;
+  }
+
+  /** @return the first {@code .vsa.json} file, by name, in the workspace folder, or null */
+  @Nullable
+  private static Path findProjectFile(JsonNode params) throws IOException {
+    JsonNode options = params.path("initializationOptions");
+    if (options.hasNonNull("project")) {
+      return Paths.get(options.get("project").asText());
+    }
+    String root = params.path("rootUri").asText(null);
+    if (root == null && params.path("workspaceFolders").size() > 0) {
+      root = params.path("workspaceFolders").get(0).path("uri").asText(null);
+    }
+    if (root == null) {
+      return null;
+    }
+    TreeSet<Path> projectFiles = new TreeSet<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(toPath(root), "*.vsa.json")) {
+      stream.forEach(projectFiles::add);
+    }
+    return projectFiles.isEmpty() ? null : projectFiles.first();
+  }
+
+  private void setProject(HeadlessProject project) {
+    this.project = project;
+    projectFile = project.getProjectFile();
+    filesByPath = new HashMap<>();
+    for (SourceFile file : project.getSourceFiles()) {
+      filesByPath.put(file.getPath().normalize(), file);
+    }
+  }
+
+  /** Reads the datamap and layout again and checks every file against them */
+  private void reopen() {
+    try {
+      Set<Path> before = new HashSet<>(filesByPath.keySet());
+      setProject(project.reopen());
+      // clear what was published for files that are no longer part of the project
+      unchecked.addAll(before);
+      unchecked.addAll(filesByPath.keySet());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not read " + projectFile, e);
+      try {
+        showError("Could not read " + projectFile + ": " + e.getMessage());
+      } catch (IOException ignored) {
+        // the editor has gone; the input will end too
+      }
+    }
+  }
+
+  /** Reopens the project whenever its file changes on disk, for instance when VisualSoar saves it */
+  private void watchProjectFile() throws IOException {
+    WatchService watchService = projectFile.getFileSystem().newWatchService();
+    Path folder = projectFile.getParent();
+    folder.register(
+        watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                while (true) {
+                  WatchKey key = watchService.take();
+                  for (WatchEvent<?> event : key.pollEvents()) {
+                    if (folder.resolve((Path) event.context()).equals(projectFile)) {
+                      tasks.add(this::reopen);
+                    }
+                  }
+                  key.reset();
+                }
+              } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stopped watching
+              }
+            },
+            "Language server project watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void applyChanges(TextDocument document, JsonNode params) {
+    for (JsonNode change : params.path("contentChanges")) {
+      JsonNode range = change.get("range");
+      String text = change.path("text").asText();
+      if (range == null) {
+        document.setText(text, document.getVersion());
+      } else {
+        document.replace(
+            range.path("start").path("line").asInt(),
+            range.path("start").path("character").asInt(),
+            range.path("end").path("line").asInt(),
+            range.path("end").path("character").asInt(),
+            text);
+      }
+    }
+    document.setVersion(params.path("textDocument").path("version").asInt());
+  }
+
+  /** Checks up to {@link #CHECK_SLICE} unchecked files, stopping early if a message arrives */
+  private void checkSlice() {
+    for (int i = 0; i < CHECK_SLICE && tasks.isEmpty() && !unchecked.isEmpty(); i++) {
+      Path path = nextUnchecked();
+      unchecked.remove(path);
+      SourceFile file = filesByPath.get(path);
+      OpenDocument document = documents.get(path);
+      List<FeedbackListEntry> diagnostics;
+      try {
+        if (file == null) {
+          diagnostics = new ArrayList<>();
+        } else if (document != null) {
+          diagnostics = project.check(file, document.text.getText());
+        } else {
+          diagnostics = project.check(file);
+        }
+      } catch (IOException e) {
+        diagnostics = new ArrayList<>();
+        diagnostics.add(new FileDiagnostic(file, null, 1, "Could not read the file: " + e, true));
+      }
+      try {
+        publishDiagnostics(path, document, diagnostics);
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not send diagnostics", e);
+        return;
+      }
+    }
+  }
+
+  /** @return an unchecked open document, since that is what the user is looking at, or else the
+   *     file that has waited longest */
+  private Path nextUnchecked() {
+    for (Path path : documents.keySet()) {
+      if (unchecked.contains(path)) {
+        return path;
+      }
+    }
+    return unchecked.iterator().next();
+  }
+
+  private void publishDiagnostics(
+      Path path, @Nullable OpenDocument document, List<FeedbackListEntry> diagnostics)
+      throws IOException {
+    if (diagnostics.isEmpty() && !published.remove(path)) {
+      return;
+    }
+    ObjectNode params = JsonRpcConnection.MAPPER.createObjectNode();
+    params.put("uri", document != null ? document.uri : path.toUri().toString());
+    if (document != null) {
+      params.put("version", document.text.getVersion());
+    }
+    ArrayNode array = params.putArray("diagnostics");
+    for (FeedbackListEntry entry : diagnostics) {
+      // the entries that are not about a line only introduce the one that follows them
+      if (entry instanceof FileDiagnostic) {
+        array.add(toDiagnostic((FileDiagnostic) entry, document));
+      }
+    }
+    if (!diagnostics.isEmpty()) {
+      published.add(path);
+    }
+    notify("textDocument/publishDiagnostics", params);
+  }
+
+  private static ObjectNode toDiagnostic(FileDiagnostic entry, @Nullable OpenDocument document) {
+    int line = Math.max(entry.getLine() - 1, 0);
+    int end = 0;
+    if (document != null) {
+      TextDocument text = document.text;
+      end = text.lineEnd(line) - text.offsetAt(line, 0);
+    }
+    ObjectNode diagnostic = JsonRpcConnection.MAPPER.createObjectNode();
+    ObjectNode range = diagnostic.putObject("range");
+    range.set("start", position(line, 0));
+    range.set("end", position(line, end));
+    diagnostic.put("severity", entry.isError() ? SEVERITY_ERROR : SEVERITY_INFORMATION);
+    diagnostic.put("source", "VisualSoar");
+    diagnostic.put(
+        "message",
+        entry.getProductionName() == null
+            ? entry.getMessage()
+            : entry.getProductionName() + ": " + entry.getMessage());
+    return diagnostic;
+  }
+
+  /** Completes the attribute or value being typed from the datamap, as the rule editor does */
+  private ArrayNode completion(JsonNode params) {
+    ArrayNode items = JsonRpcConnection.MAPPER.createArrayNode();
+    Path path = toPath(params.path("textDocument").path("uri").asText());
+    OpenDocument document = documents.get(path);
+    if (document == null) {
+      return items;
+    }
+    TextDocument text = document.text;
+    int line = params.path("position").path("line").asInt();
+    int caret = text.offsetAt(line, params.path("position").path("character").asInt());
+    int productionStart = text.getText().lastIndexOf("sp ", caret);
+    if (productionStart == -1) {
+      return items;
+    }
+    SourceFile file = filesByPath.get(path);
+    SoarIdentifierVertex state =
+        file != null ? file.getState() : project.getDatamap().getTopstate();
+    AutocompleteContext context =
+        completionService.complete(
+            text.getText().substring(productionStart, caret), project.getDatamap(), state);
+    if (context == null) {
+      return items;
+    }
+    List<String> suggestions = context.filteredSuggestions();
+    for (int i = 0; i < suggestions.size(); i++) {
+      String suggestion = suggestions.get(i);
+      int typed = suggestion.length() - context.getCompletion(i).length();
+      int start = caret - typed;
+      ObjectNode item = items.addObject();
+      item.put("label", suggestion);
+      ObjectNode edit = item.putObject("textEdit");
+      ObjectNode range = edit.putObject("range");
+      range.set("start", position(text.lineAt(start), text.characterAt(start)));
+      range.set("end", position(line, text.characterAt(caret)));
+      edit.put("newText", suggestion);
+    }
+    return items;
+  }
+
+  /** Finds the productions named by the word at the position */
+  private ArrayNode definition(JsonNode params) {
+    ArrayNode locations = JsonRpcConnection.MAPPER.createArrayNode();
+    OpenDocument document = documents.get(toPath(params.path("textDocument").path("uri").asText()));
+    if (document == null) {
+      return locations;
+    }
+    String name =
+        wordAt(
+            document.text.getText(),
+            document.text.offsetAt(
+                params.path("position").path("line").asInt(),
+                params.path("position").path("character").asInt()));
+    if (name.isEmpty()) {
+      return locations;
+    }
+    for (SourceFile file : project.getSourceFiles()) {
+      Path path = file.getPath().normalize();
+      OpenDocument open = documents.get(path);
+      for (int line : productionLines(file, path, open, name)) {
+        ObjectNode location = locations.addObject();
+        location.put("uri", open != null ? open.uri : path.toUri().toString());
+        ObjectNode range = location.putObject("range");
+        range.set("start", position(line, 0));
+        range.set("end", position(line, 0));
+      }
+    }
+    return locations;
+  }
+
+  /**
+   * Finds where the productions with a name start in one file. Files that have changed since they
+   * were last checked are scanned for production names rather than checked, which would have to
+   * wait for every other unchecked file.
+   *
+   * @return the lines, counting from 0
+   */
+  private List<Integer> productionLines(
+      SourceFile file, Path path, @Nullable OpenDocument open, String name) {
+    List<Integer> lines = new ArrayList<>();
+    if (open != null || unchecked.contains(path)) {
+      String text;
+      try {
+        text =
+            open != null
+                ? open.text.getText()
+                : new String(Files.readAllBytes(path), Charset.defaultCharset());
+      } catch (IOException e) {
+        return lines;
+      }
+      for (ProductionIndex.Production production : ProductionIndex.scan(text)) {
+        if (production.getName().equals(name)) {
+          lines.add(production.getLine() - 1);
+        }
+      }
+    } else {
+      for (SoarProduction production : project.getCheckedProductions(file)) {
+        if (production.getName().equals(name)) {
+          lines.add(Math.max(production.getStartLine() - 1, 0));
+        }
+      }
+    }
+    return lines;
+  }
+
+  /** @return the symbol, such as a production name, around the offset */
+  static String wordAt(String text, int offset) {
+    int start = offset;
+    while (start > 0 && isSymbolCharacter(text.charAt(start - 1))) {
+      start--;
+    }
+    int end = offset;
+    while (end < text.length() && isSymbolCharacter(text.charAt(end))) {
+      end++;
+    }
+    return text.substring(start, end);
+  }
+
+  private static boolean isSymbolCharacter(char c) {
+    return !Character.isWhitespace(c) && "{}()^|\"~;#".indexOf(c) == -1;
+  }
+
+  private static ObjectNode position(int line, int character) {
+    ObjectNode position = JsonRpcConnection.MAPPER.createObjectNode();
+    position.put("line", line);
+    position.put("character", character);
+    return position;
+  }
+
+  private static Path toPath(String uri) {
+    return Paths.get(URI.create(uri)).toAbsolutePath().normalize();
+  }
+
+  private void showError(String message) throws IOException {
+    ObjectNode params = JsonRpcConnection.MAPPER.createObjectNode();
+    params.put("type", MESSAGE_TYPE_ERROR);
+    params.put("message", message);
+    notify("window/showMessage", params);
+  }
+
+  private void notify(String method, ObjectNode params) throws IOException {
+    ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+    message.put("method", method);
+    message.set("params", params);
+    connection.write(message);
+  }
+
+  private void respond(JsonNode id, @Nullable JsonNode result) throws IOException {
+    ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+    message.set("id", id);
+    message.set("result", result == null ? JsonRpcConnection.MAPPER.nullNode() : result);
+    connection.write(message);
+  }
+
+  private void respondWithError(JsonNode id, int code, String text) throws IOException {
+    ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+    message.set("id", id);
+    ObjectNode error = message.putObject("error");
+    error.put("code", code);
+    error.put("message", text);
+    connection.write(message);
+  }
+}
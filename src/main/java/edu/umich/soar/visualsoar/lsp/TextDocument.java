@@ -0,0 +1,100 @@
+package edu.umich.soar.visualsoar.lsp;
+
+import java.util.Arrays;
+
+/**
+ * The text of a document open in the editor, kept up to date from the editor's changes. Positions
+ * are zero-based lines and UTF-16 code units, as in LSP, which are the same as Java string indices
+ * within a line.
+ */
+class TextDocument {
+  private String text;
+  private int version;
+  /** Offset of the start of each line, or null until it is next needed */
+  private int[] lineStarts;
+
+  TextDocument(String text, int version) {
+    this.text = text;
+    this.version = version;
+  }
+
+  String getText() {
+    return text;
+  }
+
+  int getVersion() {
+    return version;
+  }
+
+  /** Replaces the whole text */
+  void setText(String text, int version) {
+    this.text = text;
+    this.version = version;
+    lineStarts = null;
+  }
+
+  /** Replaces the text between two positions */
+  void replace(int startLine, int startCharacter, int endLine, int endCharacter, String newText) {
+    int start = offsetAt(startLine, startCharacter);
+    int end = Math.max(start, offsetAt(endLine, endCharacter));
+    text = text.substring(0, start) + newText + text.substring(end);
+    lineStarts = null;
+  }
+
+  void setVersion(int version) {
+    this.version = version;
+  }
+
+  /** @return the offset of a position, kept within the text and the end of its line */
+  int offsetAt(int line, int character) {
+    int[] starts = lineStarts();
+    if (line < 0) {
+      return 0;
+    }
+    if (line >= starts.length) {
+      return text.length();
+    }
+    int lineEnd = line + 1 < starts.length ? starts[line + 1] - 1 : text.length();
+    return Math.min(starts[line] + Math.max(character, 0), lineEnd);
+  }
+
+  /** @return the zero-based line holding the given offset */
+  int lineAt(int offset) {
+    int line = Arrays.binarySearch(lineStarts(), offset);
+    return line >= 0 ? line : -line - 2;
+  }
+
+  /** @return the offset just after the line's last character */
+  int lineEnd(int line) {
+    int[] starts = lineStarts();
+    if (line + 1 < starts.length) {
+      int end = starts[line + 1] - 1;
+      return end > starts[line] && text.charAt(end - 1) == '\r' ? end - 1 : end;
+    }
+    return text.length();
+  }
+
+  int characterAt(int offset) {
+    return offset - lineStarts()[lineAt(offset)];
+  }
+
+  private int[] lineStarts() {
+    if (lineStarts == null) {
+      int lines = 1;
+      for (int i = 0; i < text.length(); i++) {
+        if (text.charAt(i) == '\n') {
+          lines++;
+        }
+      }
+      int[] starts = new int[lines];
+      int line = 1;
+      for (int i = 0; i < text.length(); i++) {
+        if (text.charAt(i) == '\n') {
+          starts[line++] = i + 1;
+        }
+      }
+      lineStarts = starts;
+    }
+    return lineStarts;
+  }
+}
@@ -9,13 +9,17 @@ import edu.umich.soar.visualsoar.dialogs.find.FindInProjectDialog;
 import edu.umich.soar.visualsoar.dialogs.find.ReplaceInProjectDialog;
 import edu.umich.soar.visualsoar.files.Backup;
 import edu.umich.soar.visualsoar.files.Cfg;
+import edu.umich.soar.visualsoar.files.GeneratedFiles;
 import edu.umich.soar.visualsoar.mainframe.actions.*;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackList;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
+import edu.umich.soar.visualsoar.mainframe.tasks.TaskManager;
+import edu.umich.soar.visualsoar.mainframe.tasks.TaskStatusPanel;
 import edu.umich.soar.visualsoar.misc.*;
 import edu.umich.soar.visualsoar.operatorwindow.*;
+import edu.umich.soar.visualsoar.ruleeditor.ProductionIndex;
 import edu.umich.soar.visualsoar.ruleeditor.RuleEditor;
 import edu.umich.soar.visualsoar.threepenny.SoarRuntimeSendRawCommandDialog;
 import edu.umich.soar.visualsoar.util.ActionButtonAssociation;
@@ -76,12 +80,17 @@ public class MainFrame extends JFrame
 ////////////////////////////////////////
 	private OperatorWindow operatorWindow;
 
+	//a project that is being opened in the background, if any
+	private ProjectOpenThread pendingOpen;
+
 	private final CustomDesktopPane desktopPane = new CustomDesktopPane();
 	private final TemplateManager d_templateManager = new TemplateManager();
 	private final JSplitPane operatorDesktopSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT);
 	private final JSplitPane feedbackDesktopSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
 	private final FeedbackList feedbackList = new FeedbackList();
   private final FeedbackManager feedbackManager;
+  // project-wide checks read the project and some of them change it, so they run one at a time
+  private final TaskManager taskManager = new TaskManager(1, 8);
 
 	private String lastWindowViewOperation = "none"; // can also be "tile" or "cascade"
 
@@ -199,7 +208,10 @@ public class MainFrame extends JFrame
 		Box vbox = Box.createVerticalBox();
 		contentPane.add(vbox);
         vbox.add(feedbackDesktopSplit, BorderLayout.CENTER);
-		vbox.add(statusBar);
+    JPanel statusPanel = new JPanel(new BorderLayout());
+    statusPanel.add(statusBar, BorderLayout.CENTER);
+    statusPanel.add(new TaskStatusPanel(taskManager), BorderLayout.EAST);
+		vbox.add(statusPanel);
 
 		//Perform Exit actions on window close
 		setJMenuBar(createMainMenu());
@@ -271,6 +283,11 @@ public class MainFrame extends JFrame
       return feedbackManager;
     }
 
+  /** Runs project-wide work, such as checks, in the background */
+  public TaskManager getTaskManager() {
+    return taskManager;
+  }
+
 	/**
      * Gets the project TemplateManager
      * @return a <code>TemplateManager</code> in charge of all template matters.
@@ -1008,7 +1025,7 @@ public class MainFrame extends JFrame
 	 * Creates a rule window opening with the given file name
 	 * @param re the rule editor file that the rule editor should open
 	 */
-	public void addRuleEditor(RuleEditor re)
+	public void addRuleEditor(CustomInternalFrame re)
     {
 		desktopPane.add(re);
 		re.moveToFront();
@@ -1468,6 +1485,9 @@ public class MainFrame extends JFrame
 				// Close down the STI library
 				SoarRuntimeTerm();
 
+				// Don't cut off a background agent export
+				GeneratedFiles.awaitPendingWrites();
+
 				dispose();
 				System.exit(0);
 			}
@@ -1494,7 +1514,10 @@ public class MainFrame extends JFrame
 
       projectActionsEnable(false);
 
+      // their results would belong to a project that is no longer open
+      taskManager.cancelAll();
       feedbackList.clearListData();
+      GeneratedFiles.forgetHashes();
 
       //This acts as a flag to indicate there is no project
       operatorWindow = null;
@@ -1516,56 +1539,112 @@ public class MainFrame extends JFrame
 
     try {
       //Open the new project
-      operatorWindow = new OperatorWindow(vsaFile, readOnly);
-      if(vsaFile.getParent() != null) {
-        Prefs.openFolder.set(vsaFile.getParentFile().getAbsolutePath());
-      }
-      operatorDesktopSplit.setLeftComponent(new JScrollPane(operatorWindow));
-
-      projectActionsEnable(true);
-
-      //Set and monitor the divider position
-      operDividerSetup();
+      showProject(new OperatorWindow(vsaFile, readOnly), vsaFile, readOnly);
 
       //Verify project integrity
       verifyProjectAction.perform();
 
-      //Reset tracking whether any change has been made to this project
-      CustomInternalFrame.resetEverchanged();
-
-      // Set the title bar to include the project name
-      setTitle(vsaFile.getName().replaceAll(".vsa.json", "").replaceAll(".vsa", ""));
-
       //Reopen windows that were open last time
       Cfg.readCfgFile(this);
+    } catch (Throwable e) {
+      reportOpenFailure(vsaFile, e);
+    }
+  }
+
+  /**
+   * Opens a project without blocking the UI; the operator window appears once the project's
+   * hierarchy has been built.  Any project still being opened this way is abandoned.
+   *
+   * @see ProjectOpenThread
+   */
+  public void openProjectInBackground(@NotNull File vsaFile, boolean readOnly) {
+    if (pendingOpen != null) {
+      pendingOpen.cancel();
+    }
+
+    // Get rid of the old project (if it exists)
+    if (projectIsOpen()) {
+      closeProjectAction.perform();
+    }
+
+    getFeedbackManager().setStatusBarMsg("Opening " + vsaFile.getName() + "...");
+    pendingOpen = new ProjectOpenThread(this, vsaFile, readOnly);
+    pendingOpen.start();
+  }
+
+  /**
+   * Called by a {@link ProjectOpenThread} on the event dispatch thread once the project has been
+   * loaded.
+   *
+   * @return the new operator window, or null if the open was cancelled or superseded
+   */
+  OperatorWindow installProject(ProjectOpenThread opener, ProjectModel projectModel) {
+    if (opener.isCancelled() || (opener != pendingOpen)) {
+      return null;
+    }
+    File vsaFile = opener.getVsaFile();
+    showProject(
+        new OperatorWindow(projectModel, vsaFile, opener.isReadOnly()),
+        vsaFile,
+        opener.isReadOnly());
+    return operatorWindow;
+  }
 
-      //Configure read-only status
-      setReadOnly(readOnly);
-    } catch (FileNotFoundException fnfe) {
+  void projectOpenFinished(ProjectOpenThread opener) {
+    if (pendingOpen == opener) {
+      pendingOpen = null;
+    }
+  }
+
+  /** Puts a newly opened project on screen */
+  private void showProject(OperatorWindow newOperatorWindow, File vsaFile, boolean readOnly) {
+    operatorWindow = newOperatorWindow;
+    if(vsaFile.getParent() != null) {
+      Prefs.openFolder.set(vsaFile.getParentFile().getAbsolutePath());
+    }
+    operatorDesktopSplit.setLeftComponent(new JScrollPane(operatorWindow));
+
+    projectActionsEnable(true);
+
+    //Set and monitor the divider position
+    operDividerSetup();
+
+    //Reset tracking whether any change has been made to this project
+    CustomInternalFrame.resetEverchanged();
+
+    // Set the title bar to include the project name
+    setTitle(vsaFile.getName().replaceAll(".vsa.json", "").replaceAll(".vsa", ""));
+
+    //Configure read-only status
+    setReadOnly(readOnly);
+  }
+
+  void reportOpenFailure(File vsaFile, Throwable failure) {
+    if (failure instanceof FileNotFoundException) {
       JOptionPane.showMessageDialog(
-        this, fnfe.getMessage(), "File Not Found", JOptionPane.ERROR_MESSAGE);
+        this, failure.getMessage(), "File Not Found", JOptionPane.ERROR_MESSAGE);
       getFeedbackManager().setStatusBarError("Failed to open " + vsaFile);
-    } catch (IOException ioe) {
+    } else if (failure instanceof IOException) {
       getFeedbackManager().setStatusBarError("Failed to open " + vsaFile);
       JOptionPane.showMessageDialog(
-        this, ioe.getMessage(), "I/O Exception", JOptionPane.ERROR_MESSAGE);
-      ioe.printStackTrace();
-    } catch (NumberFormatException nfe) {
+        this, failure.getMessage(), "I/O Exception", JOptionPane.ERROR_MESSAGE);
+      failure.printStackTrace();
+    } else if (failure instanceof NumberFormatException) {
       // TODO: find where this is getting thrown and change it to a (possibly custom) checked
       // exception
-      nfe.printStackTrace();
+      failure.printStackTrace();
       getFeedbackManager().setStatusBarError("Failed to open " + vsaFile);
       JOptionPane.showMessageDialog(
         this,
         "Error Reading File, Data Incorrectly Formatted",
         "Bad File",
         JOptionPane.ERROR_MESSAGE);
-    } catch (Throwable e) {
-      e.printStackTrace();
+    } else {
+      failure.printStackTrace();
       getFeedbackManager().setStatusBarError("Failed to open " + vsaFile);
       JOptionPane.showMessageDialog(
         this,
-        "Error: Failed to read project due to error: " + e.getMessage(),
+        "Error: Failed to read project due to error: " + failure.getMessage(),
         "Bad File",
         JOptionPane.ERROR_MESSAGE);
     }
@@ -2017,10 +2096,9 @@ public class MainFrame extends JFrame
 			//Extract production names/locations from each file
 			Vector<FeedbackListEntry> vecFeedback = new Vector<>();
 			for(OperatorNode opNode : vecNodes) {
-				Vector<String> prodNames = opNode.getProdNames();
-				for(String prodName : prodNames) {
-					int lineNo = opNode.getLineNumForString(prodName);
-					FeedbackListEntry flobj = new FeedbackEntryOpNode(opNode, lineNo, prodName);
+				for(ProductionIndex.Production production : opNode.getProductions()) {
+					if (production.getName().isEmpty()) continue;
+					FeedbackListEntry flobj = new FeedbackEntryOpNode(opNode, production.getLine(), production.getName());
 					vecFeedback.add(flobj);
 				}
 			}
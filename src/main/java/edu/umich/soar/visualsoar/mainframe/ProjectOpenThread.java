@@ -0,0 +1,195 @@
+package edu.umich.soar.visualsoar.mainframe;
+
+import edu.umich.soar.visualsoar.ProjectModel;
+import edu.umich.soar.visualsoar.files.Cfg;
+import edu.umich.soar.visualsoar.mainframe.actions.VerifyProjectAction;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
+import edu.umich.soar.visualsoar.operatorwindow.FileIndex;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
+import edu.umich.soar.visualsoar.profiling.ProjectOpenPhases;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Opens a project without blocking the UI. The project file and datamap are read and the operator
+ * hierarchy is built on this thread; the operator window is shown as soon as the hierarchy is
+ * ready. The project's files are then checked in the background, and finally the windows from the
+ * last session are restored. A small dialog shows the current phase and lets the user cancel.
+ * Cancelling before the operator window is shown abandons the project; afterwards it only skips
+ * the remaining phases.
+ */
+public class ProjectOpenThread extends Thread {
+  // loading the project model reports its own phases, usually two of them
+  private static final int NUM_PHASES = 4;
+
+  private final MainFrame mainFrame;
+  private final File vsaFile;
+  private final boolean readOnly;
+  private final JProgressBar progressBar;
+  private final JDialog progressDialog;
+  private volatile boolean cancelled = false;
+  private int phasesBegun = 0;
+
+  public ProjectOpenThread(MainFrame mainFrame, File vsaFile, boolean readOnly) {
+    super("Open " + vsaFile.getName());
+    setDaemon(true);
+    this.mainFrame = mainFrame;
+    this.vsaFile = vsaFile;
+    this.readOnly = readOnly;
+
+    progressBar = new JProgressBar(0, NUM_PHASES);
+    progressBar.setStringPainted(true);
+    progressBar.setString("Opening " + vsaFile.getName());
+    JButton cancelButton = new JButton("Cancel");
+    cancelButton.addActionListener(e -> cancel());
+    progressDialog = new JDialog(mainFrame, "Opening " + vsaFile.getName());
+    progressDialog.getContentPane().setLayout(new FlowLayout());
+    progressDialog.getContentPane().add(progressBar);
+    progressDialog.getContentPane().add(cancelButton);
+    progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+    progressDialog.pack();
+    progressDialog.setLocationRelativeTo(mainFrame);
+  }
+
+  public File getVsaFile() {
+    return vsaFile;
+  }
+
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /** Stops opening the project as soon as the current phase allows. */
+  public void cancel() {
+    cancelled = true;
+    SwingUtilities.invokeLater(progressDialog::dispose);
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public synchronized void start() {
+    progressDialog.setVisible(true);
+    super.start();
+  }
+
+  @Override
+  public void run() {
+    OperatorWindow operatorWindow = null;
+    // loading the model records its own phases
+    ProjectOpenPhases phases = new ProjectOpenPhases(vsaFile.toPath(), this::beginPhase);
+    try {
+      // Build the project model; none of this touches the UI
+      ProjectModel projectModel =
+          OperatorWindow.loadProject(vsaFile, readOnly, this::beginPhase);
+      checkCancelled();
+
+      // Show the operator tree
+      operatorWindow = onEdt(() -> mainFrame.installProject(this, projectModel));
+      if (operatorWindow == null) {
+        return; // cancelled in the meantime
+      }
+
+      // Check the project's files
+      phases.beginPhase("Verifying project files");
+      FileIndex index = onEdt(projectModel::fileIndex);
+      List<FeedbackListEntry> errors = verify(index);
+      if (!errors.isEmpty()) {
+        SwingUtilities.invokeLater(() -> showFeedback(errors));
+      }
+
+      // Restore the windows from the last session
+      phases.beginPhase("Restoring windows");
+      OperatorWindow opened = operatorWindow;
+      onEdt(
+          () -> {
+            if (mainFrame.getOperatorWindow() == opened) {
+              Cfg.readCfgFile(mainFrame);
+            }
+            return null;
+          });
+    } catch (CancellationException e) {
+      if (operatorWindow == null) {
+        SwingUtilities.invokeLater(
+            () -> mainFrame.getFeedbackManager().setStatusBarMsg("Canceled opening " + vsaFile));
+      }
+    } catch (Throwable e) {
+      Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+      SwingUtilities.invokeLater(() -> mainFrame.reportOpenFailure(vsaFile, cause));
+    } finally {
+      phases.close();
+      SwingUtilities.invokeLater(() -> mainFrame.projectOpenFinished(this));
+      SwingUtilities.invokeLater(progressDialog::dispose);
+    }
+  }
+
+  private void beginPhase(String phase) {
+    checkCancelled();
+    int value = phasesBegun++;
+    SwingUtilities.invokeLater(
+        () -> {
+          progressBar.setValue(value);
+          progressBar.setString(phase);
+        });
+  }
+
+  private void checkCancelled() {
+    if (cancelled) {
+      throw new CancellationException();
+    }
+  }
+
+  /** The same checks as {@link VerifyProjectAction} */
+  private List<FeedbackListEntry> verify(FileIndex index) {
+    List<FeedbackListEntry> errors = new ArrayList<>();
+    for (FileIndex.Entry entry : index) {
+      checkCancelled();
+      FeedbackListEntry error = VerifyProjectAction.verifyFile(entry.getPath());
+      if (error != null) {
+        errors.add(error);
+      }
+    }
+    return errors;
+  }
+
+  private void showFeedback(List<FeedbackListEntry> errors) {
+    if (cancelled) {
+      return;
+    }
+    FeedbackManager feedbackManager = mainFrame.getFeedbackManager();
+    try (FeedbackManager.AtomicContext ignored = feedbackManager.beginAtomicContext()) {
+      feedbackManager.showFeedback(errors);
+    }
+  }
+
+  private interface EdtTask<T> {
+    T run() throws Exception;
+  }
+
+  /** Runs the task on the event dispatch thread and waits for its result. */
+  private <T> T onEdt(EdtTask<T> task) throws Exception {
+    List<T> result = new ArrayList<>(1);
+    Exception[] failure = new Exception[1];
+    SwingUtilities.invokeAndWait(
+        () -> {
+          try {
+            result.add(task.run());
+          } catch (Exception e) {
+            failure[0] = e;
+          }
+        });
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    return result.get(0);
+  }
+}
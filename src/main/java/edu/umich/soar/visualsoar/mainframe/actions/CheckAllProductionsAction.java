@@ -2,8 +2,8 @@ package edu.umich.soar.visualsoar.mainframe.actions;
 
 import edu.umich.soar.visualsoar.ProjectModel;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
-import edu.umich.soar.visualsoar.mainframe.UpdateThread;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.tasks.ProjectCheckTask;
 import edu.umich.soar.visualsoar.misc.PerformableAction;
 import edu.umich.soar.visualsoar.misc.Prefs;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
@@ -19,8 +19,8 @@ import java.util.Vector;
 
 /**
  * This class is responsible for comparing all productions in the project with the project's model
- * of working memory - the datamap. Operation status is displayed in a progress bar. Results are
- * displayed in the feedback list
+ * of working memory - the datamap. The check runs in the background, with its progress shown in the
+ * task status area. Results are displayed in the feedback list
  */
 public class CheckAllProductionsAction extends PerformableAction {
   private static final long serialVersionUID = 20221225L;
@@ -44,14 +44,9 @@ public class CheckAllProductionsAction extends PerformableAction {
    *     false
    */
   void perform(boolean commit) {
-    CheckProductionsThread cpt = createCheckProductionsThread(commit);
-    cpt.start();
-  }
-
-  private CheckProductionsThread createCheckProductionsThread(boolean commit) {
     Vector<OperatorNode> vecNodes =
         getOperatorNodes(mainFrame.getOperatorWindow().getProjectModel());
-    return new CheckProductionsThread(vecNodes, "Checking Productions...", commit);
+    mainFrame.getTaskManager().submit(new CheckProductionsTask(vecNodes, commit));
   }
 
   @NotNull
@@ -79,20 +74,23 @@ public class CheckAllProductionsAction extends PerformableAction {
     perform();
   }
 
-  class CheckProductionsThread extends UpdateThread {
+  class CheckProductionsTask extends ProjectCheckTask {
+    private final ProjectModel pm = mainFrame.getOperatorWindow().getProjectModel();
     private final boolean commit;
 
-    public CheckProductionsThread(Vector<OperatorNode> v, String title, boolean commit) {
-      super(mainFrame, v, title);
+    public CheckProductionsTask(Vector<OperatorNode> v, boolean commit) {
+      super("Checking productions", mainFrame.getFeedbackManager(), v);
       this.commit = commit;
     }
 
-    public boolean checkEntity(Object node) throws IOException {
-      return ((OperatorNode) node)
-          .checkAgainstDatamap(vecErrors, mainFrame.getOperatorWindow().getProjectModel());
+    @Override
+    protected boolean checkEntity(OperatorNode node, Vector<FeedbackListEntry> errors)
+        throws IOException {
+      return node.checkAgainstDatamap(errors, pm);
     }
 
-    public void postAction() {
+    @Override
+    protected void postAction() {
       if (commit && Prefs.saveOnDmCheckPass.getBoolean() && !foundAnyErrors()) {
         mainFrame.commit(false);
       }
@@ -1,14 +1,15 @@
 package edu.umich.soar.visualsoar.mainframe.actions;
 
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
-import edu.umich.soar.visualsoar.mainframe.UpdateThread;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.tasks.ProjectCheckTask;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
 import edu.umich.soar.visualsoar.parser.ParseException;
 import edu.umich.soar.visualsoar.parser.SoarProduction;
 import edu.umich.soar.visualsoar.parser.SuppParseChecks;
 import edu.umich.soar.visualsoar.parser.TokenMgrError;
+import edu.umich.soar.visualsoar.ruleeditor.ProductionIndex;
 
 import javax.swing.*;
 import javax.swing.tree.TreeNode;
@@ -18,15 +19,14 @@ import java.util.Enumeration;
 import java.util.Vector;
 
 /**
- * This action searches all productions in the project for syntax errors only. Operation status is
- * displayed in a progress bar. Results are displayed in the feedback list
+ * This action searches all productions in the project for syntax errors only. The search runs in the
+ * background, with its progress shown in the task status area. Results are displayed in the
+ * feedback list
  */
 public class CheckSyntaxErrorsAction extends AbstractAction {
   private static final long serialVersionUID = 20221225L;
 
   private final MainFrame mainFrame;
-  // a list of all production names seen is stored here so that duplicates can be found
-  private final Vector<String> allProdNames = new Vector<>();
 
   public CheckSyntaxErrorsAction(MainFrame mainFrame) {
     super("Check All Productions for Syntax Errors");
@@ -35,27 +35,30 @@ public class CheckSyntaxErrorsAction extends AbstractAction {
   }
 
   public void actionPerformed(ActionEvent ae) {
-    // reset the list for the new duplicate name check
-    this.allProdNames.clear();
-
     Enumeration<TreeNode> bfe = mainFrame.getOperatorWindow().getProjectModel().breadthFirstEnumeration();
     Vector<OperatorNode> vecNodes = new Vector<>(10, 50);
     while (bfe.hasMoreElements()) {
       vecNodes.add((OperatorNode) bfe.nextElement());
     }
-    (new CheckSyntaxThread(vecNodes, "Checking Productions...")).start();
+    mainFrame.getTaskManager().submit(new CheckSyntaxTask(vecNodes));
   }
 
-  class CheckSyntaxThread extends UpdateThread {
-    public CheckSyntaxThread(Vector<OperatorNode> v, String title) {
-      super(mainFrame, v, title);
+  class CheckSyntaxTask extends ProjectCheckTask {
+    // a list of all production names seen is stored here so that duplicates can be found
+    private final Vector<String> allProdNames = new Vector<>();
+
+    public CheckSyntaxTask(Vector<OperatorNode> v) {
+      super("Checking syntax", mainFrame.getFeedbackManager(), v);
     }
 
     /** Check for duplicate production names */
-    private void checkDuplicateProdNames(OperatorNode opNode) {
-      Vector<String> prodNames = opNode.getProdNames();
-      for (String prodName : prodNames) {
-        for (String allName : CheckSyntaxErrorsAction.this.allProdNames) {
+    private void checkDuplicateProdNames(OperatorNode opNode, Vector<FeedbackListEntry> vecErrors) {
+      for (ProductionIndex.Production production : opNode.getProductions()) {
+        String prodName = production.getName();
+        if (prodName.isEmpty()) {
+          continue;
+        }
+        for (String allName : allProdNames) {
           if (allName.startsWith(prodName)) {
             // We *may* have a name conflict, but it's possible that
             // allName has a longer name.
@@ -76,8 +79,8 @@ public class CheckSyntaxErrorsAction extends AbstractAction {
                       + prodName
                       + " in "
                       + opNode.getFileName();
-              int lineNo = opNode.getLineNumForString(prodName);
-              FeedbackListEntry flobj = new FeedbackEntryOpNode(opNode, lineNo, errStr);
+              FeedbackListEntry flobj =
+                  new FeedbackEntryOpNode(opNode, production.getLine(), errStr);
               vecErrors.add(flobj);
             }
           }
@@ -87,11 +90,11 @@ public class CheckSyntaxErrorsAction extends AbstractAction {
       }
     }
 
-    public boolean checkEntity(Object node) throws IOException {
-      OperatorNode opNode = (OperatorNode) node;
-
+    @Override
+    protected boolean checkEntity(OperatorNode opNode, Vector<FeedbackListEntry> vecErrors)
+        throws IOException {
       // do this check first since it only generates warnings
-      checkDuplicateProdNames(opNode);
+      checkDuplicateProdNames(opNode, vecErrors);
 
       try {
         // This is the main parsing here
@@ -1,5 +1,6 @@
 package edu.umich.soar.visualsoar.mainframe.actions;
 
+import edu.umich.soar.visualsoar.files.GeneratedFiles;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.misc.PerformableAction;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorRootNode;
@@ -7,14 +8,22 @@ import edu.umich.soar.visualsoar.operatorwindow.OperatorRootNode;
 import javax.swing.*;
 import javax.swing.tree.DefaultTreeModel;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
+import java.util.Map;
+import java.util.logging.Logger;
 
 /**
  * Export Agent Writes all the <operator>_source.soar files necessary for sourcing agent files
  * written in into the TSI
+ *
+ * <p>The file contents are generated from the operator hierarchy on the calling (event dispatch)
+ * thread, and then written on the background thread that writes all generated files, in order
+ * with the {@code _source} files written by edits to the hierarchy. Only files whose content has
+ * changed are written; see {@link GeneratedFiles}.
  */
 public class ExportAgentAction extends PerformableAction {
   private static final long serialVersionUID = 20221225L;
+  private static final Logger LOGGER = Logger.getLogger(ExportAgentAction.class.getName());
+
   private final MainFrame mainFrame;
 
   public ExportAgentAction(MainFrame mainFrame) {
@@ -25,16 +34,33 @@ public class ExportAgentAction extends PerformableAction {
   public void perform() {
     DefaultTreeModel tree = (DefaultTreeModel) mainFrame.getOperatorWindow().getModel();
     OperatorRootNode root = (OperatorRootNode) tree.getRoot();
-    try {
-      root.startSourcing();
-    } catch (IOException exception) {
-      JOptionPane.showMessageDialog(
-          mainFrame, exception.getMessage(), "Agent Export Error", JOptionPane.ERROR_MESSAGE);
-    }
+    Map<String, String> files = root.collectAgentSourceFiles();
+    GeneratedFiles.writeChangedLater(files)
+        .whenComplete(
+            (written, error) ->
+                SwingUtilities.invokeLater(
+                    () -> {
+                      if (error == null) {
+                        mainFrame
+                            .getFeedbackManager()
+                            .setStatusBarMsg(
+                                "Export Finished: "
+                                    + written
+                                    + " of "
+                                    + files.size()
+                                    + " source files written");
+                      } else {
+                        LOGGER.warning("Agent export failed: " + error);
+                        JOptionPane.showMessageDialog(
+                            mainFrame,
+                            GeneratedFiles.rootCause(error).getMessage(),
+                            "Agent Export Error",
+                            JOptionPane.ERROR_MESSAGE);
+                      }
+                    }));
   }
 
   public void actionPerformed(ActionEvent event) {
     perform();
-    mainFrame.getFeedbackManager().setStatusBarMsg("Export Finished");
   }
 }
@@ -3,27 +3,34 @@ package edu.umich.soar.visualsoar.mainframe.actions;
 import edu.umich.soar.visualsoar.datamap.DataMap;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.tasks.BackgroundTask;
+import edu.umich.soar.visualsoar.mainframe.tasks.TaskContext;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
+import edu.umich.soar.visualsoar.profiling.DatamapGenerationPassEvent;
 
 import javax.swing.*;
 import javax.swing.tree.TreeNode;
-import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Vector;
 
 /**
  * This class is responsible for comparing all productions in the project with the project's
- * datamaps and 'fixing' any discrepancies by adding missing productions to the datamap. Operation
- * status is displayed in a progress bar. Add productions in the datamap are displayed as green
- * until the user validates them. Results are displayed in the feedback list
+ * datamaps and 'fixing' any discrepancies by adding missing productions to the datamap. The work
+ * runs in the background, with its progress shown in the task status area. Add productions in the
+ * datamap are displayed as green until the user validates them. Results are displayed in the
+ * feedback list
  */
 public class GenerateDataMapAction extends AbstractAction {
   private static final long serialVersionUID = 20221225L;
 
+  /** Passes repeat while there are parse errors, up to this many times */
+  private static final int MAX_PASSES = 5;
+
   private final MainFrame mainFrame;
-  JProgressBar progressBar;
-  JDialog progressDialog;
 
   public GenerateDataMapAction(MainFrame mainFrame) {
     super("Generate Datamap from Operator Hierarchy");
@@ -32,60 +39,56 @@ public class GenerateDataMapAction extends AbstractAction {
   }
 
   public void actionPerformed(ActionEvent ae) {
-    int numNodes = 0;
+    List<OperatorNode> nodes = new ArrayList<>();
     Enumeration<TreeNode> bfe = mainFrame.getOperatorWindow().getProjectModel().breadthFirstEnumeration();
     while (bfe.hasMoreElements()) {
-      numNodes++;
-      bfe.nextElement();
+      nodes.add((OperatorNode) bfe.nextElement());
     }
-    System.out.println("Nodes: " + numNodes);
-    progressBar = new JProgressBar(0, numNodes * 7);
-    progressDialog = new JDialog(mainFrame, "Generating Datamap from Productions");
-    progressDialog.getContentPane().setLayout(new FlowLayout());
-    progressDialog.getContentPane().add(progressBar);
-    progressBar.setStringPainted(true);
-    progressDialog.setLocationRelativeTo(mainFrame);
-    progressDialog.pack();
-    progressDialog.setVisible(true);
-    (new UpdateThread()).start();
+    mainFrame.getTaskManager().submit(new GenerateDataMapTask(nodes));
   }
 
-  class UpdateThread extends Thread {
-    Runnable update, finish;
-    int value, min;
+  class GenerateDataMapTask extends BackgroundTask<Vector<FeedbackListEntry>> {
+    private final OperatorWindow operatorWindow = mainFrame.getOperatorWindow();
+    private final List<OperatorNode> nodes;
+    private final Vector<FeedbackListEntry> vecErrors = new Vector<>();
 
-    Vector<FeedbackListEntry> errors = new Vector<>();
-    int repCount = 0;
-    Enumeration<TreeNode> bfe = mainFrame.getOperatorWindow().getProjectModel().breadthFirstEnumeration();
-    OperatorNode current;
-    Vector<FeedbackListEntry> vecErrors = new Vector<>();
-
-    public UpdateThread() {
-      progressBar.getMaximum();
-      progressBar.getMinimum();
-
-      update =
-          new Runnable() {
-            public void run() {
-              value = progressBar.getValue() + 1;
-              updateProgressBar(value);
-              // System.out.println("Value is " + value);
-            }
-          };
-      finish =
-          new Runnable() {
-            public void run() {
-              updateProgressBar(min);
-              System.out.println("Done");
-              progressDialog.dispose();
-            }
-          };
+    GenerateDataMapTask(List<OperatorNode> nodes) {
+      super("Generating datamap");
+      this.nodes = nodes;
     }
 
-    public void run() {
-      checkNodes();
-      repCount = 0;
+    @Override
+    protected Vector<FeedbackListEntry> compute(TaskContext context) {
+      Vector<FeedbackListEntry> errors = new Vector<>();
+      int repCount = 0;
+      do {
+        repCount++;
+        errors.clear();
+        context.setMessage(repCount == 1 ? null : "Pass " + repCount);
+        DatamapGenerationPassEvent pass = new DatamapGenerationPassEvent();
+        pass.begin();
+        int generatedBefore = vecErrors.size();
+
+        for (int i = 0; i < nodes.size(); i++) {
+          context.checkCancelled();
+          operatorWindow.generateDataMap(nodes.get(i), errors, vecErrors);
+          context.setProgress(i + 1, nodes.size());
+        }
+
+        if (pass.shouldCommit()) {
+          pass.pass = repCount;
+          pass.nodes = nodes.size();
+          pass.additions = vecErrors.size() - generatedBefore;
+          pass.parseErrors = errors.size();
+          pass.commit();
+        }
+      } while (!(errors.isEmpty()) && repCount < MAX_PASSES);
+      return vecErrors;
+    }
 
+    @Override
+    protected void succeeded(Vector<FeedbackListEntry> generated) {
+      showGenerated();
       JOptionPane.showMessageDialog(
           mainFrame,
           "DataMap Generation Completed",
@@ -93,31 +96,31 @@ public class GenerateDataMapAction extends AbstractAction {
           JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void updateProgressBar(int value) {
-      progressBar.setValue(value);
+    @Override
+    protected void failed(Throwable error) {
+      super.failed(error);
+      // the project may have been closed while the task was running
+      if (mainFrame.getOperatorWindow() == operatorWindow) {
+        showGenerated();
+      }
+      mainFrame.getFeedbackManager().setStatusBarError("DataMap generation failed: " + error);
     }
 
-    public void checkNodes() {
-      do {
-        repCount++;
-        errors.clear();
-        bfe = mainFrame.getOperatorWindow().getProjectModel().breadthFirstEnumeration();
-
-        while (bfe.hasMoreElements()) {
-          current = (OperatorNode) bfe.nextElement();
-
-          mainFrame.getOperatorWindow().generateDataMap(current, errors, vecErrors);
-
-          mainFrame.getFeedbackManager().showFeedback(vecErrors);
-          value = progressBar.getValue() + 1;
-          updateProgressBar(value);
-          SwingUtilities.invokeLater(update);
-        } // while parsing operator nodes
+    @Override
+    protected void cancelled() {
+      // whatever was added before the cancellation stays in the datamap, but the feedback list
+      // is left alone, since closing the project is what usually cancels the task
+      displayGeneratedNodes();
+      mainFrame.getFeedbackManager().setStatusBarMsg("DataMap generation canceled");
+    }
 
-      } while (!(errors.isEmpty()) && repCount < 5);
+    private void showGenerated() {
+      mainFrame.getFeedbackManager().showFeedback(new Vector<>(vecErrors));
+      displayGeneratedNodes();
+    }
 
-      // Instruct all open datamap windows to display
-      // the newly generated nodes
+    /** Instruct all open datamap windows to display the newly generated nodes */
+    private void displayGeneratedNodes() {
       JInternalFrame[] jif = mainFrame.getDesktopPane().getAllFrames();
       for (JInternalFrame jInternalFrame : jif) {
         if (jInternalFrame instanceof DataMap) {
@@ -125,8 +128,6 @@ public class GenerateDataMapAction extends AbstractAction {
           dm.displayGeneratedNodes();
         }
       }
-
-      SwingUtilities.invokeLater(finish);
     }
   }
 }
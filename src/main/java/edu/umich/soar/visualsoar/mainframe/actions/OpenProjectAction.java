@@ -2,7 +2,6 @@ package edu.umich.soar.visualsoar.mainframe.actions;
 
 import edu.umich.soar.visualsoar.files.Vsa;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
-import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
 
 import java.awt.event.ActionEvent;
 import java.io.File;
@@ -54,8 +53,6 @@ public class OpenProjectAction extends AbstractAction {
       return;
     }
     final boolean readOnly = this.readOnly || event.getActionCommand().contains("Read-Only");
-    try (FeedbackManager.AtomicContext ignored = mainFrame.getFeedbackManager().beginAtomicContext()) {
-      mainFrame.openProject(vsaFile, readOnly);
-    }
+    mainFrame.openProjectInBackground(vsaFile, readOnly);
   }
 }
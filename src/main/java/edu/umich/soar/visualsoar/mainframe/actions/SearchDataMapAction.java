@@ -2,8 +2,10 @@ package edu.umich.soar.visualsoar.mainframe.actions;
 
 import edu.umich.soar.visualsoar.graph.NamedEdge;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
-import edu.umich.soar.visualsoar.mainframe.UpdateThread;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.mainframe.tasks.ProjectCheckTask;
+import edu.umich.soar.visualsoar.mainframe.tasks.TaskContext;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
 
 import javax.swing.*;
@@ -11,20 +13,19 @@ import javax.swing.tree.TreeNode;
 import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Vector;
 
 /**
  * This action provides a framework for searching all datamaps for errors. It is intended to be
- * subclassed. Operation status is displayed in a progress bar. Results are displayed in the
- * feedback list Double-clicking on an item in the feedback list should display the rogue node in
- * the datamap.
+ * subclassed. The search runs in the background, with its progress shown in the task status area.
+ * Results are displayed in the feedback list Double-clicking on an item in the feedback list should
+ * display the rogue node in the datamap.
  */
 public abstract class SearchDataMapAction extends AbstractAction {
   private static final long serialVersionUID = 20221225L;
 
   protected final MainFrame mainFrame;
-  protected int numNodes = 0; // number of operator nodes in the project
-  protected int numChecks = 0; // number of nodes scanned so far
 
   public SearchDataMapAction(MainFrame mainFrame) {
     super("Check All Productions");
@@ -33,9 +34,7 @@ public abstract class SearchDataMapAction extends AbstractAction {
   }
 
   public void actionPerformed(ActionEvent ae) {
-    initializeEdges();
-    numNodes = 0;
-    numChecks = 0;
+    int numNodes = 0;
 
     Enumeration<TreeNode> bfe = mainFrame.getOperatorWindow().getProjectModel().breadthFirstEnumeration();
     Vector<OperatorNode> vecNodes = new Vector<>(10, 50);
@@ -52,22 +51,22 @@ public abstract class SearchDataMapAction extends AbstractAction {
       vecNodes.add((OperatorNode) bfe.nextElement());
     }
 
-    (new DatamapTestThread(vecNodes, "Scanning Datamap...")).start();
+    mainFrame.getTaskManager().submit(new DatamapTestTask(vecNodes, numNodes));
   }
 
   /**
    * This initializes the status of all the edges to zero, which means that the edges have not been
    * used by a production in any way.
    */
-  public void initializeEdges() {
-    Enumeration<NamedEdge> edges = mainFrame.getOperatorWindow().getDatamap().getEdges();
+  public static void initializeEdges(SoarWorkingMemoryModel datamap) {
+    Enumeration<NamedEdge> edges = datamap.getEdges();
     while (edges.hasMoreElements()) {
       NamedEdge currentEdge = edges.nextElement();
       currentEdge.resetTestedStatus();
       currentEdge.resetErrorNoted();
       // initialize the output-link as already tested
       if (currentEdge.getName().equals("output-link")) {
-        currentEdge.setOutputLinkTested(mainFrame.getOperatorWindow().getDatamap());
+        currentEdge.setOutputLinkTested(datamap);
       }
     }
   }
@@ -77,9 +76,20 @@ public abstract class SearchDataMapAction extends AbstractAction {
   // list of errors is placed in the given Vector.
   public abstract void searchDatamap(OperatorNode opNode, Vector<FeedbackListEntry> v);
 
-  class DatamapTestThread extends UpdateThread {
-    public DatamapTestThread(Vector<OperatorNode> v, String title) {
-      super(mainFrame, v, title);
+  class DatamapTestTask extends ProjectCheckTask {
+    private final SoarWorkingMemoryModel datamap = mainFrame.getOperatorWindow().getDatamap();
+    private final int numNodes; // number of operator nodes in the project
+    private int numChecks = 0; // number of nodes scanned so far
+
+    public DatamapTestTask(Vector<OperatorNode> v, int numNodes) {
+      super("Scanning datamap", mainFrame.getFeedbackManager(), v);
+      this.numNodes = numNodes;
+    }
+
+    @Override
+    protected List<FeedbackListEntry> compute(TaskContext context) {
+      initializeEdges(datamap);
+      return super.compute(context);
     }
 
     /**
@@ -88,9 +98,9 @@ public abstract class SearchDataMapAction extends AbstractAction {
      * WMEs are classified in this action by never being tested by a production, not including any
      * item within the output-link.
      */
-    public boolean checkEntity(Object node) throws IOException {
-      OperatorNode opNode = (OperatorNode) node;
-
+    @Override
+    protected boolean checkEntity(OperatorNode opNode, Vector<FeedbackListEntry> vecErrors)
+        throws IOException {
       // For the first run, do a normal production check
       if (numChecks < numNodes) {
         Vector<FeedbackListEntry> v = new Vector<>();
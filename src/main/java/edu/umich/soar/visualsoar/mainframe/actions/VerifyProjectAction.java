@@ -1,8 +1,8 @@
 package edu.umich.soar.visualsoar.mainframe.actions;
 
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
-import edu.umich.soar.visualsoar.mainframe.UpdateThread;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.tasks.ProjectCheckTask;
 import edu.umich.soar.visualsoar.misc.PerformableAction;
 import edu.umich.soar.visualsoar.operatorwindow.FileNode;
 import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
@@ -39,44 +39,52 @@ public class VerifyProjectAction extends PerformableAction {
         vecNodes.add(node);
       }
     }
-    (new VerifyProjectThread(vecNodes, "Verifiying Project...")).start();
+    mainFrame.getTaskManager().submit(new VerifyProjectTask(vecNodes));
   }
 
   public void actionPerformed(ActionEvent ae) {
     perform();
   }
 
-  class VerifyProjectThread extends UpdateThread {
-    public VerifyProjectThread(Vector<OperatorNode> v, String title) {
-      super(mainFrame, v, title);
+  /**
+   * Checks that one of the project's files can be read and written. Used both by this action and
+   * when a project is opened.
+   *
+   * @return the problem with the file, or null if there is none
+   */
+  public static @Nullable FeedbackListEntry verifyFile(String path) {
+    File f = new File(path);
+    if (!f.canRead()) {
+      return new FeedbackListEntry("Error!  Project Corrupted:  Unable to open file: " + path);
     }
+    if (!f.canWrite()) {
+      return new FeedbackListEntry("Error!  Unable to write to file: " + path);
+    }
+    return null;
+  }
 
-    public boolean checkEntity(Object node) {
-      OperatorNode opNode = (OperatorNode) node;
+  class VerifyProjectTask extends ProjectCheckTask {
+    public VerifyProjectTask(Vector<OperatorNode> v) {
+      super("Verifying project", mainFrame.getFeedbackManager(), v);
+    }
 
+    @Override
+    protected boolean checkEntity(OperatorNode opNode, Vector<FeedbackListEntry> vecErrors) {
       // Only file nodes need to be examined
       if (!(opNode instanceof FileNode)) {
         return false;
       }
 
-      File f = new File(opNode.getFileName());
-      if (!f.canRead()) {
-        String msg = "Error!  Project Corrupted:  Unable to open file: " + opNode.getFileName();
-        vecErrors.add(new FeedbackListEntry(msg));
-        return true;
-      }
-
-      if (!f.canWrite()) {
-        String msg = "Error!  Unable to write to file: " + opNode.getFileName();
-        vecErrors.add(new FeedbackListEntry(msg));
-        return true;
+      FeedbackListEntry error = verifyFile(opNode.getFileName());
+      if (error == null) {
+        return false;
       }
-
-      return false;
+      vecErrors.add(error);
+      return true;
     }
 
     @Override
-    public @Nullable String getSuccessMessage() {
+    protected @Nullable String getSuccessMessage() {
       // User doesn't need to know that files are all present and RW-able
       return null;
     }
@@ -84,4 +84,33 @@ public class FeedbackListEntry {
         + (isError() ? "1" : "3")
         + ", \"source\": \"VisualSoar\"}";
   }
+
+  /**
+   * @return an LSP Diagnostic JSON object formatted in one line, for a message about a line of a
+   *     source file
+   */
+  protected static String toJsonLine(
+      String fileName, int lineNumber, String message, boolean isError) {
+    // Unfortunately we don't have the character position or end line number.
+    // TODO: derive that from the lineNumber and assocString somehow
+    String position = "{\"line\": " + lineNumber + ", \"character\": 0}";
+    String escapedFileName = String.valueOf(JsonStringEncoder.getInstance().quoteAsString(fileName));
+    String location =
+        "{\"uri\": \"file://"
+            + escapedFileName
+            + "\", \"range\": {\"start\": "
+            + position
+            + ", \"end\": "
+            + position
+            + "}}";
+    String escapedMessage = String.valueOf(JsonStringEncoder.getInstance().quoteAsString(message));
+    return "{\"message\": \"Operator node diagnostic\", \"severity\": "
+        + (isError ? "1" : "3")
+        + ", \"relatedInformation\": [{\"message\": \""
+        + escapedMessage
+        + "\", \"location\": "
+        + location
+        + "}]"
+        + ", \"source\": \"VisualSoar\"}";
+  }
 }//class FeedbackListEntry
@@ -0,0 +1,45 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Work that runs on a {@link TaskManager}'s background threads, such as checking every production
+ * in the project. {@link #compute} does the work, reporting progress and checking for
+ * cancellation through its {@link TaskContext}. Exactly one of {@link #succeeded}, {@link
+ * #failed} and {@link #cancelled} is then called on the event dispatch thread.
+ *
+ * @param <T> the result of the work
+ */
+public abstract class BackgroundTask<T> {
+  private static final Logger LOGGER = Logger.getLogger(BackgroundTask.class.getName());
+
+  private final String title;
+
+  /** @param title what the task status area shows while the task runs */
+  protected BackgroundTask(String title) {
+    this.title = title;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Does the work on a background thread. It must not touch Swing components.
+   *
+   * @throws java.util.concurrent.CancellationException from {@link TaskContext#checkCancelled()}
+   */
+  protected abstract T compute(TaskContext context) throws Exception;
+
+  /** Called on the event dispatch thread with the result of {@link #compute} */
+  protected void succeeded(T result) {}
+
+  /** Called on the event dispatch thread if {@link #compute} threw an exception */
+  protected void failed(Throwable error) {
+    LOGGER.log(Level.SEVERE, title + " failed", error);
+  }
+
+  /** Called on the event dispatch thread if the task was cancelled before it finished */
+  protected void cancelled() {}
+}
@@ -0,0 +1,102 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackManager;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scans each of a list of operator nodes for errors in the background, and shows the errors in the
+ * feedback list when it is done. Subclasses do the scanning in {@link #checkEntity}.
+ */
+public abstract class ProjectCheckTask extends BackgroundTask<List<FeedbackListEntry>> {
+  private static final Logger LOGGER = Logger.getLogger(ProjectCheckTask.class.getName());
+
+  protected final FeedbackManager feedbackManager;
+  private final List<OperatorNode> nodes;
+  private boolean anyErrors;
+
+  protected ProjectCheckTask(
+      String title, FeedbackManager feedbackManager, List<? extends OperatorNode> nodes) {
+    super(title);
+    this.feedbackManager = feedbackManager;
+    this.nodes = new ArrayList<>(nodes);
+  }
+
+  /**
+   * Scans one node for errors. Called on a background thread.
+   *
+   * @param errors any errors found are added to this list
+   * @return true if any errors were found
+   */
+  protected abstract boolean checkEntity(OperatorNode node, Vector<FeedbackListEntry> errors)
+      throws IOException;
+
+  @Override
+  protected List<FeedbackListEntry> compute(TaskContext context) {
+    Vector<FeedbackListEntry> errors = new Vector<>();
+    anyErrors = false;
+    for (int i = 0; i < nodes.size(); i++) {
+      context.checkCancelled();
+      try {
+        if (checkEntity(nodes.get(i), errors)) {
+          anyErrors = true;
+        }
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not check " + nodes.get(i).getFileName(), e);
+        errors.add(new FeedbackListEntry(e.getMessage(), true));
+        anyErrors = true;
+      }
+      context.setProgress(i + 1, nodes.size());
+    }
+
+    if (!anyErrors) {
+      String message = getSuccessMessage();
+      if (message != null) {
+        errors.add(new FeedbackListEntry(message));
+      }
+    } else if (errors.isEmpty()) {
+      // This should never happen, as errors should be added to the list.
+      errors.add(new FeedbackListEntry("Unknown error occurred"));
+    }
+    return errors;
+  }
+
+  @Override
+  protected void succeeded(List<FeedbackListEntry> errors) {
+    feedbackManager.showFeedback(errors);
+    postAction();
+  }
+
+  @Override
+  protected void failed(Throwable error) {
+    super.failed(error);
+    feedbackManager.showFeedback(new FeedbackListEntry(getTitle() + " failed: " + error, true));
+  }
+
+  @Override
+  protected void cancelled() {
+    feedbackManager.setStatusBarMsg(getTitle() + " canceled");
+  }
+
+  /** Called on the event dispatch thread after the errors are shown */
+  protected void postAction() {}
+
+  /** @return true if the check found any errors; may be called from {@link #postAction()} */
+  public boolean foundAnyErrors() {
+    return anyErrors;
+  }
+
+  /** @return If not null, show the message to the user on success. Otherwise, show no message. */
+  @Nullable
+  protected String getSuccessMessage() {
+    return "There were no errors detected in this project.";
+  }
+}
@@ -0,0 +1,99 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A {@link BackgroundTask} that has been submitted to a {@link TaskManager} and has not finished
+ * yet. Its progress may be read from any thread.
+ */
+public final class RunningTask implements TaskContext {
+  private final TaskManager manager;
+  private final BackgroundTask<?> task;
+  private volatile boolean started = false;
+  private volatile boolean cancelled = false;
+  private volatile int done = 0;
+  private volatile int total = 0;
+  private volatile String message;
+
+  RunningTask(TaskManager manager, BackgroundTask<?> task) {
+    this.manager = manager;
+    this.task = task;
+  }
+
+  public String getTitle() {
+    return task.getTitle();
+  }
+
+  /** Asks the task to stop at its next {@link #checkCancelled()} */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /** @return false while the task is still waiting for a thread */
+  public boolean isStarted() {
+    return started;
+  }
+
+  @Override
+  public void setProgress(int done, int total) {
+    this.done = done;
+    this.total = total;
+  }
+
+  public int getDone() {
+    return done;
+  }
+
+  /** @return the amount of work in all, or 0 if that is not known */
+  public int getTotal() {
+    return total;
+  }
+
+  @Override
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  void run() {
+    started = true;
+    run(task);
+  }
+
+  private <T> void run(BackgroundTask<T> task) {
+    T result;
+    try {
+      checkCancelled();
+      result = task.compute(this);
+    } catch (CancellationException e) {
+      finish(task::cancelled);
+      return;
+    } catch (Throwable e) {
+      finish(() -> task.failed(e));
+      return;
+    }
+    if (cancelled) {
+      finish(task::cancelled);
+    } else {
+      finish(() -> task.succeeded(result));
+    }
+  }
+
+  /** Runs the task's callback on the event dispatch thread once it is no longer running */
+  void finish(Runnable callback) {
+    SwingUtilities.invokeLater(
+        () -> {
+          manager.finished(this);
+          callback.run();
+        });
+  }
+}
@@ -0,0 +1,29 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * How a {@link BackgroundTask} reports its progress and learns that it has been cancelled. These
+ * may be called as often as is convenient from the task's thread; the task status area picks up
+ * the latest values a few dozen times a second.
+ */
+public interface TaskContext {
+
+  boolean isCancelled();
+
+  /** @throws CancellationException if the task has been cancelled */
+  default void checkCancelled() {
+    if (isCancelled()) {
+      throw new CancellationException();
+    }
+  }
+
+  /**
+   * @param done how many units of work are finished
+   * @param total how many units of work there are in all
+   */
+  void setProgress(int done, int total);
+
+  /** @param message describes the current step, or is null */
+  void setMessage(String message);
+}
@@ -0,0 +1,101 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs {@link BackgroundTask}s on a fixed number of daemon threads, with a limit on how many may
+ * wait for a thread. Tasks may be submitted from any thread. Their results are delivered, and
+ * listeners hear about each task that is submitted or finishes, on the event dispatch thread.
+ */
+public class TaskManager {
+  private static final AtomicInteger threadNumber = new AtomicInteger();
+
+  private final ThreadPoolExecutor executor;
+  private final List<RunningTask> running = new CopyOnWriteArrayList<>();
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * @param threads how many tasks may run at once
+   * @param maxWaiting how many more tasks may wait for a thread before new ones are refused
+   */
+  public TaskManager(int threads, int maxWaiting) {
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            30,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(maxWaiting),
+            r -> {
+              Thread t = new Thread(r, "Background task " + threadNumber.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Starts a task, or queues it until a thread is free. If too many tasks are waiting already, the
+   * task fails with a {@link RejectedExecutionException}.
+   */
+  public RunningTask submit(BackgroundTask<?> task) {
+    RunningTask runningTask = new RunningTask(this, task);
+    running.add(runningTask);
+    fireChanged();
+    try {
+      executor.execute(runningTask::run);
+    } catch (RejectedExecutionException e) {
+      runningTask.finish(
+          () ->
+              task.failed(
+                  new RejectedExecutionException(
+                      "Too many tasks are waiting to run; please try again later", e)));
+    }
+    return runningTask;
+  }
+
+  /** @return the tasks that have been submitted and have not finished, oldest first */
+  public List<RunningTask> getRunning() {
+    return Collections.unmodifiableList(new ArrayList<>(running));
+  }
+
+  /** Cancels every task that has not finished */
+  public void cancelAll() {
+    for (RunningTask task : running) {
+      task.cancel();
+    }
+  }
+
+  /** @param listener called on the event dispatch thread when a task is submitted or finishes */
+  public void addChangeListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  public void removeChangeListener(Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  void finished(RunningTask task) {
+    running.remove(task);
+    fireChanged();
+  }
+
+  private void fireChanged() {
+    if (!SwingUtilities.isEventDispatchThread()) {
+      SwingUtilities.invokeLater(this::fireChanged);
+      return;
+    }
+    for (Runnable listener : listeners) {
+      listener.run();
+    }
+  }
+}
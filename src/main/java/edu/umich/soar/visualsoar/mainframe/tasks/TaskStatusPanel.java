@@ -0,0 +1,87 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Shows the oldest unfinished task of a {@link TaskManager} beside the status bar, with its
+ * progress and a button to cancel it, and how many more tasks there are. Hidden while no tasks are
+ * running. Progress is read from the tasks at most {@value #UPDATES_PER_SECOND} times a second,
+ * however often the tasks report it.
+ */
+public class TaskStatusPanel extends JPanel {
+  private static final long serialVersionUID = 20221225L;
+
+  static final int UPDATES_PER_SECOND = 30;
+
+  private final TaskManager manager;
+  private final JLabel titleLabel = new JLabel();
+  private final JProgressBar progressBar = new JProgressBar();
+  private final JButton cancelButton = new JButton("Cancel");
+  private final JLabel moreLabel = new JLabel();
+  private final Timer timer = new Timer(1000 / UPDATES_PER_SECOND, e -> refresh());
+
+  private RunningTask shown;
+
+  public TaskStatusPanel(TaskManager manager) {
+    super(new FlowLayout(FlowLayout.RIGHT, 6, 0));
+    this.manager = manager;
+
+    progressBar.setStringPainted(true);
+    cancelButton.addActionListener(
+        e -> {
+          if (shown != null) {
+            shown.cancel();
+            cancelButton.setEnabled(false);
+          }
+        });
+    add(titleLabel);
+    add(progressBar);
+    add(cancelButton);
+    add(moreLabel);
+    setVisible(false);
+
+    manager.addChangeListener(this::refresh);
+  }
+
+  /** Shows the current state of the tasks; called on the event dispatch thread */
+  void refresh() {
+    List<RunningTask> running = manager.getRunning();
+    if (running.isEmpty()) {
+      shown = null;
+      timer.stop();
+      setVisible(false);
+      return;
+    }
+
+    RunningTask task = running.get(0);
+    if (task != shown) {
+      shown = task;
+      titleLabel.setText(task.getTitle());
+      cancelButton.setEnabled(!task.isCancelled());
+    }
+    String message = task.getMessage();
+    if (task.isCancelled()) {
+      message = "Canceling...";
+    } else if (!task.isStarted()) {
+      message = "Waiting...";
+    }
+    int total = task.getTotal();
+    progressBar.setIndeterminate(total <= 0);
+    if (total > 0) {
+      progressBar.setMaximum(total);
+      progressBar.setValue(task.getDone());
+    }
+    if (message == null) {
+      message = total > 0 ? task.getDone() + " / " + total : "";
+    }
+    progressBar.setString(message);
+    moreLabel.setText(running.size() > 1 ? "+" + (running.size() - 1) + " more" : "");
+
+    setVisible(true);
+    if (!timer.isRunning()) {
+      timer.start();
+    }
+  }
+}
@@ -51,6 +51,16 @@ public enum Prefs {
   checkDmOnSave(true),
   /** Save the project whenever a datamap check passes */
   saveOnDmCheckPass(false),
+  /** Keep a binary snapshot next to the project file to speed up opening it */
+  projectSnapshotEnabled(false),
+  /** Check productions against the datamap while they are being edited */
+  liveDatamapChecksEnabled(true),
+  /** List the productions beside each rule editor */
+  productionOutlineVisible(false),
+  /** How much memory the undo history of each rule editor may use */
+  undoMemoryBudgetKb(8 * 1024),
+  /** Report the UI as stalled when it does not respond for this long; 0 turns the reports off */
+  edtStallThresholdMs(500),
   enableCurrentSelectionOccurrenceHighlighting(true),
   // Semi-transparent light green
   currentSelectionOccurrenceHighlightColor((new Color(153, 255, 153, 128)).getRGB());
@@ -0,0 +1,269 @@
+package edu.umich.soar.visualsoar.operatorwindow;
+
+import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.profiling.FindInProjectEvent;
+
+import javax.swing.tree.TreeNode;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A flat list of the source files in an operator subtree, in breadth-first order. Parts of the
+ * hierarchy whose nodes have not been built yet (see {@link OperatorNode#deferChildren}) are read
+ * straight from the project layout, so whole-project operations that only need to read files do
+ * not force the full tree into memory. The index is a snapshot; build a new one after the
+ * hierarchy changes.
+ */
+public class FileIndex implements Iterable<FileIndex.Entry> {
+
+  /** A source file of the project. */
+  public static final class Entry {
+    private final String name;
+    private final String path;
+    // the nearest ancestor that had been built when the index was made, and the layout ids leading
+    // from its children down to this entry; used to build the node on demand
+    private final OperatorNode builtAncestor;
+    private final List<String> layoutPath;
+    private OperatorNode node;
+
+    private Entry(OperatorNode node) {
+      this.name = node.getName();
+      this.path = node.getFileName();
+      this.node = node;
+      this.builtAncestor = null;
+      this.layoutPath = Collections.emptyList();
+    }
+
+    private Entry(String name, String path, OperatorNode builtAncestor, List<String> layoutPath) {
+      this.name = name;
+      this.path = path;
+      this.builtAncestor = builtAncestor;
+      this.layoutPath = layoutPath;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** @return the absolute path of the source file */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the operator node for this file, building the nodes on the way to it if needed, or
+     *     null if the node has since been removed from the hierarchy
+     */
+    public synchronized OperatorNode getNode() {
+      if (node == null) {
+        OperatorNode current = builtAncestor;
+        for (String id : layoutPath) {
+          current = childWithSerializationId(current, id);
+          if (current == null) {
+            return null;
+          }
+        }
+        node = current;
+      }
+      return node;
+    }
+
+    private static OperatorNode childWithSerializationId(OperatorNode parent, String id) {
+      Enumeration<TreeNode> children = parent.children();
+      while (children.hasMoreElements()) {
+        OperatorNode child = (OperatorNode) children.nextElement();
+        if (child.getSerializationId().equals(id)) {
+          return child;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final List<Entry> entries;
+  // path lookups, built on first use
+  private Map<Path, Entry> byNormalizedPath;
+  private Map<Path, Entry> byRealPath;
+
+  private FileIndex(List<Entry> entries) {
+    this.entries = entries;
+  }
+
+  /** Indexes the files of the given node and all of its descendants. */
+  public static FileIndex of(OperatorNode subtreeRoot) {
+    List<Entry> entries = new ArrayList<>();
+    Deque<Object> queue = new ArrayDeque<>();
+    queue.add(subtreeRoot);
+    while (!queue.isEmpty()) {
+      Object next = queue.poll();
+      if (next instanceof OperatorNode) {
+        OperatorNode node = (OperatorNode) next;
+        if (node.getFileName() != null) {
+          entries.add(new Entry(node));
+        }
+        OperatorNode.ChildLoader loader = node.getChildLoader();
+        if (loader != null) {
+          String folder = node.getFullPathName();
+          for (LayoutNode child : loader.getLayout()) {
+            queue.add(new Pending(child, folder, node, Collections.singletonList(child.id)));
+          }
+        } else {
+          Enumeration<TreeNode> children = node.children();
+          while (children.hasMoreElements()) {
+            queue.add(children.nextElement());
+          }
+        }
+      } else {
+        Pending pending = (Pending) next;
+        String file = LayoutNode.fileOf(pending.layout);
+        if (file != null) {
+          entries.add(
+              new Entry(
+                  LayoutNode.nameOf(pending.layout),
+                  pending.folder + File.separator + file,
+                  pending.builtAncestor,
+                  pending.layoutPath));
+        }
+        String folder = LayoutNode.folderOf(pending.layout);
+        String childFolder =
+            folder == null ? pending.folder : pending.folder + File.separator + folder;
+        for (LayoutNode child : pending.layout.children) {
+          List<String> childPath = new ArrayList<>(pending.layoutPath.size() + 1);
+          childPath.addAll(pending.layoutPath);
+          childPath.add(child.id);
+          queue.add(new Pending(child, childFolder, pending.builtAncestor, childPath));
+        }
+      }
+    }
+    return new FileIndex(entries);
+  }
+
+  /**
+   * Finds the entry for the file at the given path. Paths are first compared after making them
+   * absolute and normalizing them, which needs no file system access. Only if that finds nothing
+   * (e.g., because of symbolic links) are canonical paths compared, and those are resolved once
+   * for the whole index.
+   *
+   * @return the matching entry, or null if the file is not part of this index
+   */
+  public synchronized Entry findByPath(Path path) {
+    if (byNormalizedPath == null) {
+      byNormalizedPath = new HashMap<>();
+      for (Entry entry : entries) {
+        byNormalizedPath.putIfAbsent(normalize(Paths.get(entry.path)), entry);
+      }
+    }
+    Entry entry = byNormalizedPath.get(normalize(path));
+    if (entry != null) {
+      return entry;
+    }
+
+    if (byRealPath == null) {
+      byRealPath = new HashMap<>();
+      for (Entry e : entries) {
+        try {
+          byRealPath.putIfAbsent(Paths.get(e.path).toRealPath(), e);
+        } catch (IOException ignored) {
+          // missing files can't be matched by canonical path
+        }
+      }
+    }
+    try {
+      return byRealPath.get(path.toRealPath());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Searches the indexed files line by line for a string. Only the files with a match have their
+   * operator nodes built.
+   *
+   * @return an entry for each line that contains the string, in index order; files that can't be
+   *     read are reported on standard error and skipped
+   */
+  public List<FeedbackListEntry> find(String stringToFind, boolean matchCase) {
+    FindInProjectEvent event = new FindInProjectEvent();
+    event.begin();
+    if (event.isEnabled()) {
+      event.text = stringToFind;
+      event.matchCase = matchCase;
+    }
+    if (!matchCase) {
+      stringToFind = stringToFind.toLowerCase();
+    }
+    List<FeedbackListEntry> found = new ArrayList<>();
+    for (Entry entry : entries) {
+      String fn = entry.getPath();
+      try (LineNumberReader lnr = new LineNumberReader(new FileReader(fn))) {
+        for (String line = lnr.readLine(); line != null; line = lnr.readLine()) {
+          if (!matchCase) {
+            line = line.toLowerCase();
+          }
+          if (line.contains(stringToFind)) {
+            found.add(
+                new FeedbackEntryOpNode(entry.getNode(), lnr.getLineNumber(), line, stringToFind));
+          }
+        }
+      } catch (FileNotFoundException fnfe) {
+        System.err.println("Couldn't find: " + fn);
+      } catch (IOException ioe) {
+        System.err.println("Error reading from file " + fn);
+      }
+    }
+    if (event.shouldCommit()) {
+      event.files = entries.size();
+      event.matches = found.size();
+      event.commit();
+    }
+    return found;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public List<Entry> getEntries() {
+    return Collections.unmodifiableList(entries);
+  }
+
+  @Override
+  public Iterator<Entry> iterator() {
+    return getEntries().iterator();
+  }
+
+  /** A layout node that has no operator node yet, along with the folder its files live in. */
+  private static final class Pending {
+    final LayoutNode layout;
+    final String folder;
+    final OperatorNode builtAncestor;
+    final List<String> layoutPath;
+
+    Pending(LayoutNode layout, String folder, OperatorNode builtAncestor, List<String> layoutPath) {
+      this.layout = layout;
+      this.folder = folder;
+      this.builtAncestor = builtAncestor;
+      this.layoutPath = layoutPath;
+    }
+  }
+}
@@ -5,6 +5,9 @@ import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.parser.*;
+import edu.umich.soar.visualsoar.profiling.FileParseEvent;
+import edu.umich.soar.visualsoar.ruleeditor.DeferredRuleEditor;
+import edu.umich.soar.visualsoar.ruleeditor.ProductionIndex;
 import edu.umich.soar.visualsoar.ruleeditor.RuleEditor;
 
 import javax.swing.*;
@@ -14,9 +17,10 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This is the  file node for the operator window
@@ -40,6 +44,11 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
      */
     protected RuleEditor ruleEditor = null;
 
+    /**
+     * a placeholder for the rule editor that has not been shown yet, null if there isn't one
+     */
+    private DeferredRuleEditor deferredEditor = null;
+
     ///////////////////////////////////////////////////////////////////
 // Constructors
 ///////////////////////////////////////////////////////////////////
@@ -107,6 +116,17 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
     public void rename(OperatorWindow operatorWindow,
                        String newName) throws IOException {
         DefaultTreeModel model = (DefaultTreeModel) operatorWindow.getModel();
+        renameFile(newName);
+        model.nodeChanged(this);
+    }
+
+    /**
+     * Renames this node's file and tells its editor, without updating the tree
+     *
+     * @param newName the new name of the node, without the .soar extension
+     * @throws IOException if the file can't be renamed
+     */
+    void renameFile(String newName) throws IOException {
         File oldFile = new File(getFileName());
         File newFile = new File(oldFile.getParent() + File.separator + newName + ".soar");
 
@@ -119,11 +139,23 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
         } else {
             name = newName;
             fileAssociation = newFile.getName();
-            if (ruleEditor != null) {
-                ruleEditor.fileRenamed(newFile.getPath());
-            }
+            editorsFileRenamed(newFile.getPath());
+        }
+    }
+
+    /**
+     * Updates the open editor, or the placeholder for one, after this node's
+     * file has been renamed or moved
+     *
+     * @param newFileName the new path of the file
+     */
+    protected void editorsFileRenamed(String newFileName) {
+        if (ruleEditor != null) {
+            ruleEditor.fileRenamed(newFileName);
+        }
+        if (deferredEditor != null) {
+            deferredEditor.fileRenamed();
         }
-        model.nodeChanged(this);
     }
 
     /**
@@ -240,6 +272,9 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
     public Vector<SoarProduction> parseProductions() throws ParseException, java.io.IOException {
         if (getName().startsWith("_")) return null;
 
+        FileParseEvent event = new FileParseEvent();
+        event.begin();
+        Vector<SoarProduction> prods;
         if (ruleEditor == null) {
             //This version is for files that are closed (:AMN: Sep 2022)
             SuppParseChecks.fixUnmatchedBraces(getFileName());
@@ -247,16 +282,24 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
             java.io.Reader r = new java.io.FileReader(getFileName());
             SoarParser aParser = new SoarParser(r);
 
-            Vector<SoarProduction> prods = aParser.VisualSoarFile();
+            prods = aParser.VisualSoarFile();
             r.close();
-
-            return prods;
         }
+        else {
+            //This version is for files that are open (:AMN: Sep 2022)
+            ruleEditor.fixUnmatchedBraces();
 
-        //This version is for files that are open (:AMN: Sep 2022)
-        ruleEditor.fixUnmatchedBraces();
+            prods = ruleEditor.parseProductions();
+        }
 
-        return ruleEditor.parseProductions();
+        if (event.shouldCommit()) {
+            event.file = getFileName();
+            event.size = new File(getFileName()).length();
+            event.open = ruleEditor != null;
+            event.productions = prods.size();
+            event.commit();
+        }
+        return prods;
     }
 
     /**
@@ -316,84 +359,21 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
     }//getText
 
     /**
-     * retrieves a list of the names of all productions in this file.
-     * Each production name in the list is appended with the line number
-     * in parens after it.
-     *
-     * @author Andrew Nuxoll (29 Sep 2022)
+     * @return where the productions in this file are.  If the file is open,
+     * they come from its editor's index; otherwise the file is scanned.
      */
     @Override
-    public Vector<String> getProdNames() {
+    public List<ProductionIndex.Production> getProductions() {
         //These files won't have productions
-        Vector<String> result = new Vector<>();
-        if (getFileName().startsWith("_")) return result;
+        if (getFileName().startsWith("_")) return Collections.emptyList();
 
-        //Get the text of the file
-        String text = getText();
-
-        //find the start position of each production
-        Pattern prodPattern = Pattern.compile("[\n\r][\t ]*[sg]p[ \t\n\r]*\\{");
-        Matcher prodMatch = prodPattern.matcher(text);
-        while (prodMatch.find()) {
-            int start = prodMatch.end();
-            //search for the first letter of the production name
-            char ch = text.charAt(start);
-            while (Character.isWhitespace(ch)) {
-                start++;
-                ch = text.charAt(start);
-            }
-
-            //search for first char after the production name
-            int end = start + 1;
-            ch = text.charAt(end);
-            while ((!Character.isWhitespace(ch)) && (ch != '#') && (ch != ';')) {
-                end++;
-                ch = text.charAt(end);
-            }
-
-            //Note:  the code above will miss the production name if you do
-            // something unconventional like this.
-            //        sp {   #some comment
-            //               production*name*here
-            // I didn't think this was worth checking for.  -:AMN: 29 Sep 2022
-
-            String prodName = text.substring(start, end).trim();
-            if (!prodName.isEmpty()) {
-                result.add(prodName);
-            }
-        }//while
-
-        return result;
-    }//getProdNames
-
-    /**
-     * getLineNumForString
-     * <p>
-     * determines the line number of the first line of the file that contains
-     * a given string
-     *
-     * @return -1 if not found
-     */
-    @Override
-    public int getLineNumForString(String target) {
-        //Find the string
-        String fileContent = getText();
-        int index = fileContent.indexOf(target);
-
-        //Count the lines up to that point
-        int pos = fileContent.indexOf('\n');
-        int lines = 1;
-        while (pos < index) {
-            pos++;
-            if (pos >= fileContent.length()) break;  //shouldn't happen...
-            pos = fileContent.indexOf('\n', pos);
-            if (pos < 0) break; //also shouldn't happen
-            lines++;
+        if (ruleEditor != null) {
+            return ruleEditor.getProductions();
         }
-
-        return lines;
-
-    }//getLineNumForString
+        String text = getText();
+        if (text == null) return Collections.emptyList();
+        return ProductionIndex.scan(text);
+    }//getProductions
 
     /**
      * This opens/shows a rule editor with this node's associated file
@@ -402,6 +382,11 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
      */
     @Override
     public RuleEditor openRules(MainFrame pw) {
+        //A placeholder that hasn't been shown yet turns into the real editor now
+        if ( (deferredEditor != null) && (! deferredEditor.isClosed()) ) {
+            deferredEditor.load();
+        }
+
         //If the rules are already open just bring it to the front
         if ( (ruleEditor != null) && (! ruleEditor.isClosed()) ) {
             pw.showRuleEditor(ruleEditor);
@@ -409,18 +394,11 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
         }
 
         //Read the file contents
-        try {
-            ruleEditor = new RuleEditor(new java.io.File(getFileName()),
-                    this);
-        } catch (IOException ioe) {
-            JOptionPane.showMessageDialog(pw,
-                    "There was an error reading file: " + fileAssociation,
-                    "I/O Error",
-                    JOptionPane.ERROR_MESSAGE);
+        if (createRuleEditor(pw) == null) {
+            return null;
         }
 
         //Create the window and show it to the user
-        ruleEditor.setReadOnly(MainFrame.getMainFrame().isReadOnly());
         ruleEditor.setVisible(true);
         pw.addRuleEditor(ruleEditor);
         try {
@@ -433,6 +411,55 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
 
     }//openRules
 
+    /**
+     * Opens a placeholder for this node's rule editor.  The file is only read,
+     * and the real editor created, when the placeholder is first activated.
+     *
+     * @param pw the MainFrame
+     * @see DeferredRuleEditor
+     */
+    @Override
+    public void openRulesDeferred(MainFrame pw) {
+        boolean alreadyOpen = ( (ruleEditor != null) && (! ruleEditor.isClosed()) )
+                || ( (deferredEditor != null) && (! deferredEditor.isClosed()) );
+        if (alreadyOpen) {
+            return;
+        }
+
+        pw.addRuleEditor(createDeferredEditor());
+    }
+
+    /**
+     * Creates the placeholder that {@link #openRulesDeferred} adds to the desktop
+     */
+    DeferredRuleEditor createDeferredEditor() {
+        deferredEditor = new DeferredRuleEditor(this);
+        deferredEditor.setVisible(true);
+        return deferredEditor;
+    }
+
+    /**
+     * Reads this node's file into a new rule editor.  The caller is
+     * responsible for adding the editor to the desktop.
+     *
+     * @param pw the MainFrame
+     * @return the new editor, or null if the file could not be read
+     */
+    public RuleEditor createRuleEditor(MainFrame pw) {
+        try {
+            ruleEditor = new RuleEditor(new java.io.File(getFileName()),
+                    this);
+        } catch (IOException ioe) {
+            JOptionPane.showMessageDialog(pw,
+                    "There was an error reading file: " + fileAssociation,
+                    "I/O Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return null;
+        }
+        ruleEditor.setReadOnly(MainFrame.getMainFrame().isReadOnly());
+        return ruleEditor;
+    }
+
     /**
      * This opens/shows a rule editor with this node's associated file
      * and places the caret on the given line number
@@ -487,16 +514,22 @@ public class FileNode extends OperatorNode implements java.io.Serializable {
     }
 
     @Override
-    public void sourceChildren() throws IOException {
-    }
-
-    @Override
-    public void sourceRecursive() throws IOException {
+    public void collectSourceFiles(Map<String, String> files, boolean recursive) {
     }
 
     /** close the open editor window associated with this node (if there is one) */
     @Override
     public void closeEditors() {
+        //A placeholder has nothing to save
+        if ( (deferredEditor != null) && (! deferredEditor.isClosed()) ) {
+            try {
+                deferredEditor.setClosed(true);
+            } catch (PropertyVetoException e) {
+                deferredEditor.dispose();
+            }
+        }
+        deferredEditor = null;
+
         //Make sure there is a window to close
         if (ruleEditor == null) return;
         if (ruleEditor.isClosed()) return;
@@ -51,6 +51,18 @@ public class FileOperatorNode extends SoarOperatorNode {
         isHighLevel = true;
     }
 
+  /**
+   * this creates a high level operator with the given name, file, folder and
+   * dataMapId
+   */
+  public FileOperatorNode(String inName, int inId, String serializationId, String inFileName, String inFolderName, SoarIdentifierVertex inDataMapId) {
+    this(inName, inId, serializationId, inFileName);
+    folderName = inFolderName;
+    dataMapId = inDataMapId;
+    dataMapIdNumber = inDataMapId.getValue();
+    isHighLevel = true;
+  }
+
     /**
      * This will construct a high-level operator node, this one supports serialization,
      * restoreId must be called to get this object into a good state
@@ -6,6 +6,7 @@ import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 
 import javax.swing.*;
 import java.io.*;
+import java.util.Map;
 import java.util.Vector;
 
 /**
@@ -193,10 +194,7 @@ public class FolderNode extends OperatorNode implements java.io.Serializable {
     public void notifyDeletionOfChild(OperatorWindow operatorWindow,
                                       OperatorNode child) {
 
-        try {
-
-            sourceChildren();
-        } catch (IOException ioe) { /* shrug */ }
+        sourceChildren();
     }
 
     @Override
@@ -302,26 +300,16 @@ public class FolderNode extends OperatorNode implements java.io.Serializable {
                 "popd" + LINE);
     }
 
-    public void sourceChildren() throws IOException {
+    public void collectSourceFiles(Map<String, String> files, boolean recursive) {
         String filename = getFullPathName() + File.separator + folderName + "_source.soar";
-        Writer w = new FileWriter(filename);
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; ++i) {
-
-            OperatorNode child = (OperatorNode) getChildAt(i);
-            child.source(w);
-        }
-        w.close();
-    }
-
-    public void sourceRecursive() throws IOException {
-
-        sourceChildren();
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; ++i) {
-
-            OperatorNode child = (OperatorNode) getChildAt(i);
-            child.sourceRecursive();
+        files.put(filename, sourceFileContent());
+        if (recursive) {
+            int childCount = getChildCount();
+            for (int i = 0; i < childCount; ++i) {
+
+                OperatorNode child = (OperatorNode) getChildAt(i);
+                child.collectSourceFiles(files, true);
+            }
         }
     }
 
@@ -4,6 +4,8 @@ import edu.umich.soar.visualsoar.ProjectModel;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
 import edu.umich.soar.visualsoar.dialogs.FileAlreadyExistsDialog;
+import edu.umich.soar.visualsoar.files.GeneratedFiles;
+import edu.umich.soar.visualsoar.files.projectjson.LayoutNode;
 import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
@@ -11,18 +13,25 @@ import edu.umich.soar.visualsoar.misc.Prefs;
 import edu.umich.soar.visualsoar.parser.ParseException;
 import edu.umich.soar.visualsoar.parser.SoarProduction;
 import edu.umich.soar.visualsoar.parser.TokenMgrError;
+import edu.umich.soar.visualsoar.ruleeditor.ProductionIndex;
 import edu.umich.soar.visualsoar.ruleeditor.RuleEditor;
 import edu.umich.soar.visualsoar.util.IdGenerator;
 
 import javax.swing.*;
+import javax.swing.tree.MutableTreeNode;
 import javax.swing.tree.TreeNode;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.*;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 import static edu.umich.soar.visualsoar.components.FontUtils.setContainerFontSize;
 
@@ -82,6 +91,26 @@ public abstract class OperatorNode extends VSTreeNode implements java.io.Seriali
     protected final int id;
     // Used for uniquely identifying this node in a project file
     private final String serializationId;
+    // Non-null while this node's children have not been built yet
+    private transient volatile ChildLoader childLoader;
+
+    /**
+     * Builds the children of a node on first access. Large projects defer the children of
+     * folders and high-level operators so that only the parts of the hierarchy that are actually
+     * used get turned into tree nodes.
+     */
+    public interface ChildLoader {
+        /**
+         * @return the project layout of the children that have not been built yet
+         */
+        List<LayoutNode> getLayout();
+
+        /**
+         * Builds the children and attaches them to the given parent without firing any tree
+         * model events.
+         */
+        void load(OperatorNode parent);
+    }
 
 ///////////////////////////////////////////////////////////////////
 // Constructors
@@ -225,12 +254,11 @@ public abstract class OperatorNode extends VSTreeNode implements java.io.Seriali
         return false;           // no datamap errors found
     }
 
-    public Vector<String> getProdNames() {
-        return new Vector<>();
-    }
-
-    public int getLineNumForString(String target) {
-        return 0;
+    /**
+     * overloaded by subclasses that have a file of productions
+     */
+    public List<ProductionIndex.Production> getProductions() {
+        return Collections.emptyList();
     }
 
     /**
@@ -725,6 +753,16 @@ public abstract class OperatorNode extends VSTreeNode implements java.io.Seriali
         return null;
     }
 
+    /**
+     * Like {@link #openRules(MainFrame)}, but nodes that support it put a placeholder on the
+     * desktop and only read the file once the placeholder is first shown.
+     *
+     * @param pw the MainFrame
+     */
+    public void openRulesDeferred(MainFrame pw) {
+        openRules(pw);
+    }
+
 
     /**
      * Overloaded operation
@@ -779,6 +817,77 @@ public abstract class OperatorNode extends VSTreeNode implements java.io.Seriali
       return this.name;
   }
 
+    /**
+     * Defers building this node's children until one of the child accessors is first called.
+     */
+    public void deferChildren(ChildLoader loader) {
+        childLoader = loader;
+    }
+
+    /**
+     * @return the loader for this node's children if they have not been built yet, else null
+     */
+    public ChildLoader getChildLoader() {
+        return childLoader;
+    }
+
+    private void ensureChildrenLoaded() {
+        if (childLoader == null) {
+            return;
+        }
+        synchronized (this) {
+            ChildLoader loader = childLoader;
+            if (loader != null) {
+                childLoader = null;
+                loader.load(this);
+            }
+        }
+    }
+
+    @Override
+    public int getChildCount() {
+        ensureChildrenLoaded();
+        return super.getChildCount();
+    }
+
+    @Override
+    public TreeNode getChildAt(int index) {
+        ensureChildrenLoaded();
+        return super.getChildAt(index);
+    }
+
+    @Override
+    public int getIndex(TreeNode aChild) {
+        ensureChildrenLoaded();
+        return super.getIndex(aChild);
+    }
+
+    @Override
+    public Enumeration<TreeNode> children() {
+        ensureChildrenLoaded();
+        return super.children();
+    }
+
+    @Override
+    public void insert(MutableTreeNode newChild, int childIndex) {
+        ensureChildrenLoaded();
+        super.insert(newChild, childIndex);
+    }
+
+    @Override
+    public void remove(int childIndex) {
+        ensureChildrenLoaded();
+        super.remove(childIndex);
+    }
+
+    /**
+     * Answers without building deferred children, so that the tree can draw a collapsed node.
+     */
+    @Override
+    public boolean isLeaf() {
+        return childLoader == null && super.isLeaf();
+    }
+
   protected abstract String getFullPathName();
 
     /**
@@ -893,9 +1002,80 @@ public abstract class OperatorNode extends VSTreeNode implements java.io.Seriali
 
     public abstract void source(Writer w) throws IOException;
 
-    public abstract void sourceChildren() throws IOException;
+    /**
+     * Adds the {@code _source} file that this node generates for its children, if any, to the
+     * given map of file path to content.
+     *
+     * @param recursive whether to include the {@code _source} files of all descendants too
+     */
+    public abstract void collectSourceFiles(Map<String, String> files, boolean recursive);
 
-    public abstract void sourceRecursive() throws IOException;
+    /**
+     * Regenerates this node's {@code _source} file, if it has one and its content has changed.
+     * The file is written in the background; see {@link #writeSourceFiles}.
+     *
+     * @return the number of files written, once they have been
+     */
+    public CompletableFuture<Integer> sourceChildren() {
+        Map<String, String> files = new LinkedHashMap<>();
+        collectSourceFiles(files, false);
+        return writeSourceFiles(files);
+    }
+
+    /**
+     * Regenerates the {@code _source} files of this node and all of its descendants, skipping
+     * the ones whose content has not changed. The files are written in the background; see
+     * {@link #writeSourceFiles}.
+     *
+     * @return the number of files written, once they have been
+     */
+    public CompletableFuture<Integer> sourceRecursive() {
+        Map<String, String> files = new LinkedHashMap<>();
+        collectSourceFiles(files, true);
+        return writeSourceFiles(files);
+    }
+
+    /**
+     * Queues generated {@code _source} files to be written on the background thread that writes
+     * all generated files, so that editing the hierarchy on the event dispatch thread never waits
+     * for the disk. If the files cannot be written, the user is told once the write has failed.
+     *
+     * @param files content keyed by file path
+     * @return the number of files written, once they have been
+     */
+    protected static CompletableFuture<Integer> writeSourceFiles(Map<String, String> files) {
+        CompletableFuture<Integer> written = GeneratedFiles.writeChangedLater(files);
+        written.whenComplete(
+                (count, error) -> {
+                    if (error != null) {
+                        SwingUtilities.invokeLater(
+                                () -> JOptionPane.showMessageDialog(
+                                        MainFrame.getMainFrame(),
+                                        "The '_source' files could not be updated:\n"
+                                                + GeneratedFiles.rootCause(error).getMessage()
+                                                + "\nI recommend you try to save your project manually.",
+                                        "I/O Error",
+                                        JOptionPane.ERROR_MESSAGE));
+                    }
+                });
+        return written;
+    }
+
+    /**
+     * @return the content of a {@code _source} file that sources each of this node's children
+     */
+    protected String sourceFileContent() {
+        StringWriter w = new StringWriter();
+        try {
+            for (int i = 0; i < getChildCount(); ++i) {
+                ((OperatorNode) getChildAt(i)).source(w);
+            }
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return w.toString();
+    }
 
     /** close any open editor windows associated with this node */
     public abstract void closeEditors();
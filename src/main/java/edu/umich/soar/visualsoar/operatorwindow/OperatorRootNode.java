@@ -11,7 +11,10 @@ import org.jetbrains.annotations.NotNull;
 import javax.swing.*;
 import javax.swing.tree.DefaultTreeModel;
 import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This is the root node for the operator window
@@ -48,6 +51,14 @@ public class OperatorRootNode extends FolderNode implements java.io.Serializable
         return node;
     }
 
+  /** @see #rootNodeForNewProject(String, int, String, String) */
+  public static OperatorRootNode rootNodeForNewProject(
+      String inName, int inId, String serializationId, String inFullPathStart, String inFolder) {
+    OperatorRootNode node = new OperatorRootNode(inName, serializationId, inId, inFolder);
+    node.fullPathStart = inFullPathStart;
+    return node;
+  }
+
     public OperatorRootNode(String inName, int inId, String inFolder) {
         super(inName, inId, inFolder);
     }
@@ -254,12 +265,35 @@ public class OperatorRootNode extends FolderNode implements java.io.Serializable
         }
     }//renameAndBackup
 
-    public void startSourcing() throws IOException {
-        String filename = fullPathStart + File.separator + folderName + ".soar";
-        Writer w = new FileWriter(filename);
-        source(w);
-        w.close();
-        sourceRecursive();
+    /**
+     * Regenerates the agent's top-level .soar file and all of its {@code _source} files, skipping
+     * the ones whose content has not changed. The files are written in the background; see
+     * {@link #writeSourceFiles}.
+     *
+     * @return the number of files written, once they have been
+     */
+    public CompletableFuture<Integer> startSourcing() {
+        return writeSourceFiles(collectAgentSourceFiles());
+    }
+
+    /**
+     * Generates the content of the agent's top-level .soar file and all of its {@code _source}
+     * files without writing anything, so that the files can be written off the event dispatch
+     * thread.
+     *
+     * @return file content keyed by file path
+     */
+    public Map<String, String> collectAgentSourceFiles() {
+        Map<String, String> files = new LinkedHashMap<>();
+        StringWriter w = new StringWriter();
+        try {
+            source(w);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        files.put(fullPathStart + File.separator + folderName + ".soar", w.toString());
+        collectSourceFiles(files, true);
+        return files;
     }
 
     @Override
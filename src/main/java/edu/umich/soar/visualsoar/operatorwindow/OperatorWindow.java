@@ -1,6 +1,7 @@
 package edu.umich.soar.visualsoar.operatorwindow;
 
 
+import edu.umich.soar.visualsoar.OpenMonitor;
 import edu.umich.soar.visualsoar.ProjectModel;
 import edu.umich.soar.visualsoar.dialogs.DialogUtils;
 import edu.umich.soar.visualsoar.dialogs.find.FindUtils;
@@ -8,6 +9,9 @@ import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
 import edu.umich.soar.visualsoar.dialogs.find.FindInProjectDialog;
 import edu.umich.soar.visualsoar.dialogs.NameDialog;
+import edu.umich.soar.visualsoar.files.Autosave;
+import edu.umich.soar.visualsoar.files.projectjson.Json;
+import edu.umich.soar.visualsoar.files.projectjson.Project;
 import edu.umich.soar.visualsoar.dialogs.find.ReplaceInProjectDialog;
 import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
@@ -21,6 +25,8 @@ import edu.umich.soar.visualsoar.parser.TokenMgrError;
 import edu.umich.soar.visualsoar.ruleeditor.RuleEditor;
 
 import javax.swing.*;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.tree.*;
 import java.awt.*;
@@ -29,7 +35,9 @@ import java.awt.dnd.*;
 import java.awt.event.*;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -58,11 +66,11 @@ public class OperatorWindow extends JTree {
 
   private static final int ROW_TEXT_MARGIN = 7;
 
+  private final ProjectBackupSource backupSource = new ProjectBackupSource();
+
   /**
    * Private usage only. Default constructor to do common things such as setting up the mouse and
-   * keyboard listeners and backup threads
-   *
-   * @see BackupThread
+   * keyboard listeners
    */
   private OperatorWindow() {
 
@@ -116,10 +124,6 @@ public class OperatorWindow extends JTree {
         KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0),
         WHEN_ANCESTOR_OF_FOCUSED_COMPONENT);
 
-    // Auto-backup
-    if (MainFrame.getMainFrame() != null && !MainFrame.getMainFrame().isReadOnly()) {
-      new BackupThread().start();
-    }
     setFontSize(Prefs.editorFontSize.getInt());
     Prefs.editorFontSize.addChangeListener(
         newValue -> setFontSize((int) newValue));
@@ -150,6 +154,9 @@ public class OperatorWindow extends JTree {
         if (is_new) {
             projectModel = ProjectModel.newProject(projectName, projectPath);
             setModel(projectModel.operatorHierarchy);
+            if (MainFrame.getMainFrame() != null) {
+                backupSource.start();
+            }
         }
     }
 
@@ -161,16 +168,44 @@ public class OperatorWindow extends JTree {
      * @see ProjectModel#openExistingProject(Path)
      */
     public OperatorWindow(File in_file, boolean readOnly) throws NumberFormatException, IOException {
+        this(loadProject(in_file, readOnly, OpenMonitor.NONE), in_file, readOnly);
+    }
+
+    /**
+     * Creates an OperatorWindow for a project that has already been loaded, e.g. in the
+     * background by {@link #loadProject}
+     *
+     * @param projectModel the loaded project
+     * @param in_file the location of the project
+     * @param readOnly is this project being opened in read-only mode?
+     */
+    public OperatorWindow(ProjectModel projectModel, File in_file, boolean readOnly) {
         this();
         FeedbackManager feedbackManager = MainFrame.getMainFrame().getFeedbackManager();
         feedbackManager.clearFeedback();
         s_OperatorWindow = this;
-        projectModel = ProjectModel.openExistingProject(in_file.toPath());
+        this.projectModel = projectModel;
         feedbackManager.setStatusBarMsg("Opened " + in_file.getName());
         setModel(projectModel.operatorHierarchy);
+        if (!readOnly) {
+            backupSource.start();
+        }
         Prefs.addRecentProject(in_file, readOnly);
     }
 
+    /**
+     * Loads the project an OperatorWindow will show.  This does not touch the UI, so it may be
+     * called from any thread.
+     *
+     * @see ProjectModel#openExistingProject(Path, boolean, OpenMonitor)
+     */
+    public static ProjectModel loadProject(
+        File in_file, boolean readOnly, OpenMonitor monitor) throws IOException {
+        // never leave new files behind in a project that was opened read-only
+        return ProjectModel.openExistingProject(
+            in_file.toPath(), Prefs.projectSnapshotEnabled.getBoolean() && !readOnly, monitor);
+    }
+
     public static OperatorWindow getOperatorWindow() {
         return s_OperatorWindow;
     }
@@ -794,7 +829,7 @@ public class OperatorWindow extends JTree {
   /**
    * Save entire Operator Hierarchy (including datamap)
    *
-   * @see #writeOutHierarchy
+   * @see ProjectModel#writeProject(File, boolean)
    */
   public void saveHierarchy() throws IOException {
     OperatorRootNode orn = (OperatorRootNode) (getModel().getRoot());
@@ -820,7 +855,7 @@ public class OperatorWindow extends JTree {
       return;
     }
 
-    writeOutHierarchy(projectFileName);
+    projectModel.writeProject(projectFileName, Prefs.projectSnapshotEnabled.getBoolean());
     if (formatChanged) {
 
       String oldName = projectFileName.getName().replaceAll("\\.vsa\\.json", "");
@@ -904,41 +939,8 @@ public class OperatorWindow extends JTree {
     public void findInProject(OperatorNode opNode,
                               String stringToFind,
                               boolean matchCase) {
-        Enumeration<TreeNode> bfe = opNode.breadthFirstEnumeration();
-        Vector<FeedbackListEntry> vecErrs = new Vector<>();
-
-        if (!matchCase) {
-            stringToFind = stringToFind.toLowerCase();
-        }
-
-        while (bfe.hasMoreElements()) {
-            OperatorNode current = (OperatorNode) bfe.nextElement();
-            String fn = current.getFileName();
-
-            if (fn != null) {
-                try {
-                    LineNumberReader lnr = new LineNumberReader(new FileReader(fn));
-                    String line = lnr.readLine();
-                    while (line != null) {
-                        if (!matchCase) {
-                            line = line.toLowerCase();
-                        }
-                        if (line.contains(stringToFind)) {
-                            vecErrs.add(new FeedbackEntryOpNode(current,
-                                        lnr.getLineNumber(),
-                                        line,
-                                        stringToFind));
-                        }
-                        line = lnr.readLine();
-                    }
-                    lnr.close();
-                } catch (FileNotFoundException fnfe) {
-                    System.err.println("Couldn't find: " + fn);
-                } catch (IOException ioe) {
-                    System.err.println("Error reading from file " + fn);
-                }
-            }
-        }
+        Vector<FeedbackListEntry> vecErrs =
+                new Vector<>(FileIndex.of(opNode).find(stringToFind, matchCase));
 
         if (vecErrs.isEmpty()) {
             vecErrs.add(new FeedbackListEntry(stringToFind + " not found in project"));
@@ -955,41 +957,37 @@ public class OperatorWindow extends JTree {
      * @author ThreePenny
      */
     public void findInProjectAndOpenRule(String stringToFind, boolean matchCase) {
-        TreeModel model = getModel();
-        VSTreeNode root = (VSTreeNode) model.getRoot();
-        Enumeration<TreeNode> bfe = root.breadthFirstEnumeration();
-
         if (!matchCase) {
             stringToFind = stringToFind.toLowerCase();
         }
 
-        while (bfe.hasMoreElements()) {
-            OperatorNode current = (OperatorNode) bfe.nextElement();
-            String fn = current.getFileName();
-
-            if (fn != null) {
-                try {
-                    LineNumberReader lnr = new LineNumberReader(new FileReader(fn));
-                    String line = lnr.readLine();
-                    while (line != null) {
-                        if (!matchCase) {
-                            line = line.toLowerCase();
-                        }
-                        if (line.contains(stringToFind)) {
-                            // Open the rule
+        for (FileIndex.Entry entry : projectModel.fileIndex()) {
+            String fn = entry.getPath();
+            try {
+                LineNumberReader lnr = new LineNumberReader(new FileReader(fn));
+                String line = lnr.readLine();
+                while (line != null) {
+                    if (!matchCase) {
+                        line = line.toLowerCase();
+                    }
+                    if (line.contains(stringToFind)) {
+                        // Open the rule
+                        lnr.close();
+                        OperatorNode current = entry.getNode();
+                        if (current != null) {
                             current.openRules(MainFrame.getMainFrame(), lnr.getLineNumber());
-
-                            // All done!
-                            return;
                         }
-                        line = lnr.readLine();
+
+                        // All done!
+                        return;
                     }
-                    lnr.close();
-                } catch (FileNotFoundException fnfe) {
-                    System.err.println("Couldn't find: " + fn);
-                } catch (IOException ioe) {
-                    System.err.println("Error reading from file " + fn);
+                    line = lnr.readLine();
                 }
+                lnr.close();
+            } catch (FileNotFoundException fnfe) {
+                System.err.println("Couldn't find: " + fn);
+            } catch (IOException ioe) {
+                System.err.println("Error reading from file " + fn);
             }
         }
     }
@@ -999,20 +997,13 @@ public class OperatorWindow extends JTree {
      * @author ThreePenny
      */
     public void sendProductions(Writer w) throws IOException {
-        TreeModel model = getModel();
-        VSTreeNode root = (VSTreeNode) model.getRoot();
-        Enumeration<TreeNode> bfe = root.breadthFirstEnumeration();
-        while (bfe.hasMoreElements()) {
-            OperatorNode current = (OperatorNode) bfe.nextElement();
-            String fn = current.getFileName();
-            if (fn != null) {
-                Reader r = new BufferedReader(new FileReader(fn));
-                for (int ch = r.read(); ch != -1; ch = r.read()) {
-                    w.write(ch);
-                }
-                w.write('\n');
-                r.close();
+        for (FileIndex.Entry entry : projectModel.fileIndex()) {
+            Reader r = new BufferedReader(new FileReader(entry.getPath()));
+            for (int ch = r.read(); ch != -1; ch = r.read()) {
+                w.write(ch);
             }
+            w.write('\n');
+            r.close();
         }
         w.close();
     }
@@ -1036,41 +1027,82 @@ public class OperatorWindow extends JTree {
         return !difference;
     }
 
-  /** Responsible for keeping track of the backup project files */
-  private class BackupThread extends Thread {
-    Runnable writeOutControl;
+  /**
+   * Backs up the project to its .vsa.json~ file whenever the operator hierarchy or the datamap has
+   * changed since the last backup.
+   *
+   * @see Autosave
+   */
+  private class ProjectBackupSource implements Autosave.Source, TreeModelListener {
+    private long revision = 0;
+    private long backedUpRevision = 0;
+    private long backedUpDatamapRevision = 0;
+    // set when the project changed while it was being read on the autosave thread
+    private boolean readOnEdt = false;
+
+    void start() {
+      projectModel.operatorHierarchy.addTreeModelListener(this);
+      Autosave.register(this);
+    }
+
+    @Override
+    public boolean isActive() {
+      return MainFrame.getMainFrame().getOperatorWindow() == OperatorWindow.this;
+    }
+
+    @Override
+    public Autosave.Snapshot snapshot() {
+      long datamapRevision = projectModel.swmm.getRevision();
+      if (revision == backedUpRevision && datamapRevision == backedUpDatamapRevision) {
+        return null;
+      }
+      OperatorRootNode orn = (OperatorRootNode) (getModel().getRoot());
+      Path backupFile = Paths.get(orn.getProjectFile() + "~");
+      long treeRevision = revision;
+      backedUpRevision = treeRevision;
+      backedUpDatamapRevision = datamapRevision;
+      if (readOnEdt) {
+        // the user keeps changing the project; make sure this backup gets written
+        readOnEdt = false;
+        Project project = projectModel.toJson();
+        return new Autosave.Snapshot(
+            backupFile, () -> Json.serializeToJson(project).getBytes(StandardCharsets.UTF_8));
+      }
 
-    public BackupThread() {
-      writeOutControl =
+      // Reading a large project takes long enough to stall the UI, so read it on the autosave
+      // thread, and throw the result away if anything changed while it was read.
+      return new Autosave.Snapshot(
+          backupFile,
+          () -> Json.serializeToJson(projectModel.toJson()).getBytes(StandardCharsets.UTF_8),
           () -> {
-            OperatorRootNode orn = (OperatorRootNode) (getModel().getRoot());
-            File projectFile = new File(orn.getProjectFile() + "~");
-            try {
-              writeOutHierarchy(projectFile);
-            } catch (IOException e) {
-              // caught in the run() method below
-              throw new RuntimeException(e);
+            boolean current =
+                revision == treeRevision && projectModel.swmm.getRevision() == datamapRevision;
+            if (!current) {
+              backedUpRevision = -1;
+              readOnEdt = true;
             }
-          };
+            return current;
+          });
     }
 
     @Override
-    public void run() {
-      while (true) {
-        try {
-          sleep(60000 * 3); // 3 minutes
-        } catch (InterruptedException e) {
-          return;
-        }
-        try {
-          SwingUtilities.invokeAndWait(writeOutControl);
-        } catch (InterruptedException | InvocationTargetException ie) {
-          // TODO: messing with the feedback manager here could cause other important feedback to disappear, so for now we won't write to it. If we upgrade the feedback UI some day, we should come back and log the errors here.
-          // FeedbackManager fbManager = MainFrame.getMainFrame().getFeedbackManager();
-          // fbManager.setStatusBarError("Error occurred while backing up project");
-          ie.printStackTrace();
-        }
-      }
-    } // run
-  } // end of BackupThread class
+    public void treeNodesChanged(TreeModelEvent e) {
+      revision++;
+    }
+
+    @Override
+    public void treeNodesInserted(TreeModelEvent e) {
+      revision++;
+    }
+
+    @Override
+    public void treeNodesRemoved(TreeModelEvent e) {
+      revision++;
+    }
+
+    @Override
+    public void treeStructureChanged(TreeModelEvent e) {
+      revision++;
+    }
+  }
 }   // end of OperatorWindow class
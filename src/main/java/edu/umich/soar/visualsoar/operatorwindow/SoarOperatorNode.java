@@ -11,6 +11,7 @@ import javax.swing.*;
 import javax.swing.tree.DefaultTreeModel;
 import java.io.*;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Vector;
 
@@ -300,9 +301,7 @@ public abstract class SoarOperatorNode extends FileNode {
         //Update this object's instance variables to reflect the successful rename
         this.name = newName;
         fileAssociation = newFile.getName();
-        if (ruleEditor != null) {
-            ruleEditor.fileRenamed(newFile.getPath());
-        }
+        editorsFileRenamed(newFile.getPath());
 
         //notify the Tree widget that this node has changed
         DefaultTreeModel model = (DefaultTreeModel) operatorWindow.getModel();
@@ -469,9 +468,7 @@ public abstract class SoarOperatorNode extends FileNode {
             }
         }
         notifyLinksOfUpdate(operatorWindow);
-        try {
-            sourceChildren();
-        } catch (IOException ioe) { /* TODO: something other than quiet fail */ }
+        sourceChildren();
     }
 
     /**
@@ -619,9 +616,7 @@ public abstract class SoarOperatorNode extends FileNode {
 
         operatorWindow.getProjectModel().addChild(newParent, this);
         // Adjust rule editor if one is open
-        if (ruleEditor != null) {
-            ruleEditor.fileRenamed(newFile.getPath());
-        }
+        editorsFileRenamed(newFile.getPath());
 
         return true;
     }
@@ -636,27 +631,17 @@ public abstract class SoarOperatorNode extends FileNode {
         }
     }
 
-    public void sourceChildren() throws IOException {
+    public void collectSourceFiles(Map<String, String> files, boolean recursive) {
 
         if (isHighLevel) {
-            Writer w = new FileWriter(getFullPathName() + File.separator + folderName + "_source.soar");
-            int childCount = getChildCount();
-            for (int i = 0; i < childCount; ++i) {
-                OperatorNode child = (OperatorNode) getChildAt(i);
-                child.source(w);
-            }
-            w.close();
-        }
-    }
-
-    public void sourceRecursive() throws IOException {
-
-        if (isHighLevel) {
-            sourceChildren();
-            int childCount = getChildCount();
-            for (int i = 0; i < childCount; ++i) {
-                OperatorNode child = (OperatorNode) getChildAt(i);
-                child.sourceRecursive();
+            String filename = getFullPathName() + File.separator + folderName + "_source.soar";
+            files.put(filename, sourceFileContent());
+            if (recursive) {
+                int childCount = getChildCount();
+                for (int i = 0; i < childCount; ++i) {
+                    OperatorNode child = (OperatorNode) getChildAt(i);
+                    child.collectSourceFiles(files, true);
+                }
             }
         }
     }
@@ -77,15 +77,22 @@ public class TreeSerializer {
 
   private static LayoutNode toJson(VSTreeNode treeNode) {
     List<LayoutNode> jsonChildren = new ArrayList<>();
-    treeNode
-        .children()
-        .asIterator()
-        .forEachRemaining(
-            tn -> {
-              VSTreeNode child = (VSTreeNode) tn;
-              LayoutNode jsonChild = toJson(child);
-              jsonChildren.add(jsonChild);
-            });
+    OperatorNode.ChildLoader deferred =
+        treeNode instanceof OperatorNode ? ((OperatorNode) treeNode).getChildLoader() : null;
+    if (deferred != null) {
+      // children that were never built are unchanged since the project was opened
+      jsonChildren.addAll(deferred.getLayout());
+    } else {
+      treeNode
+          .children()
+          .asIterator()
+          .forEachRemaining(
+              tn -> {
+                VSTreeNode child = (VSTreeNode) tn;
+                LayoutNode jsonChild = toJson(child);
+                jsonChildren.add(jsonChild);
+              });
+    }
 
     switch (treeNode.getType()) {
       case FILE:
@@ -47,6 +47,10 @@ public class TriplesExtractor {
         return d_triples.iterator();
     }
 
+    public int getTripleCount() {
+        return d_triples.size();
+    }
+
     public Iterator<Pair> variables() {
         return d_variables.iterator();
     }
@@ -0,0 +1,22 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Writing the {@code *_source.soar} files that source the agent's rule files */
+@Name("edu.umich.soar.visualsoar.AgentExport")
+@Label("Agent Export")
+@Category({"VisualSoar", "Project"})
+public class AgentExportEvent extends jdk.jfr.Event {
+  @Label("Files")
+  public int files;
+
+  @Label("Files Written")
+  public int written;
+
+  @Label("Size")
+  @DataAmount
+  public long size;
+}
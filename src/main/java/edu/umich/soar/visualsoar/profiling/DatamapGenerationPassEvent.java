@@ -0,0 +1,28 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One pass of generating the datamap from the operator hierarchy. Passes repeat, up to five times,
+ * while the previous one ran into parse errors.
+ */
+@Name("edu.umich.soar.visualsoar.DatamapGenerationPass")
+@Label("Datamap Generation Pass")
+@Category({"VisualSoar", "Datamap"})
+public class DatamapGenerationPassEvent extends jdk.jfr.Event {
+  @Label("Pass")
+  public int pass;
+
+  @Label("Operator Nodes")
+  public int nodes;
+
+  @Label("Additions")
+  @Description("Number of datamap entries this pass added")
+  public int additions;
+
+  @Label("Parse Errors")
+  public int parseErrors;
+}
@@ -0,0 +1,26 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * An event that the event dispatch thread took long enough to handle that the UI stopped
+ * responding. The threshold can be changed in the recording's settings.
+ *
+ * @see TimedEventQueue
+ */
+@Name("edu.umich.soar.visualsoar.EdtTask")
+@Label("EDT Task")
+@Category({"VisualSoar", "UI"})
+@StackTrace(false)
+@Threshold("100 ms")
+public class EdtTaskEvent extends jdk.jfr.Event {
+  @Label("Event")
+  public String event;
+
+  @Label("Source")
+  public String source;
+}
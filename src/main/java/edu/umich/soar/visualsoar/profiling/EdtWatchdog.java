@@ -0,0 +1,186 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import javax.swing.AbstractButton;
+import javax.swing.Action;
+import java.awt.AWTEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a {@link TimedEventQueue} for events that keep the event dispatch thread busy for longer
+ * than a threshold, so that the UI stops responding. When it finds one, it captures the dispatch
+ * thread's stack while the thread is still stuck, and tells its {@link Listener}; it tells the
+ * listener again once the stall is over.
+ */
+public class EdtWatchdog implements AutoCloseable {
+
+  /** Hears about stalls. Called on the watchdog's own thread. */
+  public interface Listener {
+    void stallDetected(Stall stall);
+
+    void stallEnded(Stall stall);
+  }
+
+  /** A time the dispatch thread stopped responding */
+  public static final class Stall {
+    private final String action;
+    private final String event;
+    private final StackTraceElement[] stack;
+    private final long startNanos;
+    private final long thresholdMs;
+    private volatile long durationMs;
+
+    Stall(String action, String event, StackTraceElement[] stack, long startNanos, long thresholdMs) {
+      this.action = action;
+      this.event = event;
+      this.stack = stack;
+      this.startNanos = startNanos;
+      this.thresholdMs = thresholdMs;
+      this.durationMs = thresholdMs;
+    }
+
+    /**
+     * @return the simple name of the outermost VisualSoar action on the stack, or a description of
+     *     the event if no action is running
+     */
+    public String getAction() {
+      return action;
+    }
+
+    /** @return a description of the event that was being dispatched */
+    public String getEvent() {
+      return event;
+    }
+
+    /** @return the dispatch thread's stack when the stall was detected */
+    public StackTraceElement[] getStack() {
+      return stack.clone();
+    }
+
+    public long getThresholdMs() {
+      return thresholdMs;
+    }
+
+    /**
+     * @return how long the dispatch thread has not responded for: at least the threshold while the
+     *     stall goes on, and the full length once it has ended
+     */
+    public long getDurationMs() {
+      return durationMs;
+    }
+  }
+
+  private final TimedEventQueue queue;
+  private final Listener listener;
+  private final Thread thread;
+  private volatile long thresholdMs;
+
+  /**
+   * @param thresholdMs how long the dispatch thread may stay busy; zero or less turns the watchdog
+   *     off until {@link #setThresholdMs} is called
+   */
+  public EdtWatchdog(TimedEventQueue queue, long thresholdMs, Listener listener) {
+    this.queue = queue;
+    this.listener = listener;
+    this.thresholdMs = thresholdMs;
+    thread = new Thread(this::watch, "EDT watchdog");
+    thread.setDaemon(true);
+  }
+
+  public EdtWatchdog start() {
+    thread.start();
+    return this;
+  }
+
+  public void setThresholdMs(long thresholdMs) {
+    this.thresholdMs = thresholdMs;
+  }
+
+  @Override
+  public void close() {
+    thread.interrupt();
+  }
+
+  private void watch() {
+    TimedEventQueue.Dispatch stalled = null;
+    Stall stall = null;
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        long threshold = thresholdMs;
+        // check often enough to catch a stall soon after it passes the threshold
+        TimeUnit.MILLISECONDS.sleep(
+            threshold <= 0 ? 500 : Math.max(10, Math.min(250, threshold / 4)));
+
+        TimedEventQueue.Dispatch dispatch = queue.current();
+        long now = System.nanoTime();
+        if (stalled != null && (stalled != dispatch || stalled.progressNanos != stall.startNanos)) {
+          stall.durationMs = TimeUnit.NANOSECONDS.toMillis(now - stall.startNanos);
+          listener.stallEnded(stall);
+          stalled = null;
+          stall = null;
+        }
+        if (threshold <= 0 || dispatch == null || dispatch == stalled) {
+          continue;
+        }
+
+        long since = dispatch.progressNanos;
+        if (now - since >= TimeUnit.MILLISECONDS.toNanos(threshold)) {
+          StackTraceElement[] stack = dispatch.thread.getStackTrace();
+          // the stack is only worth reporting if it still belongs to the stalled event
+          if (dispatch.finished || dispatch.progressNanos != since) {
+            continue;
+          }
+          String event = describe(dispatch.event);
+          String action = actionName(stack);
+          stall = new Stall(action == null ? event : action, event, stack, since, threshold);
+          stalled = dispatch;
+          listener.stallDetected(stall);
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed
+    }
+  }
+
+  /**
+   * @return the simple class name of the outermost VisualSoar action being performed on the
+   *     stack, or null if there is none
+   */
+  static String actionName(StackTraceElement[] stack) {
+    for (int i = stack.length - 1; i >= 0; i--) {
+      StackTraceElement frame = stack[i];
+      if (frame.getClassName().startsWith("edu.umich.soar.visualsoar.")
+          && (frame.getMethodName().equals("actionPerformed")
+              || frame.getMethodName().equals("perform"))) {
+        String className = frame.getClassName();
+        return className.substring(
+            Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+      }
+    }
+    return null;
+  }
+
+  /** @return a short description of an event, naming the button or key that caused it */
+  static String describe(AWTEvent event) {
+    String type = event.getClass().getSimpleName();
+    Object source = event.getSource();
+    if (source instanceof AbstractButton) {
+      AbstractButton button = (AbstractButton) source;
+      Action action = button.getAction();
+      Object name = action == null ? null : action.getValue(Action.NAME);
+      return type + " on \"" + (name == null ? button.getText() : name) + "\"";
+    }
+    if (event instanceof KeyEvent) {
+      KeyEvent key = (KeyEvent) event;
+      String modifiers = InputEvent.getModifiersExText(key.getModifiersEx());
+      return type
+          + " "
+          + (modifiers.isEmpty() ? "" : modifiers + "+")
+          + KeyEvent.getKeyText(key.getKeyCode())
+          + " in "
+          + source.getClass().getSimpleName();
+    }
+    return type + " from " + TimedEventQueue.describeSource(event);
+  }
+}
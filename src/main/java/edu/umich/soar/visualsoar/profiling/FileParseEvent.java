@@ -0,0 +1,25 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Parsing the productions of one rule file */
+@Name("edu.umich.soar.visualsoar.FileParse")
+@Label("File Parse")
+@Category({"VisualSoar", "Parser"})
+public class FileParseEvent extends jdk.jfr.Event {
+  @Label("File")
+  public String file;
+
+  @Label("Size")
+  @DataAmount
+  public long size;
+
+  @Label("Open in Editor")
+  public boolean open;
+
+  @Label("Productions")
+  public int productions;
+}
@@ -0,0 +1,23 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Searching every file in the project for some text */
+@Name("edu.umich.soar.visualsoar.FindInProject")
+@Label("Find in Project")
+@Category({"VisualSoar", "Project"})
+public class FindInProjectEvent extends jdk.jfr.Event {
+  @Label("Text")
+  public String text;
+
+  @Label("Match Case")
+  public boolean matchCase;
+
+  @Label("Files")
+  public int files;
+
+  @Label("Matches")
+  public int matches;
+}
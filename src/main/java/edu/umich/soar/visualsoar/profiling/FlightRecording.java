@@ -0,0 +1,36 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+/**
+ * Starts a Java Flight Recorder recording from within VisualSoar, for the {@code --jfr} command
+ * line option. The recording uses the JDK's "default" settings plus all of VisualSoar's own events
+ * in this package, and is written to its file when VisualSoar exits. Open the file in JDK Mission
+ * Control, or print it with {@code jfr print --categories VisualSoar <file>}.
+ */
+public class FlightRecording {
+
+  private FlightRecording() {}
+
+  /** Starts recording; the recording is written to the destination when the JVM exits */
+  public static Recording start(Path destination) throws IOException {
+    Configuration settings;
+    try {
+      settings = Configuration.getConfiguration("default");
+    } catch (ParseException e) {
+      throw new IOException("Could not read the default flight recorder settings", e);
+    }
+    Recording recording = new Recording(settings);
+    recording.setName("VisualSoar");
+    recording.setToDisk(true);
+    recording.setDumpOnExit(true);
+    recording.setDestination(destination);
+    recording.start();
+    return recording;
+  }
+}
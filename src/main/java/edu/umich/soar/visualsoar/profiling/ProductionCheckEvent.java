@@ -0,0 +1,25 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Checking one production against the datamap */
+@Name("edu.umich.soar.visualsoar.ProductionCheck")
+@Label("Production Check")
+@Category({"VisualSoar", "Datamap"})
+@StackTrace(false)
+public class ProductionCheckEvent extends jdk.jfr.Event {
+  @Label("Production")
+  public String production;
+
+  @Label("File")
+  public String file;
+
+  @Label("Triples")
+  public int triples;
+
+  @Label("Errors")
+  public int errors;
+}
@@ -0,0 +1,26 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One phase of opening a project, such as reading the datamap or building the operator tree */
+@Name("edu.umich.soar.visualsoar.ProjectOpenPhase")
+@Label("Project Open Phase")
+@Category({"VisualSoar", "Project"})
+@StackTrace(false)
+public class ProjectOpenPhaseEvent extends jdk.jfr.Event {
+  @Label("Project File")
+  public String project;
+
+  @Label("Phase")
+  public String phase;
+
+  @Label("Project File Size")
+  @Description("Size of the project file in bytes")
+  @DataAmount
+  public long projectSize;
+}
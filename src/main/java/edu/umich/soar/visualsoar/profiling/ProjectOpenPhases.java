@@ -0,0 +1,41 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import edu.umich.soar.visualsoar.OpenMonitor;
+
+import java.nio.file.Path;
+
+/**
+ * Records a {@link ProjectOpenPhaseEvent} for each phase of opening a project, and passes the
+ * phases on to another monitor. Each phase ends when the next one begins, or when this is closed.
+ */
+public class ProjectOpenPhases implements OpenMonitor, AutoCloseable {
+  private final Path project;
+  private final OpenMonitor monitor;
+  private ProjectOpenPhaseEvent current;
+
+  public ProjectOpenPhases(Path project, OpenMonitor monitor) {
+    this.project = project;
+    this.monitor = monitor;
+  }
+
+  @Override
+  public void beginPhase(String phase) {
+    close();
+    monitor.beginPhase(phase);
+    current = new ProjectOpenPhaseEvent();
+    if (current.isEnabled()) {
+      current.project = project.toString();
+      current.projectSize = project.toFile().length();
+      current.phase = phase;
+    }
+    current.begin();
+  }
+
+  @Override
+  public void close() {
+    if (current != null) {
+      current.commit();
+      current = null;
+    }
+  }
+}
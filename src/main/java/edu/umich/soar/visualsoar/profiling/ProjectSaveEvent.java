@@ -0,0 +1,22 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Writing the project's JSON file */
+@Name("edu.umich.soar.visualsoar.ProjectSave")
+@Label("Project Save")
+@Category({"VisualSoar", "Project"})
+public class ProjectSaveEvent extends jdk.jfr.Event {
+  @Label("Project File")
+  public String project;
+
+  @Label("Size")
+  @DataAmount
+  public long size;
+
+  @Label("Snapshot")
+  public boolean snapshot;
+}
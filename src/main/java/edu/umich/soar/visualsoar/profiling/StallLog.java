@@ -0,0 +1,90 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+import java.util.logging.FileHandler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Reports the stalls an {@link EdtWatchdog} finds. Each stall is written, with the dispatch
+ * thread's stack, to a set of rolling log files as soon as it is detected, and a "Performance"
+ * entry is added to the feedback list once it ends.
+ */
+public class StallLog implements EdtWatchdog.Listener {
+  private static final Logger LOGGER = Logger.getLogger(StallLog.class.getName());
+
+  /** Each log file is at most this large, and this many are kept */
+  private static final int LOG_FILE_LIMIT = 1024 * 1024;
+
+  private static final int LOG_FILE_COUNT = 3;
+
+  private final Path logFolder;
+  private final Consumer<FeedbackListEntry> feedback;
+
+  /**
+   * @param logFolder where to write the {@code edt-stalls.N.log} files
+   * @param feedback shows a feedback entry; called on the event dispatch thread
+   */
+  public StallLog(Path logFolder, Consumer<FeedbackListEntry> feedback) {
+    this.logFolder = logFolder;
+    this.feedback = feedback;
+    try {
+      Files.createDirectories(logFolder);
+      FileHandler handler =
+          new FileHandler(
+              logFolder.resolve("edt-stalls.%g.log").toString(),
+              LOG_FILE_LIMIT,
+              LOG_FILE_COUNT,
+              true);
+      handler.setFormatter(new SimpleFormatter());
+      LOGGER.addHandler(handler);
+    } catch (IOException | SecurityException e) {
+      LOGGER.log(Level.WARNING, "Could not open the stall log in " + logFolder, e);
+    }
+  }
+
+  /** @return the folder VisualSoar keeps its logs in, under the user's home folder */
+  public static Path defaultLogFolder() {
+    return Paths.get(System.getProperty("user.home"), ".visualsoar", "logs");
+  }
+
+  @Override
+  public void stallDetected(EdtWatchdog.Stall stall) {
+    StringBuilder message = new StringBuilder();
+    message
+        .append("The UI has not responded for ")
+        .append(stall.getThresholdMs())
+        .append(" ms during ")
+        .append(stall.getAction())
+        .append(" (")
+        .append(stall.getEvent())
+        .append("). Event dispatch thread:");
+    for (StackTraceElement frame : stall.getStack()) {
+      message.append("\n\tat ").append(frame);
+    }
+    LOGGER.warning(message.toString());
+  }
+
+  @Override
+  public void stallEnded(EdtWatchdog.Stall stall) {
+    LOGGER.info(
+        "The UI responded again after " + stall.getDurationMs() + " ms during " + stall.getAction());
+    FeedbackListEntry entry =
+        new FeedbackListEntry(
+            "Performance: VisualSoar did not respond for "
+                + stall.getDurationMs()
+                + " ms during "
+                + stall.getAction()
+                + ". Details are in "
+                + logFolder.resolve("edt-stalls.0.log"));
+    SwingUtilities.invokeLater(() -> feedback.accept(entry));
+  }
+}
@@ -0,0 +1,28 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One syntax highlighting pass over a rule editor's document */
+@Name("edu.umich.soar.visualsoar.SyntaxHighlight")
+@Label("Syntax Highlight")
+@Category({"VisualSoar", "Editor"})
+@StackTrace(false)
+public class SyntaxHighlightEvent extends jdk.jfr.Event {
+  @Label("Scope")
+  @Description("The whole file, one line, or the region from the start line on")
+  public String scope;
+
+  @Label("Document Length")
+  public int documentLength;
+
+  @Label("Start Line")
+  public int startLine;
+
+  @Label("Lines")
+  @Description("Number of lines in the document")
+  public int lines;
+}
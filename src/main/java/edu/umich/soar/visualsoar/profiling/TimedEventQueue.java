@@ -0,0 +1,86 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InvocationEvent;
+
+/**
+ * Times every event that the event dispatch thread handles, and records an {@link EdtTaskEvent}
+ * for each one that takes longer than the event's threshold. Nothing is recorded, and almost no
+ * time is spent, unless a flight recording is running. The event being handled is also kept
+ * where an {@link EdtWatchdog} can see it.
+ */
+public class TimedEventQueue extends EventQueue {
+
+  /** An event being dispatched */
+  static final class Dispatch {
+    final AWTEvent event;
+    final Thread thread;
+
+    /**
+     * When the dispatch began, or when a nested event loop (such as a modal dialog's) last handed
+     * control back to it. Until then the dispatch thread was still responding.
+     */
+    volatile long progressNanos;
+
+    volatile boolean finished = false;
+
+    Dispatch(AWTEvent event, Thread thread, long progressNanos) {
+      this.event = event;
+      this.thread = thread;
+      this.progressNanos = progressNanos;
+    }
+  }
+
+  static {
+    // registering the event type with the flight recorder is slow enough to hold up the first
+    // dispatch, so do it now
+    new EdtTaskEvent();
+  }
+
+  private volatile Dispatch current;
+
+  /** Replaces the system event queue with a timed one */
+  public static TimedEventQueue install() {
+    TimedEventQueue queue = new TimedEventQueue();
+    Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+    return queue;
+  }
+
+  /** @return the innermost event being dispatched, or null if the dispatch thread is idle */
+  Dispatch current() {
+    return current;
+  }
+
+  @Override
+  protected void dispatchEvent(AWTEvent event) {
+    Dispatch outer = current;
+    Dispatch dispatch = new Dispatch(event, Thread.currentThread(), System.nanoTime());
+    current = dispatch;
+    EdtTaskEvent task = new EdtTaskEvent();
+    task.begin();
+    try {
+      super.dispatchEvent(event);
+    } finally {
+      task.end();
+      dispatch.finished = true;
+      current = outer;
+      if (outer != null) {
+        outer.progressNanos = System.nanoTime();
+      }
+      if (task.shouldCommit()) {
+        task.event = event.getClass().getSimpleName();
+        task.source = describeSource(event);
+        task.commit();
+      }
+    }
+  }
+
+  static String describeSource(AWTEvent event) {
+    // invokeLater() events come from the toolkit; the runnable says more about them
+    return event instanceof InvocationEvent
+        ? event.paramString()
+        : event.getSource().getClass().getName();
+  }
+}
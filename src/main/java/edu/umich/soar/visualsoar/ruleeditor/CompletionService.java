@@ -0,0 +1,211 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.components.AutocompleteContext;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.graph.EnumerationVertex;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.parser.ParseException;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Computes auto-completions for a rule editor without holding up typing. On the event dispatch
+ * thread a request only finds the production being edited, which usually needs no copying. Parsing
+ * it and matching it against the datamap happen on a background thread shared by all editors.
+ *
+ * <p>Matching results are cached per production template, which stays the same while the user
+ * types the rest of an attribute or value, so most keystrokes are answered from the cache. Sorted
+ * enumeration values are cached per datamap vertex. Both caches are dropped when the datamap
+ * changes.
+ *
+ * <p>A new request supersedes any that is still pending, and results are only delivered if the
+ * document and caret have not changed in the meantime.
+ *
+ * <p>The language server uses {@link #complete} directly, with the same caches.
+ */
+public class CompletionService {
+  private static final Logger LOGGER = Logger.getLogger(CompletionService.class.getName());
+
+  /** Completions that take longer than this are logged */
+  static final long LATENCY_BUDGET_MS = 20;
+
+  private static final int MAX_CACHED_TEMPLATES = 64;
+
+  private static final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "Completion");
+            t.setDaemon(true);
+            return t;
+          });
+
+  // Only used on the event dispatch thread
+  private Future<?> pending;
+
+  // Bumped for every request, so that a superseded one can tell
+  private volatile long generation = 0;
+
+  // The caches are only used on the completion thread
+  private final Map<String, List<String>> completionsByTemplate =
+      new LinkedHashMap<String, List<String>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+          return size() > MAX_CACHED_TEMPLATES;
+        }
+      };
+  private final Map<EnumerationVertex, List<String>> enumerationIndex = new HashMap<>();
+  private SoarWorkingMemoryModel cachedDataMap;
+  private long cachedDataMapRevision;
+
+  /**
+   * Starts computing the completions at the caret. Must be called on the event dispatch thread.
+   *
+   * @param onResult called on the event dispatch thread with the completions, or with null if
+   *     there are none, unless the request was superseded or the text changed in the meantime
+   */
+  void request(
+      EditorPane editorPane,
+      SoarWorkingMemoryModel dataMap,
+      SoarIdentifierVertex stateVertex,
+      Consumer<AutocompleteContext> onResult) {
+    long requestGeneration = ++generation;
+    if (pending != null) {
+      pending.cancel(false);
+    }
+
+    SoarDocument document = editorPane.getSoarDocument();
+    int caretPos = editorPane.getCaretPosition();
+    long revision = document.getRevision();
+    String prodSoFar;
+    try {
+      prodSoFar = SoarAutocomplete.productionBeforeCaret(document, caretPos);
+    } catch (BadLocationException e) {
+      prodSoFar = null;
+    }
+    if (prodSoFar == null) {
+      onResult.accept(null);
+      return;
+    }
+
+    long start = System.nanoTime();
+    String production = prodSoFar;
+    pending =
+        executor.submit(
+            () -> {
+              if (requestGeneration != generation) {
+                return;
+              }
+              AutocompleteContext context = complete(production, dataMap, stateVertex);
+              SwingUtilities.invokeLater(
+                  () -> {
+                    if (requestGeneration != generation
+                        || document.getRevision() != revision
+                        || editorPane.getCaretPosition() != caretPos) {
+                      return;
+                    }
+                    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                    if (elapsedMs > LATENCY_BUDGET_MS) {
+                      LOGGER.fine(
+                          "Completion took " + elapsedMs + " ms, over the budget of "
+                              + LATENCY_BUDGET_MS + " ms");
+                    }
+                    onResult.accept(context);
+                  });
+            });
+  }
+
+  /**
+   * Computes the completions for the given production text. Called on the completion thread, but
+   * safe to call on any one thread at a time.
+   *
+   * @return the completions, or null if the caret is not at an attribute or value
+   */
+  @Nullable
+  public AutocompleteContext complete(
+      String prodSoFar, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex stateVertex) {
+    SoarAutocomplete.Query query = SoarAutocomplete.query(prodSoFar);
+    if (query == null) {
+      return null;
+    }
+
+    long dataMapRevision = dataMap.getRevision();
+    if (dataMap != cachedDataMap || dataMapRevision != cachedDataMapRevision) {
+      completionsByTemplate.clear();
+      enumerationIndex.clear();
+      cachedDataMap = dataMap;
+      cachedDataMapRevision = dataMapRevision;
+    }
+
+    String key = stateVertex.getValue() + " " + query.template;
+    List<String> completions = completionsByTemplate.get(key);
+    if (completions == null) {
+      try {
+        completions =
+            query.attribute
+                ? SoarAutocomplete.getAttributeMatches(query.template, dataMap, stateVertex)
+                : valueMatches(query.template, dataMap, stateVertex);
+      } catch (ParseException e) {
+        return null;
+      } catch (RuntimeException e) {
+        // the datamap is only changed on the event dispatch thread, and may have changed under us
+        LOGGER.log(Level.FINE, "Unable to match the production against the datamap", e);
+        return null;
+      }
+      completions = Collections.unmodifiableList(new ArrayList<>(completions));
+      // anything computed while the datamap changed may be wrong, so it is not kept
+      if (dataMap.getRevision() == dataMapRevision) {
+        completionsByTemplate.put(key, completions);
+      }
+    }
+    return new AutocompleteContext(query.userType, completions);
+  }
+
+  /** @return the suggested variable followed by the sorted values of the matched enumerations */
+  private List<String> valueMatches(
+      String template, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex stateVertex)
+      throws ParseException {
+    List<String> completions = SoarAutocomplete.getVariableMatches(template);
+    List<EnumerationVertex> matches =
+        SoarAutocomplete.getValueMatches(template, dataMap, stateVertex);
+    if (matches.size() == 1) {
+      completions.addAll(sortedEnumeration(matches.get(0)));
+    } else {
+      TreeSet<String> values = new TreeSet<>();
+      for (EnumerationVertex ev : matches) {
+        values.addAll(sortedEnumeration(ev));
+      }
+      completions.addAll(values);
+    }
+    return completions;
+  }
+
+  private List<String> sortedEnumeration(EnumerationVertex ev) {
+    return enumerationIndex.computeIfAbsent(
+        ev,
+        v -> {
+          List<String> values = new ArrayList<>();
+          Iterator<String> iter = v.getEnumeration();
+          while (iter.hasNext()) {
+            values.add(iter.next());
+          }
+          Collections.sort(values);
+          return Collections.unmodifiableList(values);
+        });
+  }
+}
@@ -27,6 +27,7 @@ package edu.umich.soar.visualsoar.ruleeditor;
 import edu.umich.soar.visualsoar.util.BooleanProperty;
 import java.awt.event.*;
 import java.util.Objects;
+import java.util.logging.Logger;
 import javax.swing.*;
 import javax.swing.event.*;
 import javax.swing.text.*;
@@ -37,6 +38,11 @@ import javax.swing.undo.*;
  * incremental edits (e.g. typing) are merged together except where an element of {@link
  * #BREAK_CHARS} is involved, and saving the document or changing between insertion/deletion will
  * start new edits.
+ *
+ * <p>Edits to a {@link SoarDocument} are kept as plain {@link TextDelta}s rather than Swing's
+ * document events, and its style changes, which only come from syntax coloring, are not kept at
+ * all. The history is kept within a {@link #setMemoryBudget memory budget}; the oldest edits are
+ * dropped when it is exceeded.
  */
 public class CompoundUndoManager extends UndoManager
     implements UndoableEditListener, DocumentListener {
@@ -47,6 +53,14 @@ public class CompoundUndoManager extends UndoManager
    */
   private static final char[] BREAK_CHARS = {' ', '.', '\n', '\t', '{', '}', '(', ')', '^', '*'};
 
+  private static final Logger LOGGER = Logger.getLogger(CompoundUndoManager.class.getName());
+
+  /** Rough size of an edit apart from the text it holds, in bytes */
+  private static final int EDIT_OVERHEAD = 48;
+
+  /** Rough size of a Swing document event apart from its text, in bytes */
+  private static final int DOCUMENT_EVENT_OVERHEAD = 256;
+
   private final UndoManager undoManager;
   private final BooleanProperty lastActionWasSave;
   private CompoundEdit compoundEdit;
@@ -65,6 +79,15 @@ public class CompoundUndoManager extends UndoManager
 
   private boolean inAtomicEdit;
 
+  // true while an undo or redo is changing the document, whose edits must not be recorded
+  private boolean applyingHistory;
+
+  private long memoryBudget = Long.MAX_VALUE;
+
+  // the estimated size of every edit in the history, kept up to date as edits are added, grow,
+  // are undone or redone, and are dropped
+  private long memoryUsage = 0;
+
   /**
    * @see #atomicMode()
    */
@@ -112,8 +135,18 @@ public class CompoundUndoManager extends UndoManager
    */
   public void undo() {
     textComponent.getDocument().addDocumentListener(this);
-    super.undo();
-    textComponent.getDocument().removeDocumentListener(this);
+    applyingHistory = true;
+    // undoing an insertion makes its edit hold the text again
+    int from = indexOfEdit(editToBeUndone(), 0);
+    int to = indexOfEdit(editToBeRedone(), edits.size());
+    long before = estimateSize(from, to);
+    try {
+      super.undo();
+    } finally {
+      memoryUsage += estimateSize(from, to) - before;
+      applyingHistory = false;
+      textComponent.getDocument().removeDocumentListener(this);
+    }
 
     // If the user clears the undo queue, treat the buffer as if
     // it has just been saved
@@ -128,8 +161,122 @@ public class CompoundUndoManager extends UndoManager
    */
   public void redo() {
     textComponent.getDocument().addDocumentListener(this);
-    super.redo();
-    textComponent.getDocument().removeDocumentListener(this);
+    applyingHistory = true;
+    int from = indexOfEdit(editToBeUndone(), -1) + 1;
+    int to = indexOfEdit(editToBeRedone(), edits.size() - 1) + 1;
+    long before = estimateSize(from, to);
+    try {
+      super.redo();
+    } finally {
+      memoryUsage += estimateSize(from, to) - before;
+      applyingHistory = false;
+      textComponent.getDocument().removeDocumentListener(this);
+    }
+  }
+
+  /**
+   * Sets how much memory the undo history may use. When it uses more, the oldest edits are
+   * dropped, and if that is not enough, the redo edits furthest from the present as well. The edit
+   * in progress is always kept.
+   *
+   * @param bytes the budget, estimated from the text the history holds
+   */
+  public void setMemoryBudget(long bytes) {
+    memoryBudget = bytes;
+    trimToBudget();
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /**
+   * @return an estimate of the memory used by the undo history, in bytes
+   */
+  public synchronized long getMemoryUsage() {
+    return memoryUsage;
+  }
+
+  /** @return the memory used by the history, measured edit by edit rather than kept up to date */
+  synchronized long measureMemoryUsage() {
+    return estimateSize(0, edits.size());
+  }
+
+  @Override
+  public synchronized boolean addEdit(UndoableEdit anEdit) {
+    // the edit may be absorbed by the last one instead of being added
+    UndoableEdit last = lastEdit();
+    long lastBefore = last == null ? 0 : estimateSize(last);
+    boolean added = super.addEdit(anEdit);
+    if (lastEdit() == anEdit) {
+      memoryUsage += estimateSize(anEdit);
+    } else if (last != null && lastEdit() == last) {
+      memoryUsage += estimateSize(last) - lastBefore;
+    }
+    return added;
+  }
+
+  @Override
+  protected void trimEdits(int from, int to) {
+    memoryUsage -= estimateSize(from, to + 1);
+    super.trimEdits(from, to);
+  }
+
+  @Override
+  public synchronized void discardAllEdits() {
+    super.discardAllEdits();
+    memoryUsage = 0;
+  }
+
+  private synchronized void trimToBudget() {
+    if (memoryUsage <= memoryBudget) {
+      return;
+    }
+    long before = memoryUsage;
+    int dropped = 0;
+    while (memoryUsage > memoryBudget && edits.size() > 1) {
+      // drop the oldest edit, unless it is the one that would be undone next
+      int undoable = edits.indexOf(editToBeUndone());
+      int index = undoable > 0 ? 0 : edits.size() - 1;
+      if (index == undoable || edits.get(index) == compoundEdit) {
+        break;
+      }
+      trimEdits(index, index);
+      dropped++;
+    }
+    if (dropped > 0) {
+      int droppedEdits = dropped;
+      LOGGER.fine(
+          () ->
+              "Dropped " + droppedEdits + " undo edits to bring the history from " + before
+                  + " to " + memoryUsage + " bytes, within its budget of " + memoryBudget);
+      undoAction.updateUndoState();
+      redoAction.updateRedoState();
+    }
+  }
+
+  private int indexOfEdit(UndoableEdit edit, int ifNone) {
+    return edit == null ? ifNone : edits.indexOf(edit);
+  }
+
+  /** @return the estimated size of the edits from index {@code from} up to {@code to} */
+  private long estimateSize(int from, int to) {
+    long bytes = 0;
+    for (int i = Math.max(from, 0); i < Math.min(to, edits.size()); i++) {
+      bytes += estimateSize(edits.get(i));
+    }
+    return bytes;
+  }
+
+  private static long estimateSize(UndoableEdit edit) {
+    if (edit instanceof MyCompoundEdit) {
+      return ((MyCompoundEdit) edit).estimateSize();
+    } else if (edit instanceof TextDelta) {
+      return ((TextDelta) edit).estimateSize();
+    } else if (edit instanceof DocumentEvent) {
+      return DOCUMENT_EVENT_OVERHEAD + 2L * ((DocumentEvent) edit).getLength();
+    }
+    return DOCUMENT_EVENT_OVERHEAD;
   }
 
   /**
@@ -138,14 +285,23 @@ public class CompoundUndoManager extends UndoManager
    */
   @Override
   public void undoableEditHappened(UndoableEditEvent e) {
-    UndoableEdit ue = e.getEdit();
+    if (applyingHistory) {
+      return;
+    }
+    UndoableEdit ue = compact(e.getSource(), e.getEdit());
+    if (ue == null) {
+      return;
+    }
     // System.out.println(ue.getPresentationName());
 
     boolean shouldAddToExistingEdit = shouldAddToExistingEdit(ue);
 
     updatePreviousEditInfo();
     if (shouldAddToExistingEdit) {
-      compoundEdit.addEdit(e.getEdit());
+      long before = estimateSize(compoundEdit);
+      compoundEdit.addEdit(ue);
+      memoryUsage += estimateSize(compoundEdit) - before;
+      trimToBudget();
       return;
     }
 
@@ -154,7 +310,31 @@ public class CompoundUndoManager extends UndoManager
     if (!inAtomicEdit) {
       endCompoundEdit();
     }
-    startCompoundEdit(e.getEdit());
+    startCompoundEdit(ue);
+    trimToBudget();
+  }
+
+  /**
+   * @return the edit to keep in place of the given one: a {@link TextDelta} for text changes to a
+   *     {@link SoarDocument}, nothing for its style changes, and the edit itself otherwise
+   */
+  private static UndoableEdit compact(Object source, UndoableEdit edit) {
+    if (!(source instanceof SoarDocument) || !(edit instanceof DocumentEvent)) {
+      return edit;
+    }
+    SoarDocument document = (SoarDocument) source;
+    DocumentEvent event = (DocumentEvent) edit;
+    if (event.getType() == DocumentEvent.EventType.CHANGE) {
+      return null;
+    } else if (event.getType() == DocumentEvent.EventType.INSERT) {
+      return new TextDelta(document, event.getOffset(), event.getLength());
+    }
+    // the text is already gone, but the document remembers it
+    String removed = document.getLastRemovedText();
+    if (removed == null || removed.length() != event.getLength()) {
+      return edit;
+    }
+    return new TextDelta(document, event.getOffset(), removed);
   }
 
   private boolean shouldAddToExistingEdit(UndoableEdit ue) {
@@ -341,6 +521,112 @@ public class CompoundUndoManager extends UndoManager
       endCompoundEdit();
       super.undo();
     }
+
+    long estimateSize() {
+      long bytes = EDIT_OVERHEAD;
+      for (UndoableEdit edit : edits) {
+        bytes += CompoundUndoManager.estimateSize(edit);
+      }
+      return bytes;
+    }
+  }
+
+  /**
+   * Text that was inserted into or removed from a document, and where. Consecutive typing or
+   * deleting is merged into one delta. The text of an insertion is only kept while it is undone.
+   */
+  static class TextDelta extends AbstractUndoableEdit {
+    private static final long serialVersionUID = 20261019L;
+
+    private final Document document;
+    private final boolean insert;
+    private int offset;
+    private int length;
+    private String text;
+
+    /** An insertion */
+    TextDelta(Document document, int offset, int length) {
+      this.document = document;
+      this.insert = true;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    /** A removal */
+    TextDelta(Document document, int offset, String removed) {
+      this.document = document;
+      this.insert = false;
+      this.offset = offset;
+      this.length = removed.length();
+      this.text = removed;
+    }
+
+    long estimateSize() {
+      return EDIT_OVERHEAD + (text == null ? 0 : 2L * text.length());
+    }
+
+    @Override
+    public boolean addEdit(UndoableEdit anEdit) {
+      if (!(anEdit instanceof TextDelta) || !canUndo()) {
+        return false;
+      }
+      TextDelta next = (TextDelta) anEdit;
+      if (next.document != document || next.insert != insert) {
+        return false;
+      }
+      if (insert && next.offset == offset + length) {
+        // typing
+        length += next.length;
+        return true;
+      } else if (!insert && next.offset + next.length == offset) {
+        // backspace
+        offset = next.offset;
+        length += next.length;
+        text = next.text + text;
+        return true;
+      } else if (!insert && next.offset == offset) {
+        // delete
+        length += next.length;
+        text = text + next.text;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public void undo() throws CannotUndoException {
+      super.undo();
+      try {
+        if (insert) {
+          text = document.getText(offset, length);
+          document.remove(offset, length);
+        } else {
+          document.insertString(offset, text, null);
+        }
+      } catch (BadLocationException e) {
+        throw new CannotUndoException();
+      }
+    }
+
+    @Override
+    public void redo() throws CannotRedoException {
+      super.redo();
+      try {
+        if (insert) {
+          document.insertString(offset, text, null);
+          text = null;
+        } else {
+          document.remove(offset, length);
+        }
+      } catch (BadLocationException e) {
+        throw new CannotRedoException();
+      }
+    }
+
+    @Override
+    public String getPresentationName() {
+      return insert ? "addition" : "deletion";
+    }
   }
 
   /** Perform the Undo and update the state of the undo/redo Actions */
@@ -0,0 +1,345 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.datamap.DataMapChecker;
+import edu.umich.soar.visualsoar.datamap.DefaultCheckerErrorHandler;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.mainframe.MainFrame;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import edu.umich.soar.visualsoar.misc.Prefs;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorWindow;
+import edu.umich.soar.visualsoar.parser.ParseException;
+import edu.umich.soar.visualsoar.parser.SoarParser;
+import edu.umich.soar.visualsoar.parser.SoarProduction;
+import edu.umich.soar.visualsoar.parser.TokenMgrError;
+import edu.umich.soar.visualsoar.parser.TriplesExtractor;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Checks the productions in a rule editor against the datamap while the user edits them, and
+ * marks the problems with {@link DiagnosticSquiggle}s. Checking starts once typing has paused for
+ * {@link #DELAY_MS}, and runs on a background thread shared by all editors; a newer edit abandons
+ * a check that is still running. The diagnostics of each production are cached by its text, so
+ * only the productions that were edited since the last check are parsed and matched again. The
+ * datamap is only read, never marked, so this does not affect the searches for untested or
+ * uncreated datamap entries.
+ */
+class DatamapLinter {
+  private static final Logger LOGGER = Logger.getLogger(DatamapLinter.class.getName());
+
+  /** How long typing has to pause before the productions are checked */
+  static final int DELAY_MS = 500;
+
+  private static final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "Datamap linter");
+            t.setDaemon(true);
+            return t;
+          });
+
+  /** A datamap problem on one line of a file. */
+  static final class Diagnostic {
+    /** counting from 0 */
+    final int line;
+
+    final String message;
+
+    Diagnostic(int line, String message) {
+      this.line = line;
+      this.message = message;
+    }
+
+    @Override
+    public String toString() {
+      return line + ": " + message;
+    }
+  }
+
+  private final EditorPane editorPane;
+  private final Supplier<OperatorNode> node;
+  private final Runnable onUpdate;
+  private final Timer timer;
+  private final DocumentListener documentListener =
+      new DocumentListener() {
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+          timer.restart();
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+          timer.restart();
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+          // only the syntax coloring changed
+        }
+      };
+
+  // Bumped for every check, so that a superseded one can tell
+  private volatile long generation = 0;
+
+  // Only used on the linter thread: the diagnostics of each production by its text, with lines
+  // counted from the start of the production, and what they were checked against
+  private final Map<String, List<Diagnostic>> cache = new HashMap<>();
+  private SoarWorkingMemoryModel cachedDataMap;
+  private long cachedDataMapRevision;
+  private SoarIdentifierVertex cachedStateVertex;
+
+  // Only used on the event dispatch thread
+  private final List<Object> squiggles = new ArrayList<>();
+  private boolean stopped = false;
+
+  /**
+   * @param node the operator node whose datamap state the productions are checked against
+   * @param onUpdate called on the event dispatch thread whenever the diagnostics change
+   */
+  DatamapLinter(EditorPane editorPane, Supplier<OperatorNode> node, Runnable onUpdate) {
+    this.editorPane = editorPane;
+    this.node = node;
+    this.onUpdate = onUpdate;
+    timer = new Timer(DELAY_MS, e -> check());
+    timer.setRepeats(false);
+  }
+
+  /** Starts checking the editor's text, beginning with a check of the text as it is now. */
+  void start() {
+    editorPane.getDocument().addDocumentListener(documentListener);
+    editorPane.addPropertyChangeListener(
+        "document",
+        e -> {
+          if (e.getOldValue() instanceof Document) {
+            ((Document) e.getOldValue()).removeDocumentListener(documentListener);
+          }
+          if (e.getNewValue() instanceof Document) {
+            ((Document) e.getNewValue()).addDocumentListener(documentListener);
+          }
+          // the squiggles belonged to the old text
+          clearSquiggles();
+          timer.restart();
+        });
+    timer.restart();
+  }
+
+  /** Stops checking for good, e.g., because the editor was closed. */
+  void stop() {
+    stopped = true;
+    generation++;
+    timer.stop();
+    editorPane.getDocument().removeDocumentListener(documentListener);
+  }
+
+  /** Checks the text again soon, e.g., because the datamap may have changed. */
+  void recheck() {
+    if (!stopped) {
+      timer.restart();
+    }
+  }
+
+  private void check() {
+    long checkGeneration = ++generation;
+    OperatorWindow operatorWindow = MainFrame.getMainFrame().getOperatorWindow();
+    OperatorNode associatedNode = node.get();
+    if (stopped
+        || !Prefs.liveDatamapChecksEnabled.getBoolean()
+        || operatorWindow == null
+        || associatedNode == null
+        || associatedNode.getParent() == null) {
+      clearSquiggles();
+      return;
+    }
+    if (!(editorPane.getDocument() instanceof SoarDocument)) {
+      return;
+    }
+    SoarDocument document = (SoarDocument) editorPane.getDocument();
+    long revision = document.getRevision();
+    SoarWorkingMemoryModel dataMap = operatorWindow.getDatamap();
+    SoarIdentifierVertex stateVertex = SoarAutocomplete.stateVertex(dataMap, associatedNode);
+
+    executor.execute(
+        () -> {
+          BooleanSupplier superseded = () -> checkGeneration != generation;
+          if (superseded.getAsBoolean()) {
+            return;
+          }
+          // copying the text under the document's read lock keeps the event dispatch thread free
+          String[] text = new String[1];
+          document.render(
+              () -> {
+                try {
+                  text[0] = document.getText(0, document.getLength());
+                } catch (BadLocationException e) {
+                  throw new IllegalStateException(e);
+                }
+              });
+
+          List<Diagnostic> diagnostics;
+          try {
+            diagnostics = check(text[0], dataMap, stateVertex, superseded);
+          } catch (RuntimeException e) {
+            // the datamap is only changed on the event dispatch thread, and may have changed under
+            // us; the next edit checks again
+            LOGGER.log(Level.FINE, "Unable to check productions against the datamap", e);
+            return;
+          }
+          if (diagnostics == null) {
+            return;
+          }
+          SwingUtilities.invokeLater(
+              () -> {
+                if (checkGeneration == generation
+                    && editorPane.getDocument() == document
+                    && document.getRevision() == revision) {
+                  showSquiggles(document, diagnostics);
+                }
+              });
+        });
+  }
+
+  /**
+   * Checks every production in the text, reusing the cached diagnostics of productions that have
+   * not changed. Afterward the cache only holds the productions in this text.
+   *
+   * @param superseded polled between productions; checking stops once it returns true
+   * @return the diagnostics, or null if checking stopped early
+   */
+  @Nullable
+  List<Diagnostic> check(
+      String text,
+      SoarWorkingMemoryModel dataMap,
+      SoarIdentifierVertex stateVertex,
+      BooleanSupplier superseded) {
+    long dataMapRevision = dataMap.getRevision();
+    if (dataMap != cachedDataMap
+        || dataMapRevision != cachedDataMapRevision
+        || stateVertex != cachedStateVertex) {
+      cache.clear();
+      cachedDataMap = dataMap;
+      cachedDataMapRevision = dataMapRevision;
+      cachedStateVertex = stateVertex;
+    }
+
+    List<Diagnostic> diagnostics = new ArrayList<>();
+    Map<String, List<Diagnostic>> checked = new HashMap<>();
+    for (ProductionSpans.Span span : ProductionSpans.scan(text)) {
+      if (superseded.getAsBoolean()) {
+        // keep what was done so far for the next check
+        cache.putAll(checked);
+        return null;
+      }
+      String production = text.substring(span.getStart(), span.getEnd());
+      List<Diagnostic> found = checked.get(production);
+      if (found == null) {
+        found = cache.get(production);
+      }
+      if (found == null) {
+        found = checkProduction(production, dataMap, stateVertex);
+      }
+      checked.put(production, found);
+      for (Diagnostic diagnostic : found) {
+        diagnostics.add(new Diagnostic(span.getStartLine() + diagnostic.line, diagnostic.message));
+      }
+    }
+    cache.clear();
+    cache.putAll(checked);
+    return diagnostics;
+  }
+
+  /**
+   * @return the datamap problems in the production, with lines counted from its start; nothing if
+   *     it can't be parsed, since it is probably still being typed
+   */
+  private static List<Diagnostic> checkProduction(
+      String production, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex stateVertex) {
+    SoarProduction sp;
+    try {
+      sp = new SoarParser(new StringReader(production)).soarProduction();
+    } catch (ParseException | TokenMgrError e) {
+      return Collections.emptyList();
+    }
+    // a start line of 1 makes the lines relative to the production
+    DefaultCheckerErrorHandler errors = new DefaultCheckerErrorHandler(null, sp.getName(), 1);
+    DataMapChecker.check(dataMap, stateVertex, new TriplesExtractor(sp), errors, false);
+    if (errors.getErrors().isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Diagnostic> diagnostics = new ArrayList<>();
+    for (FeedbackListEntry entry : errors.getErrors()) {
+      int line = ((FeedbackEntryOpNode) entry).getLine();
+      diagnostics.add(new Diagnostic(Math.max(0, line - 1), entry.getMessage()));
+    }
+    return diagnostics;
+  }
+
+  private void showSquiggles(Document document, List<Diagnostic> diagnostics) {
+    clearSquiggles();
+    Highlighter highlighter = editorPane.getHighlighter();
+    Element root = document.getDefaultRootElement();
+    for (Diagnostic diagnostic : diagnostics) {
+      if (diagnostic.line >= root.getElementCount()) {
+        continue;
+      }
+      Element line = root.getElement(diagnostic.line);
+      try {
+        // underline the line's text, without its indentation and newline
+        int start = line.getStartOffset();
+        int end = Math.min(line.getEndOffset(), document.getLength());
+        String lineText = document.getText(start, end - start);
+        int first = 0;
+        while (first < lineText.length() && Character.isWhitespace(lineText.charAt(first))) {
+          first++;
+        }
+        int last = lineText.length();
+        while (last > first && Character.isWhitespace(lineText.charAt(last - 1))) {
+          last--;
+        }
+        if (first == last) {
+          continue;
+        }
+        squiggles.add(
+            highlighter.addHighlight(
+                start + first, start + last, new DiagnosticSquiggle(diagnostic.message)));
+      } catch (BadLocationException e) {
+        // the line is gone; the next check will catch up
+      }
+    }
+    onUpdate.run();
+  }
+
+  private void clearSquiggles() {
+    if (squiggles.isEmpty()) {
+      return;
+    }
+    Highlighter highlighter = editorPane.getHighlighter();
+    for (Object squiggle : squiggles) {
+      highlighter.removeHighlight(squiggle);
+    }
+    squiggles.clear();
+    onUpdate.run();
+  }
+}
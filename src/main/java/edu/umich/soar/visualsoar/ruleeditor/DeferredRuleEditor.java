@@ -0,0 +1,123 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.mainframe.MainFrame;
+import edu.umich.soar.visualsoar.misc.CustomInternalFrame;
+import edu.umich.soar.visualsoar.operatorwindow.FileNode;
+
+import javax.swing.*;
+import javax.swing.event.InternalFrameAdapter;
+import javax.swing.event.InternalFrameEvent;
+import java.awt.*;
+import java.beans.PropertyVetoException;
+import java.util.function.Function;
+
+/**
+ * A stand-in for a {@link RuleEditor} that was restored from the last session.
+ * Reading and highlighting the file is put off until this frame is first
+ * activated, at which point it is swapped for the real editor in the same
+ * place.  Every restored frame is shown on the desktop at once, so waiting
+ * for activation rather than for the frame to be shown means that projects
+ * which restore many windows only load the one the user is working in.
+ *
+ * @see FileNode#openRulesDeferred(MainFrame)
+ */
+public class DeferredRuleEditor extends CustomInternalFrame {
+    private static final long serialVersionUID = 20261019L;
+
+    private final FileNode node;
+    private final Function<FileNode, RuleEditor> editorFactory;
+    private final JLabel label;
+    private boolean loaded = false;
+
+    public DeferredRuleEditor(FileNode node) {
+        this(node, n -> n.createRuleEditor(MainFrame.getMainFrame()));
+    }
+
+    /**
+     * @param editorFactory reads the node's file into a new editor, or returns
+     *                      null if it cannot be read
+     */
+    DeferredRuleEditor(FileNode node, Function<FileNode, RuleEditor> editorFactory) {
+        super(node.getUniqueName(), true, true, true, true);
+        this.node = node;
+        this.editorFactory = editorFactory;
+        setType(RULE_EDITOR);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        label = new JLabel("Loading " + node.getUniqueName() + "...", SwingConstants.CENTER);
+        getContentPane().add(label, BorderLayout.CENTER);
+
+        addInternalFrameListener(new InternalFrameAdapter() {
+            @Override
+            public void internalFrameActivated(InternalFrameEvent e) {
+                SwingUtilities.invokeLater(DeferredRuleEditor.this::load);
+            }
+        });
+    }
+
+    public FileNode getNode() {
+        return node;
+    }
+
+    /** @return the name of the file that will be opened in this window */
+    public String getFile() {
+        return node.getFileName();
+    }
+
+    /** @return whether the real editor has been created in place of this one */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Shows the node's new name after its file has been renamed or moved.  The
+     * file itself is looked up from the node when the editor is loaded.
+     */
+    public void fileRenamed() {
+        setTitle(node.getUniqueName());
+        label.setText("Loading " + node.getUniqueName() + "...");
+    }
+
+    /** the real editor picks up the read-only state when it is created */
+    @Override
+    public void setReadOnly(boolean status) { }
+
+    /**
+     * Replaces this placeholder with the real rule editor, keeping its size,
+     * position and state.  Does nothing if that has already happened or the
+     * placeholder was closed.
+     */
+    public void load() {
+        if (loaded || isClosed()) {
+            return;
+        }
+        loaded = true;
+
+        JDesktopPane desktop = getDesktopPane();
+        RuleEditor editor = editorFactory.apply(node);
+        if ((editor == null) || (desktop == null)) {
+            dispose();
+            return;
+        }
+
+        boolean wasSelected = isSelected();
+        boolean wasMaximum = isMaximum();
+        boolean wasIcon = isIcon();
+        int position = desktop.getPosition(this);
+        editor.setBounds(isMaximum() || isIcon() ? getNormalBounds() : getBounds());
+        editor.setVisible(true);
+        desktop.add(editor);
+        desktop.setPosition(editor, position);
+        dispose();
+
+        try {
+            editor.setMaximum(wasMaximum);
+            editor.setIcon(wasIcon);
+            if (wasSelected) {
+                editor.setSelected(true);
+            }
+        } catch (PropertyVetoException pve) {
+            // the editor can be used as is
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import javax.swing.JComponent;
+import javax.swing.ToolTipManager;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A narrow strip beside a rule editor that marks the lines with {@link DiagnosticSquiggle}s, meant
+ * to be the row header of the editor's scroll pane. Hovering over a mark shows the problems on
+ * that line.
+ */
+class DiagnosticGutter extends JComponent {
+  private static final long serialVersionUID = 20261019L;
+
+  private static final int WIDTH = 12;
+  private static final int MARK_SIZE = 6;
+
+  private final EditorPane editorPane;
+
+  DiagnosticGutter(EditorPane editorPane) {
+    this.editorPane = editorPane;
+    ToolTipManager.sharedInstance().registerComponent(this);
+
+    // the marks follow their lines as text is added and removed above them
+    DocumentListener repainter =
+        new DocumentListener() {
+          @Override
+          public void insertUpdate(DocumentEvent e) {
+            repaint();
+          }
+
+          @Override
+          public void removeUpdate(DocumentEvent e) {
+            repaint();
+          }
+
+          @Override
+          public void changedUpdate(DocumentEvent e) {}
+        };
+    editorPane.getDocument().addDocumentListener(repainter);
+    editorPane.addPropertyChangeListener(
+        "document",
+        e -> {
+          if (e.getOldValue() instanceof Document) {
+            ((Document) e.getOldValue()).removeDocumentListener(repainter);
+          }
+          if (e.getNewValue() instanceof Document) {
+            ((Document) e.getNewValue()).addDocumentListener(repainter);
+          }
+          repaint();
+        });
+    editorPane.addComponentListener(
+        new ComponentAdapter() {
+          @Override
+          public void componentResized(ComponentEvent e) {
+            revalidate();
+            repaint();
+          }
+        });
+  }
+
+  @Override
+  public Dimension getPreferredSize() {
+    return new Dimension(WIDTH, editorPane.getPreferredSize().height);
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    Rectangle clip = g.getClipBounds();
+    g.setColor(DiagnosticSquiggle.COLOR);
+    for (Highlighter.Highlight squiggle : squiggles()) {
+      try {
+        Rectangle line = editorPane.modelToView2D(squiggle.getStartOffset()).getBounds();
+        if (clip != null && (line.y + line.height < clip.y || line.y > clip.y + clip.height)) {
+          continue;
+        }
+        int y = line.y + (line.height - MARK_SIZE) / 2;
+        g.fillOval((WIDTH - MARK_SIZE) / 2, y, MARK_SIZE, MARK_SIZE);
+      } catch (BadLocationException e) {
+        // the text is gone
+      }
+    }
+  }
+
+  @Override
+  public String getToolTipText(MouseEvent event) {
+    Document document = editorPane.getDocument();
+    int offset = editorPane.viewToModel2D(new Point(0, event.getY()));
+    int line = document.getDefaultRootElement().getElementIndex(offset);
+    StringBuilder tip = new StringBuilder();
+    for (Highlighter.Highlight squiggle : squiggles()) {
+      if (document.getDefaultRootElement().getElementIndex(squiggle.getStartOffset()) == line) {
+        tip.append(tip.length() == 0 ? "<html>" : "<br>")
+            .append(escapeHtml(((DiagnosticSquiggle) squiggle.getPainter()).getMessage()));
+      }
+    }
+    return tip.length() == 0 ? null : tip.toString();
+  }
+
+  private List<Highlighter.Highlight> squiggles() {
+    List<Highlighter.Highlight> squiggles = new ArrayList<>();
+    for (Highlighter.Highlight highlight : editorPane.getHighlighter().getHighlights()) {
+      if (highlight.getPainter() instanceof DiagnosticSquiggle) {
+        squiggles.add(highlight);
+      }
+    }
+    return squiggles;
+  }
+
+  /** messages often mention variables such as {@code <s>} */
+  static String escapeHtml(String s) {
+    return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+}
@@ -0,0 +1,52 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Shape;
+
+/**
+ * Underlines text with a red zigzag to mark a problem in it. The message describing the problem is
+ * kept with the highlight, so that the editor and its gutter can show it as a tool tip.
+ *
+ * @see DatamapLinter
+ */
+class DiagnosticSquiggle implements Highlighter.HighlightPainter {
+  static final Color COLOR = new Color(220, 0, 0);
+
+  private static final int STEP = 2;
+
+  private final String message;
+
+  DiagnosticSquiggle(String message) {
+    this.message = message;
+  }
+
+  String getMessage() {
+    return message;
+  }
+
+  @Override
+  public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c) {
+    try {
+      Rectangle start = c.modelToView2D(p0).getBounds();
+      Rectangle end = c.modelToView2D(p1).getBounds();
+      if (start.y != end.y) {
+        // the text was wrapped; only underline its first line
+        end = new Rectangle(bounds.getBounds().x + bounds.getBounds().width, start.y, 0, 0);
+      }
+      int y = start.y + start.height - 1;
+      g.setColor(COLOR);
+      boolean up = true;
+      for (int x = start.x; x < end.x; x += STEP) {
+        g.drawLine(x, up ? y : y - STEP, x + STEP, up ? y - STEP : y);
+        up = !up;
+      }
+    } catch (BadLocationException e) {
+      // nothing to underline
+    }
+  }
+}
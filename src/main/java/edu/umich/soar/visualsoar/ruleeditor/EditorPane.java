@@ -2,7 +2,6 @@ package edu.umich.soar.visualsoar.ruleeditor;
 
 import edu.umich.soar.visualsoar.dialogs.find.FindUtils;
 import edu.umich.soar.visualsoar.misc.Prefs;
-import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.plaf.TextUI;
@@ -12,6 +11,7 @@ import java.awt.event.*;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.file.Path;
 
 /**
  * This is the EditorPane visual soar uses. It adds some functionality to make some actions nicer.
@@ -24,8 +24,11 @@ public class EditorPane extends javax.swing.JEditorPane {
   // used for keeping track of when the cursor selection changes
   private int previousSelectionStart = 0;
   private int previousSelectionEnd = 0;
-  // used for clearing previous highlights
-  private Highlighter.HighlightPainter lastUsedOccurrenceHighlighter;
+  private final SelectionOccurrences selectionOccurrences = new SelectionOccurrences(this);
+  // searches for occurrences again when the editor is scrolled
+  private final javax.swing.event.ChangeListener viewportListener =
+      e -> selectionOccurrences.refresh();
+  private JViewport viewport;
 
   private static Highlighter.HighlightPainter occurrenceHighlightPainter =
       new DefaultHighlighter.DefaultHighlightPainter(
@@ -80,14 +83,45 @@ public class EditorPane extends javax.swing.JEditorPane {
             updateCurrentSelectionOccurrenceHighlights();
           }
         });
-    lastUsedOccurrenceHighlighter = occurrenceHighlightPainter;
+    addHierarchyListener(
+        e -> {
+          if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) == 0) {
+            return;
+          }
+          if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+          }
+          viewport = getParent() instanceof JViewport ? (JViewport) getParent() : null;
+          if (viewport != null) {
+            viewport.addChangeListener(viewportListener);
+          }
+        });
 
     FindUtils.registerTextComponentFocus(this);
+    ToolTipManager.sharedInstance().registerComponent(this);
+  }
+
+  /** Describes the problem marked by a {@link DiagnosticSquiggle} under the mouse, if any. */
+  @Override
+  public String getToolTipText(MouseEvent event) {
+    int offset = viewToModel2D(event.getPoint());
+    for (Highlighter.Highlight highlight : getHighlighter().getHighlights()) {
+      if (highlight.getPainter() instanceof DiagnosticSquiggle
+          && highlight.getStartOffset() <= offset
+          && offset < highlight.getEndOffset()) {
+        return ((DiagnosticSquiggle) highlight.getPainter()).getMessage();
+      }
+    }
+    return super.getToolTipText(event);
+  }
+
+  SelectionOccurrences getSelectionOccurrences() {
+    return selectionOccurrences;
   }
 
   /**
    * Call whenever the cursor selection potentially changes. If the selection start/end changes and
-   * text is selected, highlight all occurrences of the same string in the document.
+   * text is selected, highlight the other occurrences of the same string near the visible text.
    */
   private void updateCurrentSelectionOccurrenceHighlights() {
     int selectionStart = getSelectionStart();
@@ -99,55 +133,9 @@ public class EditorPane extends javax.swing.JEditorPane {
     previousSelectionStart = selectionStart;
     previousSelectionEnd = selectionEnd;
     if (Prefs.enableCurrentSelectionOccurrenceHighlighting.getBoolean()) {
-      String selectedText = getSelectedText();
-      highlightOccurrences(selectedText);
-    }
-  }
-
-  /** Highlight all occurrences of {@code textToHighlight} in the document */
-  private void highlightOccurrences(@Nullable String textToHighlight) {
-    // Remove previous custom highlights
-    clearSelectionOccurrenceHighlights();
-    lastUsedOccurrenceHighlighter = occurrenceHighlightPainter;
-
-    if (textToHighlight == null || textToHighlight.isEmpty()) {
-      // Nothing to highlight
-      return;
-    }
-
-    int selectionStart = getSelectionStart();
-
-    try {
-      Document doc = getDocument();
-      String content = doc.getText(0, doc.getLength());
-      int index = content.indexOf(textToHighlight);
-
-      // Highlight all occurrences
-      Highlighter highlighter = getHighlighter();
-      while (index >= 0) {
-        int end = index + textToHighlight.length();
-        // don't highlight the current selection
-        if (index != selectionStart) {
-          highlighter.addHighlight(index, end, occurrenceHighlightPainter);
-        }
-        index = content.indexOf(textToHighlight, end);
-      }
-    } catch (BadLocationException e) {
-      e.printStackTrace();
-      clearSelectionOccurrenceHighlights();
-    }
-  }
-
-  /** Clear highlights added by {@link #updateCurrentSelectionOccurrenceHighlights} */
-  private void clearSelectionOccurrenceHighlights() {
-    Highlighter highlighter = getHighlighter();
-    Highlighter.Highlight[] highlights = highlighter.getHighlights();
-
-    // and remove all highlights that did not originate with it
-    for (Highlighter.Highlight highlight : highlights) {
-      if (highlight.getPainter() == lastUsedOccurrenceHighlighter) {
-        highlighter.removeHighlight(highlight);
-      }
+      selectionOccurrences.request(getSelectedText(), occurrenceHighlightPainter);
+    } else {
+      selectionOccurrences.clear();
     }
   }
 
@@ -264,6 +252,29 @@ public class EditorPane extends javax.swing.JEditorPane {
     }
   }
 
+  /**
+   * Initializes the pane's document from a rule file. This gives the same document as passing a
+   * {@link edu.umich.soar.visualsoar.util.TabRemovingReader} to {@link #read(Reader)}, but reads
+   * the file in one go and fills the document before it is attached to the view. The syntax is
+   * then highlighted in a single pass.
+   *
+   * @param file the file to read
+   * @throws IOException if the file cannot be read
+   */
+  public void read(Path file) throws IOException {
+    SoarDocument doc = new SoarDocument();
+    try {
+      doc.load(RuleFileContents.read(file));
+    } catch (BadLocationException e) {
+      throw new IOException(e.getMessage());
+    }
+    setDocument(doc);
+
+    if (Prefs.highlightingEnabled.getBoolean()) {
+      colorSyntax();
+    }
+  }
+
   @Override
   public void removeNotify() {
     super.removeNotify();
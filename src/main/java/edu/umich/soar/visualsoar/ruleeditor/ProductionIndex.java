@@ -0,0 +1,282 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of where the productions in a document are. The index follows the document as it is
+ * edited: an edit only rescans the text from the start of the production or line it touches until
+ * the scan lines up with a production that the edit did not touch, which is usually the next one.
+ * The bounds of the productions are kept as {@link Position}s, so they move with the text without
+ * any work, and their line numbers are looked up when they are asked for.
+ *
+ * @see ProductionSpans
+ */
+public class ProductionIndex implements DocumentListener {
+
+  /** Where one production was when it was asked for. */
+  public static final class Production {
+    private final String name;
+    private final String type;
+    private final int line;
+    private final int start;
+    private final int end;
+
+    Production(String name, String type, int line, int start, int end) {
+      this.name = name;
+      this.type = type;
+      this.line = line;
+      this.start = start;
+      this.end = end;
+    }
+
+    /** @return the production's name, or an empty string if it has none yet */
+    public String getName() {
+      return name;
+    }
+
+    /** @return {@code sp} or {@code gp} */
+    public String getType() {
+      return type;
+    }
+
+    /** @return the line the production starts on, counting from 1 */
+    public int getLine() {
+      return line;
+    }
+
+    /** @return the offset of the production's first character */
+    public int getStart() {
+      return start;
+    }
+
+    /** @return the offset just past the production's last character */
+    public int getEnd() {
+      return end;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /** A production in the index, whose bounds move with the text */
+  private static final class Entry {
+    final Position start;
+    final Position end;
+    final String name;
+    final String type;
+
+    Entry(Position start, Position end, String name, String type) {
+      this.start = start;
+      this.end = end;
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  private final AbstractDocument document;
+
+  // Only changed while the document is locked for writing, so it can be read under its read lock
+  private final List<Entry> entries = new ArrayList<>();
+
+  /** Indexes the document as it is now, and keeps the index up to date as it changes. */
+  public ProductionIndex(AbstractDocument document) {
+    this.document = document;
+    update(0, document.getLength());
+    document.addDocumentListener(this);
+  }
+
+  /**
+   * Finds the productions in text that is not in a document, such as a file that is not open.
+   *
+   * @return the productions, in the order they appear
+   */
+  public static List<Production> scan(CharSequence text) {
+    List<Production> productions = new ArrayList<>();
+    for (ProductionSpans.Span span : ProductionSpans.scan(text)) {
+      productions.add(
+          new Production(
+              span.getName(),
+              span.getType(),
+              span.getStartLine() + 1,
+              span.getStart(),
+              span.getEnd()));
+    }
+    return productions;
+  }
+
+  /**
+   * Safe to call on any thread.
+   *
+   * @return where the productions are now, in the order they appear
+   */
+  public List<Production> getProductions() {
+    List<Production> productions = new ArrayList<>();
+    document.render(
+        () -> {
+          Element root = document.getDefaultRootElement();
+          for (Entry entry : entries) {
+            int start = entry.start.getOffset();
+            productions.add(
+                new Production(
+                    entry.name,
+                    entry.type,
+                    root.getElementIndex(start) + 1,
+                    start,
+                    entry.end.getOffset()));
+          }
+        });
+    return productions;
+  }
+
+  @Override
+  public void insertUpdate(DocumentEvent e) {
+    update(e.getOffset(), e.getOffset() + e.getLength());
+  }
+
+  @Override
+  public void removeUpdate(DocumentEvent e) {
+    update(e.getOffset(), e.getOffset());
+  }
+
+  @Override
+  public void changedUpdate(DocumentEvent e) {
+    // only the syntax coloring changed
+  }
+
+  /**
+   * Rescans the text around an edit. Called while the document is locked for writing, after the
+   * edit was made.
+   *
+   * @param editStart where the edited text starts now
+   * @param editEnd where the edited text ends now
+   */
+  private void update(int editStart, int editEnd) {
+    Element root = document.getDefaultRootElement();
+    int lineStart = root.getElement(root.getElementIndex(editStart)).getStartOffset();
+
+    // The first production that the edit may have changed. A production that is not closed ends
+    // just before the newline ahead of the next one, so the margin of one character catches edits
+    // to the start of the next production, which may make the production before it longer.
+    int touched = 0;
+    while (touched < entries.size() && entries.get(touched).end.getOffset() + 1 < lineStart) {
+      touched++;
+    }
+    int first = touched;
+    int scanFrom = lineStart;
+    if (first < entries.size()) {
+      scanFrom = Math.min(scanFrom, entries.get(first).start.getOffset());
+    }
+
+    // Productions that start after the edit are unchanged, and so is everything after one of them
+    // once the scan reaches it
+    int[] resumeAt = {-1};
+    List<ProductionSpans.Span> spans =
+        ProductionSpans.scan(
+            new DocumentText(document),
+            scanFrom,
+            0,
+            editEnd + 1,
+            offset -> {
+              int index = indexOf(offset, first);
+              if (index < 0) {
+                return false;
+              }
+              resumeAt[0] = index;
+              return true;
+            });
+
+    List<Entry> scanned = new ArrayList<>();
+    try {
+      for (ProductionSpans.Span span : spans) {
+        scanned.add(
+            new Entry(
+                document.createPosition(span.getStart()),
+                document.createPosition(span.getEnd()),
+                span.getName(),
+                span.getType()));
+      }
+    } catch (BadLocationException e) {
+      throw new IllegalStateException(e);
+    }
+    int last = resumeAt[0] < 0 ? entries.size() : resumeAt[0];
+    entries.subList(first, last).clear();
+    entries.addAll(first, scanned);
+  }
+
+  /** @return the index of the entry starting at the offset, looking from the given index on */
+  private int indexOf(int offset, int from) {
+    int low = from;
+    int high = entries.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int start = entries.get(mid).start.getOffset();
+      if (start < offset) {
+        low = mid + 1;
+      } else if (start > offset) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The text of a document, read a block at a time, so that scanning part of it does not copy the
+   * rest
+   */
+  private static final class DocumentText implements CharSequence {
+    private static final int BLOCK_SIZE = 4096;
+
+    private final AbstractDocument document;
+    private final Segment block = new Segment();
+    private int blockStart = 0;
+
+    DocumentText(AbstractDocument document) {
+      this.document = document;
+      block.setPartialReturn(true);
+    }
+
+    @Override
+    public int length() {
+      return document.getLength();
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < blockStart || index >= blockStart + block.count) {
+        try {
+          document.getText(index, Math.min(BLOCK_SIZE, document.getLength() - index), block);
+        } catch (BadLocationException e) {
+          throw new IndexOutOfBoundsException(index);
+        }
+        blockStart = index;
+      }
+      return block.array[block.offset + index - blockStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      try {
+        return document.getText(start, end - start);
+      } catch (BadLocationException e) {
+        throw new IndexOutOfBoundsException(start);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return subSequence(0, length()).toString();
+    }
+  }
+}
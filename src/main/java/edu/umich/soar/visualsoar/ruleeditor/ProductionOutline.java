@@ -0,0 +1,161 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import javax.swing.BorderFactory;
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.ListSelectionModel;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * Lists the productions in a rule editor with their type, line, and the number of datamap problems
+ * found in them, and moves the caret to a production when it is clicked. The list comes from the
+ * document's {@link ProductionIndex}, so refreshing it does not scan the text. The problems are the
+ * {@link DiagnosticSquiggle}s in each production.
+ */
+class ProductionOutline extends JPanel {
+  private static final long serialVersionUID = 20261019L;
+
+  /** How long typing has to pause before the list is refreshed */
+  private static final int REFRESH_DELAY_MS = 300;
+
+  /** What the list shows for one production */
+  private static final class Item {
+    final ProductionIndex.Production production;
+    final int problems;
+
+    Item(ProductionIndex.Production production, int problems) {
+      this.production = production;
+      this.problems = problems;
+    }
+  }
+
+  private final EditorPane editorPane;
+  private final DefaultListModel<Item> items = new DefaultListModel<>();
+  private final JList<Item> list = new JList<>(items);
+  private final Timer refreshTimer = new Timer(REFRESH_DELAY_MS, e -> refresh());
+
+  ProductionOutline(EditorPane editorPane) {
+    super(new BorderLayout());
+    this.editorPane = editorPane;
+    refreshTimer.setRepeats(false);
+
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    list.setCellRenderer(new ItemRenderer());
+    list.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mouseClicked(MouseEvent e) {
+            int index = list.locationToIndex(e.getPoint());
+            if (index >= 0 && list.getCellBounds(index, index).contains(e.getPoint())) {
+              goTo(items.get(index).production);
+            }
+          }
+        });
+    JScrollPane scrollPane = new JScrollPane(list);
+    scrollPane.setBorder(BorderFactory.createEmptyBorder());
+    add(scrollPane, BorderLayout.CENTER);
+    setPreferredSize(new Dimension(180, 0));
+
+    DocumentListener refresher =
+        new DocumentListener() {
+          @Override
+          public void insertUpdate(DocumentEvent e) {
+            refreshTimer.restart();
+          }
+
+          @Override
+          public void removeUpdate(DocumentEvent e) {
+            refreshTimer.restart();
+          }
+
+          @Override
+          public void changedUpdate(DocumentEvent e) {}
+        };
+    editorPane.getDocument().addDocumentListener(refresher);
+    editorPane.addPropertyChangeListener(
+        "document",
+        e -> {
+          if (e.getOldValue() instanceof Document) {
+            ((Document) e.getOldValue()).removeDocumentListener(refresher);
+          }
+          if (e.getNewValue() instanceof Document) {
+            ((Document) e.getNewValue()).addDocumentListener(refresher);
+          }
+          refresh();
+        });
+    refresh();
+  }
+
+  /** Shows the productions as they are now. Must be called on the event dispatch thread. */
+  void refresh() {
+    refreshTimer.stop();
+    List<ProductionIndex.Production> productions =
+        editorPane.getSoarDocument().getProductionIndex().getProductions();
+    Highlighter.Highlight[] highlights = editorPane.getHighlighter().getHighlights();
+
+    int selected = list.getSelectedIndex();
+    items.clear();
+    for (ProductionIndex.Production production : productions) {
+      int problems = 0;
+      for (Highlighter.Highlight highlight : highlights) {
+        if (highlight.getPainter() instanceof DiagnosticSquiggle
+            && highlight.getStartOffset() >= production.getStart()
+            && highlight.getStartOffset() < production.getEnd()) {
+          problems++;
+        }
+      }
+      items.addElement(new Item(production, problems));
+    }
+    if (selected >= 0 && selected < items.size()) {
+      list.setSelectedIndex(selected);
+    }
+  }
+
+  private void goTo(ProductionIndex.Production production) {
+    int start = Math.min(production.getStart(), editorPane.getDocument().getLength());
+    editorPane.setCaretPosition(start);
+    editorPane.requestFocusInWindow();
+  }
+
+  private static class ItemRenderer extends DefaultListCellRenderer {
+    private static final long serialVersionUID = 20261019L;
+
+    @Override
+    public Component getListCellRendererComponent(
+        JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+      Item item = (Item) value;
+      String name = item.production.getName().isEmpty() ? "(unnamed)" : item.production.getName();
+      StringBuilder text =
+          new StringBuilder("<html>")
+              .append(DiagnosticGutter.escapeHtml(name))
+              .append(" <font color=gray>")
+              .append(item.production.getType())
+              .append(", line ")
+              .append(item.production.getLine())
+              .append("</font>");
+      if (item.problems > 0) {
+        text.append(" <font color=red>")
+            .append(item.problems)
+            .append(item.problems == 1 ? " problem" : " problems")
+            .append("</font>");
+      }
+      super.getListCellRendererComponent(
+          list, text.toString(), index, isSelected, cellHasFocus);
+      setToolTipText(name);
+      return this;
+    }
+  }
+}
@@ -0,0 +1,203 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds where each production in a rule file starts and ends, without parsing it. This is much
+ * cheaper than running the parser over the whole file, so it can be redone after every edit to
+ * find the productions that changed. Braces in comments and in {@code |quoted|} symbols are
+ * ignored. A production that is never closed ends where the next production starts at the
+ * beginning of a line, so that an unfinished production does not swallow the rest of the file.
+ */
+public final class ProductionSpans {
+
+  /** The text of one production, from its {@code sp} or {@code gp} to its closing brace. */
+  public static final class Span {
+    private final int start;
+    private final int end;
+    private final int startLine;
+    private final String type;
+    private final String name;
+    private final boolean closed;
+
+    Span(int start, int end, int startLine, String type, String name, boolean closed) {
+      this.start = start;
+      this.end = end;
+      this.startLine = startLine;
+      this.type = type;
+      this.name = name;
+      this.closed = closed;
+    }
+
+    /** @return the offset of the production's first character */
+    public int getStart() {
+      return start;
+    }
+
+    /** @return the offset just past the production's last character */
+    public int getEnd() {
+      return end;
+    }
+
+    /** @return the line the production starts on, counting from 0 */
+    public int getStartLine() {
+      return startLine;
+    }
+
+    /** @return {@code sp} for a production, or {@code gp} for a template of productions */
+    public String getType() {
+      return type;
+    }
+
+    /** @return the production's name, or an empty string if it has none yet */
+    public String getName() {
+      return name;
+    }
+
+    /** @return false if the production's braces are not balanced */
+    public boolean isClosed() {
+      return closed;
+    }
+
+    @Override
+    public String toString() {
+      return name + "[" + start + "," + end + ")";
+    }
+  }
+
+  private ProductionSpans() {}
+
+  public static List<Span> scan(CharSequence text) {
+    return scan(text, 0, 0, Integer.MAX_VALUE, i -> false);
+  }
+
+  /**
+   * Scans part of the text, starting at an offset where a command or production could start, such
+   * as the start of a line outside of any production.
+   *
+   * @param line the line the scan starts on, counting from 0
+   * @param stop asked about each offset from {@code stopFrom} on where a command or production
+   *     starts; the scan ends there once it returns true
+   */
+  static List<Span> scan(
+      CharSequence text, int from, int line, int stopFrom, IntPredicate stop) {
+    List<Span> spans = new ArrayList<>();
+    int length = text.length();
+    int i = from;
+    while (i < length) {
+      char c = text.charAt(i);
+      if (c == '\n') {
+        line++;
+        i++;
+      } else if (Character.isWhitespace(c) || c == ';') {
+        i++;
+      } else if (i >= stopFrom && stop.test(i)) {
+        break;
+      } else if (c == '#') {
+        i = endOfLine(text, i);
+      } else if (isProductionStart(text, i)) {
+        Span span = scanProduction(text, i, line);
+        spans.add(span);
+        line += countLines(text, i, span.end);
+        i = span.end;
+      } else {
+        // some other command; productions are only looked for at the start of one
+        while (i < length && text.charAt(i) != '\n' && text.charAt(i) != ';') {
+          i++;
+        }
+      }
+    }
+    return spans;
+  }
+
+  /**
+   * @return whether a production starts at the given offset: {@code sp} or {@code gp} followed by
+   *     an opening brace or quote
+   */
+  private static boolean isProductionStart(CharSequence text, int i) {
+    int length = text.length();
+    if (i + 2 >= length) {
+      return false;
+    }
+    char c = text.charAt(i);
+    if ((c != 's' && c != 'g') || text.charAt(i + 1) != 'p') {
+      return false;
+    }
+    if (i > 0 && !Character.isWhitespace(text.charAt(i - 1)) && text.charAt(i - 1) != ';') {
+      return false;
+    }
+    int j = i + 2;
+    if (!Character.isWhitespace(text.charAt(j))) {
+      return false;
+    }
+    while (j < length && Character.isWhitespace(text.charAt(j))) {
+      j++;
+    }
+    return j < length && (text.charAt(j) == '{' || text.charAt(j) == '"');
+  }
+
+  private static Span scanProduction(CharSequence text, int start, int startLine) {
+    int length = text.length();
+    int i = start + 2;
+    while (Character.isWhitespace(text.charAt(i))) {
+      i++;
+    }
+    String type = text.charAt(start) == 'g' ? "gp" : "sp";
+    char close = text.charAt(i) == '{' ? '}' : '"';
+    i++;
+
+    int nameStart = i;
+    while (nameStart < length && Character.isWhitespace(text.charAt(nameStart))) {
+      nameStart++;
+    }
+    int nameEnd = nameStart;
+    while (nameEnd < length
+        && !Character.isWhitespace(text.charAt(nameEnd))
+        && text.charAt(nameEnd) != close) {
+      nameEnd++;
+    }
+    String name = text.subSequence(nameStart, nameEnd).toString();
+
+    int depth = 1;
+    while (i < length) {
+      char c = text.charAt(i);
+      if (c == close && (close == '"' || --depth == 0)) {
+        return new Span(start, i + 1, startLine, type, name, true);
+      } else if (c == '{' && close == '}') {
+        depth++;
+      } else if (c == '|') {
+        // a quoted symbol, which can't span lines
+        int j = i + 1;
+        while (j < length && text.charAt(j) != '|' && text.charAt(j) != '\n') {
+          j++;
+        }
+        i = (j < length && text.charAt(j) == '|') ? j : i;
+      } else if (c == '#') {
+        i = endOfLine(text, i) - 1;
+      } else if (c == '\n' && isProductionStart(text, i + 1)) {
+        break;
+      }
+      i++;
+    }
+    return new Span(start, Math.min(i, length), startLine, type, name, false);
+  }
+
+  private static int endOfLine(CharSequence text, int i) {
+    while (i < text.length() && text.charAt(i) != '\n') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int countLines(CharSequence text, int start, int end) {
+    int lines = 0;
+    for (int i = start; i < end; i++) {
+      if (text.charAt(i) == '\n') {
+        lines++;
+      }
+    }
+    return lines;
+  }
+}
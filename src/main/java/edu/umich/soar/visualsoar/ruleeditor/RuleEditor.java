@@ -5,6 +5,7 @@ import edu.umich.soar.visualsoar.components.AutocompletePopup;
 import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
 import edu.umich.soar.visualsoar.dialogs.EditCustomTemplatesDialog;
+import edu.umich.soar.visualsoar.files.Autosave;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
 import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
 import edu.umich.soar.visualsoar.misc.*;
@@ -22,6 +23,8 @@ import java.beans.PropertyVetoException;
 import java.beans.VetoableChangeListener;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
 import javax.swing.*;
@@ -119,7 +122,17 @@ public class RuleEditor extends CustomInternalFrame {
     private final Action sendMatchesToSoarAction = new SendMatchesToSoarAction(this, getToolkit());
     private final Action sendExciseProductionToSoarAction = new SendExciseProductionToSoarAction(this, getToolkit());
 
-    private BackupThread backupThread;
+    private final BackupSource backupSource = new BackupSource();
+    private final CompletionService completionService = new CompletionService();
+    private final DiagnosticGutter diagnosticGutter = new DiagnosticGutter(editorPane);
+    private final ProductionOutline productionOutline = new ProductionOutline(editorPane);
+    private final DatamapLinter datamapLinter =
+            new DatamapLinter(editorPane, this::getNode, () -> {
+                diagnosticGutter.repaint();
+                productionOutline.refresh();
+            });
+    private JScrollPane editorScrollPane;
+    private JSplitPane outlineSplitPane;
   private final Prefs.PrefsChangeListener fontSizeListener =
       (newValue) -> setFontSize((int) newValue);
 
@@ -172,16 +185,26 @@ public class RuleEditor extends CustomInternalFrame {
 
                         mf.selectNewInternalFrame();
                     }
+
+                    public void internalFrameClosed(InternalFrameEvent e) {
+                        datamapLinter.stop();
+                    }
+
+                    public void internalFrameActivated(InternalFrameEvent e) {
+                        // the datamap may have been edited in the meantime
+                        datamapLinter.recheck();
+                    }
                 });
 
         registerDocumentListeners();
 
         //Autobackup
         if (! MainFrame.getMainFrame().isReadOnly()) {
-            backupThread = new BackupThread();
-            backupThread.start();
+            backupSource.start();
         }
 
+        datamapLinter.start();
+
         if (edu.umich.soar.visualsoar.misc.Prefs.autoSoarCompleteEnabled.getBoolean()) {
             Keymap keymap = editorPane.getKeymap();
 
@@ -208,7 +231,7 @@ public class RuleEditor extends CustomInternalFrame {
 
                             //Remove any highlights
                             if (lastHighlight != null) {
-                                highlighter.removeAllHighlights();
+                                highlighter.removeHighlight(lastHighlight);
                                 lastHighlight = null;
                             }
                         } catch (BadLocationException ble) {
@@ -250,8 +273,7 @@ public class RuleEditor extends CustomInternalFrame {
         registerDocumentListeners();
         //Autobackup
         if (! MainFrame.getMainFrame().isReadOnly()) {
-            backupThread = new BackupThread();
-            backupThread.start();
+            backupSource.start();
         }
 
         editorPane.addCaretListener(
@@ -297,6 +319,7 @@ public class RuleEditor extends CustomInternalFrame {
                 });
 
         doc.addUndoableEditListener(undoManager);
+        undoManager.setMemoryBudget(Prefs.undoMemoryBudgetKb.getInt() * 1024L);
     }
 
     private void adjustKeymap() {
@@ -378,10 +401,7 @@ public class RuleEditor extends CustomInternalFrame {
      * @param fn the file name
      */
     private void getData(File fn) throws IOException {
-        Reader fr =
-                new edu.umich.soar.visualsoar.util.TabRemovingReader(new FileReader(fn));
-        editorPane.read(fr);
-        fr.close();
+        editorPane.read(fn.toPath());
     }
 
     @NotNull
@@ -408,7 +428,9 @@ public class RuleEditor extends CustomInternalFrame {
     public void highlightSection(int startOffset, int endOffset) {
         try {
             editorPane.setCaretPosition(startOffset);
-            highlighter.removeAllHighlights();
+            if (lastHighlight != null) {
+                highlighter.removeHighlight(lastHighlight);
+            }
             lastHighlight = highlighter.addHighlight(startOffset,
                     endOffset,
                     hlPainter);
@@ -990,11 +1012,20 @@ public class RuleEditor extends CustomInternalFrame {
     }
 
 
+    /**
+     * @return the productions in this editor; only those edited since the last call are parsed
+     * @see SoarDocument#parseProductions()
+     */
     public Vector<SoarProduction> parseProductions() throws ParseException {
         makeValidForParser();
-        SoarParser parser = new SoarParser(new StringReader(getAllText()));
+        return editorPane.getSoarDocument().parseProductions();
+    }
 
-        return parser.VisualSoarFile();
+    /**
+     * @return where the productions in this editor are now
+     */
+    public List<ProductionIndex.Production> getProductions() {
+        return editorPane.getSoarDocument().getProductionIndex().getProductions();
     }
 
     /**
@@ -1012,15 +1043,48 @@ public class RuleEditor extends CustomInternalFrame {
      */
     private void initLayout() {
         // Take care of the panel to the south
-        JPanel southPanel = new JPanel(new BorderLayout());
+        JPanel southPanel = new JPanel(new BorderLayout()) {
+            private static final long serialVersionUID = 20261019L;
+
+            @Override
+            public String getToolTipText(MouseEvent event) {
+                return "Undo history: " + (undoManager.getMemoryUsage() / 1024) + " KB of "
+                        + (undoManager.getMemoryBudget() / 1024) + " KB";
+            }
+        };
+        ToolTipManager.sharedInstance().registerComponent(southPanel);
         southPanel.add(lineNumberLabel, BorderLayout.WEST);
         southPanel.add(modifiedLabel, BorderLayout.EAST);
 
         // do the rest of the content pane
         Container contentPane = getContentPane();
         contentPane.setLayout(new BorderLayout());
-        contentPane.add(new JScrollPane(editorPane));
+        editorScrollPane = new JScrollPane(editorPane);
+        editorScrollPane.setRowHeaderView(diagnosticGutter);
         contentPane.add(southPanel, BorderLayout.SOUTH);
+        setOutlineVisible(Prefs.productionOutlineVisible.getBoolean());
+    }
+
+    /**
+     * Shows or hides the list of productions beside the editor
+     */
+    private void setOutlineVisible(boolean visible) {
+        Container contentPane = getContentPane();
+        if (outlineSplitPane != null) {
+            contentPane.remove(outlineSplitPane);
+            outlineSplitPane = null;
+        }
+        contentPane.remove(editorScrollPane);
+        if (visible) {
+            outlineSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, productionOutline, editorScrollPane);
+            outlineSplitPane.setResizeWeight(0.0);
+            contentPane.add(outlineSplitPane, BorderLayout.CENTER);
+            productionOutline.refresh();
+        } else {
+            contentPane.add(editorScrollPane, BorderLayout.CENTER);
+        }
+        contentPane.revalidate();
+        contentPane.repaint();
     }
 
     /**
@@ -1237,6 +1301,15 @@ public class RuleEditor extends CustomInternalFrame {
         replaceAllAction.addPropertyChangeListener(new ActionButtonAssociation(replaceAllAction, replaceAllItem));
         searchMenu.add(replaceAllItem);
 
+        searchMenu.addSeparator();
+        JCheckBoxMenuItem outlineItem = new JCheckBoxMenuItem("Production Outline",
+                Prefs.productionOutlineVisible.getBoolean());
+        outlineItem.addActionListener(e -> {
+            Prefs.productionOutlineVisible.setBoolean(outlineItem.isSelected());
+            setOutlineVisible(outlineItem.isSelected());
+        });
+        searchMenu.add(outlineItem);
+
         // Register accelerators, mnemonics, shortcuts
         Keymap keymap = editorPane.getKeymap();
 
@@ -1463,18 +1536,11 @@ public class RuleEditor extends CustomInternalFrame {
 		 * Reverts the contents of the editor to it's saved copy
 		 */
 		private void revert() throws IOException {
-			Reader theReader =
-				new edu.umich.soar.visualsoar.util.TabRemovingReader(
-					new FileReader(fileName));
-
-			editorPane.read(theReader);
+			editorPane.read(Paths.get(fileName));
 			registerDocumentListeners();
-			theReader.close();
 
 			modifiedLabel.setText("");
 			setModified(false);
-
-			editorPane.colorSyntax();
 		}
     }
 
@@ -1633,16 +1699,7 @@ public class RuleEditor extends CustomInternalFrame {
         editorPane.setCaretPosition(caretPos);
       }
 
-      AutocompleteContext autocompleteContext =
-          SoarAutocomplete.getAutocompleteContext(
-              editorPane.getCaretPosition(), editorPane.getText(), getNode());
-      if (autocompleteContext != null && !autocompleteContext.filteredSuggestions().isEmpty()) {
-        autocomplete(autocompleteContext, false);
-      } else {
-        MainFrame.getMainFrame()
-            .getFeedbackManager()
-            .setStatusBarMsg("No auto-complete matches found.");
-      }
+      requestCompletions(false);
     }
   }
 
@@ -1654,20 +1711,37 @@ public class RuleEditor extends CustomInternalFrame {
     }
 
     public void actionPerformed(ActionEvent e) {
-      AutocompleteContext autocompleteContext =
-          SoarAutocomplete.getAutocompleteContext(
-              editorPane.getCaretPosition(), editorPane.getText(), getNode());
-      if (autocompleteContext != null && !autocompleteContext.filteredSuggestions().isEmpty()) {
-        autocomplete(autocompleteContext, true);
-      } else {
-        MainFrame.getMainFrame()
-          .getFeedbackManager()
-          .setStatusBarMsg("No auto-complete matches found.");
-        getToolkit().beep();
-      }
+      requestCompletions(true);
     }
   }
 
+  /**
+   * Looks up the completions at the caret in the background and shows them when they are ready.
+   *
+   * @param explicit whether the user asked for completions, in which case a unique completion is
+   *     inserted right away and the lack of any is signalled with a beep
+   */
+  private void requestCompletions(boolean explicit) {
+    SoarWorkingMemoryModel dataMap = MainFrame.getMainFrame().getOperatorWindow().getDatamap();
+    completionService.request(
+        editorPane,
+        dataMap,
+        SoarAutocomplete.stateVertex(dataMap, getNode()),
+        autocompleteContext -> {
+          if (autocompleteContext != null
+              && !autocompleteContext.filteredSuggestions().isEmpty()) {
+            autocomplete(autocompleteContext, explicit);
+          } else {
+            MainFrame.getMainFrame()
+                .getFeedbackManager()
+                .setStatusBarMsg("No auto-complete matches found.");
+            if (explicit) {
+              getToolkit().beep();
+            }
+          }
+        });
+  }
+
   private void autocomplete(AutocompleteContext autocompleteContext, boolean autoInsertPrefix) {
     if (autocompleteContext.filteredSuggestions().isEmpty()) {
       MainFrame.getMainFrame()
@@ -1824,42 +1898,51 @@ public class RuleEditor extends CustomInternalFrame {
         }
     }//class SendAllFilesToSoarAction
 
-	class BackupThread extends Thread {
-        Runnable writeOutControl;
-        boolean closed = false;
-
-        public BackupThread() {
-            writeOutControl = new Runnable() {
-                public void run() {
-                    if (!isClosed()) {
-                        String modifiedLabelText = modifiedLabel.getText();
-                        modifiedLabel.setText("AutoSaving...");
-                        makeValidForParser();
-                        try {
-                            FileWriter fw = new FileWriter(fileName + "~");
-                            editorPane.write(fw);
-                            fw.close();
-                        } catch (IOException ioe) { /* ignore */ }
-                        modifiedLabel.setText(modifiedLabelText);
-                    } else {
-                        closed = true;
-                    }
-                }
-            };
+    /**
+     * Backs up the editor's text to file~ whenever it has changed since the
+     * last backup.
+     *
+     * @see Autosave
+     */
+    class BackupSource implements Autosave.Source {
+        private SoarDocument backedUpDocument;
+        private long backedUpRevision;
+
+        /** Starts backing up changes made from now on */
+        void start() {
+            backedUpDocument = editorPane.getSoarDocument();
+            backedUpRevision = backedUpDocument.getRevision();
+            Autosave.register(this);
+        }
 
+        @Override
+        public boolean isActive() {
+            return !isClosed();
         }
 
-        public void run() {
-            try {
-                while (!closed) {
-                    SwingUtilities.invokeAndWait(writeOutControl);
-                    // 3 minutes
-                    sleep(60000 * 3);
-                }
-            } catch (InterruptedException | InvocationTargetException ie) {
-                /* ignore */
+        @Override
+        public Autosave.Snapshot snapshot() {
+            SoarDocument doc = editorPane.getSoarDocument();
+            if ((doc == backedUpDocument) && (doc.getRevision() == backedUpRevision)) {
+                return null;
             }
+            backedUpDocument = doc;
+            backedUpRevision = doc.getRevision();
+
+            String text = editorPane.getText();
+            Object lineSeparator = doc.getProperty(DefaultEditorKit.EndOfLineStringProperty);
+            return new Autosave.Snapshot(Paths.get(fileName + "~"), () -> {
+                //Same as makeValidForParser() but without touching the document
+                String backup = text;
+                if (backup.lastIndexOf("#") > backup.lastIndexOf("\n")) {
+                    backup += "\n";
+                }
+                if ((lineSeparator instanceof String) && !lineSeparator.equals("\n")) {
+                    backup = backup.replace("\n", (String) lineSeparator);
+                }
+                return backup.getBytes(Charset.defaultCharset());
+            });
         }
-    }//class BackupThread
+    }//class BackupSource
 }//class RuleEditor
 
@@ -0,0 +1,92 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.util.TabRemovingReader;
+
+import javax.swing.text.DefaultEditorKit;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The text of a rule file as the editor shows it. Reading a file this way gives the same text as
+ * passing a {@link TabRemovingReader} to the editor kit: each tab becomes two spaces and all line
+ * endings become {@code \n}. The line ending the file used is remembered so it can be written back
+ * the same way.
+ */
+final class RuleFileContents {
+  private static final String LF = "\n";
+  private static final String CR = "\r";
+  private static final String CRLF = "\r\n";
+
+  private final String text;
+  private final String lineSeparator;
+
+  private RuleFileContents(String text, String lineSeparator) {
+    this.text = text;
+    this.lineSeparator = lineSeparator;
+  }
+
+  /** Reads the whole file at once, decoding it with the platform charset as FileReader does. */
+  static RuleFileContents read(Path file) throws IOException {
+    CharBuffer chars = Charset.defaultCharset().decode(ByteBuffer.wrap(Files.readAllBytes(file)));
+    return of(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+  }
+
+  static RuleFileContents of(char[] chars, int offset, int length) {
+    int end = offset + length;
+
+    // most files need no changes at all, and a plain scan is cheap to find that out
+    int tabs = 0;
+    boolean anyCR = false;
+    for (int i = offset; i < end; i++) {
+      char c = chars[i];
+      if (c == '\t') {
+        tabs++;
+      } else if (c == '\r') {
+        anyCR = true;
+      }
+    }
+    if (tabs == 0 && !anyCR) {
+      return new RuleFileContents(new String(chars, offset, length), LF);
+    }
+
+    char[] out = new char[length + tabs];
+    int n = 0;
+    boolean sawCRLF = false;
+    boolean sawCR = false;
+    for (int i = offset; i < end; i++) {
+      char c = chars[i];
+      if (c == '\t') {
+        out[n++] = ' ';
+        out[n++] = ' ';
+      } else if (c == '\r') {
+        out[n++] = '\n';
+        if (i + 1 < end && chars[i + 1] == '\n') {
+          sawCRLF = true;
+          i++;
+        } else {
+          sawCR = true;
+        }
+      } else {
+        out[n++] = c;
+      }
+    }
+    String lineSeparator = sawCRLF ? CRLF : sawCR ? CR : LF;
+    return new RuleFileContents(new String(out, 0, n), lineSeparator);
+  }
+
+  String getText() {
+    return text;
+  }
+
+  /**
+   * @return the line ending used in the file, as {@link DefaultEditorKit#EndOfLineStringProperty}
+   *     expects it
+   */
+  String getLineSeparator() {
+    return lineSeparator;
+  }
+}
@@ -0,0 +1,196 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import javax.swing.Timer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Highlights the other occurrences of the selected text in an editor. Only the visible lines and
+ * {@link #MARGIN_LINES} on either side of them are searched, and at most {@link #MAX_HIGHLIGHTS}
+ * occurrences are highlighted, so selecting a common token in a large file stays cheap. The first
+ * change after a pause is highlighted right away; changes that follow it closely, such as those
+ * from dragging the mouse, are combined into one update once they pause for {@link
+ * #DEBOUNCE_MS}. An update only adds and removes the highlights that differ from the last one.
+ */
+class SelectionOccurrences {
+  /** How long a burst of selection changes has to pause before the highlights catch up */
+  static final int DEBOUNCE_MS = 150;
+
+  /** How many lines beyond the visible ones are searched */
+  static final int MARGIN_LINES = 100;
+
+  static final int MAX_HIGHLIGHTS = 500;
+
+  private final JTextComponent textComponent;
+  private final Timer timer;
+  private boolean pending = false;
+
+  /** what is highlighted now, or null if nothing is */
+  private String target = null;
+
+  private Highlighter.HighlightPainter painter;
+
+  private final List<Highlighter.Highlight> highlights = new ArrayList<>();
+
+  SelectionOccurrences(JTextComponent textComponent) {
+    this.textComponent = textComponent;
+    timer = new Timer(DEBOUNCE_MS, e -> updatePending());
+    timer.setRepeats(false);
+  }
+
+  /**
+   * Brings the highlights up to date with the selection and the visible part of the text, now or
+   * soon. Must be called on the event dispatch thread.
+   *
+   * @param selectedText the text to highlight, or null to highlight nothing
+   */
+  void request(String selectedText, Highlighter.HighlightPainter painter) {
+    this.painter = painter;
+    if (selectedText == null || selectedText.isEmpty()) {
+      // cheap, and the user expects it to be immediate
+      timer.stop();
+      pending = false;
+      clear();
+      return;
+    }
+    if (!selectedText.equals(target)) {
+      clear();
+      target = selectedText;
+    }
+    if (timer.isRunning()) {
+      pending = true;
+      timer.restart();
+    } else {
+      update();
+      timer.start();
+    }
+  }
+
+  /** Searches again, e.g., because the visible part of the text changed */
+  void refresh() {
+    if (target != null) {
+      request(target, painter);
+    }
+  }
+
+  /**
+   * Ends the current burst of changes now rather than after {@link #DEBOUNCE_MS}, bringing the
+   * highlights up to date if any change is waiting. Must be called on the event dispatch thread.
+   */
+  void flush() {
+    timer.stop();
+    updatePending();
+  }
+
+  private void updatePending() {
+    if (pending) {
+      pending = false;
+      update();
+    }
+  }
+
+  /** Removes every occurrence highlight */
+  void clear() {
+    Highlighter highlighter = textComponent.getHighlighter();
+    for (Highlighter.Highlight highlight : highlights) {
+      highlighter.removeHighlight(highlight);
+    }
+    highlights.clear();
+    target = null;
+  }
+
+  private void update() {
+    if (target == null) {
+      return;
+    }
+    Document document = textComponent.getDocument();
+    int[] range = searchRange(document);
+    Set<Integer> found = new LinkedHashSet<>();
+    try {
+      Segment text = new Segment();
+      document.getText(range[0], range[1] - range[0], text);
+      int selectionStart = textComponent.getSelectionStart();
+      for (int i = indexOf(text, target, 0);
+          i >= 0 && found.size() < MAX_HIGHLIGHTS;
+          i = indexOf(text, target, i + target.length())) {
+        // don't highlight the current selection
+        if (range[0] + i != selectionStart) {
+          found.add(range[0] + i);
+        }
+      }
+    } catch (BadLocationException e) {
+      clear();
+      return;
+    }
+
+    // keep the highlights that are still wanted, and add the missing ones
+    Highlighter highlighter = textComponent.getHighlighter();
+    List<Highlighter.Highlight> kept = new ArrayList<>();
+    for (Highlighter.Highlight highlight : highlights) {
+      if (highlight.getEndOffset() - highlight.getStartOffset() == target.length()
+          && highlight.getPainter() == painter
+          && found.remove(highlight.getStartOffset())) {
+        kept.add(highlight);
+      } else {
+        highlighter.removeHighlight(highlight);
+      }
+    }
+    highlights.clear();
+    highlights.addAll(kept);
+    try {
+      for (int start : found) {
+        highlights.add(
+            (Highlighter.Highlight)
+                highlighter.addHighlight(start, start + target.length(), painter));
+      }
+    } catch (BadLocationException e) {
+      clear();
+    }
+  }
+
+  /** @return the {start, end} offsets of the visible lines plus the margin */
+  private int[] searchRange(Document document) {
+    Element root = document.getDefaultRootElement();
+    Rectangle visible = textComponent.getVisibleRect();
+    int firstLine = root.getElementIndex(textComponent.viewToModel2D(visible.getLocation()));
+    int lastLine =
+        root.getElementIndex(
+            textComponent.viewToModel2D(
+                new Point(visible.x + visible.width, visible.y + visible.height)));
+    firstLine = Math.max(0, firstLine - MARGIN_LINES);
+    lastLine = Math.min(root.getElementCount() - 1, lastLine + MARGIN_LINES);
+    return new int[] {
+      root.getElement(firstLine).getStartOffset(),
+      Math.min(root.getElement(lastLine).getEndOffset(), document.getLength())
+    };
+  }
+
+  /** @return where {@code target} next occurs in the text at or after {@code from}, or -1 */
+  static int indexOf(Segment text, String target, int from) {
+    int last = text.count - target.length();
+    char first = target.charAt(0);
+    for (int i = from; i <= last; i++) {
+      if (text.array[text.offset + i] != first) {
+        continue;
+      }
+      int j = 1;
+      while (j < target.length() && text.array[text.offset + i + j] == target.charAt(j)) {
+        j++;
+      }
+      if (j == target.length()) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
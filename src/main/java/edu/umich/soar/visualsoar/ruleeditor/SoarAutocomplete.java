@@ -12,6 +12,9 @@ import edu.umich.soar.visualsoar.parser.SoarParser;
 import edu.umich.soar.visualsoar.parser.SoarProduction;
 import org.jetbrains.annotations.Nullable;
 
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -22,6 +25,22 @@ import java.util.List;
 // TODO: Next: Write some tests. For variables, be sure to test "^ " (empty attribute name).
 public class SoarAutocomplete {
 
+  /**
+   * What the user is in the middle of typing: an attribute or a value. The template is the
+   * production so far, with {@code <$$>} standing in for the text being completed.
+   */
+  static final class Query {
+    final boolean attribute;
+    final String userType;
+    final String template;
+
+    private Query(boolean attribute, String userType, String template) {
+      this.attribute = attribute;
+      this.userType = userType;
+      this.template = template;
+    }
+  }
+
   /**
    * Populate an auto-complete context for the document at the given position.
    *
@@ -29,6 +48,7 @@ public class SoarAutocomplete {
    * @param document entire document text
    * @return the constructed context, or null if no heuristic construction was possible or there was
    *     a parse error
+   * @see CompletionService for computing completions while the user types
    */
   @Nullable
   public static AutocompleteContext getAutocompleteContext(
@@ -39,7 +59,63 @@ public class SoarAutocomplete {
     if (sp_pos == -1) {
       return null;
     }
-    String prodSoFar = document.substring(sp_pos, caretPos);
+    Query query = query(document.substring(sp_pos, caretPos));
+    if (query == null) {
+      return null;
+    }
+    SoarWorkingMemoryModel dataMap = MainFrame.getMainFrame().getOperatorWindow().getDatamap();
+    SoarIdentifierVertex siv = stateVertex(dataMap, associatedNode);
+    try {
+      List<String> completeMatches;
+      if (query.attribute) {
+        completeMatches = getAttributeMatches(query.template, dataMap, siv);
+      } else {
+        completeMatches = getVariableMatches(query.template);
+        List<String> values = new ArrayList<>();
+        for (EnumerationVertex ev : getValueMatches(query.template, dataMap, siv)) {
+          Iterator<String> iter = ev.getEnumeration();
+          while (iter.hasNext()) {
+            values.add(iter.next());
+          }
+        }
+        Collections.sort(values);
+        completeMatches.addAll(values);
+      }
+      return new AutocompleteContext(query.userType, completeMatches);
+    } catch (ParseException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Finds the text from the start of the production being edited to the caret, as {@code
+   * document.getText().lastIndexOf("sp ", caretPos)} would, but without copying the document.
+   *
+   * @return the production so far, or null if the caret is not in a production
+   */
+  @Nullable
+  static String productionBeforeCaret(Document document, int caretPos)
+      throws BadLocationException {
+    // the "sp " may start at the caret, so look a little past it
+    int length = Math.min(caretPos + 3, document.getLength());
+    Segment text = new Segment();
+    document.getText(0, length, text);
+    for (int i = Math.min(caretPos, length - 3); i >= 0; i--) {
+      int at = text.offset + i;
+      if (text.array[at] == 's' && text.array[at + 1] == 'p' && text.array[at + 2] == ' ') {
+        return new String(text.array, at, caretPos - i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Works out what is being completed from the production text before the caret.
+   *
+   * @return the query, or null if the caret is not at an attribute or value
+   */
+  @Nullable
+  static Query query(String prodSoFar) {
     int arrowPos = prodSoFar.indexOf("-->");
     String end;
     if (arrowPos == -1) {
@@ -51,86 +127,61 @@ public class SoarAutocomplete {
     int period = prodSoFar.lastIndexOf(".");
     int space = prodSoFar.lastIndexOf(" ");
 
-    try {
-      // The most relevant is the caret
-      if ((period == -1 && caret != -1 && space != -1 && caret > space)
-          || (period != -1 && caret != -1 && space != -1 && period < caret && space < caret)) {
-        String userType = prodSoFar.substring(caret + 1);
-        prodSoFar = prodSoFar.substring(0, caret + 1) + "<$$>" + end;
-        return SoarAutocomplete.attributeComplete(userType, prodSoFar, document, associatedNode);
-      }
-      // The most relevant is the period
-      else if (period != -1 && caret != -1 && space != -1 && period > caret && period > space) {
-        String userType = prodSoFar.substring(period + 1);
-        prodSoFar = prodSoFar.substring(0, period + 1) + "<$$>" + end;
-        return SoarAutocomplete.attributeComplete(userType, prodSoFar, document, associatedNode);
-      }
-      // The most relevant is the space
-      else if ((period == -1 && caret != -1 && space != -1 && space > caret)
-          || (period != -1 && caret != -1 && space != -1 && space > caret && space > period)) {
-        String userType = prodSoFar.substring(space + 1);
-        prodSoFar = prodSoFar.substring(0, space + 1) + "<$$>" + end;
-        return SoarAutocomplete.valueComplete(userType, prodSoFar, document, associatedNode);
-      }
-      // Failure
-      else {
-        return null;
-      }
-    } catch (ParseException e) {
+    // The most relevant is the caret
+    if ((period == -1 && caret != -1 && space != -1 && caret > space)
+        || (period != -1 && caret != -1 && space != -1 && period < caret && space < caret)) {
+      String userType = prodSoFar.substring(caret + 1);
+      String template = prodSoFar.substring(0, caret + 1) + "<$$>" + end;
+      return new Query(true, userType, makeStringValidForParser(template));
+    }
+    // The most relevant is the period
+    else if (period != -1 && caret != -1 && space != -1 && period > caret && period > space) {
+      String userType = prodSoFar.substring(period + 1);
+      String template = prodSoFar.substring(0, period + 1) + "<$$>" + end;
+      return new Query(true, userType, makeStringValidForParser(template));
+    }
+    // The most relevant is the space
+    else if ((period == -1 && caret != -1 && space != -1 && space > caret)
+        || (period != -1 && caret != -1 && space != -1 && space > caret && space > period)) {
+      String userType = prodSoFar.substring(space + 1);
+      String template = prodSoFar.substring(0, space + 1) + "<$$>" + end;
+      return new Query(false, userType, makeStringValidForParser(template));
+    }
+    // Failure
+    else {
       return null;
     }
   }
 
-  private static AutocompleteContext valueComplete(
-      String userType, String prodSoFar, String fullText, OperatorNode associatedNode)
-      throws ParseException {
-    List<String> completeMatches = getVariableMatches(prodSoFar);
-    completeMatches.addAll(getValueMatches(prodSoFar, fullText, associatedNode));
-    return new AutocompleteContext(userType, completeMatches);
-  }
-
-  private static AutocompleteContext attributeComplete(
-      String userType, String prodSoFar, String fullText, OperatorNode associatedNode)
-      throws ParseException {
-    List<String> completeMatches = getAttributeMatches(prodSoFar, fullText, associatedNode);
-    return new AutocompleteContext(userType, completeMatches);
+  /** @return the state the associated node's productions match against */
+  static SoarIdentifierVertex stateVertex(
+      SoarWorkingMemoryModel dataMap, OperatorNode associatedNode) {
+    SoarIdentifierVertex siv =
+        ((OperatorNode) associatedNode.getParent()).getStateIdVertex(dataMap);
+    return siv != null ? siv : dataMap.getTopstate();
   }
 
   /**
    * Retrieves the strings associated with entries in the datamap with attributes that match the
    * user's current production.
    *
-   * @param prodSoFar The content of the production so far
-   * @param fullText editorPane.getText()
-   * @param associatedNode the node the rule editor is associated with
-   * @return a list of possible completions (could be empty)
+   * @param template The content of the production so far
+   * @param dataMap the project's datamap
+   * @param siv the state the production matches against
+   * @return a sorted list of possible completions (could be empty)
    */
-  private static List<String> getAttributeMatches(
-      String prodSoFar, String fullText, OperatorNode associatedNode) throws ParseException {
-    // parse the code the user has written so far
-    prodSoFar = makeStringValidForParser(prodSoFar, fullText);
-    SoarParser soarParser = new SoarParser(new StringReader(prodSoFar));
-    SoarProduction sp = soarParser.soarProduction();
-
-    // Find all matching string via the datamap
-    List<DataMapMatcher.Match> matches;
-    SoarWorkingMemoryModel dataMap = MainFrame.getMainFrame().getOperatorWindow().getDatamap();
-    SoarIdentifierVertex siv =
-        ((OperatorNode) associatedNode.getParent()).getStateIdVertex(dataMap);
-    if (siv != null) {
-      matches = dataMap.matches(siv, sp, "<$$>");
-    } else {
-      matches = dataMap.matches(dataMap.getTopstate(), sp, "<$$>");
-    }
+  static List<String> getAttributeMatches(
+      String template, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex siv)
+      throws ParseException {
     List<String> completeMatches = new LinkedList<>();
-    for (DataMapMatcher.Match match : matches) {
+    for (DataMapMatcher.Match match : matchTemplate(template, dataMap, siv)) {
       completeMatches.add(match.toString());
     }
     Collections.sort(completeMatches);
     return completeMatches;
   }
 
-  private static List<String> getVariableMatches(String prodSoFar) {
+  static List<String> getVariableMatches(String prodSoFar) {
     // given logic in caller, we know for a fact that there is a caret and a space, maybe a period
     int attStart = prodSoFar.lastIndexOf("^");
     int period = prodSoFar.lastIndexOf(".");
@@ -149,50 +200,43 @@ public class SoarAutocomplete {
   }
 
   /**
-   * Retrieves the strings associated with entries in the datamap with values that match the user's
-   * current production.
+   * Retrieves the enumerations in the datamap with values that match the user's current
+   * production.
    *
-   * @param prodSoFar
-   * @param associatedNode the node the rule editor is associated with
-   * @param fullText editorPane.getText()
+   * @param template The content of the production so far
+   * @param dataMap the project's datamap
+   * @param siv the state the production matches against
    */
 
   // TODO: here we should also suggest a <variable> with the name of its matched attribute
   // TODO: It should not be suggested if the user has typed something that doesn't start with <
-  private static List<String> getValueMatches(
-      String prodSoFar, String fullText, OperatorNode associatedNode) throws ParseException {
-    SoarWorkingMemoryModel dataMap = MainFrame.getMainFrame().getOperatorWindow().getDatamap();
-    prodSoFar = makeStringValidForParser(prodSoFar, fullText);
-    SoarParser soarParser = new SoarParser(new StringReader(prodSoFar));
-    SoarProduction sp = soarParser.soarProduction();
-    OperatorNode parent = (OperatorNode) associatedNode.getParent();
-    List<DataMapMatcher.Match> matches;
-    SoarIdentifierVertex siv = parent.getStateIdVertex(dataMap);
-    if (siv != null) {
-      matches = dataMap.matches(siv, sp, "<$$>");
-    } else {
-      matches = dataMap.matches(dataMap.getTopstate(), sp, "<$$>");
-    }
-    List<String> completeMatches = new LinkedList<>();
-    for (DataMapMatcher.Match match : matches) {
+  static List<EnumerationVertex> getValueMatches(
+      String template, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex siv)
+      throws ParseException {
+    List<EnumerationVertex> enumerations = new ArrayList<>();
+    for (DataMapMatcher.Match match : matchTemplate(template, dataMap, siv)) {
       if (match.getVertex() instanceof EnumerationVertex) {
-        EnumerationVertex ev = (EnumerationVertex) match.getVertex();
-        Iterator<String> iter = ev.getEnumeration();
-        while (iter.hasNext()) {
-          String enumString = iter.next();
-          completeMatches.add(enumString);
-        }
+        enumerations.add((EnumerationVertex) match.getVertex());
       }
     }
+    return enumerations;
+  }
 
-    Collections.sort(completeMatches);
-    return completeMatches;
+  private static List<DataMapMatcher.Match> matchTemplate(
+      String template, SoarWorkingMemoryModel dataMap, SoarIdentifierVertex siv)
+      throws ParseException {
+    // parse the code the user has written so far
+    SoarParser soarParser = new SoarParser(new StringReader(template));
+    SoarProduction sp = soarParser.soarProduction();
+
+    // Find all matching string via the datamap
+    return dataMap.matches(siv, sp, "<$$>");
   }
 
-  /** Same as above but for a given string */
-  private static String makeStringValidForParser(String prod, String fullText) {
-    int pound = fullText.lastIndexOf("#");
-    int nl = fullText.lastIndexOf("\n");
+  /** the parser expects a comment to end with a newline */
+  private static String makeStringValidForParser(String prod) {
+    int pound = prod.lastIndexOf("#");
+    int nl = prod.lastIndexOf("\n");
     if ((pound != -1) && (nl < pound)) {
       prod += "\n";
     }
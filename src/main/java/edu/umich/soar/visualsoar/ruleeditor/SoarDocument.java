@@ -4,6 +4,7 @@ import edu.umich.soar.visualsoar.mainframe.MainFrame;
 import edu.umich.soar.visualsoar.misc.Prefs;
 import edu.umich.soar.visualsoar.misc.SyntaxColor;
 import edu.umich.soar.visualsoar.parser.*;
+import edu.umich.soar.visualsoar.profiling.SyntaxHighlightEvent;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
@@ -12,6 +13,12 @@ import java.awt.*;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
 
 public class SoarDocument extends DefaultStyledDocument {
     private static final long serialVersionUID = 20221225L;
@@ -37,6 +44,34 @@ public class SoarDocument extends DefaultStyledDocument {
     /** to support Read-Only mode */
     public boolean isReadOnly = false;
 
+    /** counts changes to the text (but not its highlighting) */
+    private volatile long revision = 0;
+
+    /**
+     * The parse of one piece of the text: a production, or the comments and commands between two
+     * productions. Its bounds follow the text as it moves, and it goes stale when an edit touches
+     * it.
+     */
+    private static final class ParsedChunk {
+        final Position start;
+        final Position end;
+        final int startLine;
+        final List<SoarProduction> productions;
+        boolean stale = false;
+
+        ParsedChunk(Position start, Position end, int startLine, List<SoarProduction> productions) {
+            this.start = start;
+            this.end = end;
+            this.startLine = startLine;
+            this.productions = productions;
+        }
+    }
+
+    /** the chunks from the last successful parse, in order; guarded by itself */
+    private final List<ParsedChunk> parsedChunks = new ArrayList<>();
+
+    private final ProductionIndex productionIndex = new ProductionIndex(this);
+
   private final Prefs.PrefsChangeListener fontSizeListener =
       newVal -> {
         try {
@@ -79,6 +114,185 @@ public class SoarDocument extends DefaultStyledDocument {
     });
   }
 
+    /**
+     * @return a number that changes whenever text is inserted or removed, so that callers can
+     * tell whether the document has changed since they last looked
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /** @return where the productions in this document are, kept up to date as it is edited */
+    public ProductionIndex getProductionIndex() {
+        return productionIndex;
+    }
+
+    @Override
+    protected void insertUpdate(DefaultDocumentEvent chng, AttributeSet attr) {
+        revision++;
+        // the text is already in, and the chunks after it have moved
+        markChunksStale(chng.getOffset(), chng.getOffset() + chng.getLength());
+        super.insertUpdate(chng, attr);
+    }
+
+    @Override
+    protected void removeUpdate(DefaultDocumentEvent chng) {
+        revision++;
+        // the text is still there
+        markChunksStale(chng.getOffset(), chng.getOffset() + chng.getLength());
+        super.removeUpdate(chng);
+    }
+
+    /** Marks the chunks that overlap or touch the given range as needing to be parsed again. */
+    private void markChunksStale(int start, int end) {
+        synchronized (parsedChunks) {
+            for (ParsedChunk chunk : parsedChunks) {
+                if (chunk.start.getOffset() <= end && start <= chunk.end.getOffset()) {
+                    chunk.stale = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the productions in this document. The document is split into its productions and the
+     * text between them, and only the pieces that were edited since the last call are parsed
+     * again; the rest are taken from the last call. The parser records absolute line numbers, so
+     * a piece that moved to another line is parsed again as well. If any piece does not parse, the
+     * whole document is parsed, so that the exception is the same as it would be without the
+     * cache. Safe to call on any thread.
+     *
+     * @return the productions, in the order they appear
+     * @throws ParseException if the document is not valid Soar
+     */
+    public Vector<SoarProduction> parseProductions() throws ParseException {
+        String[] text = new String[1];
+        long[] textRevision = new long[1];
+        Map<Long, ParsedChunk> reusable = new HashMap<>();
+        render(() -> {
+            try {
+                text[0] = getText(0, getLength());
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+            textRevision[0] = revision;
+            synchronized (parsedChunks) {
+                for (ParsedChunk chunk : parsedChunks) {
+                    if (!chunk.stale) {
+                        reusable.put(chunkKey(chunk.start.getOffset(), chunk.end.getOffset()), chunk);
+                    }
+                }
+            }
+        });
+
+        List<int[]> pieces = pieces(text[0]);
+        List<List<SoarProduction>> parsed = new ArrayList<>();
+        Vector<SoarProduction> productions = new Vector<>();
+        for (int[] piece : pieces) {
+            ParsedChunk cached = reusable.get(chunkKey(piece[0], piece[1]));
+            List<SoarProduction> found;
+            if (cached != null && cached.startLine == piece[2]) {
+                found = cached.productions;
+            } else {
+                try {
+                    found = parseChunk(text[0].substring(piece[0], piece[1]), piece[2]);
+                } catch (ParseException | TokenMgrError e) {
+                    return parseAll(text[0]);
+                }
+            }
+            parsed.add(found);
+            productions.addAll(found);
+        }
+
+        render(() -> {
+            // if the text changed in the meantime, positions can't be made for these bounds
+            if (revision != textRevision[0]) {
+                return;
+            }
+            synchronized (parsedChunks) {
+                parsedChunks.clear();
+                try {
+                    for (int i = 0; i < pieces.size(); i++) {
+                        int[] piece = pieces.get(i);
+                        parsedChunks.add(new ParsedChunk(
+                                createPosition(piece[0]), createPosition(piece[1]), piece[2], parsed.get(i)));
+                    }
+                } catch (BadLocationException e) {
+                    parsedChunks.clear();
+                }
+            }
+        });
+        return productions;
+    }
+
+    /** Parses the whole text, without the cache, and drops the cache. */
+    @SuppressWarnings("unchecked")
+    private Vector<SoarProduction> parseAll(String text) throws ParseException {
+        synchronized (parsedChunks) {
+            parsedChunks.clear();
+        }
+        return new SoarParser(new StringReader(text)).VisualSoarFile();
+    }
+
+    /**
+     * @param startLine the line the chunk starts on, counting from 0
+     * @return the productions in the chunk, with their line numbers counted from the start of the
+     * document
+     */
+    @SuppressWarnings("unchecked")
+    private static List<SoarProduction> parseChunk(String chunk, int startLine) throws ParseException {
+        // a comment has to end with a newline
+        if (chunk.lastIndexOf('#') > chunk.lastIndexOf('\n')) {
+            chunk += "\n";
+        }
+        SimpleCharStream stream = new SimpleCharStream(new StringReader(chunk), startLine + 1, 1);
+        List<SoarProduction> productions = new SoarParser(new SoarParserTokenManager(stream)).VisualSoarFile();
+        return productions.isEmpty() ? Collections.emptyList() : productions;
+    }
+
+    /**
+     * Splits the text into its productions and the text between them, leaving out the pieces that
+     * are only whitespace.
+     *
+     * @return each piece as {start, end, line it starts on}
+     */
+    private static List<int[]> pieces(String text) {
+        List<int[]> pieces = new ArrayList<>();
+        int offset = 0;
+        int line = 0;
+        for (ProductionSpans.Span span : ProductionSpans.scan(text)) {
+            addPiece(pieces, text, offset, span.getStart(), line);
+            addPiece(pieces, text, span.getStart(), span.getEnd(), span.getStartLine());
+            offset = span.getEnd();
+            line = span.getStartLine() + countLines(text, span.getStart(), span.getEnd());
+        }
+        addPiece(pieces, text, offset, text.length(), line);
+        return pieces;
+    }
+
+    private static void addPiece(List<int[]> pieces, String text, int start, int end, int line) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                pieces.add(new int[]{start, end, line});
+                return;
+            }
+        }
+    }
+
+    private static long chunkKey(int start, int end) {
+        return ((long) start << 32) | end;
+    }
+
+    private static int countLines(String text, int start, int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
     public String getLastInsertedText() {
         return this.lastInsertedText;
     }
@@ -122,6 +336,16 @@ public class SoarDocument extends DefaultStyledDocument {
 
     }//insertString()
 
+    /**
+     * Fills a new, empty document with the contents of a file.  Unlike
+     * {@link #insertString} this does no highlighting, so it should be
+     * followed by one pass over the whole document.
+     */
+    void load(RuleFileContents contents) throws BadLocationException {
+        super.insertString(0, contents.getText(), null);
+        putProperty(DefaultEditorKit.EndOfLineStringProperty, contents.getLineSeparator());
+    }
+
     public void remove(int offs, int len) throws BadLocationException {
         //Enforce read-only mode
         if (isReadOnly) {
@@ -425,6 +649,14 @@ public class SoarDocument extends DefaultStyledDocument {
         (new ColorSyntaxThread(r)).start();
     }
 
+    /**
+     * Colors the syntax of the whole document on the calling thread, as
+     * {@link #colorSyntax(Reader)} does in the background
+     */
+    void colorSyntaxNow(Reader r) {
+        new ColorSyntaxThread(r).colorSyntax();
+    }
+
     class ColorSyntaxThread extends Thread {
         Reader r;
 
@@ -438,6 +670,13 @@ public class SoarDocument extends DefaultStyledDocument {
 
         //Color the syntax of an entire file
         public void colorSyntax() {
+            SyntaxHighlightEvent event = new SyntaxHighlightEvent();
+            event.begin();
+            colorTokens();
+            commitHighlight(event, "file", 0);
+        }
+
+        private void colorTokens() {
             Token currToken;
             Element currElem;
             int currLineNum;
@@ -582,6 +821,13 @@ public class SoarDocument extends DefaultStyledDocument {
 
     //Color the syntax of a single line
     public void colorSyntax(int caretPos) {
+        SyntaxHighlightEvent event = new SyntaxHighlightEvent();
+        event.begin();
+        colorLine(caretPos);
+        commitHighlight(event, "line", root.getElementIndex(caretPos));
+    }
+
+    private void colorLine(int caretPos) {
         Content data = getContent();
         int lineNum = root.getElementIndex(caretPos);
         Element currElem = root.getElement(lineNum);
@@ -625,6 +871,13 @@ public class SoarDocument extends DefaultStyledDocument {
 
     //Color the syntax of a specified region
     public void colorSyntax(int caretPos, Reader r) {
+        SyntaxHighlightEvent event = new SyntaxHighlightEvent();
+        event.begin();
+        colorRegion(caretPos, r);
+        commitHighlight(event, "region", root.getElementIndex(caretPos));
+    }
+
+    private void colorRegion(int caretPos, Reader r) {
         int startLineNum = root.getElementIndex(caretPos);
         Token currToken = new Token();
 
@@ -657,6 +910,16 @@ public class SoarDocument extends DefaultStyledDocument {
         }  // iterate through tokens
     } // colorSyntax() (specific section)
 
+    private void commitHighlight(SyntaxHighlightEvent event, String scope, int startLine) {
+        if (event.shouldCommit()) {
+            event.scope = scope;
+            event.documentLength = getLength();
+            event.lines = root.getElementCount();
+            event.startLine = startLine;
+            event.commit();
+        }
+    }
+
     /**
      * Justifies a chunk of text from in the rule editor.
      * If nothing is highlighted, then justifies the entire document
@@ -1,10 +1,7 @@
 package edu.umich.soar.visualsoar;
 
 import edu.umich.soar.visualsoar.operatorwindow.OperatorRootNode;
-import edu.umich.soar.visualsoar.util.IdGenerator;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
 
 import java.io.File;
 import java.io.IOException;
@@ -12,6 +9,9 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,20 +21,11 @@ class ProjectModelTest {
   @Test
   void newProject() throws IOException, URISyntaxException {
     Path tempDir = Files.createTempDirectory("roundTripOperatorWindow");
-    ProjectModel pm;
-    // Force use of sequential IDs to make the project output deterministic.
-    // TODO: would be nicer if we could inject an ID provider instead
-    try (MockedStatic<IdGenerator> mockedStatic = Mockito.mockStatic(IdGenerator.class)) {
-      AtomicInteger counter = new AtomicInteger();
-      mockedStatic
-          .when(IdGenerator::getId)
-          .thenAnswer(
-              (invocation -> {
-                counter.getAndIncrement();
-                return counter.toString();
-              }));
-      pm = ProjectModel.newProject("foo", tempDir);
-    }
+    // Use sequential IDs to make the project output deterministic.
+    AtomicInteger counter = new AtomicInteger();
+    ProjectModel pm =
+        ProjectModel.newProject(
+            "foo", tempDir, () -> Integer.toString(counter.incrementAndGet()));
 
     OperatorRootNode root = (OperatorRootNode) pm.operatorHierarchy.getRoot();
 
@@ -58,4 +49,35 @@ class ProjectModelTest {
     String expectedJsonRaw = Files.readString(expectedJsonPath).replaceAll("\r\n", "\n");
     assertEquals(expectedJsonRaw, actualJsonRaw);
   }
+
+  private static Path testProjectPath() throws URISyntaxException {
+    return Paths.get(
+        ProjectModelTest.class
+            .getResource("test_projects/no-datamap-errors/no-datamap-errors.vsa.json")
+            .toURI());
+  }
+
+  @Test
+  void openReportsEachPhase() throws IOException, URISyntaxException {
+    List<String> phases = new ArrayList<>();
+    ProjectModel pm = ProjectModel.openExistingProject(testProjectPath(), false, phases::add);
+
+    assertNotNull(pm.operatorHierarchy.getRoot());
+    assertEquals(List.of("Reading project and datamap", "Building operator hierarchy"), phases);
+  }
+
+  @Test
+  void openCanBeCancelled() {
+    assertThrows(
+        CancellationException.class,
+        () ->
+            ProjectModel.openExistingProject(
+                testProjectPath(),
+                false,
+                phase -> {
+                  if (phase.equals("Building operator hierarchy")) {
+                    throw new CancellationException();
+                  }
+                }));
+  }
 }
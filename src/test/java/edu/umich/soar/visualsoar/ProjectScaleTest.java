@@ -0,0 +1,131 @@
+package edu.umich.soar.visualsoar;
+
+import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the common whole-project operations stay within time and memory budgets on a large
+ * generated agent. The budgets are several times what a developer laptop needs, so that only real
+ * regressions fail. These tests take a while and are left out of {@code ./gradlew test}; run them
+ * with {@code ./gradlew scaleTest}.
+ */
+@Tag("scale")
+class ProjectScaleTest {
+  // 7300 productions in 730 files
+  private static final SyntheticAgent.Options LARGE =
+      new SyntheticAgent.Options()
+          .seed(42)
+          .depth(3)
+          .width(8)
+          .filesPerState(2)
+          .productionsPerFile(10)
+          .datamapVertices(20_000)
+          .fanOut(8)
+          .errorPercent(2);
+
+  private static final long OPEN_BUDGET_MS = 5_000;
+  private static final long OPEN_MEMORY_BUDGET_MB = 100;
+  private static final long CHECK_BUDGET_MS = 30_000;
+  private static final long SAVE_BUDGET_MS = 5_000;
+  private static final long FIND_BUDGET_MS = 5_000;
+
+  private static Path directory;
+  private static SyntheticAgent agent;
+
+  @BeforeAll
+  static void generate() throws IOException {
+    directory = Files.createTempDirectory("scale");
+    agent = SyntheticAgent.generate(LARGE, directory);
+  }
+
+  @AfterAll
+  static void delete() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Test
+  void open() throws IOException {
+    long before = usedHeap();
+    long start = System.nanoTime();
+    ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+    assertWithin("open", OPEN_BUDGET_MS, start);
+
+    long retainedMb = (usedHeap() - before) / (1024 * 1024);
+    assertTrue(
+        retainedMb <= OPEN_MEMORY_BUDGET_MB,
+        "The open project takes " + retainedMb + " MB, over its budget of "
+            + OPEN_MEMORY_BUDGET_MB + " MB");
+    // also keeps the project from being collected before its memory is measured
+    assertTrue(pm.fileIndex().size() > agent.getRuleFiles());
+  }
+
+  @Test
+  void check() throws IOException {
+    ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+    long start = System.nanoTime();
+    List<FeedbackListEntry> errors = CheckAllProductionsAction.checkAllProductions(pm);
+    assertWithin("check", CHECK_BUDGET_MS, start);
+
+    Set<String> wrong = new TreeSet<>();
+    for (FeedbackListEntry entry : errors) {
+      wrong.add(((FeedbackEntryOpNode) entry).getProdName());
+    }
+    assertEquals(agent.getErroneousProductions(), wrong);
+  }
+
+  @Test
+  void save() throws IOException {
+    ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+    Path copy = directory.resolve("copy.vsa.json");
+    long start = System.nanoTime();
+    pm.writeProject(copy.toFile());
+    assertWithin("save", SAVE_BUDGET_MS, start);
+    Files.delete(copy);
+  }
+
+  @Test
+  void find() throws IOException {
+    ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+    long start = System.nanoTime();
+    List<FeedbackListEntry> found = pm.fileIndex().find("^ATTR-3", false);
+    assertWithin("find", FIND_BUDGET_MS, start);
+    assertFalse(found.isEmpty());
+  }
+
+  private static void assertWithin(String operation, long budgetMs, long startNanos) {
+    long ms = (System.nanoTime() - startNanos) / 1_000_000;
+    assertTrue(
+        ms <= budgetMs,
+        operation + " took " + ms + " ms, over its budget of " + budgetMs + " ms");
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,382 @@
+package edu.umich.soar.visualsoar;
+
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.graph.SoarIdentifierVertex;
+import edu.umich.soar.visualsoar.graph.SoarVertex;
+import edu.umich.soar.visualsoar.operatorwindow.FileOperatorNode;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorNode;
+import edu.umich.soar.visualsoar.operatorwindow.OperatorRootNode;
+import edu.umich.soar.visualsoar.operatorwindow.SoarOperatorNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes a complete VisualSoar project of any size, for scale tests and benchmarks. The project is
+ * built the way the operator window builds one, starting from {@link ProjectModel#newProject}: each
+ * operator gets its own rule file, and operators above the last level become high-level operators
+ * with their own state, folder, and sub-operators. Every state also gets some elaboration files.
+ *
+ * <p>Every state links to one shared tree of data in the datamap, and each production tests a
+ * random path through it. A given percentage of the productions test an attribute that is not in
+ * the datamap, and {@link #getErroneousProductions()} lists them, so a datamap check should find
+ * exactly those. The same options always produce the same project, byte for byte.
+ */
+public final class SyntheticAgent {
+
+  /** What to generate. The defaults make a small agent of about 200 productions. */
+  public static final class Options {
+    private String name = "synthetic";
+    private long seed = 0;
+    private int depth = 2;
+    private int width = 4;
+    private int filesPerState = 2;
+    private int productionsPerFile = 8;
+    private int datamapVertices = 500;
+    private int fanOut = 6;
+    private int errorPercent = 5;
+
+    /** The project's name, which is also the top state's name */
+    public Options name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    /** Decides the paths that the productions test and which productions are wrong */
+    public Options seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /** How many levels of operators there are; all but the last are high-level operators */
+    public Options depth(int depth) {
+      this.depth = depth;
+      return this;
+    }
+
+    /** How many operators each state has */
+    public Options width(int width) {
+      this.width = width;
+      return this;
+    }
+
+    /** How many elaboration files each state has */
+    public Options filesPerState(int filesPerState) {
+      this.filesPerState = filesPerState;
+      return this;
+    }
+
+    public Options productionsPerFile(int productionsPerFile) {
+      this.productionsPerFile = productionsPerFile;
+      return this;
+    }
+
+    /** How many vertices the shared data tree has */
+    public Options datamapVertices(int datamapVertices) {
+      this.datamapVertices = datamapVertices;
+      return this;
+    }
+
+    /** How many attributes each identifier in the data tree has */
+    public Options fanOut(int fanOut) {
+      this.fanOut = fanOut;
+      return this;
+    }
+
+    /** The percentage of productions that don't match the datamap */
+    public Options errorPercent(int errorPercent) {
+      this.errorPercent = errorPercent;
+      return this;
+    }
+  }
+
+  private final Path projectFile;
+  private final int operators;
+  private final int ruleFiles;
+  private final int productions;
+  private final Set<String> erroneousProductions;
+
+  private SyntheticAgent(
+      Path projectFile,
+      int operators,
+      int ruleFiles,
+      int productions,
+      Set<String> erroneousProductions) {
+    this.projectFile = projectFile;
+    this.operators = operators;
+    this.ruleFiles = ruleFiles;
+    this.productions = productions;
+    this.erroneousProductions = Collections.unmodifiableSet(erroneousProductions);
+  }
+
+  /**
+   * Writes the project's {@code .vsa.json} file and its folder of rule files into a directory,
+   * which must exist and should be empty.
+   */
+  public static SyntheticAgent generate(Options options, Path directory) throws IOException {
+    return new Generator(options, directory).generate();
+  }
+
+  /** @return the project's {@code .vsa.json} file */
+  public Path getProjectFile() {
+    return projectFile;
+  }
+
+  public int getOperators() {
+    return operators;
+  }
+
+  /** @return the number of rule files with generated productions in them */
+  public int getRuleFiles() {
+    return ruleFiles;
+  }
+
+  /** @return the number of generated productions */
+  public int getProductions() {
+    return productions;
+  }
+
+  /** @return the names of the productions that don't match the datamap */
+  public Set<String> getErroneousProductions() {
+    return erroneousProductions;
+  }
+
+  private static final class Generator {
+    private final Options options;
+    private final Path projectFile;
+    private final Random random;
+    private final ProjectModel pm;
+    private final SoarWorkingMemoryModel swmm;
+
+    /** The attributes of each identifier in the shared data tree */
+    private final Map<SoarVertex, List<DataEdge>> data = new HashMap<>();
+
+    private SoarIdentifierVertex dataRoot;
+    private SoarVertex count;
+    private int operators = 0;
+    private int ruleFiles = 0;
+    private int productions = 0;
+    private final Set<String> erroneousProductions = new TreeSet<>();
+
+    Generator(Options options, Path directory) throws IOException {
+      this.options = options;
+      this.projectFile = directory.resolve(options.name + ".vsa.json");
+      this.random = new Random(options.seed);
+      // sequential IDs, so that the same options always write the same files
+      AtomicLong lastId = new AtomicLong();
+      pm =
+          ProjectModel.newProject(
+              options.name, projectFile, () -> Long.toString(lastId.incrementAndGet()));
+      if (pm.operatorHierarchy == null) {
+        throw new IOException("Could not create the project in " + directory);
+      }
+      swmm = pm.swmm;
+    }
+
+    SyntheticAgent generate() throws IOException {
+      buildData();
+      OperatorRootNode root = (OperatorRootNode) pm.operatorHierarchy.getRoot();
+      SoarIdentifierVertex topState = swmm.getTopstate();
+      addStateData(topState);
+
+      OperatorNode elaborations = childNamed(root, "elaborations");
+      for (int i = 1; i <= options.filesPerState; i++) {
+        addElaborationFile(elaborations, options.name, i);
+      }
+      for (int i = 1; i <= options.width; i++) {
+        addOperator(root, topState, options.name, "op-" + i, 1);
+      }
+
+      root.sourceRecursive().join();
+      pm.writeProject(projectFile.toFile());
+      return new SyntheticAgent(
+          projectFile, operators, ruleFiles, productions, erroneousProductions);
+    }
+
+    /** Builds the data tree breadth first until it has the requested number of vertices */
+    private void buildData() {
+      dataRoot = swmm.createNewSoarId();
+      count = swmm.createNewInteger();
+      int vertices = 1;
+      int identifiers = Math.max(1, (options.fanOut + 1) / 2);
+      Deque<SoarIdentifierVertex> queue = new ArrayDeque<>();
+      queue.add(dataRoot);
+      while (vertices < options.datamapVertices && !queue.isEmpty()) {
+        SoarIdentifierVertex parent = queue.poll();
+        List<DataEdge> edges = new ArrayList<>();
+        for (int k = 0; k < options.fanOut && vertices < options.datamapVertices; k++) {
+          SoarVertex child;
+          if (k < identifiers) {
+            SoarIdentifierVertex id = swmm.createNewSoarId();
+            queue.add(id);
+            child = id;
+          } else {
+            child = swmm.createNewInteger();
+          }
+          swmm.addTriple(parent, "attr-" + k, child);
+          edges.add(new DataEdge("attr-" + k, child));
+          vertices++;
+        }
+        data.put(parent, edges);
+      }
+    }
+
+    private void addStateData(SoarIdentifierVertex state) {
+      swmm.addTriple(state, "data", dataRoot);
+      swmm.addTriple(state, "count", count);
+    }
+
+    private void addOperator(
+        OperatorNode parent, SoarIdentifierVertex state, String stateName, String name, int level)
+        throws IOException {
+      SoarIdentifierVertex operatorId = swmm.createNewSoarId();
+      swmm.addTriple(state, "operator", operatorId);
+      swmm.addTriple(operatorId, "name", swmm.createNewEnumeration(name));
+      swmm.addTriple(operatorId, "done", swmm.createNewEnumeration("yes"));
+
+      boolean highLevel = level < options.depth;
+      SoarIdentifierVertex subState = null;
+      SoarOperatorNode node;
+      if (highLevel) {
+        subState = swmm.createNewStateId(state, name);
+        addStateData(subState);
+        node = pm.createSoarOperatorNode(name, name + ".soar", name, subState.getValue());
+        node.restoreId(swmm);
+      } else {
+        node = pm.createSoarOperatorNode(name, name + ".soar");
+      }
+      pm.addChild(parent, node);
+      operators++;
+
+      StringBuilder rules = new StringBuilder();
+      appendProduction(
+          rules,
+          "propose*" + name,
+          stateName,
+          null,
+          "   (<s> ^operator <o> +)\n   (<o> ^name " + name + ")\n");
+      for (int i = 1; i < options.productionsPerFile; i++) {
+        appendProduction(
+            rules,
+            "apply*" + name + (i == 1 ? "" : "*" + i),
+            stateName,
+            name,
+            "   (<o> ^done yes)\n");
+      }
+      writeRules(node, rules);
+
+      if (highLevel) {
+        Files.createDirectories(Paths.get(node.getFolderName()));
+        // as the operator window does when an operator gets its first sub-operator
+        FileOperatorNode elaborations =
+            pm.createFileOperatorNode("elaborations", "elaborations.soar");
+        pm.addChild(node, elaborations);
+        Files.createFile(Paths.get(elaborations.getFileName()));
+        for (int i = 1; i <= options.filesPerState; i++) {
+          addElaborationFile(node, name, i);
+        }
+        for (int i = 1; i <= options.width; i++) {
+          addOperator(node, subState, name, name + "-" + i, level + 1);
+        }
+      }
+    }
+
+    private void addElaborationFile(OperatorNode parent, String stateName, int number)
+        throws IOException {
+      String name = "elab-" + number;
+      FileOperatorNode node = pm.createFileOperatorNode(name, name + ".soar");
+      pm.addChild(parent, node);
+      StringBuilder rules = new StringBuilder();
+      for (int i = 1; i <= options.productionsPerFile; i++) {
+        appendProduction(
+            rules,
+            "elaborate*" + stateName + "*" + name + "*" + i,
+            stateName,
+            null,
+            "   (<s> ^count " + i + ")\n");
+      }
+      writeRules(node, rules);
+    }
+
+    private void writeRules(OperatorNode node, StringBuilder rules) throws IOException {
+      Files.writeString(Paths.get(node.getFileName()), rules);
+      ruleFiles++;
+    }
+
+    /**
+     * Adds a production that tests a random path through the data tree
+     *
+     * @param operator the name of the operator the production tests, or null if it tests none
+     */
+    private void appendProduction(
+        StringBuilder rules, String name, String stateName, String operator, String action) {
+      rules.append("sp {").append(name).append('\n');
+      rules.append("   (state <s> ^name ").append(stateName).append('\n');
+      if (operator != null) {
+        rules.append("              ^operator <o>\n");
+      }
+      rules.append("              ^data <d>)\n");
+      if (operator != null) {
+        rules.append("   (<o> ^name ").append(operator).append(")\n");
+      }
+
+      boolean wrong = random.nextInt(100) < options.errorPercent;
+      int steps = 1 + random.nextInt(3);
+      SoarVertex at = dataRoot;
+      String variable = "<d>";
+      for (int step = 1; step <= steps; step++) {
+        List<DataEdge> edges = data.get(at);
+        DataEdge edge = edges.get(random.nextInt(edges.size()));
+        boolean last = step == steps || !data.containsKey(edge.value);
+        String attribute = last && wrong ? "missing-" + (productions + 1) : edge.attribute;
+        String value = "<v" + step + ">";
+        rules.append("   (").append(variable).append(" ^").append(attribute).append(' ')
+            .append(value).append(")\n");
+        if (last) {
+          break;
+        }
+        at = edge.value;
+        variable = value;
+      }
+
+      rules.append("-->\n").append(action).append("}\n\n");
+      productions++;
+      if (wrong) {
+        erroneousProductions.add(name);
+      }
+    }
+
+    private static OperatorNode childNamed(OperatorNode parent, String name) {
+      for (int i = 0; i < parent.getChildCount(); i++) {
+        OperatorNode child = (OperatorNode) parent.getChildAt(i);
+        if (child.getName().equals(name)) {
+          return child;
+        }
+      }
+      throw new IllegalStateException("New projects should have a " + name + " folder");
+    }
+  }
+
+  private static final class DataEdge {
+    final String attribute;
+    final SoarVertex value;
+
+    DataEdge(String attribute, SoarVertex value) {
+      this.attribute = attribute;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package edu.umich.soar.visualsoar;
+
+import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackEntryOpNode;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SyntheticAgentTest {
+
+  @Test
+  void sameOptionsWriteTheSameProject(
+      @TempDir Path first, @TempDir Path second, @TempDir Path third) throws IOException {
+    SyntheticAgent.Options options = new SyntheticAgent.Options().seed(7);
+    SyntheticAgent.generate(options, first);
+    SyntheticAgent.generate(options, second);
+    assertEquals(contents(first), contents(second));
+
+    SyntheticAgent.generate(new SyntheticAgent.Options().seed(8), third);
+    assertNotEquals(contents(first), contents(third));
+  }
+
+  @Test
+  void checkFindsExactlyTheIntendedErrors(@TempDir Path directory) throws IOException {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options().depth(3).width(3).errorPercent(10), directory);
+    // 3 + 9 + 27 operators, and 2 elaboration files in each of the 13 states
+    assertEquals(39, agent.getOperators());
+    assertEquals(39 + 26, agent.getRuleFiles());
+    assertEquals(8 * agent.getRuleFiles(), agent.getProductions());
+    assertFalse(agent.getErroneousProductions().isEmpty());
+
+    ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+    Set<String> wrong = new TreeSet<>();
+    for (FeedbackListEntry entry : CheckAllProductionsAction.checkAllProductions(pm)) {
+      assertEquals(FeedbackEntryOpNode.class, entry.getClass(), entry.getMessage());
+      wrong.add(((FeedbackEntryOpNode) entry).getProdName());
+    }
+    assertEquals(agent.getErroneousProductions(), wrong);
+  }
+
+  /** @return the relative path and content of every file under the directory */
+  private static Map<String, String> contents(Path directory) throws IOException {
+    Map<String, String> contents = new TreeMap<>();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        contents.put(directory.relativize(file).toString(), Files.readString(file));
+      }
+    }
+    return contents;
+  }
+}
@@ -4,12 +4,20 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import org.apache.commons.cli.ParseException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 
 class VisualSoarTest {
@@ -153,6 +161,285 @@ class VisualSoarTest {
     }
   }
 
+  @Test
+  void testMainMethodCheckSeveralProjects(@TempDir Path directory)
+      throws ParseException, URISyntaxException, IOException {
+    try (MockedStatic<VisualSoar> mockedVisualSoar =
+        mockStatic(
+            VisualSoar.class,
+            invocation -> {
+              if (invocation.getMethod().getName().equals("systemExit")) {
+                return null;
+              }
+              return invocation.callRealMethod();
+            })) {
+
+      Path noErrorProject =
+          Path.of(
+              getClass()
+                  .getResource("test_projects/no-datamap-errors/no-datamap-errors.vsa.json")
+                  .toURI());
+      Path errorProject =
+          Path.of(
+              getClass()
+                  .getResource("test_projects/has-datamap-errors/has-datamap-errors.vsa.json")
+                  .toURI());
+      // the same project twice is only checked once
+      Path manifest = directory.resolve("projects.txt");
+      Files.writeString(
+          manifest,
+          "# agents checked in CI\n"
+              + noErrorProject
+              + "\n\n"
+              + directory.relativize(errorProject)
+              + "\n"
+              + noErrorProject
+              + "\n");
+
+      PrintStream originalOut = System.out;
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      System.setOut(new PrintStream(outputStream));
+      try {
+        VisualSoar.main(
+            new String[] {
+              "--check", "productionsAgainstDatamap", "--manifest", manifest.toString(), "--json"
+            });
+        mockedVisualSoar.verify(() -> VisualSoar.systemExit(1));
+
+        String[] lines = outputStream.toString().replace("\r\n", "\n").trim().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals(
+            "{\"project\": \"no-datamap-errors\", \"message\": \"✅ No datamap issues found!\", \"severity\": 3, \"source\": \"VisualSoar\"}",
+            lines[0]);
+        for (int i = 1; i < lines.length; i++) {
+          assertTrue(
+              lines[i].startsWith("{\"project\": \"has-datamap-errors\", \"message\": "),
+              lines[i]);
+        }
+      } finally {
+        System.setOut(originalOut);
+      }
+    }
+  }
+
+  @Test
+  void testMainMethodCheckEmptyManifest(@TempDir Path directory) throws ParseException, IOException {
+    try (MockedStatic<VisualSoar> mockedVisualSoar =
+        mockStatic(
+            VisualSoar.class,
+            invocation -> {
+              if (invocation.getMethod().getName().equals("systemExit")) {
+                return null;
+              }
+              return invocation.callRealMethod();
+            })) {
+      Path manifest = directory.resolve("projects.txt");
+      Files.writeString(manifest, "# no agents yet\n");
+
+      PrintStream originalErr = System.err;
+      ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+      System.setErr(new PrintStream(errorStream));
+      try {
+        VisualSoar.main(
+            new String[] {"--check", "productionsAgainstDatamap", "--manifest", manifest.toString()});
+        mockedVisualSoar.verify(() -> VisualSoar.systemExit(1));
+        assertTrue(errorStream.toString().contains("No projects to check"), errorStream.toString());
+      } finally {
+        System.setErr(originalErr);
+      }
+    }
+  }
+
+  @Test
+  void testMainMethodCheckFilesGivenWithCommas() throws Exception {
+    Path projectFile = errorProjectFile();
+    Path folder = projectFile.resolveSibling("has-datamap-errors");
+    Run all = run("", "--check", "productionsAgainstDatamap", "--project", projectFile.toString());
+
+    // listed out of order, along with a rule file and a file that are not part of the project
+    Path notInProject = projectFile.resolveSibling("notes.soar");
+    Run some =
+        run(
+            "",
+            "--check",
+            "productionsAgainstDatamap",
+            "--project",
+            projectFile.toString(),
+            "--files",
+            folder.resolve("elaborations/top-state.soar")
+                + ","
+                + folder.resolve("initialize-has-datamap-errors.soar")
+                + ","
+                + notInProject
+                + ","
+                + projectFile.resolveSibling("readme.md"));
+
+    assertEquals(1, some.exitCode);
+    // the only files with problems, reported file by file in the order of the whole project
+    assertEquals(all.out, some.out);
+    assertTrue(some.out.startsWith("❌ propose*initialize-has-datamap-errors"), some.out);
+    assertEquals(
+        "Skipping " + notInProject + ", which is not a rule file of the project", some.err);
+  }
+
+  @Test
+  void testMainMethodCheckFilesFromStandardInput() throws Exception {
+    Path projectFile = errorProjectFile();
+    Path topState = projectFile.resolveSibling("has-datamap-errors/elaborations/top-state.soar");
+
+    Run run =
+        run(
+            topState + "\n\n",
+            "--check",
+            "productionsAgainstDatamap",
+            "--project",
+            projectFile.toString(),
+            "--files",
+            "-");
+
+    assertEquals(1, run.exitCode);
+    assertEquals(
+        "❌ Unable to check productions due to parse error\n"
+            + "❌ elaborations/top-state(10): parser.ParseException: Encountered \" <VARIABLE> \"<op> \"\" at line 10, column 4.\n"
+            + "Was expecting:\n"
+            + "    \"-->\" ...",
+        run.out.replace('\\', '/'));
+    assertEquals("", run.err);
+  }
+
+  @Test
+  void testMainMethodCheckFilesIncludingTheProjectFile() throws Exception {
+    Path projectFile = errorProjectFile();
+    Run all =
+        run("", "--check", "productionsAgainstDatamap", "--project", projectFile.toString(), "--json");
+
+    // the datamap may have changed, so every file is checked
+    Run listed =
+        run(
+            "",
+            "--check",
+            "productionsAgainstDatamap",
+            "--project",
+            projectFile.toString(),
+            "--json",
+            "--files",
+            projectFile.resolveSibling("has-datamap-errors/_firstload.soar") + "," + projectFile);
+
+    assertEquals(1, listed.exitCode);
+    assertEquals(all.out, listed.out);
+    assertEquals(3, listed.out.split("\n").length);
+  }
+
+  @Test
+  void testMainMethodCheckFilesWithoutProblems() throws Exception {
+    Path projectFile = errorProjectFile();
+
+    Run run =
+        run(
+            "",
+            "--check",
+            "productionsAgainstDatamap",
+            "--project",
+            projectFile.toString(),
+            "--files",
+            projectFile.resolveSibling("has-datamap-errors/_firstload.soar").toString());
+
+    assertEquals(0, run.exitCode);
+    assertEquals("✅ No datamap issues found!", run.out);
+  }
+
+  @Test
+  void testMainMethodCheckStats() throws Exception {
+    Path projectFile = errorProjectFile();
+
+    Run run =
+        run(
+            "",
+            "--check",
+            "productionsAgainstDatamap",
+            "--project",
+            projectFile.toString(),
+            "--json",
+            "--stats");
+
+    assertEquals(1, run.exitCode);
+    assertEquals(3, run.out.split("\n").length);
+    // one JSON line on standard error, after the diagnostics
+    assertFalse(run.err.contains("\n"), run.err);
+    JsonNode stats = new ObjectMapper().readTree(run.err).path("stats");
+    assertEquals(4, stats.path("files").asInt());
+    assertEquals(2, stats.path("productions").asInt());
+    assertEquals(3, stats.path("diagnostics").asInt());
+    assertTrue(stats.path("phasesMs").has("Checking productions"), run.err);
+    assertEquals(
+        projectFile.resolveSibling("has-datamap-errors/initialize-has-datamap-errors.soar").toString(),
+        stats.path("slowestFiles").get(0).path("file").asText());
+  }
+
+  private Path errorProjectFile() throws URISyntaxException {
+    return Path.of(
+        getClass()
+            .getResource("test_projects/has-datamap-errors/has-datamap-errors.vsa.json")
+            .toURI());
+  }
+
+  /** What a run of the command line wrote, and the code it exited with (0 if it did not exit) */
+  private static class Run {
+    final String out;
+    final String err;
+    final int exitCode;
+
+    Run(String out, String err, int exitCode) {
+      this.out = out;
+      this.err = err;
+      this.exitCode = exitCode;
+    }
+  }
+
+  /**
+   * Runs {@link VisualSoar#main(String[])} with the given standard input, without letting it exit.
+   * The output is trimmed, with its line endings normalized to \n.
+   */
+  private static Run run(String input, String... args) throws ParseException {
+    int[] exitCode = {0};
+    try (MockedStatic<VisualSoar> mockedVisualSoar =
+        mockStatic(
+            VisualSoar.class,
+            invocation -> {
+              if (invocation.getMethod().getName().equals("systemExit")) {
+                if (exitCode[0] == 0) {
+                  exitCode[0] = invocation.getArgument(0);
+                }
+                return null;
+              }
+              return invocation.callRealMethod();
+            })) {
+      InputStream originalIn = System.in;
+      PrintStream originalOut = System.out;
+      PrintStream originalErr = System.err;
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+      System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+      System.setOut(new PrintStream(outputStream, true, StandardCharsets.UTF_8));
+      System.setErr(new PrintStream(errorStream, true, StandardCharsets.UTF_8));
+      try {
+        VisualSoar.main(args);
+      } finally {
+        System.setIn(originalIn);
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+      }
+      return new Run(
+          normalize(outputStream.toString(StandardCharsets.UTF_8)),
+          normalize(errorStream.toString(StandardCharsets.UTF_8)),
+          exitCode[0]);
+    }
+  }
+
+  private static String normalize(String output) {
+    return output.replace("\r\n", "\n").trim();
+  }
+
   private static String jsonPathString(Path path) {
     return String.valueOf(
         JsonStringEncoder.getInstance().quoteAsString(path.toAbsolutePath().toString()));
@@ -0,0 +1,109 @@
+package edu.umich.soar.visualsoar.datamap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.files.projectjson.Project;
+import edu.umich.soar.visualsoar.graph.NamedEdge;
+import edu.umich.soar.visualsoar.graph.SoarVertex;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+class ProjectJsonReaderTest {
+
+  private static final String LAYOUT =
+      "\"layout\": {\"folder\": \"p\", \"id\": \"L0\", \"name\": \"p\", \"type\": \"OPERATOR_ROOT\"},"
+          + "\"version\": \"6\"";
+
+  private static Path resource(String name) throws URISyntaxException {
+    return Paths.get(
+        ProjectJsonReaderTest.class
+            .getResource("/edu/umich/soar/visualsoar/files/projectjson/" + name)
+            .toURI());
+  }
+
+  private static Path writeTemp(String json) throws IOException {
+    Path path = Files.createTempFile("project-json-reader", ".vsa.json");
+    Files.writeString(path, json);
+    return path;
+  }
+
+  /** The streaming reader must build the same datamap as the databind-based loader. */
+  @ParameterizedTest
+  @ValueSource(strings = {"sample.json", "sample_numbered_ids.json"})
+  public void matchesDatabindLoader(String fileName) throws Exception {
+    Path path = resource(fileName);
+    SoarWorkingMemoryModel expected =
+        SoarWorkingMemoryReader.loadFromJson(Project.loadJsonFile(path).datamap, path);
+
+    ProjectJsonReader.LoadedProject actual = ProjectJsonReader.read(path);
+
+    assertEquals(expected.toJson(), actual.swmm.toJson());
+    assertEquals(expected.numberOfVertices(), actual.swmm.numberOfVertices());
+    assertEquals(Project.loadJsonFile(path).layout, actual.layout);
+  }
+
+  @Test
+  public void rootIdMayFollowVertices() throws IOException {
+    Path path =
+        writeTemp(
+            "{\"datamap\": {\"vertices\": ["
+                + "{\"id\": \"a\", \"type\": \"STRING\"},"
+                + "{\"id\": \"b\", \"outEdges\": [{\"name\": \"x\", \"toId\": \"a\"}], \"type\": \"SOAR_ID\"},"
+                + "{\"id\": \"c\", \"type\": \"STRING\"}"
+                + "], \"rootId\": \"b\"},"
+                + LAYOUT
+                + "}");
+
+    SoarWorkingMemoryModel swmm = ProjectJsonReader.readDatamap(path);
+
+    assertEquals(3, swmm.numberOfVertices());
+    assertEquals("b", swmm.getTopstate().getSerializationId());
+    assertEquals(0, swmm.getTopstate().getValue());
+    // remaining ids must still be contiguous
+    for (int i = 0; i < 3; i++) {
+      SoarVertex v = swmm.getVertexForId(i);
+      assertEquals(i, v.getValue());
+      assertSame(v, swmm.getVertexForSerializationId(v.getSerializationId()));
+    }
+    List<NamedEdge> edges = Collections.list(swmm.emanatingEdges(swmm.getTopstate()));
+    assertEquals(1, edges.size());
+    assertEquals("a", edges.get(0).V1().getSerializationId());
+  }
+
+  @Test
+  public void unknownToIdIsReported() throws IOException {
+    Path path =
+        writeTemp(
+            "{\"datamap\": {\"rootId\": \"r\", \"vertices\": ["
+                + "{\"id\": \"r\", \"outEdges\": [{\"name\": \"x\", \"toId\": \"nope\"}], \"type\": \"SOAR_ID\"}"
+                + "]},"
+                + LAYOUT
+                + "}");
+
+    IOException e = assertThrows(IOException.class, () -> ProjectJsonReader.readDatamap(path));
+    assertTrue(e.getMessage().contains("nope"), e.getMessage());
+  }
+
+  @Test
+  public void duplicateVertexIdIsReported() throws IOException {
+    Path path =
+        writeTemp(
+            "{\"datamap\": {\"rootId\": \"r\", \"vertices\": ["
+                + "{\"id\": \"r\", \"type\": \"SOAR_ID\"},"
+                + "{\"id\": \"r\", \"type\": \"STRING\"}"
+                + "]},"
+                + LAYOUT
+                + "}");
+
+    IOException e = assertThrows(IOException.class, () -> ProjectJsonReader.readDatamap(path));
+    assertTrue(e.getMessage().contains("used more than once"), e.getMessage());
+  }
+}
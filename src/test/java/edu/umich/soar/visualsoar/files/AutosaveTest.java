@@ -0,0 +1,125 @@
+package edu.umich.soar.visualsoar.files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AutosaveTest {
+  private Path backup;
+  private TestSource source;
+
+  /** Backs up a string whenever its revision changes. */
+  private class TestSource implements Autosave.Source {
+    String text = "sp {a (state <s>) --> (<s> ^a b)}\n";
+    int revision = 1;
+    int backedUpRevision = 0;
+    boolean active = true;
+    int snapshots = 0;
+
+    @Override
+    public boolean isActive() {
+      return active;
+    }
+
+    @Override
+    public Autosave.Snapshot snapshot() {
+      if (revision == backedUpRevision) {
+        return null;
+      }
+      backedUpRevision = revision;
+      snapshots++;
+      String content = text;
+      return new Autosave.Snapshot(backup, () -> content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    backup = Files.createTempDirectory("autosave").resolve("rules.soar~");
+    source = new TestSource();
+    Autosave.register(source);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    Autosave.unregister(source);
+  }
+
+  @Test
+  public void changedSourcesAreBackedUp() throws IOException {
+    assertEquals(1, Autosave.backUpAll());
+    assertEquals(source.text, Files.readString(backup));
+
+    source.text = "sp {b (state <s>) --> (<s> ^b c)}\n";
+    source.revision++;
+    assertEquals(1, Autosave.backUpAll());
+    assertEquals(source.text, Files.readString(backup));
+  }
+
+  @Test
+  public void unchangedSourcesAreNotSnapshotted() {
+    Autosave.backUpAll();
+    Autosave.backUpAll();
+
+    assertEquals(1, source.snapshots);
+  }
+
+  @Test
+  public void unchangedContentIsNotRewritten() {
+    Autosave.backUpAll();
+
+    // e.g. an edit that was undone
+    source.revision++;
+    assertEquals(0, Autosave.backUpAll());
+    assertEquals(2, source.snapshots);
+  }
+
+  @Test
+  public void inactiveSourcesAreForgotten() {
+    source.active = false;
+    Autosave.backUpAll();
+    source.active = true;
+    Autosave.backUpAll();
+
+    assertEquals(0, source.snapshots);
+    assertFalse(Files.exists(backup));
+  }
+
+  @Test
+  public void contentThatChangedWhileReadIsNotWritten() {
+    Autosave.unregister(source);
+    Autosave.Source live =
+        new Autosave.Source() {
+          @Override
+          public boolean isActive() {
+            return true;
+          }
+
+          @Override
+          public Autosave.Snapshot snapshot() {
+            int revisionAtSnapshot = source.revision;
+            return new Autosave.Snapshot(
+                backup,
+                () -> {
+                  // an edit lands while the content is being read
+                  source.revision++;
+                  return source.text.getBytes(StandardCharsets.UTF_8);
+                },
+                () -> source.revision == revisionAtSnapshot);
+          }
+        };
+    Autosave.register(live);
+    try {
+      assertEquals(0, Autosave.backUpAll());
+      assertFalse(Files.exists(backup));
+    } finally {
+      Autosave.unregister(live);
+    }
+  }
+}
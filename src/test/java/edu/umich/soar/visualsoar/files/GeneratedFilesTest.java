@@ -0,0 +1,98 @@
+package edu.umich.soar.visualsoar.files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GeneratedFilesTest {
+  private Path dir;
+
+  @BeforeEach
+  public void createDir() throws IOException {
+    dir = Files.createTempDirectory("generated-files");
+  }
+
+  @Test
+  public void unchangedFileIsNotRewritten() throws IOException {
+    Path path = dir.resolve("a_source.soar");
+    assertTrue(GeneratedFiles.writeIfChanged(path, "source a.soar\n"));
+    FileTime old = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(path, old);
+
+    assertFalse(GeneratedFiles.writeIfChanged(path, "source a.soar\n"));
+    assertEquals(old, Files.getLastModifiedTime(path));
+  }
+
+  @Test
+  public void changedContentIsWritten() throws IOException {
+    Path path = dir.resolve("a_source.soar");
+    GeneratedFiles.writeIfChanged(path, "source a.soar\n");
+
+    assertTrue(GeneratedFiles.writeIfChanged(path, "source b.soar\n"));
+    assertEquals("source b.soar\n", Files.readString(path));
+  }
+
+  @Test
+  public void externalEditIsDetected() throws IOException {
+    Path path = dir.resolve("a_source.soar");
+    GeneratedFiles.writeIfChanged(path, "source a.soar\n");
+    // same size, different content
+    Files.writeString(path, "source x.soar\n");
+    Files.setLastModifiedTime(path, FileTime.fromMillis(0));
+
+    assertTrue(GeneratedFiles.writeIfChanged(path, "source a.soar\n"));
+    assertEquals("source a.soar\n", Files.readString(path));
+  }
+
+  @Test
+  public void forgottenHashesAreReadAgain() throws IOException {
+    Path path = dir.resolve("a_source.soar");
+    GeneratedFiles.writeIfChanged(path, "source a.soar\n");
+    FileTime written = Files.getLastModifiedTime(path);
+    // an edit that the remembered size and modification time cannot tell apart
+    Files.writeString(path, "source x.soar\n");
+    Files.setLastModifiedTime(path, written);
+
+    GeneratedFiles.forgetHashes();
+    GeneratedFiles.awaitPendingWrites();
+
+    assertTrue(GeneratedFiles.writeIfChanged(path, "source a.soar\n"));
+    assertEquals("source a.soar\n", Files.readString(path));
+  }
+
+  @Test
+  public void writeChangedCountsWrittenFiles() throws IOException {
+    Map<String, String> files = new LinkedHashMap<>();
+    files.put(dir.resolve("a_source.soar").toString(), "source a.soar\n");
+    files.put(dir.resolve("b_source.soar").toString(), "source b.soar\n");
+    assertEquals(2, GeneratedFiles.writeChanged(files));
+
+    files.put(dir.resolve("b_source.soar").toString(), "source c.soar\n");
+    assertEquals(1, GeneratedFiles.writeChanged(files));
+    assertEquals(0, GeneratedFiles.writeChanged(files));
+  }
+
+  @Test
+  public void queuedExportDoesNotOverwriteALaterEdit() throws IOException {
+    String path = dir.resolve("a_source.soar").toString();
+    // an export of many files is still being written when an edit regenerates one of them
+    Map<String, String> export = new LinkedHashMap<>();
+    for (int i = 0; i < 200; i++) {
+      export.put(dir.resolve("op" + i + "_source.soar").toString(), "source op" + i + ".soar\n");
+    }
+    export.put(path, "source old.soar\n");
+    CompletableFuture<Integer> exported = GeneratedFiles.writeChangedLater(export);
+
+    assertEquals(1, GeneratedFiles.writeChanged(Map.of(path, "source new.soar\n")));
+    assertTrue(exported.isDone());
+    assertEquals("source new.soar\n", Files.readString(Path.of(path)));
+  }
+}
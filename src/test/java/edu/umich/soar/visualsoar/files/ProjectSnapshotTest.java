@@ -0,0 +1,72 @@
+package edu.umich.soar.visualsoar.files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.datamap.ProjectJsonReader;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ProjectSnapshotTest {
+  private Path jsonPath;
+
+  @BeforeEach
+  public void copyProject() throws IOException, URISyntaxException {
+    Path original =
+        Paths.get(
+            ProjectSnapshotTest.class
+                .getResource(
+                    "/edu/umich/soar/visualsoar/test_projects/no-datamap-errors/no-datamap-errors.vsa.json")
+                .toURI());
+    Path dir = Files.createTempDirectory("project-snapshot");
+    jsonPath = dir.resolve(original.getFileName());
+    Files.copy(original, jsonPath);
+  }
+
+  @Test
+  public void missingSnapshotIsIgnored() {
+    assertNull(ProjectSnapshot.read(jsonPath));
+  }
+
+  @Test
+  public void roundTripMatchesJson() throws IOException {
+    ProjectJsonReader.LoadedProject fromJson = ProjectJsonReader.read(jsonPath);
+    ProjectSnapshot.write(jsonPath, fromJson.swmm, fromJson.layout);
+
+    ProjectJsonReader.LoadedProject fromSnapshot = ProjectSnapshot.read(jsonPath);
+
+    assertNotNull(fromSnapshot);
+    assertEquals(fromJson.swmm.toJson(), fromSnapshot.swmm.toJson());
+    assertEquals(fromJson.swmm.numberOfVertices(), fromSnapshot.swmm.numberOfVertices());
+    assertEquals(0, fromSnapshot.swmm.getTopstate().getValue());
+    assertEquals(fromJson.layout, fromSnapshot.layout);
+  }
+
+  @Test
+  public void staleSnapshotIsIgnored() throws IOException {
+    ProjectJsonReader.LoadedProject fromJson = ProjectJsonReader.read(jsonPath);
+    ProjectSnapshot.write(jsonPath, fromJson.swmm, fromJson.layout);
+
+    // any edit to the JSON file, even whitespace, invalidates the snapshot
+    Files.writeString(jsonPath, Files.readString(jsonPath) + "\n");
+
+    assertNull(ProjectSnapshot.read(jsonPath));
+  }
+
+  @Test
+  public void corruptSnapshotIsIgnored() throws IOException {
+    ProjectJsonReader.LoadedProject fromJson = ProjectJsonReader.read(jsonPath);
+    ProjectSnapshot.write(jsonPath, fromJson.swmm, fromJson.layout);
+    Path snapshotPath = ProjectSnapshot.snapshotPath(jsonPath);
+    byte[] bytes = Files.readAllBytes(snapshotPath);
+    byte[] truncated = new byte[bytes.length / 2];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+    Files.write(snapshotPath, truncated);
+
+    assertNull(ProjectSnapshot.read(jsonPath));
+  }
+}
@@ -0,0 +1,50 @@
+package edu.umich.soar.visualsoar.headless;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiagnosticSocketTest {
+
+  @Test
+  void sendsLinesInOrder() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+      DiagnosticSocket.Connection connection = new DiagnosticSocket.Connection(server.accept(), 10);
+      assertTrue(connection.send("{\"uri\": \"a\"}"));
+      assertTrue(connection.send("{\"uri\": \"b\"}"));
+
+      BufferedReader in =
+          new BufferedReader(
+              new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+      assertEquals("{\"uri\": \"a\"}", in.readLine());
+      assertEquals("{\"uri\": \"b\"}", in.readLine());
+      connection.close();
+    }
+  }
+
+  @Test
+  void dropsAClientThatStopsReading() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort())) {
+      DiagnosticSocket.Connection connection = new DiagnosticSocket.Connection(server.accept(), 10);
+      String line = "x".repeat(10_000);
+      // far more than the socket buffers hold; sending must never wait for the client
+      int sent = 0;
+      while (sent < 10_000 && connection.send(line)) {
+        sent++;
+      }
+      assertTrue(sent < 10_000, "sent " + sent + " lines to a client that reads nothing");
+      assertFalse(connection.send(line));
+    }
+  }
+}
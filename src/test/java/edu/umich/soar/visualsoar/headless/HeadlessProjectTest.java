@@ -0,0 +1,127 @@
+package edu.umich.soar.visualsoar.headless;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.umich.soar.visualsoar.ProjectModel;
+import edu.umich.soar.visualsoar.SyntheticAgent;
+import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeadlessProjectTest {
+
+  @Test
+  void reportsWhatTheOperatorWindowReports() throws IOException, URISyntaxException {
+    Path projectFile =
+        Path.of(
+            getClass()
+                .getResource(
+                    "/edu/umich/soar/visualsoar/test_projects/has-datamap-errors/has-datamap-errors.vsa.json")
+                .toURI());
+
+    List<FeedbackListEntry> expected =
+        CheckAllProductionsAction.checkAllProductions(ProjectModel.openExistingProject(projectFile));
+    List<FeedbackListEntry> actual = HeadlessProject.open(projectFile).checkAll();
+
+    assertEquals(3, actual.size());
+    assertEquals(describe(expected), describe(actual));
+  }
+
+  @Test
+  void checksProductionsInTheStateOfTheirOperator(@TempDir Path directory) throws IOException {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options().depth(3).width(2).errorPercent(20), directory);
+
+    HeadlessProject project = HeadlessProject.open(agent.getProjectFile());
+    List<FeedbackListEntry> diagnostics = project.checkAll();
+
+    Set<String> wrong = new TreeSet<>();
+    for (FeedbackListEntry diagnostic : diagnostics) {
+      wrong.add(((FileDiagnostic) diagnostic).getProductionName());
+    }
+    assertEquals(agent.getErroneousProductions(), wrong);
+    assertTrue(project.getSourceFiles().size() > agent.getRuleFiles());
+    assertEquals(
+        describe(
+            CheckAllProductionsAction.checkAllProductions(
+                ProjectModel.openExistingProject(agent.getProjectFile()))),
+        describe(diagnostics));
+  }
+
+  @Test
+  void checksTextWithoutChangingTheFile(@TempDir Path directory) throws IOException {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(new SyntheticAgent.Options().depth(1).width(1), directory);
+    HeadlessProject project = HeadlessProject.open(agent.getProjectFile());
+    SourceFile file =
+        project.getSourceFiles().stream()
+            .filter(f -> f.getName().equals("op-1"))
+            .findFirst()
+            .orElseThrow();
+    String onDisk = Files.readString(file.getPath());
+
+    assertTrue(project.check(file).isEmpty());
+
+    // an unclosed production is closed for the check, as in the operator window
+    String edited =
+        "sp {propose*op-1\n   (state <s> ^name synthetic ^nothing yes)\n-->\n   (<s> ^operator <o> +)\n";
+    List<FeedbackListEntry> diagnostics = project.check(file, edited);
+    assertEquals(1, diagnostics.size());
+    FileDiagnostic diagnostic = (FileDiagnostic) diagnostics.get(0);
+    assertEquals("propose*op-1", diagnostic.getProductionName());
+    assertEquals(2, diagnostic.getLine());
+    assertEquals(onDisk, Files.readString(file.getPath()));
+  }
+
+  @Test
+  void countsWhatACheckDid(@TempDir Path directory) throws IOException {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options().depth(1).width(2).errorPercent(0), directory);
+    CheckStats stats = new CheckStats();
+    HeadlessProject project = HeadlessProject.open(agent.getProjectFile(), stats);
+    SourceFile file = project.getSourceFile(directory.resolve("synthetic/./op-1.soar"));
+    assertEquals("op-1", file.getName());
+
+    stats.beginPhase("Checking");
+    project.check(file);
+    project.check(file);
+    stats.fileChecked(file, 1_500_000, project.getCheckedProductions(file).size(), 0);
+
+    JsonNode line = new ObjectMapper().readTree(stats.toJsonLine(project)).path("stats");
+    assertEquals(1, line.path("files").asInt());
+    assertEquals(project.getCheckedProductions(file).size(), line.path("productions").asInt());
+    assertEquals(1, line.path("cacheHits").path("parsedFiles").asInt());
+    assertTrue(line.path("phasesMs").has("Listing source files"));
+    assertTrue(line.path("phasesMs").has("Checking"));
+    assertEquals(1.5, line.path("slowestFiles").get(0).path("ms").asDouble());
+  }
+
+  @Test
+  void opensOnlyJsonProjects(@TempDir Path directory) {
+    assertThrows(IOException.class, () -> HeadlessProject.open(directory.resolve("agent.vsa")));
+  }
+
+  private static List<String> describe(List<FeedbackListEntry> entries) {
+    List<String> descriptions = new ArrayList<>();
+    for (FeedbackListEntry entry : entries) {
+      descriptions.add(entry + "\n" + entry.toJsonLine());
+    }
+    return descriptions;
+  }
+}
@@ -0,0 +1,72 @@
+package edu.umich.soar.visualsoar.headless;
+
+import edu.umich.soar.visualsoar.SyntheticAgent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectWatcherTest {
+
+  @Test
+  void sendsTheDiagnosticsOfEachFileAsItChanges(@TempDir Path directory) throws Exception {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options().depth(1).width(1).errorPercent(0), directory);
+    HeadlessProject project = HeadlessProject.open(agent.getProjectFile());
+    SourceFile file =
+        project.getSourceFiles().stream()
+            .filter(f -> f.getName().equals("op-1"))
+            .findFirst()
+            .orElseThrow();
+    String original = Files.readString(file.getPath());
+    String uri = "{\"uri\": \"file://" + file.getPath() + "\", \"diagnostics\": [";
+
+    BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+    try (ProjectWatcher watcher = new ProjectWatcher(project)) {
+      watcher.addListener(lines::add);
+      Thread thread = new Thread(() -> run(watcher));
+      thread.start();
+      // the synthetic agent has no errors, so the first check sends nothing
+      assertEquals(null, lines.poll(2, TimeUnit.SECONDS));
+
+      Files.writeString(
+          file.getPath(),
+          "sp {propose*op-1\n   (state <s> ^name synthetic ^nothing yes)\n-->\n   (<s> ^operator <o> +)\n}\n");
+      String broken = lines.poll(10, TimeUnit.SECONDS);
+      assertTrue(broken.startsWith(uri), broken);
+      assertFalse(broken.endsWith("[]}"), broken);
+
+      // a listener added later is told about the problems already found
+      List<String> later = new ArrayList<>();
+      watcher.addListener(later::add);
+      assertEquals(List.of(broken), later);
+
+      Files.writeString(file.getPath(), original);
+      assertEquals(uri + "]}", lines.poll(10, TimeUnit.SECONDS));
+
+      watcher.close();
+      thread.join(10_000);
+      assertFalse(thread.isAlive());
+    }
+  }
+
+  private static void run(ProjectWatcher watcher) {
+    try {
+      watcher.run();
+    } catch (IOException | InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
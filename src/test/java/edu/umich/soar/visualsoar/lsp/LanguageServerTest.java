@@ -0,0 +1,242 @@
+package edu.umich.soar.visualsoar.lsp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umich.soar.visualsoar.SyntheticAgent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LanguageServerTest {
+  private JsonRpcConnection client;
+  private int nextId = 1;
+
+  @Test
+  void servesDiagnosticsCompletionsAndDefinitions(@TempDir Path directory) throws Exception {
+    SyntheticAgent.generate(
+        new SyntheticAgent.Options().depth(1).width(1).errorPercent(0), directory);
+    Path file = directory.resolve("synthetic").resolve("op-1.soar");
+    String uri = file.toUri().toString();
+    String text = Files.readString(file);
+
+    PipedOutputStream toServer = new PipedOutputStream();
+    PipedInputStream fromServer = new PipedInputStream(1 << 16);
+    LanguageServer server =
+        new LanguageServer(
+            new PipedInputStream(toServer, 1 << 16), new PipedOutputStream(fromServer), null);
+    client = new JsonRpcConnection(fromServer, toServer);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> exitCode = executor.submit(server::run);
+
+      ObjectNode initialize = JsonRpcConnection.MAPPER.createObjectNode();
+      initialize.put("rootUri", directory.toUri().toString());
+      JsonNode capabilities = request("initialize", initialize).path("capabilities");
+      assertTrue(capabilities.path("definitionProvider").asBoolean());
+      assertEquals(2, capabilities.path("textDocumentSync").path("change").asInt());
+      notify("initialized", JsonRpcConnection.MAPPER.createObjectNode());
+
+      ObjectNode open = JsonRpcConnection.MAPPER.createObjectNode();
+      open.putObject("textDocument").put("uri", uri).put("version", 1).put("text", text);
+      notify("textDocument/didOpen", open);
+
+      // test an attribute the state does not have
+      int line = lineOf(text, "^name synthetic");
+      int character = text.split("\n")[line].indexOf("synthetic") + "synthetic".length();
+      notify("textDocument/didChange", change(uri, 2, line, character, " ^nothing yes"));
+      JsonNode diagnostics = notification("textDocument/publishDiagnostics");
+      assertEquals(uri, diagnostics.path("uri").asText());
+      assertEquals(2, diagnostics.path("version").asInt());
+      assertEquals(1, diagnostics.path("diagnostics").size());
+      JsonNode start = diagnostics.path("diagnostics").get(0).path("range").path("start");
+      assertEquals(line, start.path("line").asInt());
+
+      // and take it back out again
+      notify(
+          "textDocument/didChange",
+          change(uri, 3, line, character, character + " ^nothing yes".length(), ""));
+      diagnostics = notification("textDocument/publishDiagnostics");
+      assertEquals(0, diagnostics.path("diagnostics").size());
+
+      notify("textDocument/didChange", change(uri, 4, line, character, " ^da"));
+      JsonNode completions =
+          request("textDocument/completion", at(uri, line, character + " ^da".length()));
+      assertEquals(List.of("data"), labels(completions));
+
+      JsonNode definitions =
+          request("textDocument/definition", at(uri, 0, "sp {propose*o".length()));
+      assertEquals(1, definitions.size());
+      assertEquals(uri, definitions.get(0).path("uri").asText());
+      assertEquals(0, definitions.get(0).path("range").path("start").path("line").asInt());
+
+      request("shutdown", null);
+      notify("exit", null);
+      assertEquals(0, (int) exitCode.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void answersBeforeEveryFileIsChecked(@TempDir Path directory) throws Exception {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(
+            new SyntheticAgent.Options().depth(1).width(60).errorPercent(100), directory);
+    Path file = directory.resolve("synthetic").resolve("op-1.soar");
+    String uri = file.toUri().toString();
+    String definedIn = directory.resolve("synthetic").resolve("op-60.soar").toUri().toString();
+
+    PipedOutputStream toServer = new PipedOutputStream();
+    PipedInputStream fromServer = new PipedInputStream(1 << 20);
+    LanguageServer server =
+        new LanguageServer(
+            new PipedInputStream(toServer, 1 << 16), new PipedOutputStream(fromServer), null);
+    client = new JsonRpcConnection(fromServer, toServer);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> exitCode = executor.submit(server::run);
+
+      ObjectNode initialize = JsonRpcConnection.MAPPER.createObjectNode();
+      initialize.put("rootUri", directory.toUri().toString());
+      request("initialize", initialize);
+      notify("initialized", JsonRpcConnection.MAPPER.createObjectNode());
+      ObjectNode open = JsonRpcConnection.MAPPER.createObjectNode();
+      open.putObject("textDocument")
+          .put("uri", uri)
+          .put("version", 1)
+          .put("text", Files.readString(file));
+      notify("textDocument/didOpen", open);
+
+      // name a production of a file that has not been checked yet in the open document
+      notify(
+          "textDocument/didChange",
+          change(uri, 2, 0, "sp {".length(), "sp {propose*op-1".length(), "propose*op-60"));
+      int id = nextId++;
+      ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+      message.put("id", id);
+      message.put("method", "textDocument/definition");
+      message.set("params", at(uri, 0, "sp {".length()));
+      client.write(message);
+      List<String> checked = new ArrayList<>();
+      JsonNode response;
+      while ((response = client.read()).path("id").asInt(-1) != id) {
+        if (response.path("method").asText().equals("textDocument/publishDiagnostics")) {
+          checked.add(response.path("params").path("uri").asText());
+        }
+      }
+
+      JsonNode definitions = response.path("result");
+      assertEquals(2, definitions.size());
+      assertEquals(uri, definitions.get(0).path("uri").asText());
+      assertEquals(definedIn, definitions.get(1).path("uri").asText());
+      assertEquals(0, definitions.get(1).path("range").path("start").path("line").asInt());
+      assertTrue(
+          checked.size() < agent.getRuleFiles(),
+          "checked " + checked.size() + " of " + agent.getRuleFiles() + " files first");
+      // the open document is checked before the rest
+      assertTrue(checked.isEmpty() || checked.get(0).equals(uri), checked.toString());
+
+      request("shutdown", null);
+      notify("exit", null);
+      assertEquals(0, (int) exitCode.get(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void findsTheWordAroundTheCaret() {
+    String text = "sp {apply*move\n   (state <s> ^operator.name move)";
+    assertEquals("apply*move", LanguageServer.wordAt(text, 8));
+    assertEquals("apply*move", LanguageServer.wordAt(text, 14));
+    assertEquals("operator.name", LanguageServer.wordAt(text, 33));
+  }
+
+  private JsonNode request(String method, ObjectNode params) throws IOException {
+    int id = nextId++;
+    ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+    message.put("id", id);
+    message.put("method", method);
+    if (params != null) {
+      message.set("params", params);
+    }
+    client.write(message);
+    JsonNode response;
+    while ((response = client.read()).path("id").asInt(-1) != id) {
+      // skip notifications
+    }
+    return response.path("result");
+  }
+
+  private void notify(String method, ObjectNode params) throws IOException {
+    ObjectNode message = JsonRpcConnection.MAPPER.createObjectNode();
+    message.put("method", method);
+    if (params != null) {
+      message.set("params", params);
+    }
+    client.write(message);
+  }
+
+  private JsonNode notification(String method) throws IOException {
+    JsonNode message;
+    while (!(message = client.read()).path("method").asText().equals(method)) {
+      // skip others
+    }
+    return message.path("params");
+  }
+
+  private static ObjectNode change(String uri, int version, int line, int character, String text) {
+    return change(uri, version, line, character, character, text);
+  }
+
+  private static ObjectNode change(
+      String uri, int version, int line, int start, int end, String text) {
+    ObjectNode params = JsonRpcConnection.MAPPER.createObjectNode();
+    params.putObject("textDocument").put("uri", uri).put("version", version);
+    ObjectNode change = params.putArray("contentChanges").addObject();
+    ObjectNode range = change.putObject("range");
+    range.putObject("start").put("line", line).put("character", start);
+    range.putObject("end").put("line", line).put("character", end);
+    change.put("text", text);
+    return params;
+  }
+
+  private static ObjectNode at(String uri, int line, int character) {
+    ObjectNode params = JsonRpcConnection.MAPPER.createObjectNode();
+    params.putObject("textDocument").put("uri", uri);
+    params.putObject("position").put("line", line).put("character", character);
+    return params;
+  }
+
+  private static int lineOf(String text, String needle) {
+    String[] lines = text.split("\n");
+    for (int i = 0; i < lines.length; i++) {
+      if (lines[i].contains(needle)) {
+        return i;
+      }
+    }
+    throw new AssertionError(needle + " not found");
+  }
+
+  private static List<String> labels(JsonNode completions) {
+    List<String> labels = new ArrayList<>();
+    for (JsonNode item : completions) {
+      labels.add(item.path("label").asText());
+    }
+    return labels;
+  }
+}
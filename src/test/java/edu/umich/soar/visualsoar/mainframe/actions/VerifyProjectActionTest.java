@@ -0,0 +1,26 @@
+package edu.umich.soar.visualsoar.mainframe.actions;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.mainframe.feedback.FeedbackListEntry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VerifyProjectActionTest {
+
+  @Test
+  void acceptsAFileThatCanBeReadAndWritten(@TempDir Path directory) throws Exception {
+    Path file = Files.writeString(directory.resolve("elaborations.soar"), "");
+    assertNull(VerifyProjectAction.verifyFile(file.toString()));
+  }
+
+  @Test
+  void reportsAMissingFile(@TempDir Path directory) {
+    String missing = directory.resolve("elaborations.soar").toString();
+    FeedbackListEntry error = VerifyProjectAction.verifyFile(missing);
+    assertNotNull(error);
+    assertEquals("Error!  Project Corrupted:  Unable to open file: " + missing, error.toString());
+  }
+}
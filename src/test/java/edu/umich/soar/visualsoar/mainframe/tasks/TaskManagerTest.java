@@ -0,0 +1,127 @@
+package edu.umich.soar.visualsoar.mainframe.tasks;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskManagerTest {
+
+  /** Records how a task ended, and on which thread */
+  private static class Task extends BackgroundTask<String> {
+    final BlockingQueue<String> outcomes = new LinkedBlockingQueue<>();
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    private final boolean waitForRelease;
+
+    Task(boolean waitForRelease) {
+      super("Test task");
+      this.waitForRelease = waitForRelease;
+    }
+
+    @Override
+    protected String compute(TaskContext context) throws Exception {
+      started.countDown();
+      for (int i = 0; i < 10; i++) {
+        context.checkCancelled();
+        context.setProgress(i + 1, 10);
+        if (waitForRelease) {
+          release.await(10, TimeUnit.SECONDS);
+        }
+      }
+      return "result";
+    }
+
+    @Override
+    protected void succeeded(String result) {
+      outcomes.add(onEdt() + "succeeded " + result);
+    }
+
+    @Override
+    protected void failed(Throwable error) {
+      outcomes.add(onEdt() + "failed " + error.getClass().getSimpleName());
+    }
+
+    @Override
+    protected void cancelled() {
+      outcomes.add(onEdt() + "cancelled");
+    }
+
+    String outcome() throws InterruptedException {
+      return outcomes.poll(10, TimeUnit.SECONDS);
+    }
+
+    private static String onEdt() {
+      return SwingUtilities.isEventDispatchThread() ? "" : "off the EDT: ";
+    }
+  }
+
+  @Test
+  void deliversResultsOnTheEventDispatchThread() throws Exception {
+    TaskManager manager = new TaskManager(1, 4);
+    Task task = new Task(false);
+    RunningTask running = manager.submit(task);
+    assertEquals("succeeded result", task.outcome());
+    assertEquals(10, running.getDone());
+    assertEquals(10, running.getTotal());
+    assertTrue(onEdt(manager::getRunning).isEmpty());
+  }
+
+  @Test
+  void cancelsCooperatively() throws Exception {
+    TaskManager manager = new TaskManager(1, 4);
+    Task task = new Task(true);
+    RunningTask running = manager.submit(task);
+    task.started.await(10, TimeUnit.SECONDS);
+    running.cancel();
+    task.release.countDown();
+    assertEquals("cancelled", task.outcome());
+  }
+
+  @Test
+  void reportsFailures() throws Exception {
+    TaskManager manager = new TaskManager(1, 4);
+    Task task =
+        new Task(false) {
+          @Override
+          protected String compute(TaskContext context) {
+            throw new IllegalStateException();
+          }
+        };
+    manager.submit(task);
+    assertEquals("failed IllegalStateException", task.outcome());
+  }
+
+  @Test
+  void refusesTasksBeyondTheQueueLimit() throws Exception {
+    TaskManager manager = new TaskManager(1, 1);
+    Task running = new Task(true);
+    Task waiting = new Task(false);
+    Task refused = new Task(false);
+    manager.submit(running);
+    running.started.await(10, TimeUnit.SECONDS);
+    manager.submit(waiting);
+    manager.submit(refused);
+
+    assertEquals("failed " + RejectedExecutionException.class.getSimpleName(), refused.outcome());
+    assertEquals(2, onEdt(manager::getRunning).size());
+    running.release.countDown();
+    assertEquals("succeeded result", running.outcome());
+    assertEquals("succeeded result", waiting.outcome());
+  }
+
+  private static <T> T onEdt(Callable<T> callable) throws Exception {
+    FutureTask<T> task = new FutureTask<>(callable);
+    SwingUtilities.invokeAndWait(task);
+    return task.get();
+  }
+}
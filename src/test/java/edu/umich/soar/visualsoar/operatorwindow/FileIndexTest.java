@@ -0,0 +1,100 @@
+package edu.umich.soar.visualsoar.operatorwindow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.ProjectModel;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import javax.swing.tree.TreeNode;
+import org.junit.jupiter.api.Test;
+
+class FileIndexTest {
+
+  private static ProjectModel openTestProject() throws Exception {
+    return ProjectModel.openExistingProject(projectPath());
+  }
+
+  private static Path projectPath() throws URISyntaxException {
+    return Paths.get(
+        FileIndexTest.class
+            .getResource(
+                "/edu/umich/soar/visualsoar/test_projects/no-datamap-errors/no-datamap-errors.vsa.json")
+            .toURI());
+  }
+
+  private static OperatorNode childNamed(OperatorNode parent, String name) {
+    for (int i = 0; i < parent.getChildCount(); i++) {
+      OperatorNode child = (OperatorNode) parent.getChildAt(i);
+      if (child.getName().equals(name)) {
+        return child;
+      }
+    }
+    throw new AssertionError("no child named " + name);
+  }
+
+  @Test
+  public void nestedChildrenAreDeferredUntilAccessed() throws Exception {
+    ProjectModel pm = openTestProject();
+    OperatorNode root = (OperatorNode) pm.operatorHierarchy.getRoot();
+    OperatorNode elaborations = childNamed(root, "elaborations");
+
+    assertNotNull(elaborations.getChildLoader());
+    assertFalse(elaborations.isLeaf());
+
+    assertTrue(elaborations.getChildCount() > 0);
+    assertNull(elaborations.getChildLoader());
+  }
+
+  @Test
+  public void indexMatchesFullyBuiltTree() throws Exception {
+    ProjectModel pm = openTestProject();
+    FileIndex index = pm.fileIndex();
+
+    // the index must not build anything
+    OperatorNode root = (OperatorNode) pm.operatorHierarchy.getRoot();
+    assertNotNull(childNamed(root, "elaborations").getChildLoader());
+
+    List<String> expected = new ArrayList<>();
+    Enumeration<TreeNode> bfe = openTestProject().breadthFirstEnumeration();
+    while (bfe.hasMoreElements()) {
+      String fileName = ((OperatorNode) bfe.nextElement()).getFileName();
+      if (fileName != null) {
+        expected.add(fileName);
+      }
+    }
+    List<String> actual = new ArrayList<>();
+    for (FileIndex.Entry entry : index) {
+      actual.add(entry.getPath());
+    }
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void entriesResolveToTheirNodes() throws Exception {
+    ProjectModel pm = openTestProject();
+    for (FileIndex.Entry entry : pm.fileIndex()) {
+      OperatorNode node = entry.getNode();
+      assertNotNull(node, entry.getPath());
+      assertEquals(entry.getName(), node.getName());
+      assertEquals(entry.getPath(), node.getFileName());
+    }
+  }
+
+  @Test
+  public void findsEntriesByPath() throws Exception {
+    ProjectModel pm = openTestProject();
+    FileIndex index = pm.fileIndex();
+    for (FileIndex.Entry entry : index) {
+      Path path = Paths.get(entry.getPath());
+      assertSame(entry, index.findByPath(path));
+      // un-normalized paths to the same file match as well
+      Path roundabout = path.getParent().resolve(".").resolve(path.getFileName());
+      assertSame(entry, index.findByPath(roundabout));
+    }
+    assertNull(index.findByPath(projectPath()));
+  }
+}
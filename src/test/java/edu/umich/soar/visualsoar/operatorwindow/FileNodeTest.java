@@ -0,0 +1,57 @@
+package edu.umich.soar.visualsoar.operatorwindow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.ruleeditor.DeferredRuleEditor;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.swing.JDesktopPane;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileNodeTest {
+
+  private static FileNode fileInNewProject(Path projectDir) throws Exception {
+    Files.createDirectories(projectDir.resolve("agent"));
+    Files.writeString(projectDir.resolve("agent").resolve("elaborations.soar"), "");
+    OperatorRootNode root =
+        OperatorRootNode.rootNodeForNewProject("agent", 0, projectDir.toString(), "agent");
+    FileNode node = new FileNode("elaborations", 1, "elaborations.soar");
+    root.add(node);
+    return node;
+  }
+
+  @Test
+  void closingEditorsClosesADeferredEditor(@TempDir Path projectDir) throws Exception {
+    FileNode node = fileInNewProject(projectDir);
+    JDesktopPane desktop = new JDesktopPane();
+    DeferredRuleEditor[] placeholder = new DeferredRuleEditor[1];
+    SwingUtilities.invokeAndWait(
+        () -> {
+          placeholder[0] = node.createDeferredEditor();
+          desktop.add(placeholder[0]);
+          node.closeEditors();
+        });
+
+    assertTrue(placeholder[0].isClosed());
+    assertFalse(placeholder[0].isLoaded());
+    assertEquals(0, desktop.getAllFrames().length);
+  }
+
+  @Test
+  void renamingFollowsADeferredEditor(@TempDir Path projectDir) throws Exception {
+    FileNode node = fileInNewProject(projectDir);
+    DeferredRuleEditor[] placeholder = new DeferredRuleEditor[1];
+    SwingUtilities.invokeAndWait(() -> placeholder[0] = node.createDeferredEditor());
+
+    node.renameFile("elaborations-renamed");
+
+    assertEquals("elaborations-renamed", placeholder[0].getTitle());
+    assertEquals(
+        projectDir + File.separator + "agent" + File.separator + "elaborations-renamed.soar",
+        placeholder[0].getFile());
+    assertTrue(new File(placeholder[0].getFile()).exists());
+  }
+}
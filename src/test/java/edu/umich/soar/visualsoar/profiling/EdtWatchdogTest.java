@@ -0,0 +1,94 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.InvocationEvent;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EdtWatchdogTest {
+
+  private static class Recorder implements EdtWatchdog.Listener {
+    final List<EdtWatchdog.Stall> detected = new CopyOnWriteArrayList<>();
+    final List<EdtWatchdog.Stall> ended = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void stallDetected(EdtWatchdog.Stall stall) {
+      detected.add(stall);
+    }
+
+    @Override
+    public void stallEnded(EdtWatchdog.Stall stall) {
+      ended.add(stall);
+    }
+  }
+
+  @Test
+  void capturesTheStackOfAStall() throws InterruptedException {
+    TimedEventQueue queue = new TimedEventQueue();
+    Recorder recorder = new Recorder();
+    try (EdtWatchdog ignored = new EdtWatchdog(queue, 100, recorder).start()) {
+      queue.dispatchEvent(new InvocationEvent(this, EdtWatchdogTest::slowWork));
+      // the watchdog notices that the stall ended on its next check
+      for (int i = 0; i < 100 && recorder.ended.isEmpty(); i++) {
+        TimeUnit.MILLISECONDS.sleep(10);
+      }
+    }
+
+    assertEquals(1, recorder.detected.size());
+    assertEquals(1, recorder.ended.size());
+    EdtWatchdog.Stall stall = recorder.ended.get(0);
+    assertTrue(stall.getEvent().startsWith("InvocationEvent"), stall.getEvent());
+    assertTrue(
+        Arrays.stream(stall.getStack()).anyMatch(f -> f.getMethodName().equals("slowWork")),
+        Arrays.toString(stall.getStack()));
+    assertTrue(stall.getDurationMs() >= 400, "lasted " + stall.getDurationMs() + " ms");
+  }
+
+  @Test
+  void ignoresQuickEvents() throws InterruptedException {
+    TimedEventQueue queue = new TimedEventQueue();
+    Recorder recorder = new Recorder();
+    try (EdtWatchdog ignored = new EdtWatchdog(queue, 200, recorder).start()) {
+      for (int i = 0; i < 20; i++) {
+        queue.dispatchEvent(new InvocationEvent(this, () -> sleep(20)));
+      }
+    }
+    assertTrue(recorder.detected.isEmpty());
+  }
+
+  @Test
+  void namesTheOutermostAction() {
+    StackTraceElement[] stack = {
+      new StackTraceElement("edu.umich.soar.visualsoar.ProjectModel", "writeProject", null, 1),
+      new StackTraceElement(
+          "edu.umich.soar.visualsoar.mainframe.MainFrame$SaveAllFilesAction", "perform", null, 2),
+      new StackTraceElement(
+          "edu.umich.soar.visualsoar.mainframe.MainFrame$SaveAllFilesAction",
+          "actionPerformed",
+          null,
+          3),
+      new StackTraceElement("javax.swing.AbstractButton", "fireActionPerformed", null, 4),
+    };
+    assertEquals("SaveAllFilesAction", EdtWatchdog.actionName(stack));
+    assertNull(EdtWatchdog.actionName(Arrays.copyOf(stack, 1)));
+  }
+
+  private static void slowWork() {
+    sleep(500);
+  }
+
+  private static void sleep(long ms) {
+    try {
+      TimeUnit.MILLISECONDS.sleep(ms);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
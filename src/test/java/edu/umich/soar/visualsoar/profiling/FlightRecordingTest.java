@@ -0,0 +1,65 @@
+package edu.umich.soar.visualsoar.profiling;
+
+import edu.umich.soar.visualsoar.ProjectModel;
+import edu.umich.soar.visualsoar.SyntheticAgent;
+import edu.umich.soar.visualsoar.mainframe.actions.CheckAllProductionsAction;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingTest {
+
+  @Test
+  void recordsOpeningCheckingAndSaving(@TempDir Path directory) throws IOException {
+    SyntheticAgent agent =
+        SyntheticAgent.generate(new SyntheticAgent.Options().depth(1).width(2), directory);
+    Path recordingFile = directory.resolve("visualsoar.jfr");
+
+    try (Recording recording = FlightRecording.start(recordingFile)) {
+      ProjectModel pm = ProjectModel.openExistingProject(agent.getProjectFile());
+      CheckAllProductionsAction.checkAllProductions(pm);
+      pm.writeProject(directory.resolve("copy.vsa.json").toFile());
+      recording.stop();
+    }
+
+    List<String> phases = new ArrayList<>();
+    int parses = 0;
+    int checks = 0;
+    int saves = 0;
+    for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+      switch (event.getEventType().getName()) {
+        case "edu.umich.soar.visualsoar.ProjectOpenPhase":
+          assertEquals(agent.getProjectFile().toString(), event.getString("project"));
+          phases.add(event.getString("phase"));
+          break;
+        case "edu.umich.soar.visualsoar.FileParse":
+          parses++;
+          break;
+        case "edu.umich.soar.visualsoar.ProductionCheck":
+          checks++;
+          break;
+        case "edu.umich.soar.visualsoar.ProjectSave":
+          assertTrue(event.getLong("size") > 0);
+          saves++;
+          break;
+        default:
+          break;
+      }
+    }
+    assertEquals(List.of("Reading project and datamap", "Building operator hierarchy"), phases);
+    assertTrue(parses >= agent.getRuleFiles());
+    // the new project's own files have a few productions too
+    assertTrue(checks >= agent.getProductions());
+    assertEquals(1, saves);
+  }
+}
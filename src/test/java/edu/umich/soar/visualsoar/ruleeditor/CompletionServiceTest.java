@@ -0,0 +1,69 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.components.AutocompleteContext;
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompletionServiceTest {
+  private SoarWorkingMemoryModel dataMap;
+  private CompletionService service;
+
+  @BeforeEach
+  void setUp() {
+    dataMap = new SoarWorkingMemoryModel(true, "agent", Paths.get("agent.dm"));
+    service = new CompletionService();
+  }
+
+  @Test
+  void completesAttributes() {
+    AutocompleteContext context =
+        service.complete("sp {test (state <s> ^", dataMap, dataMap.getTopstate());
+
+    assertNotNull(context);
+    assertTrue(context.filteredSuggestions().containsAll(Arrays.asList("name", "superstate")));
+  }
+
+  @Test
+  void completesEnumeratedValues() {
+    AutocompleteContext context =
+        service.complete("sp {test (state <s> ^superstate ", dataMap, dataMap.getTopstate());
+
+    assertNotNull(context);
+    assertEquals(Arrays.asList("<superstate>", "nil"), context.filteredSuggestions());
+  }
+
+  @Test
+  void typingNarrowsCachedCompletions() {
+    AutocompleteContext all =
+        service.complete("sp {test (state <s> ^", dataMap, dataMap.getTopstate());
+    AutocompleteContext narrowed =
+        service.complete("sp {test (state <s> ^sup", dataMap, dataMap.getTopstate());
+
+    assertNotNull(all);
+    assertNotNull(narrowed);
+    assertEquals(all.unfilteredSuggestionsSize(), narrowed.unfilteredSuggestionsSize());
+    assertEquals(Arrays.asList("superstate"), narrowed.filteredSuggestions());
+  }
+
+  @Test
+  void datamapChangesAreSeen() {
+    service.complete("sp {test (state <s> ^", dataMap, dataMap.getTopstate());
+    dataMap.addTriple(dataMap.getTopstate(), "counter", dataMap.createNewEnumeration("one"));
+
+    AutocompleteContext context =
+        service.complete("sp {test (state <s> ^co", dataMap, dataMap.getTopstate());
+
+    assertNotNull(context);
+    assertEquals(Arrays.asList("counter"), context.filteredSuggestions());
+  }
+
+  @Test
+  void unparsableProductionHasNoCompletions() {
+    assertNull(service.complete("sp {test ((state <s> ^", dataMap, dataMap.getTopstate()));
+  }
+}
@@ -201,8 +201,102 @@ class CompoundUndoManagerTest {
     // TODO: don't know how to add style change events
   }
 
+  @Test
+  public void soarDocumentEditsAreKeptAsTextDeltas() throws BadLocationException {
+    JEditorPane editorPane = soarEditorPane();
+    CompoundUndoManager undoManager =
+        new CompoundUndoManager(editorPane, new BooleanProperty(true));
+
+    editorPane.getDocument().insertString(0, "sp {hello\n", null);
+    editorPane.setCaretPosition(editorPane.getDocument().getLength());
+    insertOneChar(editorPane, 'a');
+    insertOneChar(editorPane, 'b');
+    editorPane.setCaretPosition(editorPane.getCaretPosition() - 1);
+    deleteOneChar(editorPane);
+    assertEquals("sp {hello\na", editorPane.getText(), "Confirming fully-entered text");
+
+    undoManager.undo();
+    assertEquals("sp {hello\nab", editorPane.getText(), "First undo");
+    undoManager.undo();
+    assertEquals("sp {hello\n", editorPane.getText(), "Second undo");
+    undoManager.undo();
+    assertEquals("", editorPane.getText(), "Third undo");
+    assertFalse(undoManager.canUndo(), "Syntax coloring should not be undoable");
+
+    undoManager.redo();
+    undoManager.redo();
+    undoManager.redo();
+    assertEquals("sp {hello\na", editorPane.getText(), "Redo everything");
+    assertFalse(undoManager.canRedo(), "Should be out of possible redos");
+  }
+
+  @Test
+  public void undoHistoryStaysWithinMemoryBudget() throws BadLocationException {
+    JEditorPane editorPane = soarEditorPane();
+    CompoundUndoManager undoManager =
+        new CompoundUndoManager(editorPane, new BooleanProperty(true));
+    undoManager.setMemoryBudget(4096);
+
+    Document doc = editorPane.getDocument();
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      line.append('x');
+    }
+    line.append('\n');
+    for (int i = 0; i < 20; i++) {
+      try (CompoundUndoManager.AtomicModeManager ignored = undoManager.atomicMode()) {
+        doc.insertString(0, line.toString(), null);
+      }
+      try (CompoundUndoManager.AtomicModeManager ignored = undoManager.atomicMode()) {
+        doc.remove(0, line.length());
+      }
+    }
+
+    assertTrue(undoManager.getMemoryUsage() <= 4096, "History should fit its budget");
+    assertTrue(undoManager.canUndo(), "The latest edits should be kept");
+    undoManager.undo();
+    assertEquals(line.toString(), editorPane.getText(), "Undo should restore the removed text");
+  }
+
+  @Test
+  public void memoryUsageIsKeptUpToDate() throws BadLocationException {
+    JEditorPane editorPane = soarEditorPane();
+    CompoundUndoManager undoManager =
+        new CompoundUndoManager(editorPane, new BooleanProperty(true));
+    undoManager.setMemoryBudget(1024);
+
+    Document doc = editorPane.getDocument();
+    for (int i = 0; i < 50; i++) {
+      editorPane.setCaretPosition(doc.getLength());
+      for (char c : "sp {a".toCharArray()) {
+        insertOneChar(editorPane, c);
+      }
+      insertOneChar(editorPane, '\n');
+      editorPane.setCaretPosition(editorPane.getCaretPosition() - 1);
+      deleteOneChar(editorPane);
+      assertEquals(undoManager.measureMemoryUsage(), undoManager.getMemoryUsage(), "After edit " + i);
+      if (i % 7 == 0) {
+        undoManager.undo();
+        undoManager.undo();
+        assertEquals(undoManager.measureMemoryUsage(), undoManager.getMemoryUsage(), "After undo");
+        undoManager.redo();
+        assertEquals(undoManager.measureMemoryUsage(), undoManager.getMemoryUsage(), "After redo");
+      }
+    }
+    assertTrue(undoManager.getMemoryUsage() <= 1024, "History should fit its budget");
+
+    undoManager.discardAllEdits();
+    assertEquals(0, undoManager.getMemoryUsage());
+  }
+
   //////////////// Util methods ///////////////////
 
+  private static JEditorPane soarEditorPane() {
+    JEditorPane editorPane = new JEditorPane();
+    editorPane.setDocument(new SoarDocument());
+    return editorPane;
+  }
+
   private static void insertOneChar(JEditorPane editorPane, char c) throws BadLocationException {
     editorPane
         .getDocument()
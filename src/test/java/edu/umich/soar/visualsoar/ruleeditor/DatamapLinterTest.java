@@ -0,0 +1,87 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.datamap.SoarWorkingMemoryModel;
+import edu.umich.soar.visualsoar.graph.NamedEdge;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatamapLinterTest {
+  private static final String GOOD =
+      "sp {good\n   (state <s> ^superstate nil)\n-->\n   (<s> ^name agent)}\n";
+  private static final String BAD =
+      "sp {bad\n   (state <s> ^superstate nil\n              ^missing <m>)\n-->\n   (<s> ^name agent)}\n";
+
+  private SoarWorkingMemoryModel dataMap;
+  private DatamapLinter linter;
+
+  @BeforeEach
+  void setUp() {
+    dataMap = new SoarWorkingMemoryModel(true, "agent", Paths.get("agent.dm"));
+    linter = new DatamapLinter(new EditorPane(), () -> null, () -> {});
+  }
+
+  private List<DatamapLinter.Diagnostic> check(String text) {
+    return linter.check(text, dataMap, dataMap.getTopstate(), () -> false);
+  }
+
+  @Test
+  void reportsUnmatchedConstraints() {
+    List<DatamapLinter.Diagnostic> diagnostics = check(GOOD + "\n" + BAD);
+
+    assertFalse(diagnostics.isEmpty());
+    for (DatamapLinter.Diagnostic diagnostic : diagnostics) {
+      assertTrue(diagnostic.line >= 5, diagnostic.toString());
+    }
+    assertTrue(
+        diagnostics.stream().anyMatch(d -> d.line == 7 && d.message.contains("missing")),
+        diagnostics.toString());
+  }
+
+  @Test
+  void cachedDiagnosticsFollowTheirProduction() {
+    List<DatamapLinter.Diagnostic> before = check(BAD);
+    List<DatamapLinter.Diagnostic> after = check(GOOD + "\n" + BAD);
+
+    assertEquals(before.size(), after.size());
+    for (int i = 0; i < before.size(); i++) {
+      assertEquals(before.get(i).line + 5, after.get(i).line);
+      assertEquals(before.get(i).message, after.get(i).message);
+    }
+  }
+
+  @Test
+  void datamapChangesAreSeen() {
+    assertFalse(check(BAD).isEmpty());
+
+    dataMap.addTriple(dataMap.getTopstate(), "missing", dataMap.createNewSoarId());
+
+    assertTrue(check(BAD).isEmpty(), check(BAD).toString());
+  }
+
+  @Test
+  void unfinishedProductionsAreNotReported() {
+    assertTrue(check("sp {typing\n   (state <s> ^missing").isEmpty());
+  }
+
+  @Test
+  void supersededCheckStops() {
+    assertNull(linter.check(BAD, dataMap, dataMap.getTopstate(), () -> true));
+  }
+
+  @Test
+  void datamapIsNotMarked() {
+    check(GOOD);
+
+    Enumeration<NamedEdge> edges = dataMap.emanatingEdges(dataMap.getTopstate());
+    while (edges.hasMoreElements()) {
+      NamedEdge edge = edges.nextElement();
+      assertFalse(edge.isTested(), edge.getName());
+      assertFalse(edge.isCreated(), edge.getName());
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import edu.umich.soar.visualsoar.operatorwindow.FileNode;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.InternalFrameEvent;
+import javax.swing.event.InternalFrameListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeferredRuleEditorTest {
+
+  @Test
+  void loadsOnlyTheActivatedEditor() throws Exception {
+    List<String> loaded = new ArrayList<>();
+    List<DeferredRuleEditor> editors = new ArrayList<>();
+    SwingUtilities.invokeAndWait(
+        () -> {
+          JDesktopPane desktop = new JDesktopPane();
+          for (int i = 1; i <= 3; i++) {
+            DeferredRuleEditor editor =
+                new DeferredRuleEditor(
+                    new FileNode("file-" + i, i, "file-" + i + ".soar"),
+                    node -> {
+                      loaded.add(node.toString());
+                      return null;
+                    });
+            editor.setVisible(true);
+            desktop.add(editor);
+            editors.add(editor);
+          }
+          activate(editors.get(1));
+        });
+    // loading is queued behind the activation
+    SwingUtilities.invokeAndWait(() -> {});
+
+    assertEquals(List.of("file-2"), loaded);
+    assertFalse(editors.get(0).isLoaded());
+    assertTrue(editors.get(1).isLoaded());
+    assertFalse(editors.get(2).isLoaded());
+  }
+
+  /** Delivers the event a click on the frame would, which needs the desktop to be on screen */
+  private static void activate(JInternalFrame frame) {
+    InternalFrameEvent event =
+        new InternalFrameEvent(frame, InternalFrameEvent.INTERNAL_FRAME_ACTIVATED);
+    for (InternalFrameListener listener : frame.getInternalFrameListeners()) {
+      listener.internalFrameActivated(event);
+    }
+  }
+}
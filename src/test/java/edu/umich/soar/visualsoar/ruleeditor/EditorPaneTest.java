@@ -2,9 +2,15 @@ package edu.umich.soar.visualsoar.ruleeditor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import edu.umich.soar.visualsoar.misc.Prefs;
 import java.awt.Color;
+import java.awt.Point;
+import java.lang.reflect.InvocationTargetException;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 import javax.swing.text.DefaultHighlighter;
 import javax.swing.text.Highlighter;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,9 +20,12 @@ class EditorPaneTest {
   private EditorPane editorPane;
 
   @BeforeEach
-  void setUp() {
-    editorPane = new EditorPane();
-    editorPane.setText("test test test");
+  void setUp() throws Exception {
+    onEdt(
+        () -> {
+          editorPane = new EditorPane();
+          editorPane.setText("test test test");
+        });
   }
 
   public class TemporaryPrefsBooleanOverride implements AutoCloseable {
@@ -36,82 +45,163 @@ class EditorPaneTest {
   }
 
   @Test
-  void testHighlightNoOccurrencesWhenSelectionEmpty() {
-    try (TemporaryPrefsBooleanOverride ignore =
-        new TemporaryPrefsBooleanOverride(
-            Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
-      // move cursor but select nothing
-      editorPane.select(3, 3);
-    }
-
-    Highlighter highlighter = editorPane.getHighlighter();
-    Highlighter.Highlight[] highlights = highlighter.getHighlights();
-
-    assertEquals(0, highlights.length);
+  void testHighlightNoOccurrencesWhenSelectionEmpty() throws Exception {
+    onEdt(
+        () -> {
+          try (TemporaryPrefsBooleanOverride ignore =
+              new TemporaryPrefsBooleanOverride(
+                  Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
+            // move cursor but select nothing
+            editorPane.select(3, 3);
+          }
+
+          Highlighter highlighter = editorPane.getHighlighter();
+          Highlighter.Highlight[] highlights = highlighter.getHighlights();
+
+          assertEquals(0, highlights.length);
+        });
   }
 
   @Test
-  void testHighlightOccurrences() {
-    try (TemporaryPrefsBooleanOverride ignore =
-           new TemporaryPrefsBooleanOverride(
-             Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
-      // Select "test"
-      editorPane.select(0, 4);
-    }
-
-    Highlighter highlighter = editorPane.getHighlighter();
-    Highlighter.Highlight[] highlights = highlighter.getHighlights();
-
-    // We should highlight the two occurrences that are not the current selection
-    assertEquals(2, highlights.length);
-
-    assertEquals(5, highlights[0].getStartOffset());
-    assertEquals(9, highlights[0].getEndOffset());
+  void testHighlightOccurrences() throws Exception {
+    onEdt(
+        () -> {
+          try (TemporaryPrefsBooleanOverride ignore =
+                 new TemporaryPrefsBooleanOverride(
+                   Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
+            // Select "test"
+            editorPane.select(0, 4);
+          }
+
+          Highlighter highlighter = editorPane.getHighlighter();
+          Highlighter.Highlight[] highlights = highlighter.getHighlights();
+
+          // We should highlight the two occurrences that are not the current selection
+          assertEquals(2, highlights.length);
+
+          assertEquals(5, highlights[0].getStartOffset());
+          assertEquals(9, highlights[0].getEndOffset());
+
+          assertEquals(10, highlights[1].getStartOffset());
+          assertEquals(14, highlights[1].getEndOffset());
+
+          // Verify that all occurrences are highlighted with correct highlighter
+          for (Highlighter.Highlight highlight : highlights) {
+            assertInstanceOf(DefaultHighlighter.DefaultHighlightPainter.class, highlight.getPainter());
+            DefaultHighlighter.DefaultHighlightPainter dfhp =
+              (DefaultHighlighter.DefaultHighlightPainter) highlight.getPainter();
+            assertEquals(
+              new Color(Prefs.currentSelectionOccurrenceHighlightColor.getInt()), dfhp.getColor());
+          }
+        });
+  }
 
-    assertEquals(10, highlights[1].getStartOffset());
-    assertEquals(14, highlights[1].getEndOffset());
+  @Test
+  void testHighlightOccurrencesDisabledInPrefs() throws Exception {
+    onEdt(
+        () -> {
+          try (TemporaryPrefsBooleanOverride ignore =
+                 new TemporaryPrefsBooleanOverride(
+                   Prefs.enableCurrentSelectionOccurrenceHighlighting, false)) {
+            // Select "test"
+            editorPane.select(0, 4);
+          }
+
+          Highlighter highlighter = editorPane.getHighlighter();
+          Highlighter.Highlight[] highlights = highlighter.getHighlights();
+
+          // We should highlight the two occurrences that are not the current selection
+          assertEquals(0, highlights.length);
+        });
+  }
 
-    // Verify that all occurrences are highlighted with correct highlighter
-    for (Highlighter.Highlight highlight : highlights) {
-      assertInstanceOf(DefaultHighlighter.DefaultHighlightPainter.class, highlight.getPainter());
-      DefaultHighlighter.DefaultHighlightPainter dfhp =
-        (DefaultHighlighter.DefaultHighlightPainter) highlight.getPainter();
-      assertEquals(
-        new Color(Prefs.currentSelectionOccurrenceHighlightColor.getInt()), dfhp.getColor());
-    }
+  @Test
+  void testClearOccurrenceHighlights() throws Exception {
+    onEdt(
+        () -> {
+          try (TemporaryPrefsBooleanOverride ignore =
+              new TemporaryPrefsBooleanOverride(
+                  Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
+            // Select "test"
+            editorPane.select(0, 4);
+            // move cursor to select nothing
+            editorPane.select(3, 3);
+          }
+
+          Highlighter highlighter = editorPane.getHighlighter();
+          Highlighter.Highlight[] highlights = highlighter.getHighlights();
+
+          // Verify that all custom highlights are cleared
+          assertEquals(0, highlights.length);
+        });
   }
 
   @Test
-  void testHighlightOccurrencesDisabledInPrefs() {
-    try (TemporaryPrefsBooleanOverride ignore =
-           new TemporaryPrefsBooleanOverride(
-             Prefs.enableCurrentSelectionOccurrenceHighlighting, false)) {
-      // Select "test"
-      editorPane.select(0, 4);
+  void testOccurrenceHighlightsAreBounded() throws Exception {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 2 * SelectionOccurrences.MAX_HIGHLIGHTS; i++) {
+      text.append("a ");
+    }
+    text.append('\n');
+    for (int i = 0; i < 5 * SelectionOccurrences.MARGIN_LINES; i++) {
+      text.append("b\n");
     }
 
-    Highlighter highlighter = editorPane.getHighlighter();
-    Highlighter.Highlight[] highlights = highlighter.getHighlights();
-
-    // We should highlight the two occurrences that are not the current selection
-    assertEquals(0, highlights.length);
+    onEdt(
+        () -> {
+          editorPane.setText(text.toString());
+          try (TemporaryPrefsBooleanOverride ignore =
+              new TemporaryPrefsBooleanOverride(
+                  Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
+            editorPane.select(0, 1);
+            assertEquals(
+                SelectionOccurrences.MAX_HIGHLIGHTS,
+                editorPane.getHighlighter().getHighlights().length);
+
+            // only the lines near the visible ones are searched
+            int b = text.indexOf("b");
+            editorPane.select(b, b + 1);
+            editorPane.getSelectionOccurrences().flush();
+            Highlighter.Highlight[] highlights = editorPane.getHighlighter().getHighlights();
+            assertTrue(highlights.length > 0);
+            assertTrue(highlights.length <= SelectionOccurrences.MARGIN_LINES + 1);
+          }
+        });
   }
 
   @Test
-  void testClearOccurrenceHighlights() {
-    try (TemporaryPrefsBooleanOverride ignore =
-        new TemporaryPrefsBooleanOverride(
-            Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
-      // Select "test"
-      editorPane.select(0, 4);
-      // move cursor to select nothing
-      editorPane.select(3, 3);
-    }
-
-    Highlighter highlighter = editorPane.getHighlighter();
-    Highlighter.Highlight[] highlights = highlighter.getHighlights();
+  void testOccurrenceHighlightsAreUpdatedIncrementally() throws Exception {
+    onEdt(
+        () -> {
+          JScrollPane scrollPane = new JScrollPane(editorPane);
+          Highlighter.Highlight[] before;
+          try (TemporaryPrefsBooleanOverride ignore =
+              new TemporaryPrefsBooleanOverride(
+                  Prefs.enableCurrentSelectionOccurrenceHighlighting, true)) {
+            editorPane.select(0, 4);
+            before = editorPane.getHighlighter().getHighlights();
+
+            // scrolling searches again, keeping the highlights that are still wanted
+            scrollPane.getViewport().setViewPosition(new Point(0, 1));
+            editorPane.getSelectionOccurrences().flush();
+          }
+
+          Highlighter.Highlight[] after = editorPane.getHighlighter().getHighlights();
+          assertEquals(2, after.length);
+          assertSame(before[0], after[0]);
+          assertSame(before[1], after[1]);
+        });
+  }
 
-    // Verify that all custom highlights are cleared
-    assertEquals(0, highlights.length);
+  /** Runs on the event dispatch thread, where the editor and its timer expect to be used */
+  private static void onEdt(Runnable runnable) throws Exception {
+    try {
+      SwingUtilities.invokeAndWait(runnable);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
   }
 }
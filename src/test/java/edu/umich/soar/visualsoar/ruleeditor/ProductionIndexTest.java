@@ -0,0 +1,118 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductionIndexTest {
+  private static final String RULES =
+      "# elaborations\n"
+          + "sp {first\n"
+          + "   (state <s> ^type state)\n"
+          + "-->\n"
+          + "   (<s> ^a b)}\n"
+          + "watch 1\n"
+          + "gp {second\n"
+          + "   (state <s> ^type [state other])\n"
+          + "-->\n"
+          + "   (<s> ^c d)}\n"
+          + "sp {third # with a } in a comment\n"
+          + "   (state <s> ^|odd}| e)\n"
+          + "-->\n"
+          + "   (<s> ^f g)}\n";
+
+  @Test
+  void indexesTheInitialText() throws BadLocationException {
+    PlainDocument document = new PlainDocument();
+    document.insertString(0, RULES, null);
+    List<ProductionIndex.Production> productions = new ProductionIndex(document).getProductions();
+
+    assertEquals(3, productions.size());
+    assertEquals("first", productions.get(0).getName());
+    assertEquals("sp", productions.get(0).getType());
+    assertEquals(2, productions.get(0).getLine());
+    assertEquals("second", productions.get(1).getName());
+    assertEquals("gp", productions.get(1).getType());
+    assertEquals(7, productions.get(1).getLine());
+    assertEquals("third", productions.get(2).getName());
+    assertEquals(11, productions.get(2).getLine());
+  }
+
+  @Test
+  void followsEdits() throws BadLocationException {
+    PlainDocument document = new PlainDocument();
+    ProductionIndex index = new ProductionIndex(document);
+    document.insertString(0, RULES, null);
+
+    // a new line moves the productions below it
+    document.insertString(0, "\n", null);
+    assertEquals(3, index.getProductions().get(0).getLine());
+    assertSameAsScan(document, index);
+
+    // removing a closing brace runs the production into the next one
+    int brace = document.getText(0, document.getLength()).indexOf("b)}") + 2;
+    document.remove(brace, 1);
+    assertSameAsScan(document, index);
+    document.insertString(brace, "}", null);
+    assertSameAsScan(document, index);
+
+    // renaming a production
+    int name = document.getText(0, document.getLength()).indexOf("second");
+    document.remove(name, "second".length());
+    document.insertString(name, "renamed", null);
+    assertEquals("renamed", index.getProductions().get(1).getName());
+    assertSameAsScan(document, index);
+  }
+
+  @Test
+  void matchesAFullScanAfterRandomEdits() throws BadLocationException {
+    String[] snippets = {"sp {", "gp {", "}", "{", "#", "|", "\n", " ", "x", "-->", "watch 2\n"};
+    Random random = new Random(20261019L);
+    PlainDocument document = new PlainDocument();
+    ProductionIndex index = new ProductionIndex(document);
+    document.insertString(0, RULES + RULES, null);
+
+    for (int i = 0; i < 2000; i++) {
+      int length = document.getLength();
+      if (random.nextBoolean() && length > 0) {
+        int offset = random.nextInt(length);
+        document.remove(offset, Math.min(length - offset, 1 + random.nextInt(6)));
+      } else {
+        String snippet = snippets[random.nextInt(snippets.length)];
+        document.insertString(random.nextInt(length + 1), snippet, null);
+      }
+      assertSameAsScan(document, index);
+    }
+  }
+
+  private static void assertSameAsScan(PlainDocument document, ProductionIndex index)
+      throws BadLocationException {
+    List<ProductionIndex.Production> expected =
+        ProductionIndex.scan(document.getText(0, document.getLength()));
+    List<ProductionIndex.Production> actual = index.getProductions();
+    assertEquals(describe(expected), describe(actual));
+  }
+
+  private static String describe(List<ProductionIndex.Production> productions) {
+    StringBuilder description = new StringBuilder();
+    for (ProductionIndex.Production production : productions) {
+      description
+          .append(production.getType())
+          .append(' ')
+          .append(production.getName())
+          .append(" line ")
+          .append(production.getLine())
+          .append(" [")
+          .append(production.getStart())
+          .append(',')
+          .append(production.getEnd())
+          .append(")\n");
+    }
+    return description.toString();
+  }
+}
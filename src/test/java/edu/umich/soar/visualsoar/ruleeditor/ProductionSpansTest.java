@@ -0,0 +1,62 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ProductionSpansTest {
+
+  @Test
+  void findsEachProduction() {
+    String text =
+        "# a comment with sp {braces}\n"
+            + "sp {first\n"
+            + "   (state <s> ^name test)\n"
+            + "-->\n"
+            + "   (<s> ^result |a } in a symbol|)}\n"
+            + "\n"
+            + "gp {second # a } in a comment\n"
+            + "   (state <s> ^value [ 1 2 ])\n"
+            + "-->\n"
+            + "   (write (crlf))}\n";
+
+    List<ProductionSpans.Span> spans = ProductionSpans.scan(text);
+
+    assertEquals(2, spans.size());
+    assertEquals("first", spans.get(0).getName());
+    assertEquals(1, spans.get(0).getStartLine());
+    assertEquals(text.indexOf("sp {first"), spans.get(0).getStart());
+    assertEquals(text.indexOf("|)}") + 3, spans.get(0).getEnd());
+    assertTrue(spans.get(0).isClosed());
+
+    assertEquals("second", spans.get(1).getName());
+    assertEquals(6, spans.get(1).getStartLine());
+    assertEquals(text.lastIndexOf('}') + 1, spans.get(1).getEnd());
+  }
+
+  @Test
+  void unclosedProductionEndsAtNextProduction() {
+    String text = "sp {open\n   (state <s> ^name\nsp {closed\n   (state <s>)\n-->\n   (<s> ^a b)}\n";
+
+    List<ProductionSpans.Span> spans = ProductionSpans.scan(text);
+
+    assertEquals(2, spans.size());
+    assertFalse(spans.get(0).isClosed());
+    assertEquals(text.indexOf("\nsp {closed"), spans.get(0).getEnd());
+    assertEquals("closed", spans.get(1).getName());
+    assertEquals(2, spans.get(1).getStartLine());
+    assertTrue(spans.get(1).isClosed());
+  }
+
+  @Test
+  void ignoresOtherCommands() {
+    String text = "source other.soar\nmulti-attributes sp 3\nsp {only (state <s>) --> (<s> ^a b)}";
+
+    List<ProductionSpans.Span> spans = ProductionSpans.scan(text);
+
+    assertEquals(1, spans.size());
+    assertEquals("only", spans.get(0).getName());
+    assertEquals(2, spans.get(0).getStartLine());
+  }
+}
@@ -0,0 +1,60 @@
+package edu.umich.soar.visualsoar.ruleeditor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.umich.soar.visualsoar.util.TabRemovingReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import org.junit.jupiter.api.Test;
+
+class RuleFileContentsTest {
+
+  /** Checks the fast path against the way files used to be loaded into the editor */
+  private static void assertReadsLikeEditorKit(String fileText)
+      throws IOException, BadLocationException {
+    Document expected = new PlainDocument();
+    new DefaultEditorKit().read(new TabRemovingReader(new StringReader(fileText)), expected, 0);
+
+    RuleFileContents actual = RuleFileContents.of(fileText.toCharArray(), 0, fileText.length());
+
+    assertEquals(expected.getText(0, expected.getLength()), actual.getText());
+    assertEquals(
+        expected.getProperty(DefaultEditorKit.EndOfLineStringProperty), actual.getLineSeparator());
+  }
+
+  @Test
+  void plainText() throws Exception {
+    assertReadsLikeEditorKit("sp {rule\n  (state <s> ^name foo)\n-->\n  (<s> ^bar baz)\n}\n");
+    assertReadsLikeEditorKit("");
+  }
+
+  @Test
+  void tabsBecomeTwoSpaces() throws Exception {
+    assertReadsLikeEditorKit("\tsp {rule\n\t\t(state <s>)\n-->\t\n}");
+  }
+
+  @Test
+  void lineEndingsAreNormalized() throws Exception {
+    assertReadsLikeEditorKit("a\r\nb\r\n");
+    assertReadsLikeEditorKit("a\rb\r");
+    assertReadsLikeEditorKit("a\r\r\nb\n\tc\r");
+    assertReadsLikeEditorKit("\r");
+  }
+
+  @Test
+  void readsFiles() throws Exception {
+    Path file = Files.createTempFile("rules", ".soar");
+    Files.writeString(file, "sp {rule\r\n\t(state <s>)\r\n}\r\n");
+
+    RuleFileContents contents = RuleFileContents.read(file);
+
+    assertEquals("sp {rule\n  (state <s>)\n}\n", contents.getText());
+    assertEquals("\r\n", contents.getLineSeparator());
+  }
+}
@@ -2,6 +2,10 @@ package edu.umich.soar.visualsoar.ruleeditor;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+import org.junit.jupiter.api.Test;
+
 class SoarAutocompleteTest {
 //  TODO: fix this issue
 //sp {thor-soar*propose*anchor-relation-category
@@ -15,5 +19,82 @@ class SoarAutocompleteTest {
 //    (state <s> ^name thor-soar
 //      ^world <NO AUTO COMPLETES HERE, WHICH IS WRONG
 
+  @Test
+  void findsProductionBeforeCaret() throws BadLocationException {
+    PlainDocument document = new PlainDocument();
+    String text = "sp {first\n(state <s>)\n-->\n}\nsp {second\n(state <s> ^na";
+    document.insertString(0, text, null);
+
+    assertEquals(
+        "sp {second\n(state <s> ^na",
+        SoarAutocomplete.productionBeforeCaret(document, text.length()));
+    assertEquals("sp {first\n", SoarAutocomplete.productionBeforeCaret(document, 10));
+  }
+
+  @Test
+  void noProductionBeforeCaret() throws BadLocationException {
+    PlainDocument document = new PlainDocument();
+    document.insertString(0, "# comment\nsp {a", null);
+
+    assertNull(SoarAutocomplete.productionBeforeCaret(document, 9));
+  }
+
+  @Test
+  void productionMayStartAtCaret() throws BadLocationException {
+    PlainDocument document = new PlainDocument();
+    document.insertString(0, "sp {a (state <s> ^b c) --> }\nsp {", null);
+
+    // like String.lastIndexOf, an "sp " starting at the caret counts
+    assertEquals("", SoarAutocomplete.productionBeforeCaret(document, 29));
+    assertEquals("s", SoarAutocomplete.productionBeforeCaret(document, 30));
+  }
+
+  @Test
+  void attributeQuery() {
+    SoarAutocomplete.Query query = SoarAutocomplete.query("sp {test (state <s> ^na");
+
+    assertNotNull(query);
+    assertTrue(query.attribute);
+    assertEquals("na", query.userType);
+    assertEquals("sp {test (state <s> ^<$$>) --> }", query.template);
+  }
+
+  @Test
+  void dottedAttributeQuery() {
+    SoarAutocomplete.Query query = SoarAutocomplete.query("sp {test (state <s> ^io.in");
+
+    assertNotNull(query);
+    assertTrue(query.attribute);
+    assertEquals("in", query.userType);
+    assertEquals("sp {test (state <s> ^io.<$$>) --> }", query.template);
+  }
+
+  @Test
+  void valueQueryOnActionSide() {
+    SoarAutocomplete.Query query =
+        SoarAutocomplete.query("sp {test (state <s> ^name a) --> (<s> ^type s");
+
+    assertNotNull(query);
+    assertFalse(query.attribute);
+    assertEquals("s", query.userType);
+    assertEquals("sp {test (state <s> ^name a) --> (<s> ^type <$$> <$$$>)}", query.template);
+    assertEquals(
+        java.util.Collections.singletonList("<type>"),
+        SoarAutocomplete.getVariableMatches(query.template));
+  }
+
+  @Test
+  void emptyAttributeNameSuggestsNoVariable() {
+    SoarAutocomplete.Query query = SoarAutocomplete.query("sp {test (state <s> ^ ");
+
+    assertNotNull(query);
+    assertFalse(query.attribute);
+    assertTrue(SoarAutocomplete.getVariableMatches(query.template).isEmpty());
+  }
 
+  @Test
+  void noQueryOutsideAttributesAndValues() {
+    assertNull(SoarAutocomplete.query("sp {test"));
+    assertNull(SoarAutocomplete.query("sp {test (state <s>"));
+  }
 }
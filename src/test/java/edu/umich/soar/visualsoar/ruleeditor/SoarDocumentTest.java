@@ -1,8 +1,14 @@
 package edu.umich.soar.visualsoar.ruleeditor;
 
+import edu.umich.soar.visualsoar.parser.ParseException;
+import edu.umich.soar.visualsoar.parser.SoarParser;
+import edu.umich.soar.visualsoar.parser.SoarProduction;
 import org.junit.jupiter.api.Test;
 
 import javax.swing.text.BadLocationException;
+import javax.swing.text.SimpleAttributeSet;
+import java.io.StringReader;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,4 +41,103 @@ class SoarDocumentTest {
     assertEquals(expectedCaretPos, newCaretPos, "Negative test: expected caret to align with ^ on previous line");
 
   }
+
+  @Test
+  void revisionCountsTextChangesOnly() throws BadLocationException {
+    SoarDocument document = new SoarDocument();
+    long initial = document.getRevision();
+
+    document.insertString(0, "sp {rule-name\n", null);
+    long afterInsert = document.getRevision();
+    assertNotEquals(initial, afterInsert);
+
+    document.setCharacterAttributes(0, 2, new SimpleAttributeSet(), true);
+    assertEquals(afterInsert, document.getRevision());
+
+    document.remove(0, 3);
+    assertNotEquals(afterInsert, document.getRevision());
+  }
+
+  private static final String RULES =
+      "# first\n"
+          + "sp {first\n"
+          + "   (state <s> ^type state)\n"
+          + "-->\n"
+          + "   (<s> ^a b)}\n"
+          + "\n"
+          + "watch 1\n"
+          + "sp {second\n"
+          + "   (state <s> ^type state)\n"
+          + "-->\n"
+          + "   (<s> ^c d)}\n";
+
+  @Test
+  void parseProductionsMatchesParsingTheWholeText() throws Exception {
+    SoarDocument document = new SoarDocument();
+    document.insertString(0, RULES, null);
+
+    assertSameProductions(parseAll(RULES), document.parseProductions());
+  }
+
+  @Test
+  void parseProductionsOnlyReparsesEditedProductions() throws Exception {
+    SoarDocument document = new SoarDocument();
+    document.insertString(0, RULES, null);
+    List<SoarProduction> before = document.parseProductions();
+
+    document.insertString(RULES.indexOf("^c d"), "^e f ", null);
+    List<SoarProduction> after = document.parseProductions();
+
+    assertSame(before.get(0), after.get(0));
+    assertNotSame(before.get(1), after.get(1));
+    assertSameProductions(parseAll(getText(document)), after);
+  }
+
+  @Test
+  void parseProductionsKeepsLineNumbersCurrent() throws Exception {
+    SoarDocument document = new SoarDocument();
+    document.insertString(0, RULES, null);
+    document.parseProductions();
+
+    document.insertString(0, "\n\n", null);
+    List<SoarProduction> after = document.parseProductions();
+
+    assertEquals(4, after.get(0).getStartLine());
+    assertEquals(10, after.get(1).getStartLine());
+    assertSameProductions(parseAll(getText(document)), after);
+  }
+
+  @Test
+  void parseProductionsReportsErrorsLikeTheParser() throws Exception {
+    SoarDocument document = new SoarDocument();
+    document.insertString(0, RULES, null);
+    document.parseProductions();
+
+    int arrow = RULES.lastIndexOf("-->");
+    document.remove(arrow, 3);
+    ParseException expected = assertThrows(ParseException.class, () -> parseAll(getText(document)));
+    ParseException actual = assertThrows(ParseException.class, document::parseProductions);
+    assertEquals(expected.getMessage(), actual.getMessage());
+
+    document.insertString(arrow, "-->", null);
+    assertSameProductions(parseAll(RULES), document.parseProductions());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<SoarProduction> parseAll(String text) throws ParseException {
+    return new SoarParser(new StringReader(text)).VisualSoarFile();
+  }
+
+  private static String getText(SoarDocument document) throws BadLocationException {
+    return document.getText(0, document.getLength());
+  }
+
+  private static void assertSameProductions(
+      List<SoarProduction> expected, List<SoarProduction> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getName(), actual.get(i).getName());
+      assertEquals(expected.get(i).getStartLine(), actual.get(i).getStartLine());
+    }
+  }
 }